@@ -1,61 +1,76 @@
 package com.web.capas.application.decorator;
 
+import com.web.capas.application.factory.NotificacionType;
+import com.web.capas.application.metricas.HistogramaLatencia;
 import com.web.capas.application.service.notificacion.NotificacionService;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
+// La fábrica crea una sola instancia por tipo, así los contadores acumulan todos los envíos
 public class MetricasNotificacionDecorator extends NotificacionDecorator {
     
-    private final AtomicInteger totalNotificaciones = new AtomicInteger(0);
-    private final AtomicInteger notificacionesExitosas = new AtomicInteger(0);
-    private final AtomicInteger notificacionesFallidas = new AtomicInteger(0);
+    private final NotificacionType tipo;
+    private final LongAdder totalNotificaciones = new LongAdder();
+    private final LongAdder notificacionesExitosas = new LongAdder();
+    private final LongAdder notificacionesFallidas = new LongAdder();
+    private final HistogramaLatencia latencia = new HistogramaLatencia();
 
-    public MetricasNotificacionDecorator(NotificacionService notificacionDecorada) {
+    public MetricasNotificacionDecorator(NotificacionType tipo, NotificacionService notificacionDecorada) {
         super(notificacionDecorada);
+        this.tipo = tipo;
     }
 
     @Override
     public void enviarNotificacion(String destinatario, String mensaje) {
-        totalNotificaciones.incrementAndGet();
-        long startTime = System.currentTimeMillis();
+        totalNotificaciones.increment();
+        long inicio = System.nanoTime();
         
         try {
             // Delegar al servicio original
             super.enviarNotificacion(destinatario, mensaje);
-            
-            notificacionesExitosas.incrementAndGet();
-            long endTime = System.currentTimeMillis();
-            long tiempoEjecucion = endTime - startTime;
-            
-            // Log de métricas (en producción esto iría a un sistema de monitoreo)
-            System.out.println("MÉTRICAS - Notificación exitosa:");
-            System.out.println("   Tipo: " + (this.soportaTipo("WHATSAPP") ? "WHATSAPP" : "EMAIL"));
-            System.out.println("   Tiempo: " + tiempoEjecucion + "ms");
-            System.out.println("   Total enviadas: " + totalNotificaciones.get());
-            System.out.println("   Éxito: " + notificacionesExitosas.get());
-            System.out.println("   Fallidas: " + notificacionesFallidas.get());
-            
+            notificacionesExitosas.increment();
         } catch (Exception e) {
-            notificacionesFallidas.incrementAndGet();
-            System.err.println("MÉTRICAS - Notificación fallida: " + e.getMessage());
+            notificacionesFallidas.increment();
             throw e;
+        } finally {
+            latencia.registrar(System.nanoTime() - inicio);
         }
     }
 
     // Métodos para obtener métricas
-    public int getTotalNotificaciones() {
-        return totalNotificaciones.get();
+    public NotificacionType getTipo() {
+        return tipo;
     }
     
-    public int getNotificacionesExitosas() {
-        return notificacionesExitosas.get();
+    public long getTotalNotificaciones() {
+        return totalNotificaciones.sum();
     }
     
-    public int getNotificacionesFallidas() {
-        return notificacionesFallidas.get();
+    public long getNotificacionesExitosas() {
+        return notificacionesExitosas.sum();
+    }
+    
+    public long getNotificacionesFallidas() {
+        return notificacionesFallidas.sum();
     }
     
     public double getTasaExito() {
-        int total = totalNotificaciones.get();
-        return total > 0 ? (notificacionesExitosas.get() * 100.0) / total : 0.0;
+        long total = totalNotificaciones.sum();
+        return total > 0 ? (notificacionesExitosas.sum() * 100.0) / total : 0.0;
+    }
+    
+    public HistogramaLatencia getLatencia() {
+        return latencia;
+    }
+    
+    public Map<String, Object> resumen() {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("total", getTotalNotificaciones());
+        datos.put("exitosas", getNotificacionesExitosas());
+        datos.put("fallidas", getNotificacionesFallidas());
+        datos.put("tasaExito", getTasaExito());
+        datos.put("latencia", latencia.resumen());
+        return datos;
     }
-}
\ No newline at end of file
+}
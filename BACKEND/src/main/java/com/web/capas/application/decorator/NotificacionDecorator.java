@@ -4,7 +4,7 @@ import com.web.capas.application.service.notificacion.NotificacionService;
 
 public abstract class NotificacionDecorator implements NotificacionService {
     
-    protected NotificacionService notificacionDecorada;
+    protected final NotificacionService notificacionDecorada;
 
     public NotificacionDecorator(NotificacionService notificacionDecorada) {
         this.notificacionDecorada = notificacionDecorada;
@@ -7,9 +7,15 @@ import com.web.capas.application.service.notificacion.SMSNotificacionService;
 import com.web.capas.application.decorator.LoggingNotificacionDecorator;
 import com.web.capas.application.decorator.ValidacionNotificacionDecorator;
 import com.web.capas.application.decorator.MetricasNotificacionDecorator;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Component
 public class NotificacionFactory {
     
@@ -22,30 +28,57 @@ public class NotificacionFactory {
     @Autowired
     private SMSNotificacionService smsService;
 
-    // FACTORY FUNCTION mejorada con Decorators
+    // Una cadena decorada por tipo, armada al iniciar. Los decorators no guardan estado por envío,
+    // así que la misma cadena se comparte entre hilos y las métricas acumulan entre envíos
+    private Map<NotificacionType, NotificacionService> cadenas;
+    private Map<NotificacionType, MetricasNotificacionDecorator> metricas;
+
+    @PostConstruct
+    public void armarCadenas() {
+        Map<NotificacionType, NotificacionService> cadenasArmadas = new EnumMap<>(NotificacionType.class);
+        Map<NotificacionType, MetricasNotificacionDecorator> metricasArmadas = new EnumMap<>(NotificacionType.class);
+        for (NotificacionType tipo : NotificacionType.values()) {
+            //APLICAR DECORATORS EN CADENA
+            NotificacionService servicioDecorado = obtenerServicioBase(tipo);
+            servicioDecorado = new ValidacionNotificacionDecorator(servicioDecorado);
+            servicioDecorado = new LoggingNotificacionDecorator(servicioDecorado);
+            MetricasNotificacionDecorator conMetricas = new MetricasNotificacionDecorator(tipo, servicioDecorado);
+            cadenasArmadas.put(tipo, conMetricas);
+            metricasArmadas.put(tipo, conMetricas);
+        }
+        cadenas = Collections.unmodifiableMap(cadenasArmadas);
+        metricas = Collections.unmodifiableMap(metricasArmadas);
+    }
+
+    // FACTORY FUNCTION con Decorators
     public NotificacionService crearNotificacion(NotificacionType tipo) {
-        NotificacionService servicioBase;
-        
+        NotificacionService servicio = cadenas.get(tipo);
+        if (servicio == null) {
+            throw new IllegalArgumentException("Tipo de notificación no soportado: " + tipo);
+        }
+        return servicio;
+    }
+
+    public Map<NotificacionType, MetricasNotificacionDecorator> getMetricas() {
+        return metricas;
+    }
+
+    public Map<String, Object> obtenerResumenMetricas() {
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        metricas.forEach((tipo, decorator) -> resumen.put(tipo.name(), decorator.resumen()));
+        return resumen;
+    }
+
+    private NotificacionService obtenerServicioBase(NotificacionType tipo) {
         switch (tipo) {
             case EMAIL:
-                servicioBase = emailService;
-                break;
+                return emailService;
             case WHATSAPP:
-                servicioBase = whatsAppService;
-                break;
+                return whatsAppService;
             case SMS:
-                servicioBase = smsService;
-                break;
+                return smsService;
             default:
                 throw new IllegalArgumentException("Tipo de notificación no soportado: " + tipo);
         }
-        
-        //APLICAR DECORATORS EN CADENA - Crear instancias manualmente
-        NotificacionService servicioDecorado = servicioBase;
-        servicioDecorado = new ValidacionNotificacionDecorator(servicioDecorado);
-        servicioDecorado = new LoggingNotificacionDecorator(servicioDecorado);
-        servicioDecorado = new MetricasNotificacionDecorator(servicioDecorado);
-        
-        return servicioDecorado;
     }
-}
\ No newline at end of file
+}
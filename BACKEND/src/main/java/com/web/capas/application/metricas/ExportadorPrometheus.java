@@ -0,0 +1,208 @@
+package com.web.capas.application.metricas;
+
+import com.web.capas.application.decorator.MetricasNotificacionDecorator;
+import com.web.capas.application.factory.NotificacionFactory;
+import com.web.capas.application.proxy.CircuitoProveedor;
+import com.web.capas.application.proxy.EjecutorReintentos;
+import com.web.capas.application.proxy.ProteccionProveedores;
+import com.web.capas.application.service.ColaCorreos;
+import com.web.capas.application.service.HashContrasenas;
+import com.web.capas.application.service.JwtService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// Arma el texto de métricas en el formato de exposición de Prometheus (text/plain; version=0.0.4)
+// a partir de los contadores que ya lleva cada componente. No guarda estado propio.
+@Component
+public class ExportadorPrometheus {
+
+    private final RegistroMetricas registroMetricas;
+    private final ProteccionProveedores proteccionProveedores;
+    private final NotificacionFactory notificacionFactory;
+    private final EjecutorReintentos ejecutorReintentos;
+    private final ColaCorreos colaCorreos;
+    private final DataSource dataSource;
+    private final JwtService jwtService;
+    private final HashContrasenas hashContrasenas;
+
+    public ExportadorPrometheus(RegistroMetricas registroMetricas, ProteccionProveedores proteccionProveedores,
+                                NotificacionFactory notificacionFactory, EjecutorReintentos ejecutorReintentos,
+                                ColaCorreos colaCorreos, DataSource dataSource, JwtService jwtService,
+                                HashContrasenas hashContrasenas) {
+        this.registroMetricas = registroMetricas;
+        this.proteccionProveedores = proteccionProveedores;
+        this.notificacionFactory = notificacionFactory;
+        this.ejecutorReintentos = ejecutorReintentos;
+        this.colaCorreos = colaCorreos;
+        this.dataSource = dataSource;
+        this.jwtService = jwtService;
+        this.hashContrasenas = hashContrasenas;
+    }
+
+    public String exportar() {
+        StringBuilder salida = new StringBuilder(8192);
+        exportarPeticiones(salida);
+        exportarProveedores(salida);
+        exportarNotificaciones(salida);
+        exportarPoolConexiones(salida);
+        exportarColas(salida);
+        exportarJwt(salida);
+        exportarBcrypt(salida);
+        return salida.toString();
+    }
+
+    private void exportarPeticiones(StringBuilder salida) {
+        cabecera(salida, "app_http_duracion_segundos", "histogram", "Duración de las peticiones HTTP por ruta");
+        for (Map.Entry<RegistroMetricas.ClavePeticion, HistogramaLatencia> entrada : registroMetricas.getPeticiones().entrySet()) {
+            RegistroMetricas.ClavePeticion clave = entrada.getKey();
+            histograma(salida, "app_http_duracion_segundos", entrada.getValue(),
+                "metodo", clave.getMetodo(), "ruta", clave.getRuta(), "estado", clave.getEstado());
+        }
+    }
+
+    private void exportarProveedores(StringBuilder salida) {
+        cabecera(salida, "app_proveedor_duracion_segundos", "histogram", "Duración de las llamadas a proveedores externos");
+        for (CircuitoProveedor circuito : proteccionProveedores.getCircuitos()) {
+            histograma(salida, "app_proveedor_duracion_segundos", circuito.getLatencia(), "proveedor", circuito.getNombre());
+        }
+
+        cabecera(salida, "app_proveedor_llamadas_total", "counter", "Llamadas a proveedores externos por resultado");
+        for (CircuitoProveedor circuito : proteccionProveedores.getCircuitos()) {
+            String nombre = circuito.getNombre();
+            muestra(salida, "app_proveedor_llamadas_total", circuito.getExitosas(), "proveedor", nombre, "resultado", "exito");
+            muestra(salida, "app_proveedor_llamadas_total", circuito.getFallidas(), "proveedor", nombre, "resultado", "fallo");
+            muestra(salida, "app_proveedor_llamadas_total", circuito.getRechazadasCircuito(), "proveedor", nombre, "resultado", "circuito_abierto");
+            muestra(salida, "app_proveedor_llamadas_total", circuito.getRechazadasCupo(), "proveedor", nombre, "resultado", "sin_cupo");
+        }
+
+        cabecera(salida, "app_proveedor_circuito_abierto", "gauge", "1 si el circuito del proveedor no está cerrado");
+        for (CircuitoProveedor circuito : proteccionProveedores.getCircuitos()) {
+            muestra(salida, "app_proveedor_circuito_abierto",
+                circuito.getEstado() == CircuitoProveedor.Estado.CERRADO ? 0 : 1, "proveedor", circuito.getNombre());
+        }
+
+        cabecera(salida, "app_proveedor_llamadas_en_curso", "gauge", "Llamadas en curso por proveedor");
+        for (CircuitoProveedor circuito : proteccionProveedores.getCircuitos()) {
+            muestra(salida, "app_proveedor_llamadas_en_curso", circuito.getEnCurso(), "proveedor", circuito.getNombre());
+        }
+    }
+
+    private void exportarNotificaciones(StringBuilder salida) {
+        Map<?, MetricasNotificacionDecorator> metricas = notificacionFactory.getMetricas();
+
+        cabecera(salida, "app_notificaciones_total", "counter", "Notificaciones enviadas por tipo y resultado");
+        for (MetricasNotificacionDecorator decorator : metricas.values()) {
+            String tipo = decorator.getTipo().name();
+            muestra(salida, "app_notificaciones_total", decorator.getNotificacionesExitosas(), "tipo", tipo, "resultado", "exito");
+            muestra(salida, "app_notificaciones_total", decorator.getNotificacionesFallidas(), "tipo", tipo, "resultado", "fallo");
+        }
+
+        cabecera(salida, "app_notificaciones_duracion_segundos", "histogram", "Duración del envío de notificaciones por tipo");
+        for (MetricasNotificacionDecorator decorator : metricas.values()) {
+            histograma(salida, "app_notificaciones_duracion_segundos", decorator.getLatencia(), "tipo", decorator.getTipo().name());
+        }
+    }
+
+    // Saturación del pool: hilos esperando conexión > 0 indica que el pool es el cuello de botella
+    private void exportarPoolConexiones(StringBuilder salida) {
+        if (!(dataSource instanceof HikariDataSource hikari)) {
+            return;
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (pool == null) {
+            return;
+        }
+        cabecera(salida, "app_db_conexiones", "gauge", "Conexiones del pool de base de datos por estado");
+        muestra(salida, "app_db_conexiones", pool.getActiveConnections(), "estado", "activas");
+        muestra(salida, "app_db_conexiones", pool.getIdleConnections(), "estado", "inactivas");
+        muestra(salida, "app_db_conexiones", pool.getTotalConnections(), "estado", "total");
+        muestra(salida, "app_db_conexiones", hikari.getMaximumPoolSize(), "estado", "maximo");
+
+        cabecera(salida, "app_db_hilos_esperando_conexion", "gauge", "Hilos bloqueados esperando una conexión del pool");
+        muestra(salida, "app_db_hilos_esperando_conexion", pool.getThreadsAwaitingConnection());
+    }
+
+    private void exportarColas(StringBuilder salida) {
+        Map<String, Object> reintentos = ejecutorReintentos.obtenerEstado();
+        cabecera(salida, "app_cola_pendientes", "gauge", "Trabajos pendientes en las colas en segundo plano");
+        muestra(salida, "app_cola_pendientes", ((Number) reintentos.get("pendientes")).doubleValue(), "cola", "reintentos_whatsapp");
+        muestra(salida, "app_cola_pendientes", colaCorreos.getPendientes(), "cola", "correos");
+        Map<String, Object> bcrypt = hashContrasenas.obtenerEstado();
+        muestra(salida, "app_cola_pendientes", ((Number) bcrypt.get("enCola")).doubleValue(), "cola", "bcrypt");
+
+        cabecera(salida, "app_reintentos_whatsapp_total", "counter", "Envíos de WhatsApp con reintento por resultado");
+        for (String resultado : new String[] {"exitosos", "fallidos", "reintentos", "rechazados"}) {
+            muestra(salida, "app_reintentos_whatsapp_total", ((Number) reintentos.get(resultado)).doubleValue(), "resultado", resultado);
+        }
+    }
+
+    private void exportarJwt(StringBuilder salida) {
+        cabecera(salida, "app_jwt_tokens_total", "counter", "Tokens JWT resueltos desde la cache o verificando la firma");
+        muestra(salida, "app_jwt_tokens_total", jwtService.getAciertosCache(), "origen", "cache");
+        muestra(salida, "app_jwt_tokens_total", jwtService.getVerificaciones(), "origen", "verificacion");
+        cabecera(salida, "app_jwt_cache_tamano", "gauge", "Tokens verificados guardados en memoria");
+        muestra(salida, "app_jwt_cache_tamano", jwtService.getTamanoCache());
+    }
+
+    private void exportarBcrypt(StringBuilder salida) {
+        Map<String, Object> estado = hashContrasenas.obtenerEstado();
+        cabecera(salida, "app_bcrypt_hashes_total", "counter", "Operaciones de BCrypt completadas o rechazadas por cola llena");
+        muestra(salida, "app_bcrypt_hashes_total", ((Number) estado.get("completados")).doubleValue(), "resultado", "completado");
+        muestra(salida, "app_bcrypt_hashes_total", ((Number) estado.get("rechazados")).doubleValue(), "resultado", "rechazado");
+        cabecera(salida, "app_bcrypt_costo", "gauge", "Costo de BCrypt calibrado al arrancar");
+        muestra(salida, "app_bcrypt_costo", hashContrasenas.getCosto());
+    }
+
+    private void histograma(StringBuilder salida, String nombre, HistogramaLatencia histograma, String... etiquetas) {
+        long[] limitesMs = histograma.getLimitesMs();
+        long[] acumulados = histograma.obtenerAcumulados();
+        for (int i = 0; i < limitesMs.length; i++) {
+            linea(salida, nombre + "_bucket", acumulados[i], etiquetas, String.valueOf(limitesMs[i] / 1000.0));
+        }
+        long total = acumulados[acumulados.length - 1];
+        linea(salida, nombre + "_bucket", total, etiquetas, "+Inf");
+        linea(salida, nombre + "_sum", histograma.getSumaSegundos(), etiquetas, null);
+        linea(salida, nombre + "_count", total, etiquetas, null);
+    }
+
+    private void cabecera(StringBuilder salida, String nombre, String tipo, String ayuda) {
+        salida.append("# HELP ").append(nombre).append(' ').append(ayuda).append('\n');
+        salida.append("# TYPE ").append(nombre).append(' ').append(tipo).append('\n');
+    }
+
+    private void muestra(StringBuilder salida, String nombre, double valor, String... etiquetas) {
+        linea(salida, nombre, valor, etiquetas, null);
+    }
+
+    private void linea(StringBuilder salida, String nombre, double valor, String[] etiquetas, String limite) {
+        salida.append(nombre);
+        if (etiquetas.length > 0 || limite != null) {
+            salida.append('{');
+            for (int i = 0; i < etiquetas.length; i += 2) {
+                if (i > 0) {
+                    salida.append(',');
+                }
+                salida.append(etiquetas[i]).append("=\"").append(escapar(etiquetas[i + 1])).append('"');
+            }
+            if (limite != null) {
+                salida.append(etiquetas.length > 0 ? "," : "").append("le=\"").append(limite).append('"');
+            }
+            salida.append('}');
+        }
+        salida.append(' ');
+        if (valor == Math.rint(valor) && !Double.isInfinite(valor)) {
+            salida.append((long) valor);
+        } else {
+            salida.append(valor);
+        }
+        salida.append('\n');
+    }
+
+    private String escapar(String valor) {
+        return valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
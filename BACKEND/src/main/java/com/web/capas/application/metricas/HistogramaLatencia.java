@@ -0,0 +1,100 @@
+package com.web.capas.application.metricas;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histograma de latencias por tramos fijos. Cada tramo es un LongAdder, así muchos hilos pueden
+// registrar a la vez sin competir por el mismo contador. Los percentiles se estiman con el límite
+// superior del tramo donde caen.
+public class HistogramaLatencia {
+
+    // Límites superiores de cada tramo, en milisegundos; lo que los supera cae en el tramo +Inf
+    public static final long[] LIMITES_MS_POR_DEFECTO = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final long[] limitesMs;
+    // Los mismos límites en nanos: 5.9 ms no entra en el tramo le=5 aunque trunque a 5
+    private final long[] limitesNanos;
+    private final LongAdder[] tramos;
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder sumaNanos = new LongAdder();
+    private final LongAccumulator maximoNanos = new LongAccumulator(Math::max, 0);
+
+    public HistogramaLatencia() {
+        this(LIMITES_MS_POR_DEFECTO);
+    }
+
+    public HistogramaLatencia(long[] limitesMs) {
+        this.limitesMs = limitesMs.clone();
+        this.limitesNanos = new long[limitesMs.length];
+        for (int i = 0; i < limitesMs.length; i++) {
+            limitesNanos[i] = limitesMs[i] * 1_000_000;
+        }
+        this.tramos = new LongAdder[limitesMs.length + 1];
+        for (int i = 0; i < tramos.length; i++) {
+            tramos[i] = new LongAdder();
+        }
+    }
+
+    public void registrar(long nanos) {
+        int tramo = 0;
+        while (tramo < limitesNanos.length && nanos > limitesNanos[tramo]) {
+            tramo++;
+        }
+        tramos[tramo].increment();
+        cantidad.increment();
+        sumaNanos.add(nanos);
+        maximoNanos.accumulate(nanos);
+    }
+
+    public long[] getLimitesMs() {
+        return limitesMs.clone();
+    }
+
+    public long getCantidad() {
+        return cantidad.sum();
+    }
+
+    public double getSumaSegundos() {
+        return sumaNanos.sum() / 1_000_000_000.0;
+    }
+
+    // Conteos acumulados por tramo (el último es el total), como los espera el formato de Prometheus
+    public long[] obtenerAcumulados() {
+        long[] acumulados = new long[tramos.length];
+        long total = 0;
+        for (int i = 0; i < tramos.length; i++) {
+            total += tramos[i].sum();
+            acumulados[i] = total;
+        }
+        return acumulados;
+    }
+
+    public Map<String, Object> resumen() {
+        long[] acumulados = obtenerAcumulados();
+        long total = acumulados[acumulados.length - 1];
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("cantidad", total);
+        datos.put("promedioMs", total > 0 ? (sumaNanos.sum() / 1_000_000.0) / total : 0.0);
+        datos.put("maximoMs", maximoNanos.get() / 1_000_000.0);
+        datos.put("p50Ms", estimarPercentil(acumulados, 0.50));
+        datos.put("p95Ms", estimarPercentil(acumulados, 0.95));
+        datos.put("p99Ms", estimarPercentil(acumulados, 0.99));
+        return datos;
+    }
+
+    private double estimarPercentil(long[] acumulados, double percentil) {
+        long total = acumulados[acumulados.length - 1];
+        if (total == 0) {
+            return 0.0;
+        }
+        long objetivo = (long) Math.ceil(total * percentil);
+        for (int i = 0; i < limitesMs.length; i++) {
+            if (acumulados[i] >= objetivo) {
+                return limitesMs[i];
+            }
+        }
+        return maximoNanos.get() / 1_000_000.0;
+    }
+}
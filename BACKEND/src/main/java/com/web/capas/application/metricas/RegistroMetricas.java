@@ -0,0 +1,63 @@
+package com.web.capas.application.metricas;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Latencias de las peticiones HTTP por método, ruta (el patrón, no la URL concreta) y clase de estado.
+// Usar el patrón mantiene acotada la cantidad de series: /api/v1/pedidos/{id} es una sola.
+@Component
+public class RegistroMetricas {
+
+    private final Map<ClavePeticion, HistogramaLatencia> peticiones = new ConcurrentHashMap<>();
+
+    public void registrarPeticion(String metodo, String ruta, int estado, long nanos) {
+        ClavePeticion clave = new ClavePeticion(metodo, ruta, (estado / 100) + "xx");
+        peticiones.computeIfAbsent(clave, k -> new HistogramaLatencia()).registrar(nanos);
+    }
+
+    public Map<ClavePeticion, HistogramaLatencia> getPeticiones() {
+        return peticiones;
+    }
+
+    public static final class ClavePeticion {
+        private final String metodo;
+        private final String ruta;
+        private final String estado;
+
+        private ClavePeticion(String metodo, String ruta, String estado) {
+            this.metodo = metodo;
+            this.ruta = ruta;
+            this.estado = estado;
+        }
+
+        public String getMetodo() {
+            return metodo;
+        }
+
+        public String getRuta() {
+            return ruta;
+        }
+
+        public String getEstado() {
+            return estado;
+        }
+
+        @Override
+        public boolean equals(Object otro) {
+            if (this == otro) {
+                return true;
+            }
+            if (!(otro instanceof ClavePeticion clave)) {
+                return false;
+            }
+            return metodo.equals(clave.metodo) && ruta.equals(clave.ruta) && estado.equals(clave.estado);
+        }
+
+        @Override
+        public int hashCode() {
+            return (metodo.hashCode() * 31 + ruta.hashCode()) * 31 + estado.hashCode();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.web.capas.application.proxy;
+
+import com.web.capas.application.metricas.HistogramaLatencia;
+import com.web.capas.domain.ProveedorNoDisponibleException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+// Circuito y cupo de llamadas simultáneas de un proveedor. Tras N fallos seguidos el circuito se abre
+// y las llamadas se rechazan sin tocar la red; pasada la espera deja pasar una sola llamada de prueba
+// (semiabierto) que decide si vuelve a cerrarse o sigue abierto.
+public class CircuitoProveedor {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitoProveedor.class);
+
+    public enum Estado { CERRADO, ABIERTO, SEMIABIERTO }
+
+    @FunctionalInterface
+    public interface Llamada<T, E extends Exception> {
+        T ejecutar() throws E;
+    }
+
+    private final String nombre;
+    private final int umbralFallos;
+    private final long esperaAbiertoMs;
+    private final long esperaCupoMs;
+    private final int maxConcurrentes;
+    private final Semaphore cupos;
+
+    private final AtomicReference<Estado> estado = new AtomicReference<>(Estado.CERRADO);
+    private final AtomicInteger fallosSeguidos = new AtomicInteger();
+    private volatile long abiertoDesde;
+
+    private final AtomicLong exitosas = new AtomicLong();
+    private final AtomicLong fallidas = new AtomicLong();
+    private final AtomicLong rechazadasCircuito = new AtomicLong();
+    private final AtomicLong rechazadasCupo = new AtomicLong();
+    private final HistogramaLatencia latencia = new HistogramaLatencia();
+
+    public CircuitoProveedor(String nombre, int umbralFallos, long esperaAbiertoMs, long esperaCupoMs, int maxConcurrentes) {
+        this.nombre = nombre;
+        this.umbralFallos = umbralFallos;
+        this.esperaAbiertoMs = esperaAbiertoMs;
+        this.esperaCupoMs = esperaCupoMs;
+        this.maxConcurrentes = maxConcurrentes;
+        this.cupos = new Semaphore(maxConcurrentes);
+    }
+
+    // cuentaComoFallo decide qué errores son del proveedor; los errores de datos (4xx) no abren el circuito
+    public <T, E extends Exception> T ejecutar(Llamada<T, E> llamada, Predicate<Exception> cuentaComoFallo) throws E {
+        Estado admitida = permitir();
+        if (admitida == null) {
+            rechazadasCircuito.incrementAndGet();
+            throw new ProveedorNoDisponibleException(nombre,
+                "El servicio " + nombre + " no está disponible en este momento, intenta nuevamente en unos minutos");
+        }
+        boolean esPrueba = admitida == Estado.SEMIABIERTO;
+        if (!tomarCupo()) {
+            rechazadasCupo.incrementAndGet();
+            // Si era la llamada de prueba, se devuelve el turno para que la siguiente lo intente
+            if (esPrueba) {
+                estado.compareAndSet(Estado.SEMIABIERTO, Estado.ABIERTO);
+            }
+            throw new ProveedorNoDisponibleException(nombre,
+                "El servicio " + nombre + " está saturado, intenta nuevamente en unos segundos");
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            T resultado = llamada.ejecutar();
+            registrarExito(esPrueba);
+            return resultado;
+        } catch (Exception e) {
+            if (cuentaComoFallo.test(e)) {
+                registrarFallo(e, esPrueba);
+            } else {
+                registrarExito(esPrueba);
+            }
+            throw e;
+        } finally {
+            latencia.registrar(System.nanoTime() - inicio);
+            cupos.release();
+        }
+    }
+
+    public void reiniciar() {
+        fallosSeguidos.set(0);
+        estado.set(Estado.CERRADO);
+        logger.info("Circuito {} cerrado manualmente", nombre);
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public Estado getEstado() {
+        return estado.get();
+    }
+
+    public int getEnCurso() {
+        return maxConcurrentes - cupos.availablePermits();
+    }
+
+    public long getExitosas() {
+        return exitosas.get();
+    }
+
+    public long getFallidas() {
+        return fallidas.get();
+    }
+
+    public long getRechazadasCircuito() {
+        return rechazadasCircuito.get();
+    }
+
+    public long getRechazadasCupo() {
+        return rechazadasCupo.get();
+    }
+
+    public HistogramaLatencia getLatencia() {
+        return latencia;
+    }
+
+    public Map<String, Object> obtenerEstado() {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        Estado actual = estado.get();
+        datos.put("estado", actual.name());
+        datos.put("fallosSeguidos", fallosSeguidos.get());
+        if (actual == Estado.ABIERTO) {
+            datos.put("msHastaPrueba", Math.max(0, esperaAbiertoMs - (System.currentTimeMillis() - abiertoDesde)));
+        }
+        datos.put("enCurso", maxConcurrentes - cupos.availablePermits());
+        datos.put("maxConcurrentes", maxConcurrentes);
+        datos.put("exitosas", exitosas.get());
+        datos.put("fallidas", fallidas.get());
+        datos.put("rechazadasCircuito", rechazadasCircuito.get());
+        datos.put("rechazadasCupo", rechazadasCupo.get());
+        datos.put("latencia", latencia.resumen());
+        return datos;
+    }
+
+    // Devuelve el estado con el que se admitió la llamada (SEMIABIERTO = es la llamada de prueba) o null si se rechaza
+    private Estado permitir() {
+        Estado actual = estado.get();
+        if (actual == Estado.CERRADO) {
+            return Estado.CERRADO;
+        }
+        if (actual == Estado.ABIERTO && System.currentTimeMillis() - abiertoDesde >= esperaAbiertoMs
+                && estado.compareAndSet(Estado.ABIERTO, Estado.SEMIABIERTO)) {
+            return Estado.SEMIABIERTO;
+        }
+        return null;
+    }
+
+    private boolean tomarCupo() {
+        try {
+            return cupos.tryAcquire(esperaCupoMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Solo la llamada de prueba cierra el circuito. Una llamada que empezó con el circuito cerrado y termina
+    // bien después de que se abrió no lo cierra: los fallos que lo abrieron son más recientes
+    private void registrarExito(boolean esPrueba) {
+        exitosas.incrementAndGet();
+        if (esPrueba) {
+            if (estado.compareAndSet(Estado.SEMIABIERTO, Estado.CERRADO)) {
+                fallosSeguidos.set(0);
+                logger.info("Circuito {} cerrado: el proveedor respondió de nuevo", nombre);
+            }
+        } else if (estado.get() == Estado.CERRADO) {
+            fallosSeguidos.set(0);
+        }
+    }
+
+    private void registrarFallo(Exception e, boolean esPrueba) {
+        fallidas.incrementAndGet();
+        if (esPrueba) {
+            abiertoDesde = System.currentTimeMillis();
+            if (estado.compareAndSet(Estado.SEMIABIERTO, Estado.ABIERTO)) {
+                logger.warn("Circuito {} sigue abierto: falló la llamada de prueba ({}); se rechaza durante {} ms",
+                    nombre, e.getMessage(), esperaAbiertoMs);
+            }
+            return;
+        }
+        int fallos = fallosSeguidos.incrementAndGet();
+        // abiertoDesde se fija antes de abrir para que permitir() nunca lea el de una apertura anterior
+        if (fallos >= umbralFallos && estado.get() == Estado.CERRADO) {
+            abiertoDesde = System.currentTimeMillis();
+            if (estado.compareAndSet(Estado.CERRADO, Estado.ABIERTO)) {
+                logger.warn("Circuito {} abierto tras {} fallos seguidos ({}); se rechaza durante {} ms",
+                    nombre, fallos, e.getMessage(), esperaAbiertoMs);
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.web.capas.application.proxy;
+
+import com.web.capas.application.singleton.NotificacionConfiguracion;
+import com.web.capas.config.FabricaHilos;
+import com.web.capas.config.ReintentosProperties;
+import com.web.capas.domain.ServiceException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Ejecuta envíos con reintentos sin bloquear al hilo que los pide: el planificador solo lleva los tiempos
+// y cada intento corre en el ejecutor de envíos (hilos virtuales si están activos). La espera entre intentos
+// es exponencial con jitter. La cantidad de envíos pendientes está acotada (app.reintentos.capacidad);
+// si se llena, el envío se rechaza de inmediato.
+@Component
+public class EjecutorReintentos {
+
+    private static final Logger logger = LoggerFactory.getLogger(EjecutorReintentos.class);
+
+    private final NotificacionConfiguracion configuracion = NotificacionConfiguracion.getInstance();
+    private final ReintentosProperties properties;
+    private final ScheduledThreadPoolExecutor planificador;
+    private final ExecutorService envios;
+    private final boolean hilosVirtuales;
+    private final Semaphore capacidad;
+
+    private final AtomicInteger enEspera = new AtomicInteger();
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final AtomicLong exitosos = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+    private final AtomicLong reintentos = new AtomicLong();
+    private final AtomicLong rechazados = new AtomicLong();
+
+    public EjecutorReintentos(ReintentosProperties properties, FabricaHilos fabricaHilos) {
+        this.properties = properties;
+        this.capacidad = new Semaphore(properties.getCapacidad());
+        // El planificador nunca bloquea: solo entrega cada intento al ejecutor de envíos cuando vence la espera
+        Thread.Builder planificadorHilos = Thread.ofPlatform().name("reintentos-planificador").daemon(true);
+        this.planificador = new ScheduledThreadPoolExecutor(1, planificadorHilos.factory());
+        this.planificador.setRemoveOnCancelPolicy(true);
+        this.envios = fabricaHilos.crearEjecutor("reintentos-whatsapp", properties.getHilos());
+        this.hilosVirtuales = fabricaHilos.usaHilosVirtuales();
+    }
+
+    // El futuro se completa con el primer resultado exitoso, o con el último resultado/error al agotar los intentos
+    public <T> CompletableFuture<T> ejecutar(String descripcion, Supplier<T> operacion, Predicate<T> esExitoso) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        if (!capacidad.tryAcquire()) {
+            rechazados.incrementAndGet();
+            logger.warn("Cola de reintentos llena, se descarta: {}", descripcion);
+            resultado.completeExceptionally(new ServiceException("Cola de envíos llena, intenta nuevamente en unos segundos"));
+            return resultado;
+        }
+        resultado.whenComplete((valor, error) -> capacidad.release());
+        programar(new Envio<>(descripcion, operacion, esExitoso, resultado), 1, 0);
+        return resultado;
+    }
+
+    private <T> void programar(Envio<T> envio, int intento, long esperaMs) {
+        enEspera.incrementAndGet();
+        try {
+            planificador.schedule(() -> entregar(envio, intento), esperaMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            enEspera.decrementAndGet();
+            envio.resultado.completeExceptionally(e);
+        }
+    }
+
+    private <T> void entregar(Envio<T> envio, int intento) {
+        try {
+            envios.execute(() -> intentar(envio, intento));
+        } catch (RejectedExecutionException e) {
+            enEspera.decrementAndGet();
+            envio.resultado.completeExceptionally(e);
+        }
+    }
+
+    private <T> void intentar(Envio<T> envio, int intento) {
+        enEspera.decrementAndGet();
+        enCurso.incrementAndGet();
+        T valor = null;
+        RuntimeException error = null;
+        try {
+            valor = envio.operacion.get();
+        } catch (RuntimeException e) {
+            error = e;
+        } finally {
+            enCurso.decrementAndGet();
+        }
+
+        if (error == null && envio.esExitoso.test(valor)) {
+            exitosos.incrementAndGet();
+            envio.resultado.complete(valor);
+            return;
+        }
+
+        int maximo = configuracion.getMaximoReintentos();
+        String motivo = error != null ? error.getMessage() : "respuesta no exitosa";
+        if (intento >= maximo) {
+            fallidos.incrementAndGet();
+            logger.warn("{}: fallido tras {} intentos ({})", envio.descripcion, intento, motivo);
+            if (error != null) {
+                envio.resultado.completeExceptionally(error);
+            } else {
+                envio.resultado.complete(valor);
+            }
+            return;
+        }
+
+        long esperaMs = calcularEsperaMs(intento);
+        reintentos.incrementAndGet();
+        logger.warn("{}: intento {} de {} fallido ({}), reintento en {} ms", envio.descripcion, intento, maximo, motivo, esperaMs);
+        programar(envio, intento + 1, esperaMs);
+    }
+
+    // Espera base * 2^(intento-1), con la mitad fija y la otra mitad al azar para que los reintentos no coincidan
+    long calcularEsperaMs(int intento) {
+        long base = Math.max(configuracion.getTiempoEsperaEntreReintentos().toMillis(), 1);
+        long exponencial = Math.min(base * (1L << Math.min(intento - 1, 16)), properties.getEsperaMaximaMs());
+        long mitad = exponencial / 2;
+        return mitad + ThreadLocalRandom.current().nextLong(mitad + 1);
+    }
+
+    public Map<String, Object> obtenerEstado() {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("hilosVirtuales", hilosVirtuales);
+        estado.put("capacidad", properties.getCapacidad());
+        estado.put("pendientes", properties.getCapacidad() - capacidad.availablePermits());
+        estado.put("enEspera", enEspera.get());
+        estado.put("enCurso", enCurso.get());
+        estado.put("exitosos", exitosos.get());
+        estado.put("fallidos", fallidos.get());
+        estado.put("reintentos", reintentos.get());
+        estado.put("rechazados", rechazados.get());
+        return estado;
+    }
+
+    @PreDestroy
+    public void detener() {
+        planificador.shutdown();
+        envios.shutdown();
+    }
+
+    private static class Envio<T> {
+        private final String descripcion;
+        private final Supplier<T> operacion;
+        private final Predicate<T> esExitoso;
+        private final CompletableFuture<T> resultado;
+
+        private Envio(String descripcion, Supplier<T> operacion, Predicate<T> esExitoso, CompletableFuture<T> resultado) {
+            this.descripcion = descripcion;
+            this.operacion = operacion;
+            this.esExitoso = esExitoso;
+            this.resultado = resultado;
+        }
+    }
+}
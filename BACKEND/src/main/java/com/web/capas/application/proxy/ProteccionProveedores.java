@@ -0,0 +1,68 @@
+package com.web.capas.application.proxy;
+
+import com.web.capas.config.ResilienciaProperties;
+import com.web.capas.domain.RecursoNoEncontradoExcepcion;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+// Un circuito por proveedor externo. Los servicios envuelven aquí cada llamada de red para que,
+// si el proveedor se degrada, fallen rápido en lugar de quedarse esperando sus timeouts.
+@Component
+public class ProteccionProveedores {
+
+    public static final String STRIPE = "stripe";
+    public static final String TWILIO = "twilio";
+    public static final String ONESIGNAL = "onesignal";
+    public static final String SMTP = "smtp";
+
+    private final Map<String, CircuitoProveedor> circuitos = new LinkedHashMap<>();
+
+    public ProteccionProveedores(ResilienciaProperties properties) {
+        for (String nombre : new String[] {STRIPE, TWILIO, ONESIGNAL, SMTP}) {
+            ResilienciaProperties.Proveedor proveedor = properties.getProveedor(nombre);
+            circuitos.put(nombre, new CircuitoProveedor(nombre, properties.getUmbralFallos(),
+                properties.getEsperaAbiertoMs(), properties.getEsperaCupoMs(), proveedor.getMaxConcurrentes()));
+        }
+    }
+
+    public <T, E extends Exception> T ejecutar(String proveedor, CircuitoProveedor.Llamada<T, E> llamada) throws E {
+        return ejecutar(proveedor, llamada, e -> true);
+    }
+
+    public <T, E extends Exception> T ejecutar(String proveedor, CircuitoProveedor.Llamada<T, E> llamada,
+                                               Predicate<Exception> cuentaComoFallo) throws E {
+        return obtenerCircuito(proveedor).ejecutar(llamada, cuentaComoFallo);
+    }
+
+    // Solo los errores de red, 429 y 5xx son del proveedor; un 4xx es un problema de la petición
+    public static boolean esErrorDelProveedor(Integer codigoHttp) {
+        return codigoHttp == null || codigoHttp == 429 || codigoHttp >= 500;
+    }
+
+    public Collection<CircuitoProveedor> getCircuitos() {
+        return Collections.unmodifiableCollection(circuitos.values());
+    }
+
+    public Map<String, Object> obtenerEstado() {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        circuitos.forEach((nombre, circuito) -> estado.put(nombre, circuito.obtenerEstado()));
+        return estado;
+    }
+
+    public void reiniciar(String proveedor) {
+        obtenerCircuito(proveedor).reiniciar();
+    }
+
+    private CircuitoProveedor obtenerCircuito(String proveedor) {
+        CircuitoProveedor circuito = circuitos.get(proveedor);
+        if (circuito == null) {
+            throw new RecursoNoEncontradoExcepcion("Proveedor desconocido: " + proveedor);
+        }
+        return circuito;
+    }
+}
@@ -2,113 +2,108 @@ package com.web.capas.application.proxy;
 
 import com.web.capas.application.service.WhatsAppService;
 import com.web.capas.application.service.WhatsAppServiceImpl;
-import com.web.capas.application.singleton.NotificacionConfiguracion;
 import com.web.capas.domain.ServiceException;
-import java.time.Duration;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 
+// Valida los datos antes de llamar a Twilio. Las variantes síncronas hacen un solo intento;
+// las asíncronas reintentan en segundo plano con EjecutorReintentos sin ocupar el hilo de la petición.
 @Service
 @Primary
 public class WhatsAppServiceProxy implements WhatsAppService {
 
-    private static final Logger logger = LoggerFactory.getLogger(WhatsAppServiceProxy.class);
-
     private final WhatsAppServiceImpl delegate;
-    private final NotificacionConfiguracion configuracion = NotificacionConfiguracion.getInstance();
+    private final EjecutorReintentos ejecutorReintentos;
 
-    public WhatsAppServiceProxy(@Qualifier("whatsAppServiceImpl") WhatsAppServiceImpl delegate) {
+    public WhatsAppServiceProxy(@Qualifier("whatsAppServiceImpl") WhatsAppServiceImpl delegate,
+                                EjecutorReintentos ejecutorReintentos) {
         this.delegate = delegate;
+        this.ejecutorReintentos = ejecutorReintentos;
     }
 
     @Override
-    public void notificarPedidoConfirmado(String telefono, Integer idPedido, String nombreCliente) {
-        ejecutarConReintentos(() -> delegate.notificarPedidoConfirmado(validarTelefono(telefono), idPedido, nombreCliente));
+    public boolean notificarPedidoConfirmado(String telefono, Integer idPedido, String nombreCliente) {
+        return delegate.notificarPedidoConfirmado(validarTelefono(telefono), idPedido, nombreCliente);
     }
 
     @Override
     public boolean notificarPedidoEnCamino(String telefono, Integer idPedido, String nombreCliente, String direccion) {
-        return ejecutarConReintentos(() -> delegate.notificarPedidoEnCamino(validarTelefono(telefono), idPedido, nombreCliente, direccion));
+        return delegate.notificarPedidoEnCamino(validarTelefono(telefono), idPedido, nombreCliente, direccion);
     }
 
     @Override
     public boolean notificarPedidoEntregado(String telefono, Integer idPedido, String nombreCliente) {
-        return ejecutarConReintentos(() -> delegate.notificarPedidoEntregado(validarTelefono(telefono), idPedido, nombreCliente));
+        return delegate.notificarPedidoEntregado(validarTelefono(telefono), idPedido, nombreCliente);
     }
 
     @Override
     public boolean notificarPedidoCancelado(String telefono, Integer idPedido, String nombreCliente, String motivo) {
-        return ejecutarConReintentos(() -> delegate.notificarPedidoCancelado(validarTelefono(telefono), idPedido, nombreCliente, motivo));
+        return delegate.notificarPedidoCancelado(validarTelefono(telefono), idPedido, nombreCliente, motivo);
     }
 
     @Override
     public boolean enviarMensaje(String telefono, String mensaje) {
-        if (mensaje == null || mensaje.trim().isEmpty()) {
-            throw new ServiceException("El mensaje no puede estar vacío");
-        }
-        return ejecutarConReintentos(() -> delegate.enviarMensaje(validarTelefono(telefono), mensaje));
+        validarMensaje(mensaje);
+        return delegate.enviarMensaje(validarTelefono(telefono), mensaje);
     }
 
-    private String validarTelefono(String telefono) {
-        if (telefono == null || telefono.trim().isEmpty()) {
-            throw new ServiceException("El teléfono es obligatorio para enviar un WhatsApp");
-        }
-        if (!telefono.startsWith("+")) {
-            throw new ServiceException("El número debe incluir el código de país (+51...)");
-        }
-        return telefono.trim();
+    @Override
+    public CompletableFuture<Boolean> notificarPedidoConfirmadoAsync(String telefono, Integer idPedido, String nombreCliente) {
+        String destino = validarTelefono(telefono);
+        return conReintentos("WhatsApp confirmación pedido #" + idPedido,
+            () -> delegate.notificarPedidoConfirmado(destino, idPedido, nombreCliente));
     }
 
-    private <T> T ejecutarConReintentos(Operacion<T> operacion) {
-        int maximoReintentos = configuracion.getMaximoReintentos();
-        Duration espera = configuracion.getTiempoEsperaEntreReintentos();
-
-        RuntimeException ultimoError = null;
-        for (int intento = 1; intento <= maximoReintentos; intento++) {
-            try {
-                return operacion.ejecutar();
-            } catch (RuntimeException e) {
-                ultimoError = e;
-                logger.warn("Intento {} de {} fallido enviando WhatsApp: {}", intento, maximoReintentos, e.getMessage());
-                dormir(espera);
-            }
-        }
+    @Override
+    public CompletableFuture<Boolean> notificarPedidoEnCaminoAsync(String telefono, Integer idPedido, String nombreCliente, String direccion) {
+        String destino = validarTelefono(telefono);
+        return conReintentos("WhatsApp en camino pedido #" + idPedido,
+            () -> delegate.notificarPedidoEnCamino(destino, idPedido, nombreCliente, direccion));
+    }
 
-        if (ultimoError != null) {
-            throw ultimoError;
-        }
-        return null;
+    @Override
+    public CompletableFuture<Boolean> notificarPedidoEntregadoAsync(String telefono, Integer idPedido, String nombreCliente) {
+        String destino = validarTelefono(telefono);
+        return conReintentos("WhatsApp entregado pedido #" + idPedido,
+            () -> delegate.notificarPedidoEntregado(destino, idPedido, nombreCliente));
     }
 
-    private void ejecutarConReintentos(OperacionSinResultado operacion) {
-        ejecutarConReintentos(() -> {
-            operacion.ejecutar();
-            return null;
-        });
+    @Override
+    public CompletableFuture<Boolean> notificarPedidoCanceladoAsync(String telefono, Integer idPedido, String nombreCliente, String motivo) {
+        String destino = validarTelefono(telefono);
+        return conReintentos("WhatsApp cancelado pedido #" + idPedido,
+            () -> delegate.notificarPedidoCancelado(destino, idPedido, nombreCliente, motivo));
     }
 
-    private void dormir(Duration espera) {
-        if (espera == null || espera.isZero() || espera.isNegative()) {
-            return;
-        }
-        try {
-            Thread.sleep(espera.toMillis());
-        } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
-        }
+    @Override
+    public CompletableFuture<Boolean> enviarMensajeAsync(String telefono, String mensaje) {
+        validarMensaje(mensaje);
+        String destino = validarTelefono(telefono);
+        return conReintentos("WhatsApp mensaje personalizado", () -> delegate.enviarMensaje(destino, mensaje));
     }
 
-    @FunctionalInterface
-    private interface Operacion<T> {
-        T ejecutar();
+    // Si se agotan los intentos o la cola está llena, el futuro termina en false en lugar de con error
+    private CompletableFuture<Boolean> conReintentos(String descripcion, Supplier<Boolean> envio) {
+        return ejecutorReintentos.ejecutar(descripcion, envio, Boolean.TRUE::equals)
+            .handle((enviado, error) -> error == null && Boolean.TRUE.equals(enviado));
     }
 
-    @FunctionalInterface
-    private interface OperacionSinResultado {
-        void ejecutar();
+    private void validarMensaje(String mensaje) {
+        if (mensaje == null || mensaje.trim().isEmpty()) {
+            throw new ServiceException("El mensaje no puede estar vacío");
+        }
     }
-}
 
+    private String validarTelefono(String telefono) {
+        if (telefono == null || telefono.trim().isEmpty()) {
+            throw new ServiceException("El teléfono es obligatorio para enviar un WhatsApp");
+        }
+        if (!telefono.startsWith("+")) {
+            throw new ServiceException("El número debe incluir el código de país (+51...)");
+        }
+        return telefono.trim();
+    }
+}
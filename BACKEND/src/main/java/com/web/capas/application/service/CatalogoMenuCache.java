@@ -0,0 +1,127 @@
+package com.web.capas.application.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web.capas.domain.dto.CatalogoMenu;
+import com.web.capas.domain.dto.ProductoResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+// Caché de lectura del menú público. Cada escritura de productos o stock sube la generación
+// y la siguiente lectura reconstruye la foto completa (incluido el JSON serializado y comprimido),
+// que se reemplaza de forma atómica.
+@Component
+public class CatalogoMenuCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogoMenuCache.class);
+
+    // Por debajo de este tamaño gzip no compensa el costo de descomprimir
+    private static final int TAMANO_MINIMO_GZIP = 1024;
+
+    private final ObjectMapper objectMapper;
+    private final AtomicReference<CatalogoMenu> catalogo = new AtomicReference<>();
+    private final AtomicLong generacion = new AtomicLong();
+    // Lock en lugar de synchronized: la reconstrucción consulta la base y un hilo virtual bloqueado
+    // dentro de synchronized dejaría fijado su hilo portador
+    private final ReentrantLock reconstruccion = new ReentrantLock();
+
+    public CatalogoMenuCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public CatalogoMenu obtener(Supplier<List<ProductoResponse>> cargador) {
+        CatalogoMenu actual = catalogo.get();
+        if (actual != null && actual.getGeneracion() == generacion.get()) {
+            return actual;
+        }
+
+        // Un solo hilo reconstruye; los demás esperan y reutilizan la foto nueva
+        reconstruccion.lock();
+        try {
+            actual = catalogo.get();
+            long generacionActual = generacion.get();
+            if (actual != null && actual.getGeneracion() == generacionActual) {
+                return actual;
+            }
+
+            CatalogoMenu nuevo = construir(cargador.get(), generacionActual);
+            catalogo.set(nuevo);
+            return nuevo;
+        } finally {
+            reconstruccion.unlock();
+        }
+    }
+
+    public void invalidar() {
+        generacion.incrementAndGet();
+    }
+
+    // Dentro de una transacción se invalida al confirmar, para no reconstruir con datos que aún pueden revertirse
+    public void invalidarDespuesDeConfirmar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidar();
+                }
+            });
+        } else {
+            invalidar();
+        }
+    }
+
+    private CatalogoMenu construir(List<ProductoResponse> productos, long generacionActual) {
+        try {
+            CatalogoMenu.CuerpoSerializado cuerpo = serializar(productos);
+
+            Map<Integer, CatalogoMenu.CuerpoSerializado> cuerposPorCategoria = new LinkedHashMap<>();
+            for (Map.Entry<Integer, List<ProductoResponse>> categoria : CatalogoMenu.agruparPorCategoria(productos).entrySet()) {
+                cuerposPorCategoria.put(categoria.getKey(), serializar(categoria.getValue()));
+            }
+
+            return new CatalogoMenu(productos, cuerpo, cuerposPorCategoria, calcularEtag(cuerpo.getJson()), generacionActual);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo serializar el menú", e);
+        }
+    }
+
+    private CatalogoMenu.CuerpoSerializado serializar(List<ProductoResponse> productos) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(productos);
+        byte[] gzip = json.length >= TAMANO_MINIMO_GZIP ? comprimir(json) : null;
+        return new CatalogoMenu.CuerpoSerializado(json, gzip);
+    }
+
+    private byte[] comprimir(byte[] datos) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(datos.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(datos);
+        }
+        return salida.toByteArray();
+    }
+
+    // El ETag depende del contenido, así se mantiene entre reinicios y reconstrucciones sin cambios
+    private String calcularEtag(byte[] json) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (Exception e) {
+            logger.warn("No se pudo calcular el ETag del menú: {}", e.getMessage());
+            return "\"" + Long.toHexString(System.nanoTime()) + "\"";
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.web.capas.application.service;
+
+import com.web.capas.application.proxy.ProteccionProveedores;
+import com.web.capas.config.CorreoProperties;
+import com.web.capas.config.FabricaHilos;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Envía los correos en segundo plano. La cola está acotada (app.correo.capacidad): si se llena, el correo
+// se descarta en lugar de frenar la petición. Un solo hilo la vacía en lotes y cada lote sale por la misma
+// conexión SMTP. El mismo correo al mismo destinatario no se repite dentro de la ventana configurada.
+// Si el SMTP falla (caído, circuito abierto o rechazo del mensaje) el correo vuelve a la cola tras una espera
+// exponencial, hasta app.correo.max-intentos; al descartarlo se libera su clave para que pueda pedirse de nuevo.
+@Component
+public class ColaCorreos {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColaCorreos.class);
+
+    private final JavaMailSender mailSender;
+    private final ProteccionProveedores proteccionProveedores;
+    private final CorreoProperties properties;
+    private final FabricaHilos fabricaHilos;
+    private final BlockingQueue<Correo> cola;
+    private final Map<String, Long> ultimoEncolado = new ConcurrentHashMap<>();
+    // Solo lleva los tiempos de los reintentos; el envío siempre lo hace el trabajador
+    private final ScheduledThreadPoolExecutor reintentos;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    private volatile boolean activo = true;
+    private Thread trabajador;
+
+    public ColaCorreos(JavaMailSender mailSender, ProteccionProveedores proteccionProveedores,
+                       CorreoProperties properties, FabricaHilos fabricaHilos) {
+        this.mailSender = mailSender;
+        this.proteccionProveedores = proteccionProveedores;
+        this.properties = properties;
+        this.fabricaHilos = fabricaHilos;
+        this.cola = new ArrayBlockingQueue<>(properties.getCapacidad());
+        this.reintentos = new ScheduledThreadPoolExecutor(1, Thread.ofPlatform().name("correo-reintentos").daemon(true).factory());
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        trabajador = fabricaHilos.crear("envio-correo").newThread(this::procesarCola);
+        trabajador.start();
+    }
+
+    @PreDestroy
+    public void detener() {
+        activo = false;
+        reintentos.shutdownNow();
+        trabajador.interrupt();
+    }
+
+    // Devuelve false si el correo es un duplicado reciente o la cola está llena
+    public boolean encolar(String destinatario, String asunto, String html) {
+        String clave = destinatario.trim().toLowerCase(Locale.ROOT) + "|" + asunto;
+        long ahora = System.currentTimeMillis();
+        long ventanaMs = properties.getVentanaDuplicadosSegundos() * 1000;
+
+        boolean[] duplicado = {false};
+        ultimoEncolado.compute(clave, (k, anterior) -> {
+            if (anterior != null && ahora - anterior < ventanaMs) {
+                duplicado[0] = true;
+                return anterior;
+            }
+            return ahora;
+        });
+        if (duplicado[0]) {
+            logger.info("Correo '{}' a {} omitido: ya se envió hace menos de {} s", asunto, destinatario,
+                properties.getVentanaDuplicadosSegundos());
+            return false;
+        }
+
+        if (!cola.offer(new Correo(destinatario, asunto, html, clave, ahora))) {
+            ultimoEncolado.remove(clave, ahora);
+            logger.warn("Cola de correos llena, se descarta '{}' a {}", asunto, destinatario);
+            return false;
+        }
+        return true;
+    }
+
+    public int getPendientes() {
+        return cola.size();
+    }
+
+    private void procesarCola() {
+        while (activo) {
+            try {
+                List<Correo> lote = new ArrayList<>();
+                lote.add(cola.take());
+                cola.drainTo(lote, properties.getTamanoLote() - 1);
+                enviar(lote);
+                limpiarDuplicadosVencidos();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Error en la cola de correos: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    // JavaMailSender abre una sola conexión para todos los mensajes que recibe juntos
+    private void enviar(List<Correo> lote) {
+        Map<MimeMessage, Correo> mensajes = new IdentityHashMap<>(lote.size());
+        for (Correo correo : lote) {
+            try {
+                mensajes.put(armarMensaje(correo), correo);
+            } catch (MessagingException e) {
+                // Un mensaje que no se puede armar no mejora al reintentar
+                logger.warn("No se pudo armar el correo '{}' a {}: {}", correo.asunto, correo.destinatario, e.getMessage());
+                liberarClave(correo);
+            }
+        }
+        if (mensajes.isEmpty()) {
+            return;
+        }
+
+        MimeMessage[] envio = mensajes.keySet().toArray(new MimeMessage[0]);
+        try {
+            // Solo cuenta como caída del SMTP si no salió ningún mensaje; un destinatario inválido no abre el circuito
+            proteccionProveedores.ejecutar(ProteccionProveedores.SMTP, () -> {
+                mailSender.send(envio);
+                return null;
+            }, e -> !(e instanceof MailSendException fallo) || fallo.getFailedMessages().size() >= envio.length);
+            logger.info("{} correo(s) enviado(s)", envio.length);
+        } catch (MailSendException e) {
+            // Sin detalle por mensaje se toma todo el lote como no enviado
+            List<Correo> fallidos = new ArrayList<>();
+            if (e.getFailedMessages().isEmpty()) {
+                fallidos.addAll(mensajes.values());
+            } else {
+                e.getFailedMessages().keySet().forEach(mensaje -> {
+                    Correo correo = mensajes.get(mensaje);
+                    if (correo != null) {
+                        fallidos.add(correo);
+                    }
+                });
+            }
+            logger.warn("{} de {} correo(s) no se pudieron enviar: {}", fallidos.size(), envio.length, e.getMessage());
+            fallidos.forEach(this::reintentarODescartar);
+        } catch (Exception e) {
+            logger.warn("No se pudieron enviar {} correo(s): {}", envio.length, e.getMessage());
+            mensajes.values().forEach(this::reintentarODescartar);
+        }
+    }
+
+    private void reintentarODescartar(Correo correo) {
+        int intentos = correo.intentos + 1;
+        if (intentos >= properties.getMaxIntentos() || !activo) {
+            logger.warn("Correo '{}' a {} descartado tras {} intento(s)", correo.asunto, correo.destinatario, intentos);
+            liberarClave(correo);
+            return;
+        }
+        long esperaMs = properties.getEsperaReintentoMs() * (1L << Math.min(intentos - 1, 16));
+        Correo reintento = correo.conIntentos(intentos);
+        try {
+            reintentos.schedule(() -> {
+                if (!cola.offer(reintento)) {
+                    logger.warn("Cola de correos llena, se descarta el reintento de '{}' a {}", reintento.asunto, reintento.destinatario);
+                    liberarClave(reintento);
+                }
+            }, esperaMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            liberarClave(correo);
+        }
+    }
+
+    // Un correo que no salió no cuenta como enviado: quien lo pida de nuevo no debe verlo como duplicado
+    private void liberarClave(Correo correo) {
+        ultimoEncolado.remove(correo.clave, correo.encolado);
+    }
+
+    private MimeMessage armarMensaje(Correo correo) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(correo.destinatario);
+        helper.setSubject(correo.asunto);
+        helper.setText(correo.html, true);
+        return message;
+    }
+
+    private void limpiarDuplicadosVencidos() {
+        long limite = System.currentTimeMillis() - properties.getVentanaDuplicadosSegundos() * 1000;
+        ultimoEncolado.values().removeIf(encolado -> encolado < limite);
+    }
+
+    private static class Correo {
+        private final String destinatario;
+        private final String asunto;
+        private final String html;
+        // Clave y momento con que quedó registrado en ultimoEncolado
+        private final String clave;
+        private final long encolado;
+        private final int intentos;
+
+        private Correo(String destinatario, String asunto, String html, String clave, long encolado) {
+            this(destinatario, asunto, html, clave, encolado, 0);
+        }
+
+        private Correo(String destinatario, String asunto, String html, String clave, long encolado, int intentos) {
+            this.destinatario = destinatario;
+            this.asunto = asunto;
+            this.html = html;
+            this.clave = clave;
+            this.encolado = encolado;
+            this.intentos = intentos;
+        }
+
+        private Correo conIntentos(int intentos) {
+            return new Correo(destinatario, asunto, html, clave, encolado, intentos);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.web.capas.application.service;
+
+import com.web.capas.domain.ServiceException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Codifica la posición de la última fila devuelta en un cursor opaco (Base64 URL)
+public final class CursorPaginacion {
+
+    private static final String SEPARADOR = "|";
+
+    private CursorPaginacion() {}
+
+    // Cursor para listados de pedidos ordenados por (fecha_pedido, id_pedido) descendente
+    public static String codificarPedido(LocalDateTime fechaPedido, Integer idPedido) {
+        return codificar(fechaPedido + SEPARADOR + idPedido);
+    }
+
+    public static CursorPedido decodificarPedido(String cursor) {
+        String[] partes = decodificar(cursor).split("\\|");
+        if (partes.length != 2) {
+            throw new ServiceException("Cursor de paginación no válido");
+        }
+        try {
+            return new CursorPedido(LocalDateTime.parse(partes[0]), Integer.valueOf(partes[1]));
+        } catch (RuntimeException e) {
+            throw new ServiceException("Cursor de paginación no válido");
+        }
+    }
+
+    // Cursor para listados de usuarios ordenados por id_usuario ascendente
+    public static String codificarUsuario(Integer idUsuario) {
+        return codificar(String.valueOf(idUsuario));
+    }
+
+    public static Integer decodificarUsuario(String cursor) {
+        try {
+            return Integer.valueOf(decodificar(cursor));
+        } catch (NumberFormatException e) {
+            throw new ServiceException("Cursor de paginación no válido");
+        }
+    }
+
+    private static String codificar(String valor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodificar(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ServiceException("Cursor de paginación no válido");
+        }
+    }
+
+    public static class CursorPedido {
+        private final LocalDateTime fechaPedido;
+        private final Integer idPedido;
+
+        public CursorPedido(LocalDateTime fechaPedido, Integer idPedido) {
+            this.fechaPedido = fechaPedido;
+            this.idPedido = idPedido;
+        }
+
+        public LocalDateTime getFechaPedido() {
+            return fechaPedido;
+        }
+
+        public Integer getIdPedido() {
+            return idPedido;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.web.capas.application.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web.capas.config.FabricaHilos;
+import com.web.capas.config.OutboxProperties;
+import com.web.capas.domain.repository.EventoOutboxRepository;
+import com.web.capas.infrastructure.persistence.entities.EventoOutbox;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+// Publica los eventos del outbox fuera de las peticiones HTTP. Corre en un único hilo, así los lotes
+// nunca se solapen; se despierta al confirmar una transacción que registró eventos y, como respaldo,
+// cada app.outbox.intervalo-ms. Los eventos de un lote con la misma audiencia salen en una sola llamada.
+// Si un envío falla se reprograma con espera exponencial.
+@Component
+public class DespachadorOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(DespachadorOutbox.class);
+    private static final TypeReference<Map<String, Object>> TIPO_PAYLOAD = new TypeReference<>() {};
+
+    @Autowired
+    private EventoOutboxRepository eventoOutboxRepository;
+
+    @Autowired
+    private RegistroRepartidores registroRepartidores;
+
+    @Autowired
+    private OneSignalSender oneSignalSender;
+
+    @Autowired
+    private OutboxProperties outboxProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FabricaHilos fabricaHilos;
+
+    private ScheduledExecutorService ejecutor;
+    private final AtomicBoolean programado = new AtomicBoolean(false);
+
+    // Un solo hilo (virtual o de plataforma según el modo) para que los lotes nunca se solapen
+    @PostConstruct
+    public void iniciar() {
+        ejecutor = Executors.newSingleThreadScheduledExecutor(fabricaHilos.crear("despachador-outbox"));
+    }
+
+    // Encola una pasada si no hay ya una esperando. La pasada espera app.outbox.ventana-agrupacion-ms
+    // para que los eventos que llegan en ráfaga salgan juntos en el mismo lote
+    public void despertar() {
+        if (programado.compareAndSet(false, true)) {
+            ejecutor.schedule(() -> {
+                programado.set(false);
+                procesarPendientes();
+            }, outboxProperties.getVentanaAgrupacionMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.intervalo-ms:5000}")
+    public void revisarPendientes() {
+        despertar();
+    }
+
+    @Scheduled(cron = "${app.outbox.cron-limpieza:0 15 4 * * *}")
+    @Transactional
+    public void limpiarEnviados() {
+        int eliminados = eventoOutboxRepository.eliminarEnviadosAntesDe(
+            EventoOutbox.Estado.enviado, LocalDateTime.now().minusDays(outboxProperties.getDiasRetencion()));
+        if (eliminados > 0) {
+            logger.info("Outbox: {} eventos enviados eliminados", eliminados);
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdown();
+    }
+
+    private void procesarPendientes() {
+        try {
+            List<EventoOutbox> lote;
+            do {
+                lote = eventoOutboxRepository.findByEstadoAndProximoIntentoLessThanEqualOrderByIdEventoAsc(
+                    EventoOutbox.Estado.pendiente, LocalDateTime.now(), PageRequest.of(0, outboxProperties.getTamanoLote()));
+                procesarLote(lote);
+            } while (lote.size() == outboxProperties.getTamanoLote());
+        } catch (Exception e) {
+            logger.error("Error al despachar eventos del outbox: {}", e.getMessage(), e);
+        }
+    }
+
+    // Los eventos del lote que van a la misma audiencia se juntan en una sola llamada a OneSignal:
+    // los pedidos nuevos en un aviso a los repartidores y los push con el mismo contenido en uno solo
+    @SuppressWarnings("unchecked")
+    private void procesarLote(List<EventoOutbox> lote) {
+        List<EventoOutbox> nuevosPedidos = new ArrayList<>();
+        List<Map<String, Object>> datosNuevosPedidos = new ArrayList<>();
+        Map<String, Grupo> gruposPush = new LinkedHashMap<>();
+
+        for (EventoOutbox evento : lote) {
+            try {
+                Map<String, Object> payload = objectMapper.readValue(evento.getPayload(), TIPO_PAYLOAD);
+                switch (evento.getTipo()) {
+                    case OutboxService.TIPO_NUEVO_PEDIDO:
+                        nuevosPedidos.add(evento);
+                        datosNuevosPedidos.add(payload);
+                        break;
+                    case OutboxService.TIPO_PUSH: {
+                        String titulo = (String) payload.get("titulo");
+                        String mensaje = (String) payload.get("mensaje");
+                        Map<String, Object> datos = (Map<String, Object>) payload.get("datos");
+                        String clave = objectMapper.writeValueAsString(List.of(
+                            String.valueOf(titulo), String.valueOf(mensaje), datos != null ? datos : Map.of()));
+                        Grupo grupo = gruposPush.computeIfAbsent(clave, k -> new Grupo(titulo, mensaje, datos));
+                        List<String> playerIds = (List<String>) payload.get("playerIds");
+                        if (playerIds != null) {
+                            grupo.playerIds.addAll(playerIds);
+                        }
+                        grupo.eventos.add(evento);
+                        break;
+                    }
+                    default:
+                        throw new IllegalStateException("Tipo de evento desconocido: " + evento.getTipo());
+                }
+            } catch (Exception e) {
+                registrarResultado(evento, false, e.getMessage());
+            }
+        }
+
+        if (!nuevosPedidos.isEmpty()) {
+            List<String> playerIdsRepartidores = registroRepartidores.obtenerPlayerIds();
+            if (playerIdsRepartidores.isEmpty()) {
+                nuevosPedidos.forEach(evento -> registrarResultado(evento, true, null));
+            } else {
+                Grupo grupo = armarAvisoNuevosPedidos(datosNuevosPedidos);
+                grupo.playerIds.addAll(playerIdsRepartidores);
+                grupo.eventos.addAll(nuevosPedidos);
+                enviar(grupo);
+            }
+        }
+        gruposPush.values().forEach(this::enviar);
+    }
+
+    private Grupo armarAvisoNuevosPedidos(List<Map<String, Object>> pedidos) {
+        if (pedidos.size() == 1) {
+            Map<String, Object> pedido = pedidos.get(0);
+            String mensaje = String.format(
+                "Tienes un nuevo pedido #%s. Dirección: %s",
+                pedido.get("pedidoId"),
+                pedido.get("direccionEntrega")
+            );
+            return new Grupo("Nuevo Pedido", mensaje, Map.of("pedidoId", pedido.get("pedidoId"), "tipo", "nuevo_pedido"));
+        }
+        List<Object> ids = pedidos.stream().map(pedido -> pedido.get("pedidoId")).collect(Collectors.toList());
+        String mensaje = String.format("Tienes %d nuevos pedidos disponibles", pedidos.size());
+        // pedidoId (el más reciente) se mantiene: el panel del repartidor abre ese pedido al tocar la notificación
+        return new Grupo("Nuevos Pedidos", mensaje,
+            Map.of("pedidoId", ids.get(ids.size() - 1), "pedidoIds", ids, "tipo", "nuevo_pedido"));
+    }
+
+    private void enviar(Grupo grupo) {
+        boolean enviado;
+        String error = null;
+        try {
+            enviado = oneSignalSender.enviarNotificacion(new ArrayList<>(grupo.playerIds), grupo.titulo, grupo.mensaje, grupo.datos);
+            if (!enviado) {
+                error = "OneSignal no aceptó la notificación";
+            }
+        } catch (Exception e) {
+            enviado = false;
+            error = e.getMessage();
+        }
+        if (grupo.eventos.size() > 1) {
+            logger.debug("Outbox: {} eventos agrupados en una notificación a {} destinatarios",
+                grupo.eventos.size(), grupo.playerIds.size());
+        }
+        for (EventoOutbox evento : grupo.eventos) {
+            registrarResultado(evento, enviado, error);
+        }
+    }
+
+    private void registrarResultado(EventoOutbox evento, boolean enviado, String error) {
+        evento.setIntentos(evento.getIntentos() + 1);
+        if (enviado) {
+            evento.setEstado(EventoOutbox.Estado.enviado);
+            evento.setFechaEnvio(LocalDateTime.now());
+            evento.setUltimoError(null);
+        } else {
+            evento.setUltimoError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+            if (evento.getIntentos() >= outboxProperties.getMaxIntentos()) {
+                evento.setEstado(EventoOutbox.Estado.fallido);
+                logger.warn("Outbox: evento {} ({}) descartado tras {} intentos: {}",
+                    evento.getIdEvento(), evento.getTipo(), evento.getIntentos(), error);
+            } else {
+                evento.setProximoIntento(LocalDateTime.now().plusSeconds(
+                    outboxProperties.calcularEsperaSegundos(evento.getIntentos())));
+            }
+        }
+        eventoOutboxRepository.save(evento);
+    }
+
+    // Una notificación de OneSignal y los eventos del outbox que cubre
+    private static class Grupo {
+        private final String titulo;
+        private final String mensaje;
+        private final Map<String, Object> datos;
+        private final Set<String> playerIds = new LinkedHashSet<>();
+        private final List<EventoOutbox> eventos = new ArrayList<>();
+
+        private Grupo(String titulo, String mensaje, Map<String, Object> datos) {
+            this.titulo = titulo;
+            this.mensaje = mensaje;
+            this.datos = datos;
+        }
+    }
+}
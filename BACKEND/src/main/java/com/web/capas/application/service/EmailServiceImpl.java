@@ -1,15 +1,13 @@
 package com.web.capas.application.service;
 
+import com.web.capas.application.strategy.PlantillaCompilada;
 import com.web.capas.config.ApplicationUrlsProperties;
-import com.web.capas.domain.ServiceException;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StreamUtils;
 
 import java.io.IOException;
@@ -18,43 +16,45 @@ import java.nio.charset.StandardCharsets;
 @Service
 public class EmailServiceImpl implements EmailService {
 
-    @Autowired
-    private JavaMailSender mailSender;
+    private static final String ASUNTO_RECUPERACION = "Recuperación de Contraseña - Tienda De Alimentos Online S.A.";
 
-    @Value("${spring.mail.username}")
-    private String fromEmail;
+    @Autowired
+    private ColaCorreos colaCorreos;
 
     private final ApplicationUrlsProperties applicationUrlsProperties;
 
+    // Las plantillas se leen y compilan una sola vez al iniciar
+    private PlantillaCompilada plantillaRecuperacion;
+
     public EmailServiceImpl(ApplicationUrlsProperties applicationUrlsProperties) {
         this.applicationUrlsProperties = applicationUrlsProperties;
     }
 
-    public void enviarCorreoRecuperacion(String emailDestino, String token, String nombreUsuario) {
-        try {
-            System.out.println("Enviando correo a: " + emailDestino);
-            
-            String enlaceRecuperacion = applicationUrlsProperties.getFrontend() + "/restablecer-contrasena?token=" + token;
-            
-            String htmlTemplate = cargarPlantillaHTML();
-            
-            String htmlContent = htmlTemplate.replace("{{nombreUsuario}}", nombreUsuario)
-                                             .replace("{{enlaceRecuperacion}}", enlaceRecuperacion);
+    @PostConstruct
+    public void cargarPlantillas() {
+        plantillaRecuperacion = PlantillaCompilada.compilar(cargarPlantillaHTML(), "nombreUsuario", "enlaceRecuperacion");
+    }
 
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+    // Solo arma el contenido y lo deja en la cola: el envío por SMTP ocurre en segundo plano
+    public void enviarCorreoRecuperacion(String emailDestino, String token, String nombreUsuario) {
+        String enlaceRecuperacion = applicationUrlsProperties.getFrontend() + "/restablecer-contrasena?token=" + token;
 
-            helper.setFrom(fromEmail);
-            helper.setTo(emailDestino);
-            helper.setSubject("Recuperación de Contraseña - Tienda De Alimentos Online S.A.");
-            helper.setText(htmlContent, true);
+        String htmlContent = plantillaRecuperacion.renderizar(nombreUsuario, enlaceRecuperacion);
 
-            mailSender.send(message);
-            
-            System.out.println("Correo enviado exitosamente");
+        encolarDespuesDeConfirmar(emailDestino, ASUNTO_RECUPERACION, htmlContent);
+    }
 
-        } catch (MessagingException e) {
-            throw new ServiceException("Error al enviar el correo de recuperación", e);
+    // Dentro de una transacción se encola al confirmar, así no sale un enlace con un token que se revirtió
+    private void encolarDespuesDeConfirmar(String destinatario, String asunto, String html) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    colaCorreos.encolar(destinatario, asunto, html);
+                }
+            });
+        } else {
+            colaCorreos.encolar(destinatario, asunto, html);
         }
     }
 
@@ -0,0 +1,165 @@
+package com.web.capas.application.service;
+
+import com.web.capas.config.ContrasenasProperties;
+import com.web.capas.domain.CapacidadAgotadaException;
+import com.web.capas.domain.ServiceException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// BCrypt fuera de los hilos de Tomcat: los hashes corren en un pool fijo de hilos de plataforma
+// (app.contrasenas.hilos) con una cola acotada. Así una ráfaga de logins ocupa a lo sumo esos núcleos y el
+// resto de los endpoints sigue respondiendo; con la cola llena se rechaza al instante con 429.
+// El costo se calibra al arrancar según app.contrasenas.milisegundos-objetivo; los hashes con un costo menor
+// se rehacen tras un login correcto (ver UsuarioServiceImpl.autenticarUsuario).
+@Component
+public class HashContrasenas {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashContrasenas.class);
+
+    private final ContrasenasProperties properties;
+    private final BCryptPasswordEncoder encoder;
+    private final int costo;
+    private final ThreadPoolExecutor ejecutor;
+
+    private final AtomicLong completados = new AtomicLong();
+    private final AtomicLong rechazados = new AtomicLong();
+
+    public HashContrasenas(ContrasenasProperties properties) {
+        this.properties = properties;
+        this.costo = properties.getCosto() > 0 ? properties.getCosto() : calibrarCosto();
+        this.encoder = new BCryptPasswordEncoder(costo);
+        // Siempre hilos de plataforma: el trabajo es de CPU y con hilos virtuales no quedaría acotado
+        Thread.Builder hilos = Thread.ofPlatform().name("bcrypt-", 1).daemon(true);
+        this.ejecutor = new ThreadPoolExecutor(properties.getHilos(), properties.getHilos(), 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(properties.getCapacidadCola()), hilos.factory(), new ThreadPoolExecutor.AbortPolicy());
+        logger.info("BCrypt con costo {} ({} hilos, cola de {})", costo, properties.getHilos(), properties.getCapacidadCola());
+    }
+
+    public String encriptar(String contrasena) {
+        return ejecutar(codificador -> codificador.encode(contrasena));
+    }
+
+    public boolean coincide(String contrasena, String hash) {
+        return ejecutar(codificador -> codificador.matches(contrasena, hash));
+    }
+
+    // Varias operaciones en una sola tarea (un solo lugar en la cola). Los errores de la tarea llegan tal cual
+    public <T> T ejecutar(Function<PasswordEncoder, T> tarea) {
+        Future<T> futuro;
+        try {
+            futuro = ejecutor.submit(() -> aplicar(tarea));
+        } catch (RejectedExecutionException e) {
+            throw rechazar();
+        }
+        try {
+            return futuro.get(properties.getEsperaMaximaMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            throw rechazar();
+        } catch (InterruptedException e) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceException("Se interrumpió la verificación de la contraseña", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new ServiceException("Error al procesar la contraseña", e.getCause());
+        }
+    }
+
+    // Sin esperar el resultado; si la cola está llena el futuro falla y no se hace nada
+    public CompletableFuture<String> encriptarEnSegundoPlano(String contrasena) {
+        try {
+            return CompletableFuture.supplyAsync(() -> aplicar(codificador -> codificador.encode(contrasena)), ejecutor);
+        } catch (RejectedExecutionException e) {
+            rechazados.incrementAndGet();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // El hash se hizo con un costo menor al actual
+    public boolean requiereActualizacion(String hash) {
+        try {
+            return encoder.upgradeEncoding(hash);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public int getCosto() {
+        return costo;
+    }
+
+    public Map<String, Object> obtenerEstado() {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("costo", costo);
+        estado.put("hilos", properties.getHilos());
+        estado.put("capacidadCola", properties.getCapacidadCola());
+        estado.put("enCola", ejecutor.getQueue().size());
+        estado.put("enCurso", ejecutor.getActiveCount());
+        estado.put("completados", completados.get());
+        estado.put("rechazados", rechazados.get());
+        return estado;
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdown();
+    }
+
+    private <T> T aplicar(Function<PasswordEncoder, T> tarea) {
+        try {
+            return tarea.apply(encoder);
+        } finally {
+            completados.incrementAndGet();
+        }
+    }
+
+    private CapacidadAgotadaException rechazar() {
+        rechazados.incrementAndGet();
+        return new CapacidadAgotadaException("Demasiadas solicitudes de inicio de sesión, intenta nuevamente en unos segundos");
+    }
+
+    // Cada punto de costo duplica el tiempo: se mide el mínimo y se sube mientras el doble no pase el objetivo
+    private int calibrarCosto() {
+        int calibrado = properties.getCostoMinimo();
+        long ms = medirMs(calibrado);
+        while (calibrado < properties.getCostoMaximo() && ms * 2 <= properties.getMilisegundosObjetivo()) {
+            calibrado++;
+            ms *= 2;
+        }
+        logger.info("BCrypt calibrado: costo {} (~{} ms por hash, objetivo {} ms)", calibrado, ms, properties.getMilisegundosObjetivo());
+        return calibrado;
+    }
+
+    // El menor de tres hashes, después de uno de calentamiento
+    private static long medirMs(int costo) {
+        BCryptPasswordEncoder prueba = new BCryptPasswordEncoder(costo);
+        prueba.encode("calibracion");
+        long mejor = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long inicio = System.nanoTime();
+            prueba.encode("calibracion");
+            mejor = Math.min(mejor, System.nanoTime() - inicio);
+        }
+        return Math.max(TimeUnit.NANOSECONDS.toMillis(mejor), 1);
+    }
+}
@@ -0,0 +1,183 @@
+package com.web.capas.application.service;
+
+import com.web.capas.domain.dto.ProductoResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Índice invertido en memoria sobre nombre, categoría y descripción de los productos activos.
+// Los términos se guardan ordenados para resolver prefijos (búsqueda mientras se escribe).
+@Component
+public class IndiceBusquedaProductos {
+
+    private static final int PESO_NOMBRE = 3;
+    private static final int PESO_CATEGORIA = 2;
+    private static final int PESO_DESCRIPCION = 1;
+
+    // término -> (idProducto -> peso)
+    private final NavigableMap<String, Map<Integer, Integer>> terminos = new TreeMap<>();
+    // idProducto -> términos indexados, para poder quitar un producto sin recorrer todo el índice
+    private final Map<Integer, Set<String>> terminosPorProducto = new HashMap<>();
+    // idProducto -> nombre normalizado, para premiar coincidencias al inicio del nombre
+    private final Map<Integer, String> nombrePorProducto = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean inicializado = false;
+
+    public boolean estaInicializado() {
+        return inicializado;
+    }
+
+    public void reconstruir(Collection<ProductoResponse> productos) {
+        lock.writeLock().lock();
+        try {
+            terminos.clear();
+            terminosPorProducto.clear();
+            nombrePorProducto.clear();
+            for (ProductoResponse producto : productos) {
+                agregarSinBloqueo(producto);
+            }
+            inicializado = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void indexar(ProductoResponse producto) {
+        lock.writeLock().lock();
+        try {
+            quitarSinBloqueo(producto.getIdProducto());
+            agregarSinBloqueo(producto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(Integer idProducto) {
+        lock.writeLock().lock();
+        try {
+            quitarSinBloqueo(idProducto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Devuelve los ids que contienen todos los términos de la consulta (como palabra o prefijo),
+    // ordenados por relevancia
+    public List<Integer> buscar(String consulta) {
+        List<String> tokens = NormalizadorTexto.tokenizar(consulta);
+        if (tokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> puntajes = null;
+            for (String token : tokens) {
+                Map<Integer, Integer> puntajesToken = puntuarToken(token);
+                if (puntajes == null) {
+                    puntajes = puntajesToken;
+                } else {
+                    Map<Integer, Integer> interseccion = new HashMap<>();
+                    for (Map.Entry<Integer, Integer> entrada : puntajes.entrySet()) {
+                        Integer puntajeToken = puntajesToken.get(entrada.getKey());
+                        if (puntajeToken != null) {
+                            interseccion.put(entrada.getKey(), entrada.getValue() + puntajeToken);
+                        }
+                    }
+                    puntajes = interseccion;
+                }
+                if (puntajes.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+
+            String consultaNormalizada = String.join(" ", tokens);
+            List<Map.Entry<Integer, Integer>> resultados = new ArrayList<>(puntajes.entrySet());
+            for (Map.Entry<Integer, Integer> resultado : resultados) {
+                String nombre = nombrePorProducto.get(resultado.getKey());
+                if (nombre != null && nombre.startsWith(consultaNormalizada)) {
+                    resultado.setValue(resultado.getValue() + 10);
+                }
+            }
+            resultados.sort((a, b) -> {
+                int porPuntaje = Integer.compare(b.getValue(), a.getValue());
+                return porPuntaje != 0 ? porPuntaje : Integer.compare(a.getKey(), b.getKey());
+            });
+
+            List<Integer> ids = new ArrayList<>(resultados.size());
+            for (Map.Entry<Integer, Integer> resultado : resultados) {
+                ids.add(resultado.getKey());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Una palabra exacta vale el doble que un prefijo
+    private Map<Integer, Integer> puntuarToken(String token) {
+        Map<Integer, Integer> puntajes = new HashMap<>();
+        for (Map.Entry<String, Map<Integer, Integer>> termino : terminos.subMap(token, true, token + Character.MAX_VALUE, true).entrySet()) {
+            int multiplicador = termino.getKey().equals(token) ? 2 : 1;
+            for (Map.Entry<Integer, Integer> posting : termino.getValue().entrySet()) {
+                puntajes.merge(posting.getKey(), posting.getValue() * multiplicador, Math::max);
+            }
+        }
+        return puntajes;
+    }
+
+    private void agregarSinBloqueo(ProductoResponse producto) {
+        Integer idProducto = producto.getIdProducto();
+        if (idProducto == null) {
+            return;
+        }
+
+        Map<String, Integer> pesos = new HashMap<>();
+        acumularPesos(pesos, producto.getNombre(), PESO_NOMBRE);
+        acumularPesos(pesos, producto.getCategoria() != null ? producto.getCategoria().getNombre() : null, PESO_CATEGORIA);
+        acumularPesos(pesos, producto.getDescripcion(), PESO_DESCRIPCION);
+
+        for (Map.Entry<String, Integer> peso : pesos.entrySet()) {
+            terminos.computeIfAbsent(peso.getKey(), termino -> new HashMap<>()).put(idProducto, peso.getValue());
+        }
+        terminosPorProducto.put(idProducto, new HashSet<>(pesos.keySet()));
+        nombrePorProducto.put(idProducto, String.join(" ", NormalizadorTexto.tokenizar(producto.getNombre())));
+    }
+
+    private void acumularPesos(Map<String, Integer> pesos, String texto, int peso) {
+        for (String token : NormalizadorTexto.tokenizar(texto)) {
+            pesos.merge(token, peso, Integer::sum);
+        }
+    }
+
+    private void quitarSinBloqueo(Integer idProducto) {
+        if (idProducto == null) {
+            return;
+        }
+        Set<String> indexados = terminosPorProducto.remove(idProducto);
+        nombrePorProducto.remove(idProducto);
+        if (indexados == null) {
+            return;
+        }
+        for (String termino : indexados) {
+            Map<Integer, Integer> postings = terminos.get(termino);
+            if (postings != null) {
+                postings.remove(idProducto);
+                if (postings.isEmpty()) {
+                    terminos.remove(termino);
+                }
+            }
+        }
+    }
+}
@@ -1,91 +1,286 @@
 package com.web.capas.application.service;
 
+import com.web.capas.config.JwtProperties;
 import com.web.capas.infrastructure.persistence.entities.Usuario;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 
+// Emite tokens de acceso cortos (app.jwt.minutos-acceso) y tokens de refresco (app.jwt.dias-refresco).
+// Ambos llevan en la cabecera el kid de la clave con que se firmaron y la generación de sesiones del usuario.
+// Las claves y el parser se arman una sola vez (el parser de jjwt es inmutable y se comparte entre hilos).
+// Los claims de cada token de acceso se verifican una vez y se guardan en memoria hasta su exp, así las
+// peticiones siguientes con el mismo token no repiten la verificación HMAC; la revocación se revisa
+// siempre contra RevocacionTokens, que no consulta la base. La cache está acotada a app.jwt.capacidad-cache:
+// al llenarse se descarta el token usado hace más tiempo, sin recorrer el resto.
 @Service
 public class JwtService {
-    
-    private static final String SECRET_KEY = "mi-clave-secreta-super-segura-para-jwt-tokens-de-autenticacion-2024";
-    private static final int JWT_EXPIRATION = 86400000; 
-    
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
-    }
-    
+
+    public static final String TIPO_ACCESO = "acceso";
+    public static final String TIPO_REFRESCO = "refresco";
+    private static final String CLAIM_TIPO = "typ";
+    private static final String CLAIM_GENERACION = "gen";
+    // HS256 necesita claves de al menos 256 bits
+    private static final int BYTES_MINIMOS_CLAVE = 32;
+
+    private final JwtProperties jwtProperties;
+    private final RevocacionTokens revocacionTokens;
+    private final Map<String, SecretKey> clavesPorKid = new HashMap<>();
+    private final String kidActivo;
+    private final SecretKey claveActiva;
+    private final JwtParser parser;
+
+    // Clave: SHA-256 del token, para no guardar tokens completos en memoria
+    private final ReentrantLock bloqueoCache = new ReentrantLock();
+    private final LinkedHashMap<String, ClaimsVerificadas> cache;
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder verificaciones = new LongAdder();
+
+    public JwtService(JwtProperties jwtProperties, RevocacionTokens revocacionTokens) {
+        this.jwtProperties = jwtProperties;
+        this.revocacionTokens = revocacionTokens;
+        // Orden de acceso: al llenarse se descarta el token usado hace más tiempo
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ClaimsVerificadas> mayor) {
+                return size() > jwtProperties.getCapacidadCache();
+            }
+        };
+        // Sin clave por defecto: la aplicación no arranca si falta la activa o alguna es corta
+        this.kidActivo = jwtProperties.getClaveActiva();
+        String secretoActivo = jwtProperties.getClaves().get(kidActivo);
+        if (secretoActivo == null || secretoActivo.isBlank()) {
+            throw new IllegalStateException("Falta la clave JWT activa app.jwt.claves." + kidActivo
+                + " (para la clave principal, define JWT_SECRET_KEY)");
+        }
+        jwtProperties.getClaves().forEach((kid, secreto) -> {
+            byte[] bytes = secreto.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length < BYTES_MINIMOS_CLAVE) {
+                throw new IllegalStateException("La clave JWT app.jwt.claves." + kid + " tiene " + bytes.length * 8
+                    + " bits; HS256 necesita al menos " + BYTES_MINIMOS_CLAVE * 8 + " (" + BYTES_MINIMOS_CLAVE + " bytes)");
+            }
+            clavesPorKid.put(kid, Keys.hmacShaKeyFor(bytes));
+        });
+        this.claveActiva = clavesPorKid.get(kidActivo);
+        this.parser = Jwts.parserBuilder()
+            .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                @Override
+                public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                    SecretKey clave = header.getKeyId() != null ? clavesPorKid.get(header.getKeyId()) : null;
+                    if (clave == null) {
+                        throw new JwtException("Token firmado con una clave desconocida");
+                    }
+                    return clave;
+                }
+            })
+            .build();
+    }
+
     public String generateToken(Usuario usuario) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("id", usuario.getIdUsuario());
         claims.put("rol", usuario.getRol().toString());
         claims.put("nombre", usuario.getNombre());
         claims.put("email", usuario.getEmail());
-        
-        return createToken(claims, usuario.getEmail());
+        claims.put(CLAIM_TIPO, TIPO_ACCESO);
+        claims.put(CLAIM_GENERACION, usuario.getGeneracionToken());
+
+        return createToken(claims, usuario.getEmail(), null, TimeUnit.MINUTES.toMillis(jwtProperties.getMinutosAcceso()));
     }
-    
-    private String createToken(Map<String, Object> claims, String subject) {
+
+    // Solo sirve para pedir un par nuevo en /api/auth/refrescar; cada uno se puede usar una vez
+    public String generarTokenRefresco(Usuario usuario) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("id", usuario.getIdUsuario());
+        claims.put(CLAIM_TIPO, TIPO_REFRESCO);
+        claims.put(CLAIM_GENERACION, usuario.getGeneracionToken());
+
+        return createToken(claims, usuario.getEmail(), UUID.randomUUID().toString(),
+            TimeUnit.DAYS.toMillis(jwtProperties.getDiasRefresco()));
+    }
+
+    public long getSegundosAcceso() {
+        return TimeUnit.MINUTES.toSeconds(jwtProperties.getMinutosAcceso());
+    }
+
+    private String createToken(Map<String, Object> claims, String subject, String id, long duracionMs) {
+        long ahora = System.currentTimeMillis();
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, kidActivo)
                 .setClaims(claims)
                 .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + JWT_EXPIRATION))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setId(id)
+                .setIssuedAt(new Date(ahora))
+                .setExpiration(new Date(ahora + duracionMs))
+                .signWith(claveActiva, SignatureAlgorithm.HS256)
                 .compact();
     }
-    
-    public Boolean validateToken(String token) {
+
+    // Claims de un token de acceso con firma válida, sin vencer y no revocado; null en otro caso
+    public Claims obtenerClaimsVerificadas(String token) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
-            return !isTokenExpired(token);
+            Claims claims = getAllClaimsFromToken(token);
+            if (!TIPO_ACCESO.equals(claims.get(CLAIM_TIPO, String.class))
+                || !revocacionTokens.esVigente(claims.get("id", Integer.class), claims.get(CLAIM_GENERACION, Integer.class))) {
+                return null;
+            }
+            return claims;
         } catch (Exception e) {
-            return false;
+            return null;
+        }
+    }
+
+    // Claims de un token de refresco; lanza JwtException si la firma no es válida, venció o no es de refresco.
+    // No pasa por la cache: cada token de refresco se usa una sola vez
+    public Claims verificarTokenRefresco(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (!TIPO_REFRESCO.equals(claims.get(CLAIM_TIPO, String.class)) || claims.getId() == null) {
+            throw new JwtException("El token no es de refresco");
         }
+        return claims;
+    }
+
+    public Boolean validateToken(String token) {
+        return obtenerClaimsVerificadas(token) != null;
     }
-    
+
     public String getEmailFromToken(String token) {
         return getClaimFromToken(token, Claims::getSubject);
     }
-    
+
     public Integer getIdFromToken(String token) {
         return getClaimFromToken(token, claims -> claims.get("id", Integer.class));
     }
-    
+
+    public Integer getGeneracionFromClaims(Claims claims) {
+        return claims.get(CLAIM_GENERACION, Integer.class);
+    }
+
     public String getRolFromToken(String token) {
         return getClaimFromToken(token, claims -> claims.get("rol", String.class));
     }
-    
+
     public Date getExpirationDateFromToken(String token) {
         return getClaimFromToken(token, Claims::getExpiration);
     }
-    
+
     public <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
         final Claims claims = getAllClaimsFromToken(token);
         return claimsResolver.apply(claims);
     }
-    
+
+    public int getTamanoCache() {
+        bloqueoCache.lock();
+        try {
+            return cache.size();
+        } finally {
+            bloqueoCache.unlock();
+        }
+    }
+
+    public long getAciertosCache() {
+        return aciertos.sum();
+    }
+
+    // Verificaciones de firma hechas (tokens que no estaban en la cache)
+    public long getVerificaciones() {
+        return verificaciones.sum();
+    }
+
+    // Lanza JwtException si la firma no es válida o el token venció
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-    
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+        String clave = hash(token);
+        ClaimsVerificadas guardadas = buscarEnCache(clave, System.currentTimeMillis());
+        if (guardadas != null) {
+            aciertos.increment();
+            return guardadas.claims;
+        }
+
+        // La verificación HMAC va fuera del bloqueo
+        verificaciones.increment();
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            guardar(clave, new ClaimsVerificadas(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
+    }
+
+    // Un token vencido se quita al encontrarlo
+    private ClaimsVerificadas buscarEnCache(String clave, long ahora) {
+        bloqueoCache.lock();
+        try {
+            ClaimsVerificadas guardadas = cache.get(clave);
+            if (guardadas != null && guardadas.expiraEnMs <= ahora) {
+                cache.remove(clave);
+                return null;
+            }
+            return guardadas;
+        } finally {
+            bloqueoCache.unlock();
+        }
+    }
+
+    // Con la cache llena removeEldestEntry descarta el menos usado: O(1) por token nuevo
+    private void guardar(String clave, ClaimsVerificadas claims) {
+        bloqueoCache.lock();
+        try {
+            cache.put(clave, claims);
+        } finally {
+            bloqueoCache.unlock();
+        }
+    }
+
+    // Los vencidos que nadie volvió a usar se quitan acá, no en cada petición
+    @Scheduled(fixedDelayString = "${app.jwt.limpieza-cache-ms:300000}")
+    public void limpiarCache() {
+        long ahora = System.currentTimeMillis();
+        bloqueoCache.lock();
+        try {
+            cache.values().removeIf(claims -> claims.expiraEnMs <= ahora);
+        } finally {
+            bloqueoCache.unlock();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class ClaimsVerificadas {
+        private final Claims claims;
+        private final long expiraEnMs;
+
+        private ClaimsVerificadas(Claims claims, long expiraEnMs) {
+            this.claims = claims;
+            this.expiraEnMs = expiraEnMs;
+        }
     }
 }
@@ -0,0 +1,45 @@
+package com.web.capas.application.service;
+
+import com.web.capas.infrastructure.persistence.entities.Pedido;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// WhatsApp de pedido confirmado, enviado recién cuando la transacción que confirmó el pedido o el pago
+// se comprometió: si se revierte no se avisa nada, y la llamada a Twilio no alarga la transacción
+@Component
+public class NotificadorConfirmacionPedido {
+
+    @Autowired
+    private WhatsAppService whatsAppService;
+
+    public void notificarDespuesDelCommit(Pedido pedido) {
+        if (pedido.getCliente() == null) {
+            return;
+        }
+        String telefono = pedido.getCliente().getTelefono();
+        String nombreCliente = pedido.getCliente().getNombre();
+        Integer idPedido = pedido.getIdPedido();
+        if (telefono == null || telefono.trim().isEmpty()) {
+            return;
+        }
+        Runnable envio = () -> {
+            try {
+                whatsAppService.notificarPedidoConfirmadoAsync(telefono, idPedido, nombreCliente);
+            } catch (Exception e) {
+                System.err.println("Error al enviar WhatsApp de confirmación: " + e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    envio.run();
+                }
+            });
+        } else {
+            envio.run();
+        }
+    }
+}
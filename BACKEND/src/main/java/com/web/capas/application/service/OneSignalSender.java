@@ -1,68 +1,136 @@
 package com.web.capas.application.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web.capas.application.proxy.ProteccionProveedores;
+import com.web.capas.config.ApplicationUrlsProperties;
+import com.web.capas.config.ResilienciaProperties;
+import com.web.capas.domain.ServiceException;
 import com.web.capas.infrastructure.config.OneSignalConfig;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.*;
 
 @Service
 public class OneSignalSender {
     
-    private static final String ONESIGNAL_API_URL = "https://onesignal.com/api/v1/notifications";
+    private static final Logger logger = LoggerFactory.getLogger(OneSignalSender.class);
     
-    @Autowired
-    private OneSignalConfig oneSignalConfig;
+    // Máximo de include_player_ids que OneSignal acepta por petición
+    public static final int MAX_PLAYER_IDS_POR_PETICION = 2000;
     
-    private final RestTemplate restTemplate;
+    private final OneSignalConfig oneSignalConfig;
+    private final ProteccionProveedores proteccionProveedores;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final URI urlApi;
+    private final Duration timeoutLectura;
+    private final String autorizacion;
+    private final String urlDashboard;
     
-    public OneSignalSender() {
-        this.restTemplate = new RestTemplate();
+    public OneSignalSender(OneSignalConfig oneSignalConfig,
+                           ProteccionProveedores proteccionProveedores,
+                           ObjectMapper objectMapper,
+                           @Qualifier("clienteHttpOneSignal") HttpClient httpClient,
+                           ResilienciaProperties resilienciaProperties,
+                           ApplicationUrlsProperties applicationUrlsProperties) {
+        this.oneSignalConfig = oneSignalConfig;
+        this.proteccionProveedores = proteccionProveedores;
+        this.objectMapper = objectMapper;
+        this.httpClient = httpClient;
+        this.urlApi = URI.create(oneSignalConfig.getApiUrl());
+        this.timeoutLectura = Duration.ofMillis(
+            resilienciaProperties.getProveedor(ProteccionProveedores.ONESIGNAL).getReadTimeoutMs());
+        this.autorizacion = "Basic " + oneSignalConfig.getRestApiKey();
+        this.urlDashboard = applicationUrlsProperties.getFrontend() + "/repartidor/dashboard";
     }
     
+    // Los destinatarios repetidos se envían una sola vez; más de 2000 se reparten en varias peticiones.
+    // Devuelve true solo si OneSignal aceptó todas.
     public boolean enviarNotificacion(List<String> playerIds, String titulo, String mensaje, Map<String, Object> datos) {
         if (playerIds == null || playerIds.isEmpty()) {
             return false;
         }
         
+        List<String> destinatarios = new ArrayList<>(new LinkedHashSet<>(playerIds));
+        boolean enviado = true;
+        for (int desde = 0; desde < destinatarios.size(); desde += MAX_PLAYER_IDS_POR_PETICION) {
+            List<String> parte = destinatarios.subList(desde, Math.min(desde + MAX_PLAYER_IDS_POR_PETICION, destinatarios.size()));
+            enviado &= enviarPeticion(parte, titulo, mensaje, datos);
+        }
+        return enviado;
+    }
+    
+    public boolean enviarNotificacion(String playerId, String titulo, String mensaje, Map<String, Object> datos) {
+        return enviarNotificacion(Collections.singletonList(playerId), titulo, mensaje, datos);
+    }
+    
+    private boolean enviarPeticion(List<String> playerIds, String titulo, String mensaje, Map<String, Object> datos) {
         try {
-            Map<String, Object> body = new HashMap<>();
-            body.put("app_id", oneSignalConfig.getAppId());
-            body.put("include_player_ids", playerIds);
-            body.put("headings", Map.of("en", titulo, "es", titulo));
-            body.put("contents", Map.of("en", mensaje, "es", mensaje));
-            
-            if (datos != null && !datos.isEmpty()) {
-                body.put("data", datos);
-            }
-            
-            body.put("url", "http://localhost:4200/repartidor/dashboard");
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Basic " + oneSignalConfig.getRestApiKey());
+            HttpRequest request = HttpRequest.newBuilder(urlApi)
+                .timeout(timeoutLectura)
+                .header("Content-Type", "application/json; charset=utf-8")
+                .header("Authorization", autorizacion)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(armarCuerpo(playerIds, titulo, mensaje, datos)))
+                .build();
             
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
+            // Con el circuito abierto falla al instante y el outbox reprograma el envío.
+            // Un 4xx es un problema de la notificación, no de OneSignal, y no cuenta para el circuito
+            int estado = proteccionProveedores.ejecutar(ProteccionProveedores.ONESIGNAL, () -> {
+                int codigo = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (ProteccionProveedores.esErrorDelProveedor(codigo)) {
+                    throw new ServiceException("OneSignal respondió " + codigo);
+                }
+                return codigo;
+            });
             
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                ONESIGNAL_API_URL,
-                HttpMethod.POST,
-                request,
-                new org.springframework.core.ParameterizedTypeReference<Map<String, Object>>() {}
-            );
-            
-            return response.getStatusCode().is2xxSuccessful();
+            return estado >= 200 && estado < 300;
             
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         } catch (Exception e) {
-            System.err.println("Error al enviar notificación push: " + e.getMessage());
+            logger.warn("Error al enviar notificación push: {}", e.getMessage());
             return false;
         }
     }
     
-    public boolean enviarNotificacion(String playerId, String titulo, String mensaje, Map<String, Object> datos) {
-        return enviarNotificacion(Collections.singletonList(playerId), titulo, mensaje, datos);
+    // El JSON se escribe directo a bytes, sin armar mapas intermedios por cada envío
+    private byte[] armarCuerpo(List<String> playerIds, String titulo, String mensaje, Map<String, Object> datos) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(256 + playerIds.size() * 40);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(salida)) {
+            json.writeStartObject();
+            json.writeStringField("app_id", oneSignalConfig.getAppId());
+            json.writeArrayFieldStart("include_player_ids");
+            for (String playerId : playerIds) {
+                json.writeString(playerId);
+            }
+            json.writeEndArray();
+            escribirTextoTraducido(json, "headings", titulo);
+            escribirTextoTraducido(json, "contents", mensaje);
+            if (datos != null && !datos.isEmpty()) {
+                json.writeObjectField("data", datos);
+            }
+            json.writeStringField("url", urlDashboard);
+            json.writeEndObject();
+        }
+        return salida.toByteArray();
+    }
+    
+    private void escribirTextoTraducido(JsonGenerator json, String campo, String texto) throws IOException {
+        json.writeObjectFieldStart(campo);
+        json.writeStringField("en", texto);
+        json.writeStringField("es", texto);
+        json.writeEndObject();
     }
 }
-
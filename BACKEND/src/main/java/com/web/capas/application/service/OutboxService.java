@@ -0,0 +1,17 @@
+package com.web.capas.application.service;
+
+import com.web.capas.infrastructure.persistence.entities.Pedido;
+import java.util.List;
+import java.util.Map;
+
+public interface OutboxService {
+
+    String TIPO_NUEVO_PEDIDO = "nuevo_pedido";
+    String TIPO_PUSH = "push";
+
+    // Aviso a todos los repartidores activos de que hay un pedido nuevo
+    void registrarNuevoPedido(Pedido pedido);
+
+    // Push a destinatarios concretos
+    void registrarPush(List<String> playerIds, String titulo, String mensaje, Map<String, Object> datos);
+}
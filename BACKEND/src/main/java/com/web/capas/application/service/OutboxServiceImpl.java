@@ -0,0 +1,75 @@
+package com.web.capas.application.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web.capas.domain.ServiceException;
+import com.web.capas.domain.repository.EventoOutboxRepository;
+import com.web.capas.infrastructure.persistence.entities.EventoOutbox;
+import com.web.capas.infrastructure.persistence.entities.Pedido;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Registra los eventos en la transacción del llamador (si la hay): si la transacción se revierte, el evento
+// tampoco existe. Al confirmar se avisa al despachador para que no espere al siguiente sondeo.
+@Service
+public class OutboxServiceImpl implements OutboxService {
+
+    @Autowired
+    private EventoOutboxRepository eventoOutboxRepository;
+
+    @Autowired
+    private DespachadorOutbox despachadorOutbox;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public void registrarNuevoPedido(Pedido pedido) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("pedidoId", pedido.getIdPedido());
+        payload.put("direccionEntrega", pedido.getDireccionEntrega());
+        registrar(TIPO_NUEVO_PEDIDO, payload);
+    }
+
+    @Override
+    public void registrarPush(List<String> playerIds, String titulo, String mensaje, Map<String, Object> datos) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("playerIds", playerIds);
+        payload.put("titulo", titulo);
+        payload.put("mensaje", mensaje);
+        payload.put("datos", datos);
+        registrar(TIPO_PUSH, payload);
+    }
+
+    private void registrar(String tipo, Map<String, Object> payload) {
+        EventoOutbox evento = new EventoOutbox();
+        evento.setTipo(tipo);
+        try {
+            evento.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new ServiceException("No se pudo registrar el evento " + tipo, e);
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        evento.setFechaCreacion(ahora);
+        evento.setProximoIntento(ahora);
+        eventoOutboxRepository.save(evento);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    despachadorOutbox.despertar();
+                }
+            });
+        } else {
+            despachadorOutbox.despertar();
+        }
+    }
+}
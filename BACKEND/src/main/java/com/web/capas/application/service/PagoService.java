@@ -13,6 +13,9 @@ public interface PagoService {
     // Confirmar el pago después de que el cliente complete el proceso
     Pago confirmarPago(String paymentIntentId);
     
+    // Aplicar el estado de un PaymentIntent informado por Stripe (webhook o consulta); repetirlo no cambia nada
+    Pago aplicarEstadoStripe(String paymentIntentId, String estadoStripe);
+    
     // Confirmar el pago y devolver como DTO
     PagoResponse confirmarPagoComoDTO(String paymentIntentId);
     
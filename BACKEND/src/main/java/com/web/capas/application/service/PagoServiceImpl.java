@@ -3,10 +3,12 @@ package com.web.capas.application.service;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
 import com.stripe.param.PaymentIntentCreateParams;
+import com.web.capas.application.proxy.ProteccionProveedores;
 import com.web.capas.domain.dto.PagoResponse;
 import com.web.capas.domain.dto.PaymentRequest;
 import com.web.capas.domain.dto.PaymentResponse;
 import com.web.capas.domain.RecursoNoEncontradoExcepcion;
+import com.web.capas.domain.ProveedorNoDisponibleException;
 import com.web.capas.domain.ServiceException;
 import com.web.capas.infrastructure.persistence.entities.Pago;
 import com.web.capas.infrastructure.persistence.entities.Pedido;
@@ -31,7 +33,13 @@ public class PagoServiceImpl implements PagoService {
     private PedidoRepository pedidoRepository;
     
     @Autowired
-    private WhatsAppService whatsAppService;
+    private NotificadorConfirmacionPedido notificadorConfirmacion;
+    
+    @Autowired
+    private ResumenVentasService resumenVentasService;
+
+    @Autowired
+    private ProteccionProveedores proteccionProveedores;
 
     @Override
     @Transactional
@@ -73,7 +81,8 @@ public class PagoServiceImpl implements PagoService {
                 .addPaymentMethodType("card")
                 .build();
             
-            PaymentIntent paymentIntent = PaymentIntent.create(params);
+            PaymentIntent paymentIntent = proteccionProveedores.ejecutar(
+                ProteccionProveedores.STRIPE, () -> PaymentIntent.create(params), PagoServiceImpl::esFallaDeStripe);
             
             // Guardar pago en BD
             Pago pago = new Pago();
@@ -100,6 +109,8 @@ public class PagoServiceImpl implements PagoService {
             
         } catch (StripeException e) {
             throw new ServiceException("Error al crear PaymentIntent en Stripe: " + e.getMessage(), e);
+        } catch (ProveedorNoDisponibleException e) {
+            throw e;
         } catch (Exception e) {
             throw new ServiceException("Error al procesar el pago: " + e.getMessage(), e);
         }
@@ -109,51 +120,71 @@ public class PagoServiceImpl implements PagoService {
     @Transactional
     public Pago confirmarPago(String paymentIntentId) {
         try {
-            // Recuperar el PaymentIntent de Stripe
-            PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-            
             // Buscar el pago en la BD
             Pago pago = pagoRepository.findByReferenciaTransaccion(paymentIntentId)
                 .orElseThrow(() -> new RecursoNoEncontradoExcepcion("Pago no encontrado"));
             
-            // Verificar resultado de Stripe
-            if ("succeeded".equals(paymentIntent.getStatus())) {
-                pago.setEstadoTransaccion(Pago.EstadoTransaccion.exitoso);
-                
-                // Marcar pedido como pagado
-                Pedido pedido = pago.getPedido();
-                pedido.setEstadoPago(Pedido.EstadoPago.pagado);
-                pedidoRepository.save(pedido);
-                
-                // Enviar notificación WhatsApp
-                try {
-                    String telefono = pedido.getCliente().getTelefono();
-                    String nombreCliente = pedido.getCliente().getNombre();
-
-                    if (telefono != null && !telefono.trim().isEmpty()) {
-                        whatsAppService.notificarPedidoConfirmado(telefono, pedido.getIdPedido(), nombreCliente);
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error al enviar WhatsApp de confirmación: " + e.getMessage());
-                }
-                
-            } else if ("requires_payment_method".equals(paymentIntent.getStatus()) || 
-                       "canceled".equals(paymentIntent.getStatus())) {
-                pago.setEstadoTransaccion(Pago.EstadoTransaccion.fallido);
-                
-                // Actualizar el estado del pedido
-                Pedido pedido = pago.getPedido();
-                pedido.setEstadoPago(Pedido.EstadoPago.fallido);
-                pedidoRepository.save(pedido);
+            // Solo exitoso es final: un pago rechazado puede terminar aprobado si el cliente reintenta con otra
+            // tarjeta sobre el mismo PaymentIntent, y sin webhook configurado nadie más actualiza el estado
+            if (pago.getEstadoTransaccion() == Pago.EstadoTransaccion.exitoso) {
+                return pago;
             }
             
-            return pagoRepository.save(pago);
+            // Recuperar el PaymentIntent de Stripe
+            PaymentIntent paymentIntent = proteccionProveedores.ejecutar(
+                ProteccionProveedores.STRIPE, () -> PaymentIntent.retrieve(paymentIntentId), PagoServiceImpl::esFallaDeStripe);
+            
+            return aplicarEstado(pago, paymentIntent.getStatus());
             
         } catch (StripeException e) {
             throw new ServiceException("Error al confirmar pago en Stripe: " + e.getMessage(), e);
         }
     }
 
+    @Override
+    @Transactional
+    public Pago aplicarEstadoStripe(String paymentIntentId, String estadoStripe) {
+        Pago pago = pagoRepository.findByReferenciaTransaccion(paymentIntentId)
+            .orElseThrow(() -> new RecursoNoEncontradoExcepcion("Pago no encontrado"));
+        return aplicarEstado(pago, estadoStripe);
+    }
+
+    // Los estados solo avanzan: un pago exitoso no vuelve atrás aunque llegue tarde un evento de fallo,
+    // y aplicar dos veces el mismo estado no registra ventas ni avisos de nuevo
+    private Pago aplicarEstado(Pago pago, String estadoStripe) {
+        if (pago.getEstadoTransaccion() == Pago.EstadoTransaccion.exitoso) {
+            return pago;
+        }
+        
+        // Verificar resultado de Stripe
+        if ("succeeded".equals(estadoStripe)) {
+            pago.setEstadoTransaccion(Pago.EstadoTransaccion.exitoso);
+            
+            // Marcar pedido como pagado
+            Pedido pedido = pago.getPedido();
+            Pedido.EstadoPago estadoPagoAnterior = pedido.getEstadoPago();
+            pedido.setEstadoPago(Pedido.EstadoPago.pagado);
+            pedidoRepository.save(pedido);
+            resumenVentasService.registrarCambioDeEstado(pedido, pedido.getEstadoPedido(), estadoPagoAnterior);
+            
+            // Enviar notificación WhatsApp cuando el cambio ya está confirmado en la base
+            notificadorConfirmacion.notificarDespuesDelCommit(pedido);
+            
+        } else if (("requires_payment_method".equals(estadoStripe) || "canceled".equals(estadoStripe))
+                   && pago.getEstadoTransaccion() != Pago.EstadoTransaccion.fallido) {
+            pago.setEstadoTransaccion(Pago.EstadoTransaccion.fallido);
+            
+            // Actualizar el estado del pedido
+            Pedido pedido = pago.getPedido();
+            Pedido.EstadoPago estadoPagoAnterior = pedido.getEstadoPago();
+            pedido.setEstadoPago(Pedido.EstadoPago.fallido);
+            pedidoRepository.save(pedido);
+            resumenVentasService.registrarCambioDeEstado(pedido, pedido.getEstadoPedido(), estadoPagoAnterior);
+        }
+        
+        return pagoRepository.save(pago);
+    }
+
     @Override
     public Pago obtenerPagoPorReferencia(String referenciaTransaccion) {
         return pagoRepository.findByReferenciaTransaccion(referenciaTransaccion)
@@ -172,6 +203,11 @@ public class PagoServiceImpl implements PagoService {
         return mapearAPagoResponse(pago);
     }
     
+    // Tarjeta rechazada o parámetros inválidos son errores del pago, no una caída de Stripe
+    private static boolean esFallaDeStripe(Exception e) {
+        return !(e instanceof StripeException stripe) || ProteccionProveedores.esErrorDelProveedor(stripe.getStatusCode());
+    }
+
     private PagoResponse mapearAPagoResponse(Pago pago) {
         if (pago == null) {
             return null;
@@ -229,20 +265,13 @@ public class PagoServiceImpl implements PagoService {
             pago = pagoRepository.save(pago);
             
             // Actualizar el estado del pedido
+            Pedido.EstadoPago estadoPagoAnterior = pedido.getEstadoPago();
             pedido.setEstadoPago(Pedido.EstadoPago.pagado);
             pedidoRepository.save(pedido);
+            resumenVentasService.registrarCambioDeEstado(pedido, pedido.getEstadoPedido(), estadoPagoAnterior);
             
-            // Enviar notificación WhatsApp
-            try {
-                String telefono = pedido.getCliente().getTelefono();
-                String nombreCliente = pedido.getCliente().getNombre();
-
-                if (telefono != null && !telefono.trim().isEmpty()) {
-                    whatsAppService.notificarPedidoConfirmado(telefono, pedido.getIdPedido(), nombreCliente);
-                }
-            } catch (Exception e) {
-                System.err.println("Error al enviar WhatsApp de confirmación: " + e.getMessage());
-            }
+            // Enviar notificación WhatsApp cuando el pago ya está confirmado en la base
+            notificadorConfirmacion.notificarDespuesDelCommit(pedido);
             
             return pago;
             
@@ -3,6 +3,7 @@ package com.web.capas.application.service;
 import com.web.capas.domain.dto.PedidoRequest;
 import com.web.capas.domain.dto.PedidoResponse;
 import com.web.capas.domain.dto.PedidoListaResponse;
+import com.web.capas.domain.dto.PaginaResponse;
 import com.web.capas.infrastructure.persistence.entities.Pedido;
 
 import java.util.List;
@@ -19,16 +20,26 @@ public interface PedidoService {
     
     List<PedidoListaResponse> obtenerPedidosDelUsuarioComoDTO(Integer idUsuario);
     
+    PaginaResponse<PedidoListaResponse> obtenerPedidosDelUsuarioPaginados(Integer idUsuario, String cursor, Integer tamano);
+    
     List<PedidoListaResponse> obtenerPedidosDisponibles();
     
     PedidoResponse aceptarPedido(Integer idPedido, Integer idRepartidor);
     
     List<PedidoListaResponse> obtenerPedidosDelRepartidor(Integer idRepartidor);
     
+    PaginaResponse<PedidoListaResponse> obtenerPedidosDelRepartidorPaginados(Integer idRepartidor, String cursor, Integer tamano);
+    
     void marcarPedidoComoEntregado(Integer idPedido);
     
+    // Aplica el estado que el administrador notificó al cliente (en camino, entregado o cancelado) si el pedido
+    // sigue en el estado que tenía al pedir la notificación; devuelve false si cambió mientras tanto
+    boolean aplicarEstadoNotificado(Integer idPedido, Pedido.EstadoPedido estadoEsperado, Pedido.EstadoPedido nuevoEstado);
+    
     List<PedidoListaResponse> obtenerHistorialEntregas(Integer idRepartidor);
     
+    PaginaResponse<PedidoListaResponse> obtenerHistorialEntregasPaginado(Integer idRepartidor, String cursor, Integer tamano);
+    
     java.util.Map<String, Object> obtenerEstadisticasRepartidor(Integer idRepartidor);
     
     List<PedidoListaResponse> obtenerHistorialCliente(Integer idCliente, int limite);
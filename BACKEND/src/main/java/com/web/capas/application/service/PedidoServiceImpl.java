@@ -8,6 +8,7 @@ import com.web.capas.domain.dto.ProductoDetalleResponse;
 import com.web.capas.domain.dto.ClienteResponse;
 import com.web.capas.domain.dto.RepartidorResponse;
 import com.web.capas.domain.dto.ReporteProblemaResponse;
+import com.web.capas.domain.dto.PaginaResponse;
 import com.web.capas.domain.RecursoNoEncontradoExcepcion;
 import com.web.capas.domain.ServiceException;
 import com.web.capas.infrastructure.persistence.entities.Pedido;
@@ -22,7 +23,10 @@ import com.web.capas.domain.repository.ProductoRepository;
 import com.web.capas.domain.repository.DetallePedidoRepository;
 import com.web.capas.domain.repository.PagoRepository;
 import com.web.capas.domain.repository.CuponRepository;
-import com.web.capas.application.service.WhatsAppService; 
+import com.web.capas.infrastructure.persistence.repositories.JdbcPedidoLoteRepository;
+import com.web.capas.config.PaginacionProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
@@ -31,6 +35,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
@@ -42,6 +47,8 @@ import java.util.stream.Collectors;
 @SuppressWarnings("unused")
 public class PedidoServiceImpl implements PedidoService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PedidoServiceImpl.class);
+
     @Autowired
     private PedidoRepository pedidoRepository;
     
@@ -58,7 +65,7 @@ public class PedidoServiceImpl implements PedidoService {
     private PagoRepository pagoRepository;
     
     @Autowired
-    private WhatsAppService whatsAppService;
+    private NotificadorConfirmacionPedido notificadorConfirmacion;
     
     @Autowired
     private MetodoPagoInhabilitadoService metodoPagoInhabilitadoService;
@@ -73,7 +80,19 @@ public class PedidoServiceImpl implements PedidoService {
     private CuponRepository cuponRepository;
     
     @Autowired
-    private OneSignalSender oneSignalSender;
+    private OutboxService outboxService;
+    
+    @Autowired
+    private ResumenVentasService resumenVentasService;
+    
+    @Autowired
+    private PaginacionProperties paginacionProperties;
+    
+    @Autowired
+    private ReservaStockService reservaStockService;
+    
+    @Autowired
+    private JdbcPedidoLoteRepository pedidoLoteRepository;
 
     @Override
     @Transactional
@@ -169,38 +188,36 @@ public class PedidoServiceImpl implements PedidoService {
                 throw new ServiceException("Método de pago no válido: " + request.getMetodoPago());
             }
             
+            // Los pagos que no son con tarjeta se registran ya confirmados, así el pedido se escribe una sola vez
             if (request.getMetodoPago().equals("tarjeta")) {
                 pedido.setEstadoPago(Pedido.EstadoPago.pendiente);
             } else {
-                pedido.setEstadoPago(Pedido.EstadoPago.pendiente);
+                pedido.setEstadoPago(Pedido.EstadoPago.pagado);
             }
             
             Pedido pedidoGuardado = pedidoRepository.save(pedido);
+            resumenVentasService.registrarPedidoCreado(pedidoGuardado);
             
+            // Reserva el stock de todas las líneas antes de guardarlas; si una no alcanza se revierte todo
+            Map<Integer, Integer> cantidadesPorProducto = new HashMap<>();
+            for (ProductoPedidoRequest productoRequest : request.getProductos()) {
+                cantidadesPorProducto.merge(productoRequest.getIdProducto(), productoRequest.getCantidad(), Integer::sum);
+            }
+            reservaStockService.reservar(cantidadesPorProducto);
+            
+            // La reserva ya comprobó que los productos existen; las líneas se insertan en un solo lote
+            List<DetallePedido> detalles = new ArrayList<>(request.getProductos().size());
             for (ProductoPedidoRequest productoRequest : request.getProductos()) {
-                Producto producto = productoRepository.findById(productoRequest.getIdProducto())
-                    .orElseThrow(() -> new RecursoNoEncontradoExcepcion("Producto no encontrado: " + productoRequest.getIdProducto()));
-
-                int cantidadSolicitada = productoRequest.getCantidad();
-                int stockDisponible = producto.getStock() != null ? producto.getStock() : 0;
-
-                if (stockDisponible < cantidadSolicitada) {
-                    throw new ServiceException("Stock insuficiente para el producto: " + producto.getNombre());
-                }
-
-                producto.setStock(stockDisponible - cantidadSolicitada);
-                productoRepository.save(producto);
-                
                 DetallePedido detalle = new DetallePedido();
                 detalle.setPedido(pedidoGuardado);
-                detalle.setProducto(producto);
+                detalle.setProducto(productoRepository.getReferenceById(productoRequest.getIdProducto()));
                 detalle.setCantidad(productoRequest.getCantidad());
                 detalle.setPrecioUnitario(productoRequest.getPrecioUnitario());
                 detalle.setSubtotal(productoRequest.getSubtotal());
                 detalle.setNotasPersonalizacion(productoRequest.getNotasPersonalizacion());
-                
-                detallePedidoRepository.save(detalle);
+                detalles.add(detalle);
             }
+            pedidoLoteRepository.insertarDetalles(pedidoGuardado.getIdPedido(), detalles);
             
             if (!request.getMetodoPago().equals("tarjeta")) {
                 try {
@@ -218,28 +235,14 @@ public class PedidoServiceImpl implements PedidoService {
                     }
                     
                     pago.setMetodoPago(metodoPago);
-                    pago.setEstadoTransaccion(Pago.EstadoTransaccion.pendiente);
+                    pago.setEstadoTransaccion(Pago.EstadoTransaccion.exitoso);
                     pago.setReferenciaTransaccion("MANUAL_" + pedidoGuardado.getIdPedido());
                     pago.setFechaPago(LocalDateTime.now());
                     
-                    Pago pagoGuardado = pagoRepository.save(pago);
-                    
-                    pagoGuardado.setEstadoTransaccion(Pago.EstadoTransaccion.exitoso);
-                    pagoRepository.save(pagoGuardado);
+                    pagoRepository.save(pago);
                     
-                    pedidoGuardado.setEstadoPago(Pedido.EstadoPago.pagado);
-                    pedidoRepository.save(pedidoGuardado);
-                    
-                    try {
-                        String telefono = pedidoGuardado.getCliente().getTelefono();
-                        String nombreCliente = pedidoGuardado.getCliente().getNombre();
-                        
-                        if (telefono != null && !telefono.trim().isEmpty()) {
-                            whatsAppService.notificarPedidoConfirmado(telefono, pedidoGuardado.getIdPedido(), nombreCliente);
-                        }
-                    } catch (Exception e) {
-                        System.err.println("Error al enviar WhatsApp de confirmación: " + e.getMessage());
-                    }
+                    // El WhatsApp de confirmación sale después del commit
+                    notificadorConfirmacion.notificarDespuesDelCommit(pedidoGuardado);
                     
                 } catch (Exception e) {
                     System.err.println("Error al crear registro de pago: " + e.getMessage());
@@ -247,33 +250,8 @@ public class PedidoServiceImpl implements PedidoService {
                 }
             }
             
-            try {
-                List<Usuario> repartidores = usuarioRepository.findByRolAndActivoTrueAndPlayerIdIsNotNull(Usuario.Rol.repartidor);
-                
-                if (!repartidores.isEmpty()) {
-                    List<String> playerIds = repartidores.stream()
-                        .map(Usuario::getPlayerId)
-                        .filter(playerId -> playerId != null && !playerId.trim().isEmpty())
-                        .collect(Collectors.toList());
-                    
-                    if (!playerIds.isEmpty()) {
-                        String titulo = "Nuevo Pedido";
-                        String mensaje = String.format(
-                            "Tienes un nuevo pedido #%d. Dirección: %s",
-                            pedidoGuardado.getIdPedido(),
-                            pedidoGuardado.getDireccionEntrega()
-                        );
-                        
-                        Map<String, Object> datos = new HashMap<>();
-                        datos.put("pedidoId", pedidoGuardado.getIdPedido());
-                        datos.put("tipo", "nuevo_pedido");
-                        
-                        oneSignalSender.enviarNotificacion(playerIds, titulo, mensaje, datos);
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Error al enviar notificación push: " + e.getMessage());
-            }
+            // El push a los repartidores se publica después del commit desde el outbox
+            outboxService.registrarNuevoPedido(pedidoGuardado);
             
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
             PedidoResponse response = new PedidoResponse();
@@ -347,6 +325,38 @@ public class PedidoServiceImpl implements PedidoService {
         }
     }
 
+    @Override
+    public PaginaResponse<PedidoListaResponse> obtenerPedidosDelUsuarioPaginados(Integer idUsuario, String cursor, Integer tamano) {
+        int tamanoPagina = paginacionProperties.resolverTamano(tamano);
+        PageRequest limite = PageRequest.of(0, tamanoPagina + 1);
+        
+        List<Pedido> pedidos;
+        if (cursor == null || cursor.isBlank()) {
+            pedidos = pedidoRepository.findByCliente_IdUsuarioOrderByFechaPedidoDescIdPedidoDesc(idUsuario, limite);
+        } else {
+            CursorPaginacion.CursorPedido posicion = CursorPaginacion.decodificarPedido(cursor);
+            pedidos = pedidoRepository.buscarPaginaDelCliente(idUsuario, posicion.getFechaPedido(), posicion.getIdPedido(), limite);
+        }
+        return armarPaginaDePedidos(pedidos, tamanoPagina);
+    }
+
+    // Se pide una fila de más para saber si hay otra página sin contar el total
+    private PaginaResponse<PedidoListaResponse> armarPaginaDePedidos(List<Pedido> pedidos, int tamanoPagina) {
+        boolean hasMore = pedidos.size() > tamanoPagina;
+        List<Pedido> pagina = hasMore ? pedidos.subList(0, tamanoPagina) : pedidos;
+        
+        String siguienteCursor = null;
+        if (hasMore) {
+            Pedido ultimo = pagina.get(pagina.size() - 1);
+            siguienteCursor = CursorPaginacion.codificarPedido(ultimo.getFechaPedido(), ultimo.getIdPedido());
+        }
+        
+        List<PedidoListaResponse> items = pagina.stream()
+            .map(this::convertirAPedidoListaResponse)
+            .collect(Collectors.toList());
+        return new PaginaResponse<>(items, siguienteCursor, hasMore, tamanoPagina);
+    }
+
     private PedidoListaResponse convertirAPedidoListaResponse(Pedido pedido) {
         PedidoListaResponse response = new PedidoListaResponse();
         
@@ -494,6 +504,21 @@ public class PedidoServiceImpl implements PedidoService {
         }
     }
 
+    @Override
+    public PaginaResponse<PedidoListaResponse> obtenerPedidosDelRepartidorPaginados(Integer idRepartidor, String cursor, Integer tamano) {
+        int tamanoPagina = paginacionProperties.resolverTamano(tamano);
+        PageRequest limite = PageRequest.of(0, tamanoPagina + 1);
+        
+        List<Pedido> pedidos;
+        if (cursor == null || cursor.isBlank()) {
+            pedidos = pedidoRepository.findByRepartidor_IdUsuarioOrderByFechaPedidoDescIdPedidoDesc(idRepartidor, limite);
+        } else {
+            CursorPaginacion.CursorPedido posicion = CursorPaginacion.decodificarPedido(cursor);
+            pedidos = pedidoRepository.buscarPaginaDelRepartidor(idRepartidor, posicion.getFechaPedido(), posicion.getIdPedido(), limite);
+        }
+        return armarPaginaDePedidos(pedidos, tamanoPagina);
+    }
+
     @Override
     @Transactional
     public void marcarPedidoComoEntregado(Integer idPedido) {
@@ -505,9 +530,11 @@ public class PedidoServiceImpl implements PedidoService {
                 throw new ServiceException("El pedido debe estar en curso para ser marcado como entregado");
             }
             
+            Pedido.EstadoPedido estadoAnterior = pedido.getEstadoPedido();
             pedido.setEstadoPedido(Pedido.EstadoPedido.entregado);
             pedido.setFechaEntrega(LocalDateTime.now());
             pedidoRepository.save(pedido);
+            resumenVentasService.registrarCambioDeEstado(pedido, estadoAnterior, pedido.getEstadoPago());
         } catch (RecursoNoEncontradoExcepcion | ServiceException e) {
             throw e;
         } catch (Exception e) {
@@ -516,6 +543,51 @@ public class PedidoServiceImpl implements PedidoService {
         }
     }
 
+    @Override
+    @Transactional
+    public boolean aplicarEstadoNotificado(Integer idPedido, Pedido.EstadoPedido estadoEsperado, Pedido.EstadoPedido nuevoEstado) {
+        // El envío con reintentos pudo tardar segundos: si otro cambio (p. ej. una cancelación) llegó antes,
+        // no se pisa ni se vuelven a ajustar los resúmenes
+        if (pedidoRepository.actualizarEstadoSiNoCambio(idPedido, estadoEsperado, nuevoEstado) == 0) {
+            logger.info("Pedido {}: ya no está en {}, no se aplica {}", idPedido, estadoEsperado, nuevoEstado);
+            return false;
+        }
+        Pedido pedido = pedidoRepository.findById(idPedido)
+            .orElseThrow(() -> new RecursoNoEncontradoExcepcion("Pedido no encontrado"));
+
+        resumenVentasService.registrarCambioDeEstado(pedido, estadoEsperado, pedido.getEstadoPago());
+
+        if (nuevoEstado != Pedido.EstadoPedido.cancelado) {
+            return true;
+        }
+        if (estadoEsperado != Pedido.EstadoPedido.cancelado && estadoEsperado != Pedido.EstadoPedido.entregado) {
+            reservaStockService.liberar(pedido);
+        }
+
+        long cancelaciones = pedidoRepository.countByCliente_IdUsuarioAndMetodoPagoAndEstadoPedido(
+            pedido.getCliente().getIdUsuario(),
+            pedido.getMetodoPago(),
+            Pedido.EstadoPedido.cancelado
+        );
+        
+        if (cancelaciones >= 3) {
+            try {
+                MetodoPagoInhabilitado.MetodoPago metodoPagoEnum = MetodoPagoInhabilitado.MetodoPago.valueOf(
+                    pedido.getMetodoPago().toString()
+                );
+                String razon = "Cancelación automática: El cliente ha cancelado 3 o más pedidos con este método de pago";
+                metodoPagoInhabilitadoService.inhabilitarMetodoPago(
+                    pedido.getCliente(),
+                    metodoPagoEnum,
+                    razon
+                );
+            } catch (Exception e) {
+                System.err.println("Error al inhabilitar método de pago: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
     @Override
     public List<PedidoListaResponse> obtenerHistorialEntregas(Integer idRepartidor) {
         try {
@@ -533,6 +605,23 @@ public class PedidoServiceImpl implements PedidoService {
         }
     }
 
+    @Override
+    public PaginaResponse<PedidoListaResponse> obtenerHistorialEntregasPaginado(Integer idRepartidor, String cursor, Integer tamano) {
+        int tamanoPagina = paginacionProperties.resolverTamano(tamano);
+        PageRequest limite = PageRequest.of(0, tamanoPagina + 1);
+        
+        List<Pedido> pedidos;
+        if (cursor == null || cursor.isBlank()) {
+            pedidos = pedidoRepository.findByRepartidor_IdUsuarioAndEstadoPedidoOrderByFechaPedidoDescIdPedidoDesc(
+                idRepartidor, Pedido.EstadoPedido.entregado, limite);
+        } else {
+            CursorPaginacion.CursorPedido posicion = CursorPaginacion.decodificarPedido(cursor);
+            pedidos = pedidoRepository.buscarPaginaDelRepartidorPorEstado(
+                idRepartidor, Pedido.EstadoPedido.entregado, posicion.getFechaPedido(), posicion.getIdPedido(), limite);
+        }
+        return armarPaginaDePedidos(pedidos, tamanoPagina);
+    }
+
     @Override
     public Map<String, Object> obtenerEstadisticasRepartidor(Integer idRepartidor) {
         try {
@@ -677,8 +766,11 @@ public class PedidoServiceImpl implements PedidoService {
                 throw new ServiceException("No se puede cancelar el pedido en su estado actual");
             }
 
+            Pedido.EstadoPedido estadoAnterior = pedido.getEstadoPedido();
             pedido.setEstadoPedido(Pedido.EstadoPedido.cancelado);
             pedidoRepository.save(pedido);
+            resumenVentasService.registrarCambioDeEstado(pedido, estadoAnterior, pedido.getEstadoPago());
+            reservaStockService.liberar(pedido);
 
             if (pedido.getCodigoCupon() != null && !pedido.getCodigoCupon().trim().isEmpty()) {
                 try {
@@ -756,7 +848,7 @@ public class PedidoServiceImpl implements PedidoService {
                         datos.put("tipo", "metodo_pago_inhabilitado");
                         datos.put("metodoPago", metodoPagoEnum.toString());
                         
-                        oneSignalSender.enviarNotificacion(
+                        outboxService.registrarPush(
                             List.of(pedido.getCliente().getPlayerId()),
                             titulo,
                             mensaje,
@@ -0,0 +1,188 @@
+package com.web.capas.application.service;
+
+import com.web.capas.config.FabricaHilos;
+import com.web.capas.config.WebhookStripeProperties;
+import com.web.capas.domain.repository.EventoStripeRepository;
+import com.web.capas.infrastructure.persistence.entities.EventoStripe;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+// Aplica a Pago y Pedido los eventos guardados por el webhook de Stripe. Un hilo lee los lotes y los reparte
+// entre app.webhooks.stripe.hilos trabajadores; todos los eventos de un mismo PaymentIntent van siempre al
+// mismo trabajador, así se aplican en el orden en que Stripe los generó. Cada evento se aplica y se marca
+// como procesado en la misma transacción; si falla se reprograma con espera exponencial.
+@Component
+public class ProcesadorEventosStripe {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcesadorEventosStripe.class);
+
+    @Autowired
+    private EventoStripeRepository eventoStripeRepository;
+
+    @Autowired
+    private PagoService pagoService;
+
+    @Autowired
+    private WebhookStripeProperties properties;
+
+    @Autowired
+    private FabricaHilos fabricaHilos;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaccion;
+    private ExecutorService lector;
+    private ExecutorService[] trabajadores;
+    private final AtomicBoolean programado = new AtomicBoolean(false);
+
+    @PostConstruct
+    public void iniciar() {
+        transaccion = new TransactionTemplate(transactionManager);
+        lector = Executors.newSingleThreadExecutor(fabricaHilos.crear("webhook-stripe-lector"));
+        trabajadores = new ExecutorService[Math.max(properties.getHilos(), 1)];
+        for (int i = 0; i < trabajadores.length; i++) {
+            trabajadores[i] = Executors.newSingleThreadExecutor(fabricaHilos.crear("webhook-stripe-" + (i + 1)));
+        }
+    }
+
+    // Encola una pasada si no hay ya una esperando
+    public void despertar() {
+        if (programado.compareAndSet(false, true)) {
+            lector.execute(() -> {
+                programado.set(false);
+                procesarPendientes();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.webhooks.stripe.intervalo-ms:10000}")
+    public void revisarPendientes() {
+        despertar();
+    }
+
+    @Scheduled(cron = "${app.webhooks.stripe.cron-limpieza:0 45 4 * * *}")
+    @Transactional
+    public void limpiarProcesados() {
+        int eliminados = eventoStripeRepository.eliminarProcesadosAntesDe(
+            List.of(EventoStripe.Estado.procesado, EventoStripe.Estado.ignorado),
+            LocalDateTime.now().minusDays(properties.getDiasRetencion()));
+        if (eliminados > 0) {
+            logger.info("Webhook Stripe: {} eventos procesados eliminados", eliminados);
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        lector.shutdown();
+        for (ExecutorService trabajador : trabajadores) {
+            trabajador.shutdown();
+        }
+    }
+
+    private void procesarPendientes() {
+        try {
+            List<EventoStripe> lote;
+            do {
+                lote = eventoStripeRepository.findByEstadoAndProximoIntentoLessThanEqualOrderByFechaEventoAsc(
+                    EventoStripe.Estado.pendiente, LocalDateTime.now(), PageRequest.of(0, properties.getTamanoLote()));
+                procesarLote(lote);
+            } while (lote.size() == properties.getTamanoLote());
+        } catch (Exception e) {
+            logger.error("Error al procesar eventos de Stripe: {}", e.getMessage(), e);
+        }
+    }
+
+    // Espera a que termine el lote antes de leer el siguiente, así ningún evento se toma dos veces
+    private void procesarLote(List<EventoStripe> lote) {
+        Map<Integer, List<EventoStripe>> porTrabajador = lote.stream()
+            .collect(Collectors.groupingBy(this::trabajadorDe));
+        List<CompletableFuture<Void>> tareas = new ArrayList<>();
+        porTrabajador.forEach((indice, eventos) -> tareas.add(CompletableFuture.runAsync(
+            () -> eventos.forEach(evento -> aplicar(evento.getIdEventoStripe())), trabajadores[indice])));
+        CompletableFuture.allOf(tareas.toArray(new CompletableFuture[0])).join();
+    }
+
+    private int trabajadorDe(EventoStripe evento) {
+        String clave = evento.getPaymentIntentId() != null ? evento.getPaymentIntentId() : evento.getIdEventoStripe();
+        return Math.floorMod(clave.hashCode(), trabajadores.length);
+    }
+
+    private void aplicar(String idEvento) {
+        try {
+            transaccion.executeWithoutResult(estado -> aplicarEnTransaccion(idEvento));
+        } catch (Exception e) {
+            transaccion.executeWithoutResult(estado -> registrarFallo(idEvento, e.getMessage()));
+        }
+    }
+
+    private void aplicarEnTransaccion(String idEvento) {
+        EventoStripe evento = eventoStripeRepository.findById(idEvento).orElse(null);
+        if (evento == null || evento.getEstado() != EventoStripe.Estado.pendiente) {
+            return;
+        }
+        String estadoStripe = estadoDelPaymentIntent(evento.getTipo());
+        if (estadoStripe == null || evento.getPaymentIntentId() == null) {
+            evento.setEstado(EventoStripe.Estado.ignorado);
+        } else {
+            // Si el pago todavía no existe (el webhook llegó antes que el commit de crear-intent) falla y se reintenta
+            pagoService.aplicarEstadoStripe(evento.getPaymentIntentId(), estadoStripe);
+            evento.setEstado(EventoStripe.Estado.procesado);
+        }
+        evento.setIntentos(evento.getIntentos() + 1);
+        evento.setFechaProceso(LocalDateTime.now());
+        evento.setUltimoError(null);
+        eventoStripeRepository.save(evento);
+    }
+
+    // Estado del PaymentIntent que implica cada tipo de evento; null para los que no afectan al pago
+    private String estadoDelPaymentIntent(String tipo) {
+        switch (tipo) {
+            case WebhookStripeService.PAGO_EXITOSO:
+                return "succeeded";
+            case WebhookStripeService.PAGO_FALLIDO:
+                return "requires_payment_method";
+            case WebhookStripeService.PAGO_CANCELADO:
+                return "canceled";
+            default:
+                return null;
+        }
+    }
+
+    private void registrarFallo(String idEvento, String error) {
+        EventoStripe evento = eventoStripeRepository.findById(idEvento).orElse(null);
+        if (evento == null) {
+            return;
+        }
+        evento.setIntentos(evento.getIntentos() + 1);
+        evento.setUltimoError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+        if (evento.getIntentos() >= properties.getMaxIntentos()) {
+            evento.setEstado(EventoStripe.Estado.fallido);
+            logger.warn("Webhook Stripe: evento {} ({}) fallido tras {} intentos: {}",
+                evento.getIdEventoStripe(), evento.getTipo(), evento.getIntentos(), error);
+        } else {
+            evento.setProximoIntento(LocalDateTime.now().plusSeconds(
+                properties.calcularEsperaSegundos(evento.getIntentos())));
+        }
+        eventoStripeRepository.save(evento);
+    }
+}
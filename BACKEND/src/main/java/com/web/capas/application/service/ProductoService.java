@@ -1,7 +1,9 @@
 package com.web.capas.application.service;
 
+import com.web.capas.domain.dto.CatalogoMenu;
 import com.web.capas.domain.dto.ProductoRequest;
 import com.web.capas.domain.dto.ProductoResponse;
+import com.web.capas.domain.dto.SugerenciaResponse;
 import java.util.List;
 
 public interface ProductoService {
@@ -10,8 +12,12 @@ public interface ProductoService {
 
     List<ProductoResponse> obtenerMenuDisponible();
 
+    CatalogoMenu obtenerCatalogoMenu();
+
     List<ProductoResponse> buscarProductos(String keyword);
 
+    List<SugerenciaResponse> obtenerSugerencias(String prefijo, int limite);
+
     ProductoResponse guardarProducto(ProductoRequest request);
 
     ProductoResponse obtenerProductoPorId(Integer id);
@@ -2,43 +2,92 @@ package com.web.capas.application.service;
 
 import com.web.capas.domain.RecursoNoEncontradoExcepcion;
 import com.web.capas.domain.ServiceException;
+import com.web.capas.domain.dto.CatalogoMenu;
 import com.web.capas.domain.dto.CategoriaResponse;
 import com.web.capas.domain.dto.ProductoRequest;
 import com.web.capas.domain.dto.ProductoResponse;
+import com.web.capas.domain.dto.ProductoVendidoProyeccion;
+import com.web.capas.domain.dto.SugerenciaResponse;
 import com.web.capas.infrastructure.persistence.entities.Categoria;
 import com.web.capas.infrastructure.persistence.entities.Producto;
 import com.web.capas.domain.repository.ProductoRepository;
+import com.web.capas.domain.repository.ResumenProductoDiarioRepository;
 import com.web.capas.infrastructure.persistence.repositories.JpaCategoriaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductoServiceImpl implements ProductoService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductoServiceImpl.class);
+
     @Autowired
     private ProductoRepository productoRepository;
 
     @Autowired
     private JpaCategoriaRepository categoriaRepository;
 
-    // Obtiene solo los productos con estado ACTIVO
+    @Autowired
+    private CatalogoMenuCache catalogoMenuCache;
+
+    @Autowired
+    private IndiceBusquedaProductos indiceBusqueda;
+
+    @Autowired
+    private SugerenciasMenu sugerenciasMenu;
+
+    @Autowired
+    private ResumenProductoDiarioRepository resumenProductoDiarioRepository;
+
+    @Value("${app.sugerencias.dias-ventas:90}")
+    private int diasVentasSugerencias;
+
+    private static final int LIMITE_SUGERENCIAS_MAXIMO = SugerenciasMenu.MEJORES_POR_NODO;
+
+    // Serializa la reconstrucción de los índices con cada alta, edición o baja. Lock en lugar de synchronized:
+    // la reconstrucción consulta la base y un hilo virtual bloqueado dentro de synchronized fijaría su portador
+    private final ReentrantLock bloqueoIndices = new ReentrantLock();
+
+    // Obtiene solo los productos con estado ACTIVO (desde la caché del menú)
     @Override
     public List<ProductoResponse> obtenerProductosActivos() {
+        return obtenerCatalogoMenu().getProductos();
+    }
+
+    @Override
+    public CatalogoMenu obtenerCatalogoMenu() {
         try {
-            return productoRepository.findByEstado(Producto.EstadoProducto.activo)
-                .stream()
-                .map(this::mapearAResponse)
-                .collect(Collectors.toList());
+            return catalogoMenuCache.obtener(this::cargarProductosActivos);
         } catch (Exception e) {
             throw new ServiceException("Error de persistencia al obtener productos activos.", e);
         }
     }
 
+    private List<ProductoResponse> cargarProductosActivos() {
+        return productoRepository.findByEstado(Producto.EstadoProducto.activo)
+            .stream()
+            .map(this::mapearAResponse)
+            .collect(Collectors.toList());
+    }
+
     @Override
     public List<ProductoResponse> obtenerMenuDisponible() {
         try {
@@ -86,7 +135,14 @@ public class ProductoServiceImpl implements ProductoService {
             producto.setUltimaActualizacion(LocalDateTime.now());
 
             Producto guardado = productoRepository.save(producto);
-            return mapearAResponse(guardado);
+            catalogoMenuCache.invalidarDespuesDeConfirmar();
+            ProductoResponse response = mapearAResponse(guardado);
+            if (guardado.getEstado() == Producto.EstadoProducto.activo) {
+                indexarDespuesDeConfirmar(response);
+            } else {
+                quitarDeIndices(guardado.getIdProducto());
+            }
+            return response;
 
         } catch (IllegalArgumentException e) {
             throw e;
@@ -95,20 +151,125 @@ public class ProductoServiceImpl implements ProductoService {
         }
     }
 
+    // Busca en el índice en memoria (nombre, categoría y descripción, sin tildes y por prefijo)
+    // y devuelve los productos de la foto actual del menú, ordenados por relevancia
     @Override
     public List<ProductoResponse> buscarProductos(String keyword) {
         try {
-            return productoRepository.findByNombreContainingIgnoreCaseAndEstado(
-                    keyword,
-                    Producto.EstadoProducto.activo
-                ).stream()
-                .map(this::mapearAResponse)
-                .collect(Collectors.toList());
+            CatalogoMenu catalogo = obtenerCatalogoMenu();
+            if (keyword == null || keyword.isBlank()) {
+                return catalogo.getProductos();
+            }
+            inicializarIndices();
+
+            List<ProductoResponse> resultados = new ArrayList<>();
+            for (Integer idProducto : indiceBusqueda.buscar(keyword)) {
+                ProductoResponse producto = catalogo.obtenerPorId(idProducto);
+                if (producto != null) {
+                    resultados.add(producto);
+                }
+            }
+            return resultados;
         } catch (Exception e) {
             throw new ServiceException("Error al buscar productos por palabra clave.", e);
         }
     }
 
+    // Autocompletado del buscador: nombres de productos y categorías por prefijo, los más vendidos primero
+    @Override
+    public List<SugerenciaResponse> obtenerSugerencias(String prefijo, int limite) {
+        try {
+            inicializarIndices();
+            return sugerenciasMenu.sugerir(prefijo, Math.min(limite, LIMITE_SUGERENCIAS_MAXIMO));
+        } catch (Exception e) {
+            throw new ServiceException("Error al obtener sugerencias de búsqueda.", e);
+        }
+    }
+
+    // Refresca las unidades vendidas con las que se ordenan las sugerencias: las entregadas en los últimos
+    // días según el resumen diario por producto, sin recorrer Detalle_Pedido
+    @Scheduled(fixedDelayString = "${app.sugerencias.refresco-ventas-ms:600000}")
+    public void refrescarVentasParaSugerencias() {
+        try {
+            LocalDate hoy = LocalDate.now();
+            Map<Integer, Long> ventas = new HashMap<>();
+            for (ProductoVendidoProyeccion vendido : resumenProductoDiarioRepository.sumarProductosVendidosEnRango(hoy.minusDays(diasVentasSugerencias), hoy)) {
+                ventas.put(vendido.getIdProducto(), vendido.getCantidadVendida());
+            }
+            sugerenciasMenu.actualizarVentas(ventas);
+        } catch (Exception e) {
+            logger.warn("No se pudieron refrescar las ventas para sugerencias: {}", e.getMessage());
+        }
+    }
+
+    // Los índices se arman al arrancar; si falla (BD caída) se reintenta en la primera búsqueda
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirIndicesAlArrancar() {
+        try {
+            inicializarIndices();
+        } catch (Exception e) {
+            logger.warn("No se pudieron construir los índices del menú al arrancar: {}", e.getMessage());
+        }
+    }
+
+    // Los productos se leen de la BD dentro del bloqueo: un cambio confirmado antes ya está en la lectura
+    // y uno confirmado después espera el bloqueo y se aplica encima, así nunca se pisa con una foto vieja
+    private void inicializarIndices() {
+        if (indiceBusqueda.estaInicializado() && sugerenciasMenu.estaInicializado()) {
+            return;
+        }
+        bloqueoIndices.lock();
+        try {
+            if (indiceBusqueda.estaInicializado() && sugerenciasMenu.estaInicializado()) {
+                return;
+            }
+            List<ProductoResponse> productos = cargarProductosActivos();
+            if (!indiceBusqueda.estaInicializado()) {
+                indiceBusqueda.reconstruir(productos);
+            }
+            if (!sugerenciasMenu.estaInicializado()) {
+                sugerenciasMenu.reconstruir(productos);
+            }
+        } finally {
+            bloqueoIndices.unlock();
+        }
+    }
+
+    private void indexarDespuesDeConfirmar(ProductoResponse producto) {
+        actualizarIndicesDespuesDeConfirmar(() -> {
+            indiceBusqueda.indexar(producto);
+            sugerenciasMenu.indexar(producto);
+        });
+    }
+
+    private void quitarDeIndices(Integer idProducto) {
+        actualizarIndicesDespuesDeConfirmar(() -> {
+            indiceBusqueda.eliminar(idProducto);
+            sugerenciasMenu.eliminar(idProducto);
+        });
+    }
+
+    private void actualizarIndicesDespuesDeConfirmar(Runnable cambio) {
+        Runnable bajoBloqueo = () -> {
+            bloqueoIndices.lock();
+            try {
+                cambio.run();
+            } finally {
+                bloqueoIndices.unlock();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bajoBloqueo.run();
+                }
+            });
+        } else {
+            bajoBloqueo.run();
+        }
+    }
+
     @Override
     public ProductoResponse obtenerProductoPorId(Integer id) {
         try {
@@ -130,11 +291,15 @@ public class ProductoServiceImpl implements ProductoService {
             try {
                 productoRepository.delete(producto);
                 productoRepository.flush();
+                catalogoMenuCache.invalidarDespuesDeConfirmar();
+                quitarDeIndices(id);
                 return true;
             } catch (DataIntegrityViolationException ex) {
                 producto.setEstado(Producto.EstadoProducto.inactivo);
                 producto.setUltimaActualizacion(LocalDateTime.now());
                 productoRepository.save(producto);
+                catalogoMenuCache.invalidarDespuesDeConfirmar();
+                quitarDeIndices(id);
                 return false;
             }
         } catch (RecursoNoEncontradoExcepcion e) {
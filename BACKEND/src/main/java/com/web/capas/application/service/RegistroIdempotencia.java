@@ -0,0 +1,276 @@
+package com.web.capas.application.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web.capas.config.IdempotenciaProperties;
+import com.web.capas.domain.ClaveIdempotenciaException;
+import com.web.capas.domain.ServiceException;
+import com.web.capas.domain.repository.ClaveIdempotenciaRepository;
+import com.web.capas.infrastructure.persistence.entities.ClaveIdempotencia;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Ejecuta una sola vez las peticiones que llegan con la misma cabecera Idempotency-Key y devuelve a las
+// repeticiones la respuesta de la primera. Las respuestas viven en Claves_Idempotencia durante
+// app.idempotencia.horas-vigencia y las más recientes también en memoria (app.idempotencia.capacidad-memoria).
+// Una repetición que llega mientras la primera sigue ejecutándose en esta instancia la espera en lugar de
+// ejecutar de nuevo; si la primera está en otra instancia recibe 409.
+@Component
+public class RegistroIdempotencia {
+
+    public static final String CABECERA = "Idempotency-Key";
+    public static final String CABECERA_REPETIDA = "Idempotent-Replayed";
+    private static final int LONGITUD_MAXIMA_CLAVE = 255;
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistroIdempotencia.class);
+
+    private final ClaveIdempotenciaRepository repository;
+    private final IdempotenciaProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, CompletableFuture<RespuestaGuardada>> enCurso = new ConcurrentHashMap<>();
+    private final ReentrantLock bloqueoMemoria = new ReentrantLock();
+    private final LinkedHashMap<String, RespuestaGuardada> memoria;
+
+    public RegistroIdempotencia(ClaveIdempotenciaRepository repository, IdempotenciaProperties properties, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        // Orden de acceso: al llenarse se descarta la respuesta usada hace más tiempo
+        this.memoria = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RespuestaGuardada> mayor) {
+                return size() > properties.getCapacidadMemoria();
+            }
+        };
+    }
+
+    // Sin clave se ejecuta como siempre. Solo se guardan las respuestas 2xx; un error libera la clave
+    public <T> ResponseEntity<T> ejecutar(String operacion, String clave, Object peticion, Class<T> tipoRespuesta,
+                                          Supplier<ResponseEntity<T>> accion) {
+        if (clave == null || clave.isBlank()) {
+            return accion.get();
+        }
+        clave = clave.trim();
+        if (clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            throw new IllegalArgumentException("La cabecera " + CABECERA + " admite hasta " + LONGITUD_MAXIMA_CLAVE + " caracteres");
+        }
+        String id = sha256(operacion + "|" + usuarioActual() + "|" + clave);
+        String huella = sha256(serializar(peticion));
+
+        while (true) {
+            RespuestaGuardada guardada = buscarEnMemoria(id);
+            if (guardada != null) {
+                return reproducir(guardada, huella, tipoRespuesta);
+            }
+
+            CompletableFuture<RespuestaGuardada> propia = new CompletableFuture<>();
+            CompletableFuture<RespuestaGuardada> primera = enCurso.putIfAbsent(id, propia);
+            if (primera != null) {
+                RespuestaGuardada resultado = esperar(primera);
+                if (resultado != null) {
+                    return reproducir(resultado, huella, tipoRespuesta);
+                }
+                // La primera no dejó respuesta guardada (no fue 2xx): esta repetición se ejecuta por su cuenta
+                continue;
+            }
+
+            try {
+                Ejecucion<T> ejecucion = ejecutarPrimera(id, operacion, huella, tipoRespuesta, accion);
+                propia.complete(ejecucion.guardada);
+                return ejecucion.respuesta;
+            } catch (RuntimeException e) {
+                propia.completeExceptionally(e);
+                throw e;
+            } finally {
+                enCurso.remove(id, propia);
+            }
+        }
+    }
+
+    public int getTamanoMemoria() {
+        bloqueoMemoria.lock();
+        try {
+            return memoria.size();
+        } finally {
+            bloqueoMemoria.unlock();
+        }
+    }
+
+    @Scheduled(cron = "${app.idempotencia.cron-limpieza:0 20 * * * *}")
+    public void limpiarVencidas() {
+        int eliminadas = repository.eliminarVencidas(LocalDateTime.now());
+        if (eliminadas > 0) {
+            logger.info("Idempotencia: {} claves vencidas eliminadas", eliminadas);
+        }
+    }
+
+    private <T> Ejecucion<T> ejecutarPrimera(String id, String operacion, String huella, Class<T> tipoRespuesta,
+                                             Supplier<ResponseEntity<T>> accion) {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime finBloqueo = ahora.plusSeconds(properties.getBloqueoSegundos());
+        if (repository.reservar(id, operacion, huella, ahora, finBloqueo) == 0) {
+            // La fila puede ser de una respuesta ya vencida o de una ejecución que quedó a medias al caerse la instancia
+            repository.eliminarSiVencida(id, ahora);
+            if (repository.reservar(id, operacion, huella, ahora, finBloqueo) == 0) {
+                ClaveIdempotencia fila = repository.findById(id).orElse(null);
+                if (fila != null && fila.getEstado() == ClaveIdempotencia.Estado.completado) {
+                    RespuestaGuardada guardada = new RespuestaGuardada(
+                        fila.getHuellaPeticion(), fila.getCodigoHttp(), fila.getCuerpoRespuesta(), fila.getFechaExpiracion());
+                    guardarEnMemoria(id, guardada);
+                    return new Ejecucion<>(reproducir(guardada, huella, tipoRespuesta), guardada);
+                }
+                throw new ClaveIdempotenciaException("Ya hay una petición en curso con esta " + CABECERA, true);
+            }
+        }
+
+        ResponseEntity<T> respuesta;
+        try {
+            respuesta = accion.get();
+        } catch (RuntimeException e) {
+            liberar(id);
+            throw e;
+        }
+        if (!respuesta.getStatusCode().is2xxSuccessful()) {
+            liberar(id);
+            return new Ejecucion<>(respuesta, null);
+        }
+
+        RespuestaGuardada guardada = new RespuestaGuardada(huella, respuesta.getStatusCode().value(),
+            serializar(respuesta.getBody()), LocalDateTime.now().plusHours(properties.getHorasVigencia()));
+        try {
+            repository.completar(id, guardada.codigo, guardada.cuerpo, guardada.expiracion);
+        } catch (RuntimeException e) {
+            // La operación ya se hizo; sin la fila, las repeticiones de otras instancias verán 409 hasta que venza el bloqueo
+            logger.warn("Idempotencia: no se pudo guardar la respuesta de {}: {}", operacion, e.getMessage());
+        }
+        guardarEnMemoria(id, guardada);
+        return new Ejecucion<>(respuesta, guardada);
+    }
+
+    private RespuestaGuardada esperar(CompletableFuture<RespuestaGuardada> primera) {
+        try {
+            return primera.get(properties.getEsperaMaximaMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ClaveIdempotenciaException("Ya hay una petición en curso con esta " + CABECERA, true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException("Se interrumpió la espera de la petición original", e);
+        } catch (ExecutionException e) {
+            // La repetición recibe el mismo error que la petición original
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new ServiceException("Error en la petición original: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private <T> ResponseEntity<T> reproducir(RespuestaGuardada guardada, String huella, Class<T> tipoRespuesta) {
+        if (!guardada.huella.equals(huella)) {
+            throw new ClaveIdempotenciaException("La " + CABECERA + " ya se usó con una petición distinta", false);
+        }
+        try {
+            T cuerpo = guardada.cuerpo != null ? objectMapper.readValue(guardada.cuerpo, tipoRespuesta) : null;
+            return ResponseEntity.status(guardada.codigo).header(CABECERA_REPETIDA, "true").body(cuerpo);
+        } catch (JsonProcessingException e) {
+            throw new ServiceException("No se pudo leer la respuesta guardada", e);
+        }
+    }
+
+    private RespuestaGuardada buscarEnMemoria(String id) {
+        bloqueoMemoria.lock();
+        try {
+            RespuestaGuardada guardada = memoria.get(id);
+            if (guardada != null && guardada.expiracion.isBefore(LocalDateTime.now())) {
+                memoria.remove(id);
+                return null;
+            }
+            return guardada;
+        } finally {
+            bloqueoMemoria.unlock();
+        }
+    }
+
+    private void guardarEnMemoria(String id, RespuestaGuardada guardada) {
+        bloqueoMemoria.lock();
+        try {
+            memoria.put(id, guardada);
+        } finally {
+            bloqueoMemoria.unlock();
+        }
+    }
+
+    private void liberar(String id) {
+        try {
+            repository.liberar(id);
+        } catch (RuntimeException e) {
+            logger.warn("Idempotencia: no se pudo liberar la clave: {}", e.getMessage());
+        }
+    }
+
+    private String usuarioActual() {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        return autenticacion != null ? autenticacion.getName() : "";
+    }
+
+    private String serializar(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            throw new ServiceException("No se pudo serializar la petición", e);
+        }
+    }
+
+    private static String sha256(String texto) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(texto.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class RespuestaGuardada {
+        private final String huella;
+        private final int codigo;
+        private final String cuerpo;
+        private final LocalDateTime expiracion;
+
+        private RespuestaGuardada(String huella, int codigo, String cuerpo, LocalDateTime expiracion) {
+            this.huella = huella;
+            this.codigo = codigo;
+            this.cuerpo = cuerpo;
+            this.expiracion = expiracion;
+        }
+    }
+
+    private static class Ejecucion<T> {
+        private final ResponseEntity<T> respuesta;
+        private final RespuestaGuardada guardada;
+
+        private Ejecucion(ResponseEntity<T> respuesta, RespuestaGuardada guardada) {
+            this.respuesta = respuesta;
+            this.guardada = guardada;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.web.capas.application.service;
+
+import com.web.capas.domain.dto.PlayerIdRepartidorProyeccion;
+import com.web.capas.domain.repository.UsuarioRepository;
+import com.web.capas.infrastructure.persistence.entities.Usuario;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Player IDs de OneSignal de los repartidores activos. La lectura devuelve una lista inmutable sin
+// bloqueos ni consultas; las escrituras de UsuarioService la mantienen al día al confirmar su transacción
+// y cada app.repartidores.resincronizacion-ms se recarga desde la base por si hubo cambios externos.
+@Component
+public class RegistroRepartidores {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistroRepartidores.class);
+
+    private final UsuarioRepository usuarioRepository;
+
+    // Las escrituras son raras (login de repartidor, cambios de admin): se serializan y publican una foto nueva
+    private final ReentrantLock escritura = new ReentrantLock();
+    private final Map<Integer, String> playerIdPorRepartidor = new HashMap<>();
+    private volatile List<String> playerIds;
+
+    public RegistroRepartidores(UsuarioRepository usuarioRepository) {
+        this.usuarioRepository = usuarioRepository;
+    }
+
+    public List<String> obtenerPlayerIds() {
+        List<String> actuales = playerIds;
+        if (actuales == null) {
+            recargar();
+            actuales = playerIds;
+        }
+        return actuales;
+    }
+
+    // Se aplica el estado que tiene el usuario ahora; si la transacción se revierte no cambia nada
+    public void actualizarDespuesDeConfirmar(Usuario usuario) {
+        Integer idUsuario = usuario.getIdUsuario();
+        boolean recibePush = usuario.getRol() == Usuario.Rol.repartidor
+            && Boolean.TRUE.equals(usuario.getActivo())
+            && esValido(usuario.getPlayerId());
+        String playerId = recibePush ? usuario.getPlayerId() : null;
+        alConfirmar(() -> aplicar(idUsuario, playerId));
+    }
+
+    public void quitarDespuesDeConfirmar(Integer idUsuario) {
+        alConfirmar(() -> aplicar(idUsuario, null));
+    }
+
+    @Scheduled(fixedDelayString = "${app.repartidores.resincronizacion-ms:600000}",
+               initialDelayString = "${app.repartidores.resincronizacion-ms:600000}")
+    public void resincronizar() {
+        try {
+            recargar();
+        } catch (Exception e) {
+            logger.warn("No se pudo resincronizar el registro de repartidores: {}", e.getMessage());
+        }
+    }
+
+    private void recargar() {
+        escritura.lock();
+        try {
+            List<PlayerIdRepartidorProyeccion> filas = usuarioRepository.listarPlayerIdsActivosPorRol(Usuario.Rol.repartidor);
+            playerIdPorRepartidor.clear();
+            for (PlayerIdRepartidorProyeccion fila : filas) {
+                if (esValido(fila.getPlayerId())) {
+                    playerIdPorRepartidor.put(fila.getIdUsuario(), fila.getPlayerId());
+                }
+            }
+            publicar();
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private void aplicar(Integer idUsuario, String playerId) {
+        escritura.lock();
+        try {
+            // Sin carga inicial todavía: la primera lectura traerá el estado completo desde la base
+            if (playerIds == null) {
+                return;
+            }
+            String anterior = playerId != null
+                ? playerIdPorRepartidor.put(idUsuario, playerId)
+                : playerIdPorRepartidor.remove(idUsuario);
+            if (!Objects.equals(anterior, playerId)) {
+                publicar();
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    // Dos repartidores pueden compartir dispositivo: la lista sale sin repetidos
+    private void publicar() {
+        playerIds = playerIdPorRepartidor.values().stream().distinct().toList();
+    }
+
+    private void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    private static boolean esValido(String playerId) {
+        return playerId != null && !playerId.trim().isEmpty();
+    }
+}
@@ -1,8 +1,12 @@
 package com.web.capas.application.service;
 
+import com.web.capas.domain.dto.ProductoVendidoProyeccion;
 import com.web.capas.domain.dto.ReporteResponse;
-import com.web.capas.domain.repository.PedidoRepository;
+import com.web.capas.domain.dto.ResumenVentasProyeccion;
+import com.web.capas.domain.dto.VentaDiariaProyeccion;
 import com.web.capas.domain.repository.ReporteRepository;
+import com.web.capas.domain.repository.ResumenProductoDiarioRepository;
+import com.web.capas.domain.repository.ResumenVentaDiariaRepository;
 import com.web.capas.infrastructure.persistence.entities.*;
 import com.web.capas.domain.ServiceException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,11 +22,17 @@ import java.util.stream.Collectors;
 @Service
 public class ReporteServiceImpl implements ReporteService {
 
+    private static final LocalDate FECHA_MINIMA = LocalDate.of(1970, 1, 1);
+    private static final LocalDate FECHA_MAXIMA = LocalDate.of(9999, 12, 31);
+
     @Autowired
     private ReporteRepository reporteRepository;
     
     @Autowired
-    private PedidoRepository pedidoRepository;
+    private ResumenVentaDiariaRepository resumenVentaDiariaRepository;
+    
+    @Autowired
+    private ResumenProductoDiarioRepository resumenProductoDiarioRepository;
     
     @Autowired
     private ConfiguracionSistemaService configuracionSistemaService;
@@ -35,20 +45,14 @@ public class ReporteServiceImpl implements ReporteService {
                 throw new ServiceException("La fecha de inicio no puede ser posterior a la fecha de fin");
             }
             
-            List<Pedido> pedidos = obtenerPedidosEnRango(fechaInicio, fechaFin);
-            
-            // Filtrar solo pedidos entregados y pagados
-            List<Pedido> pedidosVendidos = pedidos.stream()
-                .filter(p -> p.getEstadoPedido() == Pedido.EstadoPedido.entregado 
-                          && p.getEstadoPago() == Pedido.EstadoPago.pagado)
-                .collect(Collectors.toList());
+            LocalDate desde = inicioDeRango(fechaInicio);
+            LocalDate hasta = finDeRango(fechaFin);
             
-            // Calcular totales
-            BigDecimal totalVentas = pedidosVendidos.stream()
-                .map(Pedido::getTotalPedido)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            // Solo pedidos entregados y pagados, leídos del resumen diario
+            ResumenVentasProyeccion resumen = resumenVentaDiariaRepository.resumirVentasEnRango(desde, hasta);
             
-            int cantidadPedidos = pedidosVendidos.size();
+            BigDecimal totalVentas = resumen.getTotal();
+            long cantidadPedidos = resumen.getCantidadPedidos();
             
             // Guardar registro del reporte
             Reporte reporte = new Reporte();
@@ -75,11 +79,10 @@ public class ReporteServiceImpl implements ReporteService {
             datos.put("promedioVenta", cantidadPedidos > 0 ? totalVentas.divide(new BigDecimal(cantidadPedidos), 2, java.math.RoundingMode.HALF_UP) : BigDecimal.ZERO);
             
             // Ventas por día
-            Map<String, BigDecimal> ventasPorDia = pedidosVendidos.stream()
-                .collect(Collectors.groupingBy(
-                    p -> p.getFechaPedido().toLocalDate().toString(),
-                    Collectors.reducing(BigDecimal.ZERO, Pedido::getTotalPedido, BigDecimal::add)
-                ));
+            Map<String, BigDecimal> ventasPorDia = new LinkedHashMap<>();
+            for (VentaDiariaProyeccion venta : resumenVentaDiariaRepository.sumarVentasPorDiaEnRango(desde, hasta)) {
+                ventasPorDia.put(venta.getDia().toString(), venta.getTotal());
+            }
             datos.put("ventasPorDia", ventasPorDia);
             
             response.setDatos(datos);
@@ -100,37 +103,17 @@ public class ReporteServiceImpl implements ReporteService {
                 throw new ServiceException("La fecha de inicio no puede ser posterior a la fecha de fin");
             }
             
-            List<Pedido> pedidos = obtenerPedidosEnRango(fechaInicio, fechaFin);
-            
-            List<Pedido> pedidosEntregados = pedidos.stream()
-                .filter(p -> p.getEstadoPedido() == Pedido.EstadoPedido.entregado)
-                .collect(Collectors.toList());
-            
-            Map<Integer, ProductoVendidoInfo> productosVendidos = new HashMap<>();
-            
-            for (Pedido pedido : pedidosEntregados) {
-                if (pedido.getProductos() != null) {
-                    for (DetallePedido detalle : pedido.getProductos()) {
-                        Integer idProducto = detalle.getProducto().getIdProducto();
-                        ProductoVendidoInfo info = productosVendidos.getOrDefault(idProducto, 
-                            new ProductoVendidoInfo(detalle.getProducto().getNombre(), 0, BigDecimal.ZERO));
-                        
-                        info.cantidad += detalle.getCantidad();
-                        info.totalVentas = info.totalVentas.add(detalle.getSubtotal());
-                        productosVendidos.put(idProducto, info);
-                    }
-                }
-            }
+            // Resumen diario por producto, agrupado y ordenado por cantidad vendida
+            List<ProductoVendidoProyeccion> productosVendidos = resumenProductoDiarioRepository.sumarProductosVendidosEnRango(
+                inicioDeRango(fechaInicio), finDeRango(fechaFin));
             
-            // Ordenar por cantidad vendida 
-            List<Map<String, Object>> productosOrdenados = productosVendidos.entrySet().stream()
-                .sorted((e1, e2) -> Integer.compare(e2.getValue().cantidad, e1.getValue().cantidad))
-                .map(entry -> {
+            List<Map<String, Object>> productosOrdenados = productosVendidos.stream()
+                .map(vendido -> {
                     Map<String, Object> producto = new HashMap<>();
-                    producto.put("idProducto", entry.getKey());
-                    producto.put("nombre", entry.getValue().nombre);
-                    producto.put("cantidadVendida", entry.getValue().cantidad);
-                    producto.put("totalVentas", entry.getValue().totalVentas);
+                    producto.put("idProducto", vendido.getIdProducto());
+                    producto.put("nombre", vendido.getNombre());
+                    producto.put("cantidadVendida", (int) vendido.getCantidadVendida());
+                    producto.put("totalVentas", vendido.getTotalVentas());
                     return producto;
                 })
                 .collect(Collectors.toList());
@@ -175,18 +158,11 @@ public class ReporteServiceImpl implements ReporteService {
                 throw new ServiceException("La fecha de inicio no puede ser posterior a la fecha de fin");
             }
             
-            List<Pedido> pedidos = obtenerPedidosEnRango(fechaInicio, fechaFin);
-            
-            // Filtrar solo pedidos entregados y pagados
-            List<Pedido> pedidosPagados = pedidos.stream()
-                .filter(p -> p.getEstadoPedido() == Pedido.EstadoPedido.entregado 
-                          && p.getEstadoPago() == Pedido.EstadoPago.pagado)
-                .collect(Collectors.toList());
+            // Solo pedidos entregados y pagados, leídos del resumen diario
+            ResumenVentasProyeccion resumen = resumenVentaDiariaRepository.resumirVentasEnRango(
+                inicioDeRango(fechaInicio), finDeRango(fechaFin));
             
-            // Calcular ganancias totales
-            BigDecimal totalGanancias = pedidosPagados.stream()
-                .map(Pedido::getTotalPedido)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            BigDecimal totalGanancias = resumen.getTotal();
             
             BigDecimal porcentajeCosto = configuracionSistemaService.obtenerPorcentajeCosto();
             BigDecimal costoEstimado = totalGanancias.multiply(porcentajeCosto);
@@ -218,7 +194,7 @@ public class ReporteServiceImpl implements ReporteService {
             datos.put("margenGanancia", totalGanancias.compareTo(BigDecimal.ZERO) > 0 
                 ? gananciaNeta.divide(totalGanancias, 4, java.math.RoundingMode.HALF_UP).multiply(new BigDecimal("100"))
                 : BigDecimal.ZERO);
-            datos.put("cantidadPedidos", pedidosPagados.size());
+            datos.put("cantidadPedidos", resumen.getCantidadPedidos());
             
             response.setDatos(datos);
             
@@ -240,36 +216,13 @@ public class ReporteServiceImpl implements ReporteService {
         return reporteRepository.findByTipoReporteOrderByFechaGeneracionDesc(tipoReporte);
     }
 
-    private List<Pedido> obtenerPedidosEnRango(LocalDate fechaInicio, LocalDate fechaFin) {
-        List<Pedido> todosLosPedidos = pedidoRepository.findAll();
-        
-        if (fechaInicio == null && fechaFin == null) {
-            return todosLosPedidos;
-        }
-        
-        return todosLosPedidos.stream()
-            .filter(p -> {
-                if (p.getFechaPedido() == null) return false;
-                LocalDate fechaPedido = p.getFechaPedido().toLocalDate();
-                
-                boolean cumpleInicio = fechaInicio == null || !fechaPedido.isBefore(fechaInicio);
-                boolean cumpleFin = fechaFin == null || !fechaPedido.isAfter(fechaFin);
-                
-                return cumpleInicio && cumpleFin;
-            })
-            .collect(Collectors.toList());
+    // Límites del rango de días [desde, hasta] sobre la columna fecha de los resúmenes
+    private LocalDate inicioDeRango(LocalDate fechaInicio) {
+        return fechaInicio != null ? fechaInicio : FECHA_MINIMA;
     }
 
-    private static class ProductoVendidoInfo {
-        String nombre;
-        int cantidad;
-        BigDecimal totalVentas;
-
-        ProductoVendidoInfo(String nombre, int cantidad, BigDecimal totalVentas) {
-            this.nombre = nombre;
-            this.cantidad = cantidad;
-            this.totalVentas = totalVentas;
-        }
+    private LocalDate finDeRango(LocalDate fechaFin) {
+        return fechaFin != null ? fechaFin : FECHA_MAXIMA;
     }
 }
 
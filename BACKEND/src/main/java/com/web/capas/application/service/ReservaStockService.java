@@ -0,0 +1,13 @@
+package com.web.capas.application.service;
+
+import com.web.capas.infrastructure.persistence.entities.Pedido;
+import java.util.Map;
+
+public interface ReservaStockService {
+
+    // Descuenta el stock de cada producto (idProducto -> cantidad); si alguno no alcanza lanza excepción
+    void reservar(Map<Integer, Integer> cantidadesPorProducto);
+
+    // Devuelve al stock las cantidades del pedido cancelado
+    void liberar(Pedido pedido);
+}
@@ -0,0 +1,73 @@
+package com.web.capas.application.service;
+
+import com.web.capas.domain.RecursoNoEncontradoExcepcion;
+import com.web.capas.domain.ServiceException;
+import com.web.capas.domain.repository.ProductoRepository;
+import com.web.capas.infrastructure.persistence.entities.DetallePedido;
+import com.web.capas.infrastructure.persistence.entities.Pedido;
+import com.web.capas.infrastructure.persistence.entities.Producto;
+import com.web.capas.infrastructure.persistence.repositories.JdbcPedidoLoteRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Reserva de stock con UPDATE condicional: la base de datos decide si alcanza, así no hay sobreventa
+// aunque lleguen muchos pedidos a la vez. Los productos se actualizan siempre en orden de id para que
+// dos pedidos con los mismos productos tomen los bloqueos de fila en el mismo orden y no se bloqueen entre sí.
+@Service
+public class ReservaStockServiceImpl implements ReservaStockService {
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private JdbcPedidoLoteRepository pedidoLoteRepository;
+
+    @Autowired
+    private CatalogoMenuCache catalogoMenuCache;
+
+    @Override
+    @Transactional
+    public void reservar(Map<Integer, Integer> cantidadesPorProducto) {
+        SortedMap<Integer, Integer> ordenadas = new TreeMap<>(cantidadesPorProducto);
+        for (Integer cantidad : ordenadas.values()) {
+            if (cantidad == null || cantidad <= 0) {
+                throw new ServiceException("La cantidad debe ser mayor a cero");
+            }
+        }
+
+        // Si algún descuento no se aplicó, la excepción revierte la transacción completa
+        Optional<Integer> sinStock = pedidoLoteRepository.descontarStock(ordenadas);
+        if (sinStock.isPresent()) {
+            Integer idProducto = sinStock.get();
+            Producto producto = productoRepository.findById(idProducto)
+                .orElseThrow(() -> new RecursoNoEncontradoExcepcion("Producto no encontrado: " + idProducto));
+            throw new ServiceException("Stock insuficiente para el producto: " + producto.getNombre());
+        }
+        catalogoMenuCache.invalidarDespuesDeConfirmar();
+    }
+
+    @Override
+    @Transactional
+    public void liberar(Pedido pedido) {
+        if (pedido.getProductos() == null || pedido.getProductos().isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Integer> cantidadesPorProducto = new TreeMap<>();
+        for (DetallePedido detalle : pedido.getProductos()) {
+            if (detalle.getProducto() != null && detalle.getCantidad() != null) {
+                cantidadesPorProducto.merge(detalle.getProducto().getIdProducto(), detalle.getCantidad(), Integer::sum);
+            }
+        }
+        for (Map.Entry<Integer, Integer> item : cantidadesPorProducto.entrySet()) {
+            productoRepository.reponerStock(item.getKey(), item.getValue());
+        }
+        catalogoMenuCache.invalidarDespuesDeConfirmar();
+    }
+}
@@ -0,0 +1,19 @@
+package com.web.capas.application.service;
+
+import com.web.capas.domain.dto.ResumenVentasProyeccion;
+import com.web.capas.infrastructure.persistence.entities.Pedido;
+import java.time.LocalDate;
+
+public interface ResumenVentasService {
+
+    void registrarPedidoCreado(Pedido pedido);
+
+    void registrarCambioDeEstado(Pedido pedido, Pedido.EstadoPedido estadoPedidoAnterior, Pedido.EstadoPago estadoPagoAnterior);
+
+    // Se llama antes de borrar el pedido, con sus productos todavía cargables
+    void registrarPedidoEliminado(Pedido pedido);
+
+    ResumenVentasProyeccion obtenerPedidosNoCanceladosDelDia(LocalDate dia);
+
+    void reconciliar(LocalDate desde, LocalDate hasta);
+}
@@ -0,0 +1,156 @@
+package com.web.capas.application.service;
+
+import com.web.capas.domain.ServiceException;
+import com.web.capas.domain.dto.ResumenVentasProyeccion;
+import com.web.capas.domain.repository.ResumenProductoDiarioRepository;
+import com.web.capas.domain.repository.ResumenVentaDiariaRepository;
+import com.web.capas.infrastructure.persistence.entities.DetallePedido;
+import com.web.capas.infrastructure.persistence.entities.Pedido;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Service
+public class ResumenVentasServiceImpl implements ResumenVentasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumenVentasServiceImpl.class);
+
+    @Autowired
+    private ResumenVentaDiariaRepository resumenVentaDiariaRepository;
+
+    @Autowired
+    private ResumenProductoDiarioRepository resumenProductoDiarioRepository;
+
+    @Value("${reportes.resumen.dias-reconciliacion:7}")
+    private int diasReconciliacion;
+
+    @Override
+    @Transactional
+    public void registrarPedidoCreado(Pedido pedido) {
+        aplicarDiferencia(pedido, false, null, null);
+    }
+
+    @Override
+    @Transactional
+    public void registrarCambioDeEstado(Pedido pedido, Pedido.EstadoPedido estadoPedidoAnterior, Pedido.EstadoPago estadoPagoAnterior) {
+        aplicarDiferencia(pedido, true, estadoPedidoAnterior, estadoPagoAnterior);
+    }
+
+    // Resta todo lo que el pedido aportaba en su estado actual
+    @Override
+    @Transactional
+    public void registrarPedidoEliminado(Pedido pedido) {
+        acumular(pedido,
+            -1,
+            -indicador(esCancelado(pedido.getEstadoPedido())),
+            -indicador(esVendido(pedido.getEstadoPedido(), pedido.getEstadoPago())),
+            -indicador(pedido.getEstadoPedido() == Pedido.EstadoPedido.entregado));
+    }
+
+    @Override
+    public ResumenVentasProyeccion obtenerPedidosNoCanceladosDelDia(LocalDate dia) {
+        return resumenVentaDiariaRepository.resumirPedidosNoCanceladosDelDia(dia);
+    }
+
+    @Override
+    @Transactional
+    public void reconciliar(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || desde.isAfter(hasta)) {
+            throw new ServiceException("Rango de fechas no válido para reconciliar los resúmenes");
+        }
+
+        resumenVentaDiariaRepository.eliminarEnRango(desde, hasta);
+        resumenVentaDiariaRepository.recalcularEnRango(desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay());
+
+        resumenProductoDiarioRepository.eliminarEnRango(desde, hasta);
+        resumenProductoDiarioRepository.recalcularEnRango(desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay());
+
+        logger.info("Resúmenes de ventas reconciliados del {} al {}", desde, hasta);
+    }
+
+    // Recalcula cada noche los últimos días para corregir cualquier desvío de los incrementos
+    @Scheduled(cron = "${reportes.resumen.cron-reconciliacion:0 30 3 * * *}")
+    @Transactional
+    public void reconciliarDiasRecientes() {
+        LocalDate hoy = LocalDate.now();
+        try {
+            reconciliar(hoy.minusDays(diasReconciliacion), hoy);
+        } catch (Exception e) {
+            logger.error("Error al reconciliar los resúmenes de ventas: {}", e.getMessage(), e);
+        }
+    }
+
+    // Resta el aporte del estado anterior y suma el del estado actual
+    private void aplicarDiferencia(Pedido pedido, boolean existia,
+                                   Pedido.EstadoPedido estadoPedidoAnterior, Pedido.EstadoPago estadoPagoAnterior) {
+        int creadosDiferencia = existia ? 0 : 1;
+        int canceladosDiferencia = indicador(esCancelado(pedido.getEstadoPedido()))
+            - (existia ? indicador(esCancelado(estadoPedidoAnterior)) : 0);
+        int vendidosDiferencia = indicador(esVendido(pedido.getEstadoPedido(), pedido.getEstadoPago()))
+            - (existia ? indicador(esVendido(estadoPedidoAnterior, estadoPagoAnterior)) : 0);
+        // Los reportes de productos solo cuentan pedidos entregados
+        int entregadoDiferencia = indicador(pedido.getEstadoPedido() == Pedido.EstadoPedido.entregado)
+            - (existia ? indicador(estadoPedidoAnterior == Pedido.EstadoPedido.entregado) : 0);
+
+        acumular(pedido, creadosDiferencia, canceladosDiferencia, vendidosDiferencia, entregadoDiferencia);
+    }
+
+    private void acumular(Pedido pedido, int creadosDiferencia, int canceladosDiferencia,
+                          int vendidosDiferencia, int entregadoDiferencia) {
+        if (pedido.getFechaPedido() == null || pedido.getMetodoPago() == null) {
+            return;
+        }
+
+        LocalDate fecha = pedido.getFechaPedido().toLocalDate();
+        BigDecimal total = pedido.getTotalPedido() != null ? pedido.getTotalPedido() : BigDecimal.ZERO;
+        BigDecimal descuento = pedido.getDescuentoAplicado() != null ? pedido.getDescuentoAplicado() : BigDecimal.ZERO;
+
+        if (creadosDiferencia != 0 || canceladosDiferencia != 0 || vendidosDiferencia != 0) {
+            resumenVentaDiariaRepository.acumular(
+                fecha,
+                pedido.getMetodoPago().name(),
+                creadosDiferencia,
+                total.multiply(BigDecimal.valueOf(creadosDiferencia)),
+                canceladosDiferencia,
+                total.multiply(BigDecimal.valueOf(canceladosDiferencia)),
+                vendidosDiferencia,
+                total.multiply(BigDecimal.valueOf(vendidosDiferencia)),
+                descuento.multiply(BigDecimal.valueOf(vendidosDiferencia))
+            );
+        }
+
+        if (entregadoDiferencia != 0 && pedido.getProductos() != null) {
+            for (DetallePedido detalle : pedido.getProductos()) {
+                if (detalle.getProducto() == null || detalle.getCantidad() == null) {
+                    continue;
+                }
+                BigDecimal subtotal = detalle.getSubtotal() != null ? detalle.getSubtotal() : BigDecimal.ZERO;
+                resumenProductoDiarioRepository.acumular(
+                    fecha,
+                    detalle.getProducto().getIdProducto(),
+                    detalle.getCantidad() * entregadoDiferencia,
+                    subtotal.multiply(BigDecimal.valueOf(entregadoDiferencia))
+                );
+            }
+        }
+    }
+
+    private boolean esCancelado(Pedido.EstadoPedido estadoPedido) {
+        return estadoPedido == Pedido.EstadoPedido.cancelado;
+    }
+
+    private boolean esVendido(Pedido.EstadoPedido estadoPedido, Pedido.EstadoPago estadoPago) {
+        return estadoPedido == Pedido.EstadoPedido.entregado && estadoPago == Pedido.EstadoPago.pagado;
+    }
+
+    private int indicador(boolean condicion) {
+        return condicion ? 1 : 0;
+    }
+}
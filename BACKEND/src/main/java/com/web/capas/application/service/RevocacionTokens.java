@@ -0,0 +1,166 @@
+package com.web.capas.application.service;
+
+import com.web.capas.config.JwtProperties;
+import com.web.capas.domain.dto.GeneracionTokenProyeccion;
+import com.web.capas.domain.repository.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Revocación de sesiones sin consultar la base en cada petición. Cada usuario tiene una generación
+// (Usuarios.generacion_token) y los tokens llevan la generación con la que se emitieron; revocar sube la
+// generación y los tokens anteriores dejan de valer. En memoria es un arreglo indexado por id_usuario
+// (4 bytes por usuario) que solo crece. Las generaciones solo suben, así que la resincronización con la
+// base toma el máximo y nunca deshace una revocación.
+// También recuerda los tokens de refresco ya usados hasta que vencen, para detectar su reutilización.
+@Component
+public class RevocacionTokens {
+
+    // Generación para usuarios eliminados: ningún token vuelve a valer
+    private static final int GENERACION_ELIMINADO = Integer.MAX_VALUE;
+
+    private static final Logger logger = LoggerFactory.getLogger(RevocacionTokens.class);
+
+    private final UsuarioRepository usuarioRepository;
+    private final JwtProperties jwtProperties;
+
+    // Las escrituras (revocaciones, recargas) se serializan; las lecturas no bloquean
+    private final ReentrantLock escritura = new ReentrantLock();
+    private volatile AtomicIntegerArray generaciones;
+    private final Map<String, RefrescoUsado> refrescosUsados = new ConcurrentHashMap<>();
+
+    public RevocacionTokens(UsuarioRepository usuarioRepository, JwtProperties jwtProperties) {
+        this.usuarioRepository = usuarioRepository;
+        this.jwtProperties = jwtProperties;
+    }
+
+    public boolean esVigente(Integer idUsuario, Integer generacion) {
+        if (idUsuario == null || generacion == null || idUsuario < 0) {
+            return false;
+        }
+        AtomicIntegerArray actuales = generaciones;
+        if (actuales == null) {
+            recargar();
+            actuales = generaciones;
+        }
+        int minima = idUsuario < actuales.length() ? actuales.get(idUsuario) : 0;
+        return generacion >= minima;
+    }
+
+    // Se aplica al confirmar: si la transacción que subió la generación se revierte, los tokens siguen valiendo
+    public void revocarDespuesDeConfirmar(Integer idUsuario, int nuevaGeneracion) {
+        alConfirmar(() -> subir(idUsuario, nuevaGeneracion));
+    }
+
+    public void revocarEliminadoDespuesDeConfirmar(Integer idUsuario) {
+        alConfirmar(() -> subir(idUsuario, GENERACION_ELIMINADO));
+    }
+
+    // Marca el token de refresco como usado. Un segundo uso dentro de app.jwt.margen-reuso-segundos se
+    // toma como dos pestañas refrescando a la vez; pasado el margen, como un token copiado
+    public UsoRefresco marcarRefrescoUsado(String jti, long expiraEnMs) {
+        long ahora = System.currentTimeMillis();
+        RefrescoUsado anterior = refrescosUsados.putIfAbsent(jti, new RefrescoUsado(ahora, expiraEnMs));
+        if (anterior == null) {
+            return UsoRefresco.PRIMER_USO;
+        }
+        long margenMs = jwtProperties.getMargenReusoSegundos() * 1000L;
+        return ahora - anterior.usadoEnMs <= margenMs ? UsoRefresco.REPETIDO_EN_MARGEN : UsoRefresco.REUTILIZADO;
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.resincronizacion-ms:60000}",
+               initialDelayString = "${app.jwt.resincronizacion-ms:60000}")
+    public void resincronizar() {
+        long ahora = System.currentTimeMillis();
+        refrescosUsados.values().removeIf(usado -> usado.expiraEnMs <= ahora);
+        try {
+            recargar();
+        } catch (Exception e) {
+            logger.warn("No se pudo resincronizar las generaciones de tokens: {}", e.getMessage());
+        }
+    }
+
+    public int getRefrescosUsados() {
+        return refrescosUsados.size();
+    }
+
+    private void recargar() {
+        List<GeneracionTokenProyeccion> filas = usuarioRepository.listarGeneracionesToken();
+        escritura.lock();
+        try {
+            if (generaciones == null) {
+                generaciones = new AtomicIntegerArray(0);
+            }
+            for (GeneracionTokenProyeccion fila : filas) {
+                subirConBloqueo(fila.getIdUsuario(), fila.getGeneracionToken());
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private void subir(Integer idUsuario, int generacion) {
+        escritura.lock();
+        try {
+            // Sin carga inicial todavía: la primera lectura traerá el estado completo desde la base
+            if (generaciones == null) {
+                return;
+            }
+            subirConBloqueo(idUsuario, generacion);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private void subirConBloqueo(Integer idUsuario, int generacion) {
+        if (idUsuario == null || idUsuario < 0) {
+            return;
+        }
+        AtomicIntegerArray actuales = generaciones;
+        if (idUsuario >= actuales.length()) {
+            AtomicIntegerArray ampliado = new AtomicIntegerArray(Math.max(idUsuario + 1, actuales.length() * 2));
+            for (int i = 0; i < actuales.length(); i++) {
+                ampliado.set(i, actuales.get(i));
+            }
+            generaciones = ampliado;
+            actuales = ampliado;
+        }
+        actuales.accumulateAndGet(idUsuario, generacion, Math::max);
+    }
+
+    private void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    public enum UsoRefresco {
+        PRIMER_USO, REPETIDO_EN_MARGEN, REUTILIZADO
+    }
+
+    private static class RefrescoUsado {
+        private final long usadoEnMs;
+        private final long expiraEnMs;
+
+        private RefrescoUsado(long usadoEnMs, long expiraEnMs) {
+            this.usadoEnMs = usadoEnMs;
+            this.expiraEnMs = expiraEnMs;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.web.capas.application.service;
+
+import com.web.capas.domain.dto.AuthResponse;
+import com.web.capas.infrastructure.persistence.entities.Usuario;
+
+public interface SesionService {
+
+    // Datos del usuario con un token de acceso y uno de refresco nuevos
+    AuthResponse.AuthData iniciarSesion(Usuario usuario);
+
+    // Cambia un token de refresco por un par nuevo; el token recibido deja de valer
+    AuthResponse.AuthData refrescar(String tokenRefresco);
+
+    // Invalida el token de refresco de este dispositivo
+    void cerrarSesion(String tokenRefresco);
+}
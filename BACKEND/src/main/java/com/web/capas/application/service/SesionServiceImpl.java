@@ -0,0 +1,99 @@
+package com.web.capas.application.service;
+
+import com.web.capas.domain.CredencialesInvalidasException;
+import com.web.capas.domain.dto.AuthResponse;
+import com.web.capas.domain.repository.UsuarioRepository;
+import com.web.capas.infrastructure.persistence.entities.Usuario;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+
+// Rotación de tokens de refresco: cada refresco entrega un par nuevo y el token usado queda marcado.
+// Si un token ya usado vuelve a llegar pasado el margen, alguien tiene una copia: se revocan todas las
+// sesiones del usuario. El refresco sí consulta la base (una vez cada app.jwt.minutos-acceso por sesión)
+// para no renovar sesiones de usuarios desactivados o con la generación ya revocada.
+@Service
+public class SesionServiceImpl implements SesionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SesionServiceImpl.class);
+    private static final String SESION_VENCIDA = "La sesión venció, inicia sesión nuevamente";
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private RevocacionTokens revocacionTokens;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Override
+    public AuthResponse.AuthData iniciarSesion(Usuario usuario) {
+        AuthResponse.AuthData authData = new AuthResponse.AuthData(
+            jwtService.generateToken(usuario),
+            usuario.getIdUsuario(),
+            usuario.getNombre(),
+            usuario.getApellido(),
+            usuario.getEmail(),
+            usuario.getUsername(),
+            usuario.getTelefono(),
+            usuario.getDireccion(),
+            usuario.getRol().toString()
+        );
+        authData.setTokenRefresco(jwtService.generarTokenRefresco(usuario));
+        authData.setExpiraEnSegundos(jwtService.getSegundosAcceso());
+        return authData;
+    }
+
+    @Override
+    public AuthResponse.AuthData refrescar(String tokenRefresco) {
+        Claims claims = verificar(tokenRefresco);
+        Integer idUsuario = claims.get("id", Integer.class);
+        Usuario usuario = usuarioRepository.findById(idUsuario).orElse(null);
+        if (usuario == null || !Boolean.TRUE.equals(usuario.getActivo())
+            || !Objects.equals(jwtService.getGeneracionFromClaims(claims), usuario.getGeneracionToken())) {
+            throw new CredencialesInvalidasException(SESION_VENCIDA);
+        }
+
+        switch (revocacionTokens.marcarRefrescoUsado(claims.getId(), claims.getExpiration().getTime())) {
+            case PRIMER_USO:
+                return iniciarSesion(usuario);
+            case REUTILIZADO:
+                logger.warn("Token de refresco reutilizado para el usuario {}: se revocan sus sesiones", idUsuario);
+                usuarioService.revocarSesiones(idUsuario);
+                throw new CredencialesInvalidasException(SESION_VENCIDA);
+            default:
+                // Otra pestaña ya lo cambió por un par nuevo; el cliente debe usar ese
+                throw new CredencialesInvalidasException(SESION_VENCIDA);
+        }
+    }
+
+    @Override
+    public void cerrarSesion(String tokenRefresco) {
+        try {
+            Claims claims = jwtService.verificarTokenRefresco(tokenRefresco);
+            revocacionTokens.marcarRefrescoUsado(claims.getId(), claims.getExpiration().getTime());
+        } catch (JwtException | IllegalArgumentException e) {
+            // Un token vencido o inválido ya no sirve para nada: no hay nada que cerrar
+        }
+    }
+
+    private Claims verificar(String tokenRefresco) {
+        if (tokenRefresco == null || tokenRefresco.isBlank()) {
+            throw new CredencialesInvalidasException(SESION_VENCIDA);
+        }
+        try {
+            return jwtService.verificarTokenRefresco(tokenRefresco);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new CredencialesInvalidasException(SESION_VENCIDA);
+        }
+    }
+}
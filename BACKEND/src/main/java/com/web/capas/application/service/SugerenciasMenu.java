@@ -0,0 +1,311 @@
+package com.web.capas.application.service;
+
+import com.web.capas.domain.dto.CategoriaResponse;
+import com.web.capas.domain.dto.ProductoResponse;
+import com.web.capas.domain.dto.SugerenciaResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Trie de prefijos con los nombres de productos activos y de sus categorías, para autocompletar.
+// Cada nombre se inserta desde cada una de sus palabras ("ceviche de pescado", "de pescado", "pescado")
+// y las sugerencias se ordenan por unidades vendidas.
+// Cada nodo guarda las MEJORES_POR_NODO entradas más vendidas de su subárbol, así una consulta solo baja
+// por el prefijo y copia esa lista. Al agregar o quitar una entrada se recalculan los nodos de sus caminos
+// (de abajo hacia arriba, mezclando las listas de los hijos); al cambiar las ventas se recalcula todo el trie.
+@Component
+public class SugerenciasMenu {
+
+    public static final int MEJORES_POR_NODO = 20;
+
+    // Más vendidas primero; a igual venta, por texto
+    private static final Comparator<Entrada> ORDEN = Comparator.comparingLong((Entrada entrada) -> entrada.ventas).reversed()
+        .thenComparing(entrada -> entrada.texto, String.CASE_INSENSITIVE_ORDER)
+        .thenComparing(entrada -> entrada.clave);
+
+    private Nodo raiz = new Nodo();
+    // clave de la entrada ("p:12", "c:3") -> entrada, para poder quitarla del trie
+    private final Map<String, Entrada> entradas = new HashMap<>();
+    // idCategoria -> productos activos de la categoría; la categoría se sugiere mientras tenga alguno
+    private final Map<Integer, Set<Integer>> productosPorCategoria = new HashMap<>();
+    private final Map<Integer, Integer> categoriaPorProducto = new HashMap<>();
+    private Map<Integer, Long> ventasPorProducto = Collections.emptyMap();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean inicializado = false;
+
+    public boolean estaInicializado() {
+        return inicializado;
+    }
+
+    public void reconstruir(Collection<ProductoResponse> productos) {
+        lock.writeLock().lock();
+        try {
+            raiz = new Nodo();
+            entradas.clear();
+            productosPorCategoria.clear();
+            categoriaPorProducto.clear();
+            for (ProductoResponse producto : productos) {
+                agregarSinBloqueo(producto);
+            }
+            inicializado = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void indexar(ProductoResponse producto) {
+        lock.writeLock().lock();
+        try {
+            quitarProductoSinBloqueo(producto.getIdProducto());
+            agregarSinBloqueo(producto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(Integer idProducto) {
+        lock.writeLock().lock();
+        try {
+            quitarProductoSinBloqueo(idProducto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Las ventas se reemplazan completas y se recalculan las mejores de cada nodo
+    public void actualizarVentas(Map<Integer, Long> ventas) {
+        lock.writeLock().lock();
+        try {
+            ventasPorProducto = new HashMap<>(ventas);
+            for (Entrada entrada : entradas.values()) {
+                entrada.ventas = calcularVentas(entrada);
+            }
+            recalcularSubarbol(raiz);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<SugerenciaResponse> sugerir(String prefijo, int limite) {
+        String clave = String.join(" ", NormalizadorTexto.tokenizar(prefijo));
+        if (clave.isEmpty() || limite <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<Entrada> mejores;
+        lock.readLock().lock();
+        try {
+            Nodo nodo = raiz;
+            for (int i = 0; i < clave.length() && nodo != null; i++) {
+                nodo = nodo.hijos.get(clave.charAt(i));
+            }
+            if (nodo == null) {
+                return Collections.emptyList();
+            }
+            mejores = nodo.mejores;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<SugerenciaResponse> sugerencias = new ArrayList<>(Math.min(limite, mejores.size()));
+        for (Entrada entrada : mejores.subList(0, Math.min(limite, mejores.size()))) {
+            sugerencias.add(new SugerenciaResponse(entrada.texto, entrada.tipo, entrada.idProducto, entrada.idCategoria));
+        }
+        return sugerencias;
+    }
+
+    private long calcularVentas(Entrada entrada) {
+        if (SugerenciaResponse.TIPO_PRODUCTO.equals(entrada.tipo)) {
+            return ventasPorProducto.getOrDefault(entrada.idProducto, 0L);
+        }
+        long total = 0;
+        for (Integer idProducto : productosPorCategoria.getOrDefault(entrada.idCategoria, Collections.emptySet())) {
+            total += ventasPorProducto.getOrDefault(idProducto, 0L);
+        }
+        return total;
+    }
+
+    private void agregarSinBloqueo(ProductoResponse producto) {
+        Integer idProducto = producto.getIdProducto();
+        if (idProducto == null || producto.getNombre() == null) {
+            return;
+        }
+
+        CategoriaResponse categoria = producto.getCategoria();
+        Integer idCategoria = categoria != null ? categoria.getIdCategoria() : null;
+        insertar(new Entrada("p:" + idProducto, producto.getNombre(), SugerenciaResponse.TIPO_PRODUCTO, idProducto, idCategoria));
+
+        if (idCategoria != null && categoria.getNombre() != null) {
+            productosPorCategoria.computeIfAbsent(idCategoria, id -> new HashSet<>()).add(idProducto);
+            categoriaPorProducto.put(idProducto, idCategoria);
+            Entrada actual = entradas.get("c:" + idCategoria);
+            if (actual == null || !actual.texto.equals(categoria.getNombre())) {
+                quitarEntrada("c:" + idCategoria);
+                insertar(new Entrada("c:" + idCategoria, categoria.getNombre(), SugerenciaResponse.TIPO_CATEGORIA, null, idCategoria));
+            } else {
+                actualizarVentasDeEntrada(actual);
+            }
+        }
+    }
+
+    private void quitarProductoSinBloqueo(Integer idProducto) {
+        if (idProducto == null) {
+            return;
+        }
+        quitarEntrada("p:" + idProducto);
+
+        Integer idCategoria = categoriaPorProducto.remove(idProducto);
+        if (idCategoria != null) {
+            Set<Integer> productos = productosPorCategoria.get(idCategoria);
+            if (productos != null) {
+                productos.remove(idProducto);
+                if (productos.isEmpty()) {
+                    productosPorCategoria.remove(idCategoria);
+                    quitarEntrada("c:" + idCategoria);
+                } else {
+                    actualizarVentasDeEntrada(entradas.get("c:" + idCategoria));
+                }
+            }
+        }
+    }
+
+    // Las ventas de una categoría cambian al sumarle o quitarle productos
+    private void actualizarVentasDeEntrada(Entrada entrada) {
+        if (entrada == null) {
+            return;
+        }
+        long ventas = calcularVentas(entrada);
+        if (ventas != entrada.ventas) {
+            entrada.ventas = ventas;
+            for (String texto : entrada.claves) {
+                recalcularCamino(texto);
+            }
+        }
+    }
+
+    private void insertar(Entrada entrada) {
+        entrada.ventas = calcularVentas(entrada);
+        List<String> tokens = NormalizadorTexto.tokenizar(entrada.texto);
+        for (int inicio = 0; inicio < tokens.size(); inicio++) {
+            String clave = String.join(" ", tokens.subList(inicio, tokens.size()));
+            Nodo nodo = raiz;
+            for (int i = 0; i < clave.length(); i++) {
+                nodo = nodo.hijos.computeIfAbsent(clave.charAt(i), c -> new Nodo());
+            }
+            nodo.entradas.add(entrada);
+            entrada.claves.add(clave);
+            recalcularCamino(clave);
+        }
+        entradas.put(entrada.clave, entrada);
+    }
+
+    // Quita la entrada de sus nodos y poda las ramas que quedan vacías
+    private void quitarEntrada(String clave) {
+        Entrada entrada = entradas.remove(clave);
+        if (entrada == null) {
+            return;
+        }
+        for (String texto : entrada.claves) {
+            Deque<Nodo> camino = new ArrayDeque<>();
+            Nodo nodo = raiz;
+            for (int i = 0; i < texto.length() && nodo != null; i++) {
+                camino.push(nodo);
+                nodo = nodo.hijos.get(texto.charAt(i));
+            }
+            if (nodo == null) {
+                continue;
+            }
+            nodo.entradas.remove(entrada);
+            for (int i = texto.length() - 1; i >= 0; i--) {
+                Nodo padre = camino.pop();
+                if (!nodo.entradas.isEmpty() || !nodo.hijos.isEmpty()) {
+                    break;
+                }
+                padre.hijos.remove(texto.charAt(i));
+                nodo = padre;
+            }
+            recalcularCamino(texto);
+        }
+    }
+
+    // Recalcula las mejores de los nodos que siguen en el camino del texto, del más profundo a la raíz
+    private void recalcularCamino(String texto) {
+        Deque<Nodo> camino = new ArrayDeque<>();
+        Nodo nodo = raiz;
+        camino.push(nodo);
+        for (int i = 0; i < texto.length(); i++) {
+            nodo = nodo.hijos.get(texto.charAt(i));
+            if (nodo == null) {
+                break;
+            }
+            camino.push(nodo);
+        }
+        while (!camino.isEmpty()) {
+            recalcularMejores(camino.pop());
+        }
+    }
+
+    private void recalcularSubarbol(Nodo nodo) {
+        for (Nodo hijo : nodo.hijos.values()) {
+            recalcularSubarbol(hijo);
+        }
+        recalcularMejores(nodo);
+    }
+
+    // Las mejores del subárbol salen de las entradas propias y las mejores de cada hijo. Una entrada puede
+    // estar en más de un nodo del subárbol ("pan con pan" también cuelga de "pan"), por eso se descartan repetidas
+    private static void recalcularMejores(Nodo nodo) {
+        List<Entrada> candidatas = new ArrayList<>(nodo.entradas);
+        for (Nodo hijo : nodo.hijos.values()) {
+            candidatas.addAll(hijo.mejores);
+        }
+        candidatas.sort(ORDEN);
+        List<Entrada> mejores = new ArrayList<>(Math.min(MEJORES_POR_NODO, candidatas.size()));
+        Set<Entrada> vistas = new HashSet<>();
+        for (Entrada entrada : candidatas) {
+            if (vistas.add(entrada)) {
+                mejores.add(entrada);
+                if (mejores.size() == MEJORES_POR_NODO) {
+                    break;
+                }
+            }
+        }
+        nodo.mejores = mejores;
+    }
+
+    private static class Nodo {
+        private final Map<Character, Nodo> hijos = new HashMap<>();
+        private final Set<Entrada> entradas = new HashSet<>();
+        private List<Entrada> mejores = Collections.emptyList();
+    }
+
+    private static class Entrada {
+        private final String clave;
+        private final String texto;
+        private final String tipo;
+        private final Integer idProducto;
+        private final Integer idCategoria;
+        private final List<String> claves = new ArrayList<>();
+        private long ventas;
+
+        private Entrada(String clave, String texto, String tipo, Integer idProducto, Integer idCategoria) {
+            this.clave = clave;
+            this.texto = texto;
+            this.tipo = tipo;
+            this.idProducto = idProducto;
+            this.idCategoria = idCategoria;
+        }
+    }
+}
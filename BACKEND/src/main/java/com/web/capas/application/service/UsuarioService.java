@@ -1,5 +1,6 @@
 package com.web.capas.application.service;
 
+import com.web.capas.domain.dto.PaginaResponse;
 import com.web.capas.domain.dto.UsuarioResponse;
 import com.web.capas.infrastructure.persistence.entities.Usuario;
 import java.util.List;
@@ -28,6 +29,9 @@ public interface UsuarioService {
     
     boolean cambiarEstadoUsuario(Integer id, boolean activo);
     
+    // Invalida todos los tokens emitidos hasta ahora para el usuario
+    void revocarSesiones(Integer idUsuario);
+    
     long contarUsuarios();
     
     long contarUsuariosActivos();
@@ -48,6 +52,8 @@ public interface UsuarioService {
     
     List<UsuarioResponse> obtenerTodosLosUsuariosComoDTO();
     
+    PaginaResponse<UsuarioResponse> obtenerUsuariosPaginados(String cursor, Integer tamano);
+    
     UsuarioResponse obtenerUsuarioPorIdComoDTO(Integer id);
     
     Usuario actualizarPlayerId(Integer idUsuario, String playerId);
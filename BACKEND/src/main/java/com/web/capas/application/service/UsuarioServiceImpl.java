@@ -3,7 +3,9 @@ package com.web.capas.application.service;
 import com.web.capas.domain.RecursoNoEncontradoExcepcion;
 import com.web.capas.domain.ServiceException;
 import com.web.capas.domain.CredencialesInvalidasException;
+import com.web.capas.domain.dto.PaginaResponse;
 import com.web.capas.domain.dto.UsuarioResponse;
+import com.web.capas.config.PaginacionProperties;
 import com.web.capas.infrastructure.persistence.entities.PasswordResetToken;
 import com.web.capas.infrastructure.persistence.entities.Usuario;
 import com.web.capas.infrastructure.persistence.entities.Pedido;
@@ -12,8 +14,10 @@ import com.web.capas.domain.repository.UsuarioRepository;
 import com.web.capas.domain.repository.PedidoRepository;
 import com.web.capas.domain.repository.CarritoRepository;
 import com.web.capas.domain.repository.PagoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +28,8 @@ import java.util.Optional;
 @Service
 public class UsuarioServiceImpl implements UsuarioService {
     
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioServiceImpl.class);
+    
     @Autowired
     private UsuarioRepository usuarioRepository;
     
@@ -39,10 +45,23 @@ public class UsuarioServiceImpl implements UsuarioService {
     @Autowired
     private PagoRepository pagoRepository;
     
+    @Autowired
+    private PaginacionProperties paginacionProperties;
+    
     @Autowired
     private EmailService emailService;
     
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private RegistroRepartidores registroRepartidores;
+    
+    @Autowired
+    private RevocacionTokens revocacionTokens;
+    
+    @Autowired
+    private ResumenVentasService resumenVentasService;
+    
+    @Autowired
+    private HashContrasenas hashContrasenas;
     
     @Override
     @Transactional
@@ -71,7 +90,7 @@ public class UsuarioServiceImpl implements UsuarioService {
             throw new ServiceException("El username ya está registrado");
         }
         
-        String contrasenaEncriptada = passwordEncoder.encode(usuario.getContrasenaEncriptada());
+        String contrasenaEncriptada = hashContrasenas.encriptar(usuario.getContrasenaEncriptada());
         usuario.setContrasenaEncriptada(contrasenaEncriptada);
         
         if (usuario.getRol() == null) {
@@ -101,7 +120,8 @@ public class UsuarioServiceImpl implements UsuarioService {
             return null;
         }
         
-        if (!passwordEncoder.matches(contrasena, usuario.getContrasenaEncriptada())) {
+        String hashGuardado = usuario.getContrasenaEncriptada();
+        if (!hashContrasenas.coincide(contrasena, hashGuardado)) {
             return null;
         }
         
@@ -110,6 +130,17 @@ public class UsuarioServiceImpl implements UsuarioService {
             throw new CredencialesInvalidasException("CUENTA_DESACTIVADA");
         }
         
+        // Hash con un costo menor al calibrado: se rehace en segundo plano, sin demorar el login
+        if (hashContrasenas.requiereActualizacion(hashGuardado)) {
+            Integer idUsuario = usuario.getIdUsuario();
+            hashContrasenas.encriptarEnSegundoPlano(contrasena)
+                .thenAccept(nuevoHash -> usuarioRepository.actualizarContrasenaSiNoCambio(idUsuario, hashGuardado, nuevoHash))
+                .exceptionally(error -> {
+                    logger.debug("No se pudo actualizar el hash del usuario {}: {}", idUsuario, error.getMessage());
+                    return null;
+                });
+        }
+        
         return usuario;
     }
     
@@ -158,6 +189,8 @@ public class UsuarioServiceImpl implements UsuarioService {
             }
             
             usuarioRepository.deleteById(id);
+            registroRepartidores.quitarDespuesDeConfirmar(id);
+            revocacionTokens.revocarEliminadoDespuesDeConfirmar(id);
             return true;
             
         } catch (RecursoNoEncontradoExcepcion | ServiceException | CredencialesInvalidasException e) {
@@ -167,6 +200,7 @@ public class UsuarioServiceImpl implements UsuarioService {
                 Usuario usuario = usuarioRepository.findById(id).orElse(null);
                 if (usuario != null) {
                     usuario.setActivo(false);
+                    subirGeneracion(usuario);
                     usuarioRepository.save(usuario);
                     throw new ServiceException("No se puede eliminar el usuario porque tiene registros relacionados. Se ha desactivado en su lugar.", e);
                 }
@@ -187,7 +221,12 @@ public class UsuarioServiceImpl implements UsuarioService {
                 .orElseThrow(() -> new RecursoNoEncontradoExcepcion("Usuario no encontrado"));
             
             usuario.setActivo(activo);
+            // Al desactivar se cortan también las sesiones abiertas, sin esperar a que venzan los tokens
+            if (!activo) {
+                subirGeneracion(usuario);
+            }
             usuarioRepository.save(usuario);
+            registroRepartidores.actualizarDespuesDeConfirmar(usuario);
             return true;
         } catch (RecursoNoEncontradoExcepcion e) {
             throw e;
@@ -212,6 +251,8 @@ public class UsuarioServiceImpl implements UsuarioService {
             
             eliminarDatosRelacionados(id);
             usuarioRepository.deleteById(id);
+            registroRepartidores.quitarDespuesDeConfirmar(id);
+            revocacionTokens.revocarEliminadoDespuesDeConfirmar(id);
             
             return true;
             
@@ -251,6 +292,8 @@ public class UsuarioServiceImpl implements UsuarioService {
         for (Pedido pedido : pedidos) {
             eliminarPagosPedido(pedido.getIdPedido());
             
+            // En la misma transacción: los reportes dejan de contarlo junto con el borrado
+            resumenVentasService.registrarPedidoEliminado(pedido);
             eliminarPedido(pedido.getIdPedido());
         }
     }
@@ -309,7 +352,11 @@ public class UsuarioServiceImpl implements UsuarioService {
             }
             
             usuario.setRol(rolEnum);
-            return usuarioRepository.save(usuario);
+            // Los tokens llevan el rol: se revocan para que el cambio valga desde la próxima petición
+            subirGeneracion(usuario);
+            Usuario actualizado = usuarioRepository.save(usuario);
+            registroRepartidores.actualizarDespuesDeConfirmar(actualizado);
+            return actualizado;
         } catch (RecursoNoEncontradoExcepcion | ServiceException | CredencialesInvalidasException e) {
             throw e;
         } catch (Exception e) {
@@ -369,16 +416,25 @@ public class UsuarioServiceImpl implements UsuarioService {
             
             Usuario usuario = usuarioOpt.get();
             
-            if (!passwordEncoder.matches(contrasenaActual, usuario.getContrasenaEncriptada())) {
-                return false;
-            }
+            // Las dos comparaciones y el nuevo hash en una sola tarea del ejecutor de BCrypt
+            String hashActual = usuario.getContrasenaEncriptada();
+            String nuevaContrasenaEncriptada = hashContrasenas.ejecutar(codificador -> {
+                if (!codificador.matches(contrasenaActual, hashActual)) {
+                    return null;
+                }
+                if (codificador.matches(nuevaContrasena, hashActual)) {
+                    throw new ServiceException("La nueva contraseña debe ser diferente a la actual");
+                }
+                return codificador.encode(nuevaContrasena);
+            });
             
-            if (passwordEncoder.matches(nuevaContrasena, usuario.getContrasenaEncriptada())) {
-                throw new ServiceException("La nueva contraseña debe ser diferente a la actual");
+            if (nuevaContrasenaEncriptada == null) {
+                return false;
             }
             
-            String nuevaContrasenaEncriptada = passwordEncoder.encode(nuevaContrasena);
             usuario.setContrasenaEncriptada(nuevaContrasenaEncriptada);
+            // Cierra las demás sesiones; AuthController entrega tokens nuevos a quien hizo el cambio
+            subirGeneracion(usuario);
             usuarioRepository.save(usuario);
             
             return true;
@@ -444,8 +500,9 @@ public class UsuarioServiceImpl implements UsuarioService {
             }
             
             Usuario usuario = passwordResetToken.getUsuario();
-            String nuevaContrasenaEncriptada = passwordEncoder.encode(nuevaContrasena);
+            String nuevaContrasenaEncriptada = hashContrasenas.encriptar(nuevaContrasena);
             usuario.setContrasenaEncriptada(nuevaContrasenaEncriptada);
+            subirGeneracion(usuario);
             usuarioRepository.save(usuario);
             
             passwordResetToken.setUsado(true);
@@ -460,6 +517,22 @@ public class UsuarioServiceImpl implements UsuarioService {
         }
     }
 
+    @Override
+    @Transactional
+    public void revocarSesiones(Integer idUsuario) {
+        Usuario usuario = usuarioRepository.findById(idUsuario)
+            .orElseThrow(() -> new RecursoNoEncontradoExcepcion("Usuario no encontrado"));
+        subirGeneracion(usuario);
+        usuarioRepository.save(usuario);
+    }
+    
+    // Los tokens emitidos con la generación anterior dejan de valer al confirmar la transacción
+    private void subirGeneracion(Usuario usuario) {
+        int nuevaGeneracion = (usuario.getGeneracionToken() != null ? usuario.getGeneracionToken() : 0) + 1;
+        usuario.setGeneracionToken(nuevaGeneracion);
+        revocacionTokens.revocarDespuesDeConfirmar(usuario.getIdUsuario(), nuevaGeneracion);
+    }
+    
     private String normalizarTelefono(String telefono) {
         if (telefono == null || telefono.trim().isEmpty()) {
             return null;
@@ -517,6 +590,27 @@ public class UsuarioServiceImpl implements UsuarioService {
             .collect(java.util.stream.Collectors.toList());
     }
     
+    @Override
+    public PaginaResponse<UsuarioResponse> obtenerUsuariosPaginados(String cursor, Integer tamano) {
+        int tamanoPagina = paginacionProperties.resolverTamano(tamano);
+        Integer ultimoId = (cursor == null || cursor.isBlank()) ? 0 : CursorPaginacion.decodificarUsuario(cursor);
+        
+        // Se pide una fila de más para saber si hay otra página
+        List<Usuario> usuarios = usuarioRepository.findByIdUsuarioGreaterThanOrderByIdUsuarioAsc(
+            ultimoId, PageRequest.of(0, tamanoPagina + 1));
+        
+        boolean hasMore = usuarios.size() > tamanoPagina;
+        List<Usuario> pagina = hasMore ? usuarios.subList(0, tamanoPagina) : usuarios;
+        String siguienteCursor = hasMore
+            ? CursorPaginacion.codificarUsuario(pagina.get(pagina.size() - 1).getIdUsuario())
+            : null;
+        
+        List<UsuarioResponse> items = pagina.stream()
+            .map(this::mapearAUsuarioResponse)
+            .collect(java.util.stream.Collectors.toList());
+        return new PaginaResponse<>(items, siguienteCursor, hasMore, tamanoPagina);
+    }
+    
     @Override
     public UsuarioResponse obtenerUsuarioPorIdComoDTO(Integer id) {
         Usuario usuario = obtenerUsuarioPorId(id);
@@ -533,6 +627,8 @@ public class UsuarioServiceImpl implements UsuarioService {
             .orElseThrow(() -> new RecursoNoEncontradoExcepcion("Usuario no encontrado"));
         
         usuario.setPlayerId(playerId);
-        return usuarioRepository.save(usuario);
+        Usuario actualizado = usuarioRepository.save(usuario);
+        registroRepartidores.actualizarDespuesDeConfirmar(actualizado);
+        return actualizado;
     }
 }
@@ -0,0 +1,23 @@
+package com.web.capas.application.service;
+
+import com.web.capas.infrastructure.persistence.entities.EventoStripe;
+import java.time.LocalDateTime;
+
+public interface WebhookStripeService {
+
+    String PAGO_EXITOSO = "payment_intent.succeeded";
+    String PAGO_FALLIDO = "payment_intent.payment_failed";
+    String PAGO_CANCELADO = "payment_intent.canceled";
+
+    // Hay secreto de firma configurado (stripe.webhook-secret)
+    boolean estaConfigurado();
+
+    // Verifica la firma y guarda el evento; devuelve false si ya se había recibido
+    boolean recibirEvento(String payload, String firma);
+
+    // Vuelve a aplicar un evento guardado
+    int reprocesarEvento(String idEventoStripe);
+
+    // Vuelve a aplicar los eventos recibidos en un rango; estado null toma todos
+    int reprocesar(LocalDateTime desde, LocalDateTime hasta, EventoStripe.Estado estado);
+}
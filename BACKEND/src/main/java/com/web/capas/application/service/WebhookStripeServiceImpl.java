@@ -0,0 +1,128 @@
+package com.web.capas.application.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.net.Webhook;
+import com.web.capas.config.StripeProperties;
+import com.web.capas.domain.RecursoNoEncontradoExcepcion;
+import com.web.capas.domain.repository.EventoStripeRepository;
+import com.web.capas.infrastructure.persistence.entities.EventoStripe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+// Recibe los webhooks de Stripe: verifica la firma, guarda el evento en Eventos_Stripe y responde enseguida.
+// Aplicarlo a Pago y Pedido queda para ProcesadorEventosStripe, así Stripe no espera a nuestra base.
+@Service
+public class WebhookStripeServiceImpl implements WebhookStripeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookStripeServiceImpl.class);
+
+    @Autowired
+    private EventoStripeRepository eventoStripeRepository;
+
+    @Autowired
+    private ProcesadorEventosStripe procesadorEventosStripe;
+
+    @Autowired
+    private StripeProperties stripeProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public boolean estaConfigurado() {
+        String secreto = stripeProperties.getWebhookSecret();
+        return secreto != null && !secreto.isBlank();
+    }
+
+    @Override
+    @Transactional
+    public boolean recibirEvento(String payload, String firma) {
+        if (firma == null || firma.isBlank()) {
+            throw new IllegalArgumentException("Falta la cabecera Stripe-Signature");
+        }
+        try {
+            Webhook.Signature.verifyHeader(payload, firma, stripeProperties.getWebhookSecret(), Webhook.DEFAULT_TOLERANCE);
+        } catch (SignatureVerificationException e) {
+            throw new IllegalArgumentException("Firma de Stripe inválida");
+        }
+
+        // Se lee el JSON a mano para no depender de que la versión de la API coincida con la del SDK
+        JsonNode evento;
+        try {
+            evento = objectMapper.readTree(payload);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("El cuerpo del webhook no es un JSON válido");
+        }
+        String idEvento = evento.path("id").asText(null);
+        String tipo = evento.path("type").asText(null);
+        if (idEvento == null || tipo == null) {
+            throw new IllegalArgumentException("El evento de Stripe no tiene id o tipo");
+        }
+        JsonNode objeto = evento.path("data").path("object");
+        String paymentIntentId = "payment_intent".equals(objeto.path("object").asText()) ? objeto.path("id").asText(null) : null;
+        LocalDateTime fechaEvento = LocalDateTime.ofInstant(
+            Instant.ofEpochSecond(evento.path("created").asLong(Instant.now().getEpochSecond())), ZoneId.systemDefault());
+
+        int insertados = eventoStripeRepository.insertarSiNoExiste(
+            idEvento, tipo, paymentIntentId, payload, fechaEvento, LocalDateTime.now());
+        if (insertados == 0) {
+            logger.debug("Webhook Stripe: evento {} repetido, se ignora", idEvento);
+            return false;
+        }
+        despertarDespuesDeConfirmar();
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public int reprocesarEvento(String idEventoStripe) {
+        EventoStripe evento = eventoStripeRepository.findById(idEventoStripe)
+            .orElseThrow(() -> new RecursoNoEncontradoExcepcion("Evento de Stripe no encontrado"));
+        evento.setEstado(EventoStripe.Estado.pendiente);
+        evento.setIntentos(0);
+        evento.setProximoIntento(LocalDateTime.now());
+        evento.setUltimoError(null);
+        eventoStripeRepository.save(evento);
+        despertarDespuesDeConfirmar();
+        return 1;
+    }
+
+    @Override
+    @Transactional
+    public int reprocesar(LocalDateTime desde, LocalDateTime hasta, EventoStripe.Estado estado) {
+        if (desde == null || hasta == null || !desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("El rango de fechas no es válido");
+        }
+        int marcados = eventoStripeRepository.marcarParaReproceso(desde, hasta, estado, LocalDateTime.now());
+        if (marcados > 0) {
+            logger.info("Webhook Stripe: {} eventos marcados para reproceso", marcados);
+            despertarDespuesDeConfirmar();
+        }
+        return marcados;
+    }
+
+    private void despertarDespuesDeConfirmar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    procesadorEventosStripe.despertar();
+                }
+            });
+        } else {
+            procesadorEventosStripe.despertar();
+        }
+    }
+}
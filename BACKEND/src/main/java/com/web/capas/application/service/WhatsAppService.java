@@ -1,9 +1,11 @@
 package com.web.capas.application.service;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface WhatsAppService {
     
     // Envía notificación de pedido confirmado
-    void notificarPedidoConfirmado(String telefono, Integer idPedido, String nombreCliente);
+    boolean notificarPedidoConfirmado(String telefono, Integer idPedido, String nombreCliente);
     
     // Envía notificación de pedido en camino
     boolean notificarPedidoEnCamino(String telefono, Integer idPedido, String nombreCliente, String direccion);
@@ -16,4 +18,27 @@ public interface WhatsAppService {
     
     // Envía mensaje personalizado
     boolean enviarMensaje(String telefono, String mensaje);
+
+    // Variantes asíncronas: el futuro se completa cuando el envío termina, incluidos los reintentos.
+    // Por defecto envían en el hilo actual; WhatsAppServiceProxy las ejecuta con reintentos en segundo plano.
+
+    default CompletableFuture<Boolean> notificarPedidoConfirmadoAsync(String telefono, Integer idPedido, String nombreCliente) {
+        return CompletableFuture.completedFuture(notificarPedidoConfirmado(telefono, idPedido, nombreCliente));
+    }
+
+    default CompletableFuture<Boolean> notificarPedidoEnCaminoAsync(String telefono, Integer idPedido, String nombreCliente, String direccion) {
+        return CompletableFuture.completedFuture(notificarPedidoEnCamino(telefono, idPedido, nombreCliente, direccion));
+    }
+
+    default CompletableFuture<Boolean> notificarPedidoEntregadoAsync(String telefono, Integer idPedido, String nombreCliente) {
+        return CompletableFuture.completedFuture(notificarPedidoEntregado(telefono, idPedido, nombreCliente));
+    }
+
+    default CompletableFuture<Boolean> notificarPedidoCanceladoAsync(String telefono, Integer idPedido, String nombreCliente, String motivo) {
+        return CompletableFuture.completedFuture(notificarPedidoCancelado(telefono, idPedido, nombreCliente, motivo));
+    }
+
+    default CompletableFuture<Boolean> enviarMensajeAsync(String telefono, String mensaje) {
+        return CompletableFuture.completedFuture(enviarMensaje(telefono, mensaje));
+    }
 }
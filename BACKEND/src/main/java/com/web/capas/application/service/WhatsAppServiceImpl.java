@@ -1,8 +1,14 @@
 package com.web.capas.application.service;
 
-import com.twilio.Twilio;
+import com.twilio.exception.ApiException;
+import com.twilio.http.NetworkHttpClient;
+import com.twilio.http.TwilioRestClient;
 import com.twilio.rest.api.v2010.account.Message;
 import com.twilio.type.PhoneNumber;
+import com.web.capas.application.proxy.ProteccionProveedores;
+import com.web.capas.config.ResilienciaProperties;
+import org.apache.http.client.config.RequestConfig;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -20,13 +26,30 @@ public class WhatsAppServiceImpl implements WhatsAppService {
     @Value("${twilio.whatsapp.from}")
     private String twilioWhatsAppNumber;
 
+    @Autowired
+    private ResilienciaProperties resilienciaProperties;
+
+    @Autowired
+    private ProteccionProveedores proteccionProveedores;
+
+    private TwilioRestClient twilioRestClient;
+
+    // Cliente propio con timeouts explícitos en lugar del cliente global de Twilio.init
     @PostConstruct
     public void init() {
-        Twilio.init(accountSid, authToken);
+        ResilienciaProperties.Proveedor config = resilienciaProperties.getProveedor(ProteccionProveedores.TWILIO);
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout(config.getConnectTimeoutMs())
+            .setConnectionRequestTimeout(config.getConnectTimeoutMs())
+            .setSocketTimeout(config.getReadTimeoutMs())
+            .build();
+        twilioRestClient = new TwilioRestClient.Builder(accountSid, authToken)
+            .httpClient(new NetworkHttpClient(requestConfig))
+            .build();
     }
 
     @Override
-    public void notificarPedidoConfirmado(String telefono, Integer idPedido, String nombreCliente) {
+    public boolean notificarPedidoConfirmado(String telefono, Integer idPedido, String nombreCliente) {
         try {
             String mensaje = String.format(
                 "¡Hola %s! 🎉\n\n" +
@@ -37,9 +60,11 @@ public class WhatsAppServiceImpl implements WhatsAppService {
             
             enviarMensajeInterno(telefono, mensaje);
             System.out.println("WhatsApp de confirmación enviado a: " + telefono);
+            return true;
             
         } catch (Exception e) {
             System.err.println("Error al enviar WhatsApp de confirmación: " + e.getMessage());
+            return false;
         }
     }
 
@@ -125,11 +150,16 @@ public class WhatsAppServiceImpl implements WhatsAppService {
             // Formatear número para WhatsApp
             String numeroFormateado = "whatsapp:" + telefono;
             
-            Message.creator(
-                new PhoneNumber(numeroFormateado),
-                new PhoneNumber(twilioWhatsAppNumber),
-                mensaje
-            ).create();
+            // Un número inválido (4xx) no cuenta como caída de Twilio
+            proteccionProveedores.ejecutar(
+                ProteccionProveedores.TWILIO,
+                () -> Message.creator(
+                    new PhoneNumber(numeroFormateado),
+                    new PhoneNumber(twilioWhatsAppNumber),
+                    mensaje
+                ).create(twilioRestClient),
+                e -> !(e instanceof ApiException api) || ProteccionProveedores.esErrorDelProveedor(api.getStatusCode())
+            );
             
         } catch (Exception e) {
             System.err.println("Error al enviar mensaje WhatsApp: " + e.getMessage());
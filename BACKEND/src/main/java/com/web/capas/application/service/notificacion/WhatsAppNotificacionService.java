@@ -13,7 +13,7 @@ public class WhatsAppNotificacionService implements NotificacionService {
     @Override
     public void enviarNotificacion(String destinatario, String mensaje) {
         // Reutiliza tu WhatsAppServiceImpl existente
-        whatsAppService.enviarMensaje(destinatario, mensaje);
+        whatsAppService.enviarMensajeAsync(destinatario, mensaje);
     }
     
     @Override
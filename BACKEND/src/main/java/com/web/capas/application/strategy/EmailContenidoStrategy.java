@@ -1,13 +1,13 @@
 package com.web.capas.application.strategy;
 
 import com.web.capas.application.factory.NotificacionType;
-import com.web.capas.application.singleton.NotificacionConfiguracion;
 import org.springframework.stereotype.Component;
 
 @Component
 public class EmailContenidoStrategy implements NotificacionContenidoStrategy {
 
-    private final NotificacionConfiguracion configuracion = NotificacionConfiguracion.getInstance();
+    private static final PlantillaCompilada PLANTILLA = PlantillaCompilada.compilar(
+        "{{prefijo}} Estimado/a {{destinatario}},\n\n{{mensaje}}\n\nSaludos cordiales.", VARIABLES);
 
     @Override
     public boolean soporta(NotificacionType tipo) {
@@ -15,8 +15,7 @@ public class EmailContenidoStrategy implements NotificacionContenidoStrategy {
     }
 
     @Override
-    public String construirMensaje(String destinatario, String mensajeBase) {
-        return configuracion.getPrefijoAplicacion() + " Estimado/a " + destinatario + ",\n\n" + mensajeBase + "\n\nSaludos cordiales.";
+    public PlantillaCompilada getPlantilla() {
+        return PLANTILLA;
     }
 }
-
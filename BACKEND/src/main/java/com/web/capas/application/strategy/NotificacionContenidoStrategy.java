@@ -5,8 +5,15 @@ import com.web.capas.application.factory.NotificacionType;
 // Estrategia para armar el mensaje segun el canal.
 public interface NotificacionContenidoStrategy {
 
+    // Variables disponibles en las plantillas de contenido, en el orden en que se pasan los valores
+    String[] VARIABLES = {"prefijo", "destinatario", "mensaje"};
+
     boolean soporta(NotificacionType tipo);
 
-    String construirMensaje(String destinatario, String mensajeBase);
-}
+    PlantillaCompilada getPlantilla();
 
+    // Ajuste final propio del canal sobre el mensaje ya armado (por ejemplo, el largo de un SMS)
+    default String ajustar(String contenido) {
+        return contenido;
+    }
+}
@@ -1,6 +1,7 @@
 package com.web.capas.application.strategy;
 
 import com.web.capas.application.factory.NotificacionType;
+import com.web.capas.application.singleton.NotificacionConfiguracion;
 import com.web.capas.domain.ServiceException;
 import java.util.List;
 import java.util.Map;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Component;
 public class NotificacionStrategyContext {
 
     private final Map<NotificacionType, NotificacionContenidoStrategy> estrategias = new ConcurrentHashMap<>();
+    private final NotificacionConfiguracion configuracion = NotificacionConfiguracion.getInstance();
 
     public NotificacionStrategyContext(List<NotificacionContenidoStrategy> estrategiasDisponibles) {
         estrategiasDisponibles.forEach(estrategia -> {
@@ -27,7 +29,9 @@ public class NotificacionStrategyContext {
         if (estrategia == null) {
             throw new ServiceException("No existe estrategia para el tipo de notificación: " + tipo);
         }
-        return estrategia.construirMensaje(destinatario, mensajeBase);
+        // El prefijo se lee en cada envío porque la configuración puede cambiar en caliente
+        String contenido = estrategia.getPlantilla().renderizar(configuracion.getPrefijoAplicacion(), destinatario, mensajeBase);
+        return estrategia.ajustar(contenido);
     }
 }
 
@@ -0,0 +1,91 @@
+package com.web.capas.application.strategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Plantilla con variables {{nombre}} que se analiza una sola vez: queda como una lista de tramos de texto
+// fijo intercalados con índices de variable. Renderizar solo concatena, sin buscar ni reemplazar sobre
+// el documento completo. Las variables se declaran al compilar y los valores se pasan en ese mismo orden.
+public final class PlantillaCompilada {
+
+    private static final String APERTURA = "{{";
+    private static final String CIERRE = "}}";
+
+    // Buffer por hilo; si una plantilla muy grande lo infla, se descarta para no retener esa memoria
+    private static final int CAPACIDAD_INICIAL = 256;
+    private static final int CAPACIDAD_MAXIMA_REUTILIZABLE = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(CAPACIDAD_INICIAL));
+
+    private final List<String> variables;
+    // literales[i] va antes de la variable indices[i]; el último literal cierra la plantilla
+    private final String[] literales;
+    private final int[] indices;
+
+    private PlantillaCompilada(List<String> variables, String[] literales, int[] indices) {
+        this.variables = variables;
+        this.literales = literales;
+        this.indices = indices;
+    }
+
+    // Falla al compilar si la plantilla usa una variable no declarada, así el error aparece al iniciar
+    public static PlantillaCompilada compilar(String texto, String... variables) {
+        List<String> declaradas = Arrays.asList(variables);
+        List<String> literales = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+
+        int posicion = 0;
+        while (true) {
+            int inicio = texto.indexOf(APERTURA, posicion);
+            int fin = inicio < 0 ? -1 : texto.indexOf(CIERRE, inicio + APERTURA.length());
+            if (fin < 0) {
+                break;
+            }
+            String nombre = texto.substring(inicio + APERTURA.length(), fin).trim();
+            int indice = declaradas.indexOf(nombre);
+            if (indice < 0) {
+                throw new IllegalArgumentException("Variable no declarada en la plantilla: " + nombre);
+            }
+            literales.add(texto.substring(posicion, inicio));
+            indices.add(indice);
+            posicion = fin + CIERRE.length();
+        }
+        literales.add(texto.substring(posicion));
+
+        return new PlantillaCompilada(
+            List.copyOf(declaradas),
+            literales.toArray(new String[0]),
+            indices.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    public String renderizar(Object... valores) {
+        StringBuilder destino = BUFFER.get();
+        destino.setLength(0);
+        renderizarEn(destino, valores);
+        String resultado = destino.toString();
+        if (destino.capacity() > CAPACIDAD_MAXIMA_REUTILIZABLE) {
+            BUFFER.set(new StringBuilder(CAPACIDAD_INICIAL));
+        }
+        return resultado;
+    }
+
+    // Un valor null deja la variable vacía
+    public void renderizarEn(StringBuilder destino, Object... valores) {
+        if (valores.length != variables.size()) {
+            throw new IllegalArgumentException("La plantilla espera " + variables.size() + " valores " + variables
+                + " y recibió " + valores.length);
+        }
+        for (int i = 0; i < indices.length; i++) {
+            destino.append(literales[i]);
+            Object valor = valores[indices[i]];
+            if (valor != null) {
+                destino.append(valor);
+            }
+        }
+        destino.append(literales[indices.length]);
+    }
+}
@@ -1,14 +1,13 @@
 package com.web.capas.application.strategy;
 
 import com.web.capas.application.factory.NotificacionType;
-import com.web.capas.application.singleton.NotificacionConfiguracion;
 import org.springframework.stereotype.Component;
 
 @Component
 public class SmsContenidoStrategy implements NotificacionContenidoStrategy {
 
     private static final int MAX_LENGTH = 140;
-    private final NotificacionConfiguracion configuracion = NotificacionConfiguracion.getInstance();
+    private static final PlantillaCompilada PLANTILLA = PlantillaCompilada.compilar("{{prefijo}} {{mensaje}}", VARIABLES);
 
     @Override
     public boolean soporta(NotificacionType tipo) {
@@ -16,12 +15,15 @@ public class SmsContenidoStrategy implements NotificacionContenidoStrategy {
     }
 
     @Override
-    public String construirMensaje(String destinatario, String mensajeBase) {
-        String contenido = configuracion.getPrefijoAplicacion() + " " + mensajeBase;
+    public PlantillaCompilada getPlantilla() {
+        return PLANTILLA;
+    }
+
+    @Override
+    public String ajustar(String contenido) {
         if (contenido.length() > MAX_LENGTH) {
             return contenido.substring(0, MAX_LENGTH - 3) + "...";
         }
         return contenido;
     }
 }
-
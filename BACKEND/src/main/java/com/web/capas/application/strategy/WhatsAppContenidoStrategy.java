@@ -1,13 +1,13 @@
 package com.web.capas.application.strategy;
 
 import com.web.capas.application.factory.NotificacionType;
-import com.web.capas.application.singleton.NotificacionConfiguracion;
 import org.springframework.stereotype.Component;
 
 @Component
 public class WhatsAppContenidoStrategy implements NotificacionContenidoStrategy {
 
-    private final NotificacionConfiguracion configuracion = NotificacionConfiguracion.getInstance();
+    private static final PlantillaCompilada PLANTILLA = PlantillaCompilada.compilar(
+        "{{prefijo}} 👋 Hola {{destinatario}}!\n{{mensaje}}", VARIABLES);
 
     @Override
     public boolean soporta(NotificacionType tipo) {
@@ -15,8 +15,7 @@ public class WhatsAppContenidoStrategy implements NotificacionContenidoStrategy
     }
 
     @Override
-    public String construirMensaje(String destinatario, String mensajeBase) {
-        return String.format("%s 👋 Hola %s!\n%s", configuracion.getPrefijoAplicacion(), destinatario, mensajeBase);
+    public PlantillaCompilada getPlantilla() {
+        return PLANTILLA;
     }
 }
-
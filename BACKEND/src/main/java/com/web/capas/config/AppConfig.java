@@ -1,14 +1,18 @@
 package com.web.capas.config;
 
 import com.stripe.Stripe;
+import com.web.capas.application.proxy.ProteccionProveedores;
 import jakarta.annotation.PostConstruct;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -26,22 +30,28 @@ public class AppConfig {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final StripeProperties stripeProperties;
     private final ApplicationUrlsProperties applicationUrlsProperties;
+    private final ResilienciaProperties resilienciaProperties;
 
     public AppConfig(
         JwtAuthenticationFilter jwtAuthenticationFilter,
         StripeProperties stripeProperties,
-        ApplicationUrlsProperties applicationUrlsProperties) {
+        ApplicationUrlsProperties applicationUrlsProperties,
+        ResilienciaProperties resilienciaProperties) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
         this.stripeProperties = stripeProperties;
         this.applicationUrlsProperties = applicationUrlsProperties;
+        this.resilienciaProperties = resilienciaProperties;
     }
 
-    // Inicializar Stripe con la clave secreta
+    // Inicializar Stripe con la clave secreta y timeouts explícitos
     @PostConstruct
     public void initStripe() {
         if (stripeProperties.getSecretKey() != null && !stripeProperties.getSecretKey().isBlank()) {
             Stripe.apiKey = stripeProperties.getSecretKey();
         }
+        ResilienciaProperties.Proveedor stripe = resilienciaProperties.getProveedor(ProteccionProveedores.STRIPE);
+        Stripe.setConnectTimeout(stripe.getConnectTimeoutMs());
+        Stripe.setReadTimeout(stripe.getReadTimeoutMs());
     }
 
     // Configurar seguridad y filtros JWT
@@ -53,12 +63,20 @@ public class AppConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .anonymous(anonymous -> anonymous.authorities("ROLE_INVITADO"))
             .authorizeHttpRequests(auth -> auth
+                // La petición original ya pasó la autorización; el despacho asíncrono solo escribe la respuesta
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                // Lo lee Prometheus con su propio token (ver MetricasController)
+                .requestMatchers(HttpMethod.GET, "/metricas").permitAll()
+                // Lo llama Stripe; se autentica con la firma del evento (ver WebhookStripeController)
+                .requestMatchers(HttpMethod.POST, "/api/v1/pagos/webhook").permitAll()
                 .requestMatchers(HttpMethod.POST,
                     "/api/auth/login",
                     "/api/auth/registro",
                     "/api/auth/recuperar-contrasena",
                     "/api/auth/restablecer-contrasena")
                     .hasRole("INVITADO")
+                // Se autentican con el token de refresco del cuerpo; el de acceso puede haber vencido
+                .requestMatchers(HttpMethod.POST, "/api/auth/refrescar", "/api/auth/cerrar-sesion").permitAll()
                 .requestMatchers("/api/auth/**")
                     .hasAnyRole("CLIENTE", "ADMINISTRADOR", "REPARTIDOR", "VENDEDOR")
                 .requestMatchers(HttpMethod.GET, "/api/v1/menu/**").hasAnyRole("INVITADO", "CLIENTE", "ADMINISTRADOR", "REPARTIDOR", "VENDEDOR")
@@ -72,6 +90,9 @@ public class AppConfig {
                 .requestMatchers("/api/v1/usuarios/**").hasAnyRole("CLIENTE", "ADMINISTRADOR", "REPARTIDOR", "VENDEDOR")
                 .anyRequest().authenticated()
             )
+            // Sin token válido se responde 401 (no 403) para que el frontend intente renovar la sesión
+            .exceptionHandling(excepciones -> excepciones
+                .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
         
         return http.build();
@@ -0,0 +1,75 @@
+package com.web.capas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+// Ejecutor de BCrypt: hilos, cola de espera y costo. Con costo en 0 se calibra al arrancar para que
+// un hash tarde cerca de milisegundos-objetivo, sin bajar de costo-minimo ni pasar de costo-maximo.
+@Component
+@ConfigurationProperties(prefix = "app.contrasenas")
+public class ContrasenasProperties {
+
+    private int hilos = 2;
+    private int capacidadCola = 64;
+    private long esperaMaximaMs = 10000;
+    private int costo = 0;
+    private long milisegundosObjetivo = 250;
+    private int costoMinimo = 10;
+    private int costoMaximo = 14;
+
+    public int getHilos() {
+        return hilos;
+    }
+
+    public void setHilos(int hilos) {
+        this.hilos = hilos;
+    }
+
+    public int getCapacidadCola() {
+        return capacidadCola;
+    }
+
+    public void setCapacidadCola(int capacidadCola) {
+        this.capacidadCola = capacidadCola;
+    }
+
+    public long getEsperaMaximaMs() {
+        return esperaMaximaMs;
+    }
+
+    public void setEsperaMaximaMs(long esperaMaximaMs) {
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+
+    public int getCosto() {
+        return costo;
+    }
+
+    public void setCosto(int costo) {
+        this.costo = costo;
+    }
+
+    public long getMilisegundosObjetivo() {
+        return milisegundosObjetivo;
+    }
+
+    public void setMilisegundosObjetivo(long milisegundosObjetivo) {
+        this.milisegundosObjetivo = milisegundosObjetivo;
+    }
+
+    public int getCostoMinimo() {
+        return costoMinimo;
+    }
+
+    public void setCostoMinimo(int costoMinimo) {
+        this.costoMinimo = costoMinimo;
+    }
+
+    public int getCostoMaximo() {
+        return costoMaximo;
+    }
+
+    public void setCostoMaximo(int costoMaximo) {
+        this.costoMaximo = costoMaximo;
+    }
+}
@@ -0,0 +1,58 @@
+package com.web.capas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+// Cola de envío de correos: capacidad, correos por conexión SMTP, ventana para no repetir
+// el mismo correo al mismo destinatario e intentos ante fallas del SMTP.
+@Component
+@ConfigurationProperties(prefix = "app.correo")
+public class CorreoProperties {
+
+    private int capacidad = 100;
+    private int tamanoLote = 20;
+    private long ventanaDuplicadosSegundos = 60;
+    // Intentos por correo (el primero incluido); la espera se duplica en cada reintento
+    private int maxIntentos = 3;
+    private long esperaReintentoMs = 30000;
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    public void setCapacidad(int capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    public int getTamanoLote() {
+        return tamanoLote;
+    }
+
+    public void setTamanoLote(int tamanoLote) {
+        this.tamanoLote = tamanoLote;
+    }
+
+    public long getVentanaDuplicadosSegundos() {
+        return ventanaDuplicadosSegundos;
+    }
+
+    public void setVentanaDuplicadosSegundos(long ventanaDuplicadosSegundos) {
+        this.ventanaDuplicadosSegundos = ventanaDuplicadosSegundos;
+    }
+
+    public int getMaxIntentos() {
+        return maxIntentos;
+    }
+
+    public void setMaxIntentos(int maxIntentos) {
+        this.maxIntentos = maxIntentos;
+    }
+
+    public long getEsperaReintentoMs() {
+        return esperaReintentoMs;
+    }
+
+    public void setEsperaReintentoMs(long esperaReintentoMs) {
+        this.esperaReintentoMs = esperaReintentoMs;
+    }
+}
@@ -0,0 +1,47 @@
+package com.web.capas.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Crea los hilos de los ejecutores propios (outbox, reintentos) según el modo de ejecución.
+// Con spring.threads.virtual.enabled=true Spring Boot ya pasa Tomcat, @Scheduled y @Async a hilos
+// virtuales; esta clase hace lo mismo con los ejecutores que armamos a mano.
+@Component
+public class FabricaHilos {
+
+    private final boolean virtuales;
+
+    public FabricaHilos(@Value("${spring.threads.virtual.enabled:false}") boolean virtuales) {
+        this.virtuales = virtuales;
+    }
+
+    public boolean usaHilosVirtuales() {
+        return virtuales;
+    }
+
+    // Hilos con nombre prefijo-1, prefijo-2... Los de plataforma son daemon para no frenar el apagado
+    public ThreadFactory crear(String prefijo) {
+        if (virtuales) {
+            return Thread.ofVirtual().name(prefijo + "-", 1).factory();
+        }
+        AtomicInteger contador = new AtomicInteger();
+        return tarea -> {
+            Thread hilo = new Thread(tarea, prefijo + "-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+
+    // Un hilo por tarea en modo virtual; en modo plataforma, un pool fijo del tamaño indicado
+    public ExecutorService crearEjecutor(String prefijo, int hilosPlataforma) {
+        if (virtuales) {
+            return Executors.newThreadPerTaskExecutor(crear(prefijo));
+        }
+        return Executors.newFixedThreadPool(hilosPlataforma, crear(prefijo));
+    }
+}
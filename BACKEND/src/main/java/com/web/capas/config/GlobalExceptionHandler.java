@@ -1,6 +1,9 @@
 package com.web.capas.config;
 
+import com.web.capas.domain.CapacidadAgotadaException;
+import com.web.capas.domain.ClaveIdempotenciaException;
 import com.web.capas.domain.CredencialesInvalidasException;
+import com.web.capas.domain.ProveedorNoDisponibleException;
 import com.web.capas.domain.RecursoNoEncontradoExcepcion;
 import com.web.capas.domain.ServiceException;
 import java.time.LocalDateTime;
@@ -8,6 +11,7 @@ import java.util.HashMap;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -31,6 +35,55 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(detallesError, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    // El proveedor externo se rechazó sin llamarlo: el cliente puede reintentar más tarde
+    @ExceptionHandler(ProveedorNoDisponibleException.class)
+    public ResponseEntity<Map<String, Object>> manejarProveedorNoDisponible(ProveedorNoDisponibleException ex, WebRequest solicitud) {
+        Map<String, Object> detallesError = new HashMap<>();
+        detallesError.put("marcaTiempo", LocalDateTime.now());
+        detallesError.put("estado", HttpStatus.SERVICE_UNAVAILABLE.value());
+        detallesError.put("error", "Servicio externo no disponible");
+        detallesError.put("mensaje", ex.getMessage());
+        detallesError.put("proveedor", ex.getProveedor());
+        detallesError.put("ruta", solicitud.getDescription(false).replace("uri=", ""));
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "30")
+            .body(detallesError);
+    }
+
+    // Cola interna llena (p. ej. el ejecutor de BCrypt): se rechaza sin procesar y el cliente reintenta
+    @ExceptionHandler(CapacidadAgotadaException.class)
+    public ResponseEntity<Map<String, Object>> manejarCapacidadAgotada(CapacidadAgotadaException ex, WebRequest solicitud) {
+        Map<String, Object> detallesError = new HashMap<>();
+        detallesError.put("marcaTiempo", LocalDateTime.now());
+        detallesError.put("estado", HttpStatus.TOO_MANY_REQUESTS.value());
+        detallesError.put("error", "Demasiadas solicitudes");
+        detallesError.put("mensaje", ex.getMessage());
+        detallesError.put("ruta", solicitud.getDescription(false).replace("uri=", ""));
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, "2")
+            .body(detallesError);
+    }
+
+    // 409 si la petición original con esa clave sigue en curso; 422 si la clave ya se usó con otro cuerpo
+    @ExceptionHandler(ClaveIdempotenciaException.class)
+    public ResponseEntity<Map<String, Object>> manejarClaveIdempotencia(ClaveIdempotenciaException ex, WebRequest solicitud) {
+        HttpStatus estado = ex.isEnCurso() ? HttpStatus.CONFLICT : HttpStatus.UNPROCESSABLE_ENTITY;
+        Map<String, Object> detallesError = new HashMap<>();
+        detallesError.put("marcaTiempo", LocalDateTime.now());
+        detallesError.put("estado", estado.value());
+        detallesError.put("error", "Idempotency-Key no válida");
+        detallesError.put("mensaje", ex.getMessage());
+        detallesError.put("ruta", solicitud.getDescription(false).replace("uri=", ""));
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.status(estado);
+        if (ex.isEnCurso()) {
+            respuesta.header(HttpHeaders.RETRY_AFTER, "1");
+        }
+        return respuesta.body(detallesError);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Map<String, Object>> manejarArgumentoIlegal(IllegalArgumentException ex, WebRequest solicitud) {
         Map<String, Object> detallesError = new HashMap<>();
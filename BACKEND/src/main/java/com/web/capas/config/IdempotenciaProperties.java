@@ -0,0 +1,46 @@
+package com.web.capas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.idempotencia")
+public class IdempotenciaProperties {
+
+    private int capacidadMemoria = 1000;
+    private long horasVigencia = 24;
+    private long bloqueoSegundos = 60;
+    private long esperaMaximaMs = 30000;
+
+    public int getCapacidadMemoria() {
+        return capacidadMemoria;
+    }
+
+    public void setCapacidadMemoria(int capacidadMemoria) {
+        this.capacidadMemoria = capacidadMemoria;
+    }
+
+    public long getHorasVigencia() {
+        return horasVigencia;
+    }
+
+    public void setHorasVigencia(long horasVigencia) {
+        this.horasVigencia = horasVigencia;
+    }
+
+    public long getBloqueoSegundos() {
+        return bloqueoSegundos;
+    }
+
+    public void setBloqueoSegundos(long bloqueoSegundos) {
+        this.bloqueoSegundos = bloqueoSegundos;
+    }
+
+    public long getEsperaMaximaMs() {
+        return esperaMaximaMs;
+    }
+
+    public void setEsperaMaximaMs(long esperaMaximaMs) {
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+}
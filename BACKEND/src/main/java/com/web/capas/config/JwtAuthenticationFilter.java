@@ -1,6 +1,7 @@
 package com.web.capas.config;
 
 import com.web.capas.application.service.JwtService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -41,27 +42,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
         
         try {
-            userEmail = jwtService.getEmailFromToken(jwt);
+            // Una sola consulta: la firma se verifica la primera vez y luego se lee de la cache de JwtService
+            Claims claims = jwtService.obtenerClaimsVerificadas(jwt);
+            userEmail = claims != null ? claims.getSubject() : null;
             
             // Solo procesar si hay correo y no hay autenticación previa
             if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                
-                if (jwtService.validateToken(jwt)) {
-                    String rol = jwtService.getRolFromToken(jwt);
-                    if (rol == null || rol.isBlank()) {
-                        filterChain.doFilter(request, response);
-                        return;
-                    }
-                    GrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + rol.toUpperCase());
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userEmail,
-                        null,
-                        Collections.singletonList(authority)
-                    );
-                    
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                String rol = claims.get("rol", String.class);
+                if (rol == null || rol.isBlank()) {
+                    filterChain.doFilter(request, response);
+                    return;
                 }
+                GrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + rol.toUpperCase());
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    userEmail,
+                    null,
+                    Collections.singletonList(authority)
+                );
+                
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         } catch (Exception e) {
             logger.error("Error procesando JWT token: " + e.getMessage());
@@ -0,0 +1,73 @@
+package com.web.capas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Claves y duraciones de los tokens. Las claves se identifican por kid: los tokens nuevos se firman con
+// claveActiva y se aceptan los firmados con cualquiera de las claves listadas. Para rotar, se agrega la
+// clave nueva, se la marca como activa y la anterior se quita pasados diasRefresco días.
+@Component
+@ConfigurationProperties(prefix = "app.jwt")
+public class JwtProperties {
+
+    private String claveActiva = "principal";
+    // kid -> secreto (al menos 32 caracteres para HS256)
+    private Map<String, String> claves = new LinkedHashMap<>();
+    private long minutosAcceso = 15;
+    private long diasRefresco = 14;
+    // Segundos en que un token de refresco repetido no se considera reutilizado
+    private long margenReusoSegundos = 30;
+    // Tokens verificados que se guardan en memoria
+    private int capacidadCache = 10000;
+
+    public String getClaveActiva() {
+        return claveActiva;
+    }
+
+    public void setClaveActiva(String claveActiva) {
+        this.claveActiva = claveActiva;
+    }
+
+    public Map<String, String> getClaves() {
+        return claves;
+    }
+
+    public void setClaves(Map<String, String> claves) {
+        this.claves = claves;
+    }
+
+    public long getMinutosAcceso() {
+        return minutosAcceso;
+    }
+
+    public void setMinutosAcceso(long minutosAcceso) {
+        this.minutosAcceso = minutosAcceso;
+    }
+
+    public long getDiasRefresco() {
+        return diasRefresco;
+    }
+
+    public void setDiasRefresco(long diasRefresco) {
+        this.diasRefresco = diasRefresco;
+    }
+
+    public long getMargenReusoSegundos() {
+        return margenReusoSegundos;
+    }
+
+    public void setMargenReusoSegundos(long margenReusoSegundos) {
+        this.margenReusoSegundos = margenReusoSegundos;
+    }
+
+    public int getCapacidadCache() {
+        return capacidadCache;
+    }
+
+    public void setCapacidadCache(int capacidadCache) {
+        this.capacidadCache = capacidadCache;
+    }
+}
@@ -0,0 +1,41 @@
+package com.web.capas.config;
+
+import com.web.capas.application.metricas.RegistroMetricas;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Mide cada petición desde que entra al controlador hasta que se escribe la respuesta. En las respuestas
+// asíncronas el inicio se guarda en el primer despacho y se registra al terminar el despacho final.
+@Component
+public class MetricasInterceptor implements HandlerInterceptor {
+
+    private static final String ATRIBUTO_INICIO = MetricasInterceptor.class.getName() + ".inicio";
+
+    private final RegistroMetricas registroMetricas;
+
+    public MetricasInterceptor(RegistroMetricas registroMetricas) {
+        this.registroMetricas = registroMetricas;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(ATRIBUTO_INICIO) == null) {
+            request.setAttribute(ATRIBUTO_INICIO, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object inicio = request.getAttribute(ATRIBUTO_INICIO);
+        if (!(inicio instanceof Long nanosInicio) || request.isAsyncStarted()) {
+            return;
+        }
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String ruta = patron != null ? patron.toString() : "desconocida";
+        registroMetricas.registrarPeticion(request.getMethod(), ruta, response.getStatus(), System.nanoTime() - nanosInicio);
+    }
+}
@@ -0,0 +1,36 @@
+package com.web.capas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.paginacion")
+public class PaginacionProperties {
+
+    private int tamanoPorDefecto = 20;
+    private int tamanoMaximo = 100;
+
+    // Tamaño de página a usar según lo pedido por el cliente
+    public int resolverTamano(Integer tamanoSolicitado) {
+        if (tamanoSolicitado == null || tamanoSolicitado <= 0) {
+            return tamanoPorDefecto;
+        }
+        return Math.min(tamanoSolicitado, tamanoMaximo);
+    }
+
+    public int getTamanoPorDefecto() {
+        return tamanoPorDefecto;
+    }
+
+    public void setTamanoPorDefecto(int tamanoPorDefecto) {
+        this.tamanoPorDefecto = tamanoPorDefecto;
+    }
+
+    public int getTamanoMaximo() {
+        return tamanoMaximo;
+    }
+
+    public void setTamanoMaximo(int tamanoMaximo) {
+        this.tamanoMaximo = tamanoMaximo;
+    }
+}
@@ -0,0 +1,39 @@
+package com.web.capas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+// Límites del ejecutor de reintentos de WhatsApp. El número de intentos y la espera base
+// siguen viniendo de NotificacionConfiguracion.
+@Component
+@ConfigurationProperties(prefix = "app.reintentos")
+public class ReintentosProperties {
+
+    private int hilos = 2;
+    private int capacidad = 200;
+    private long esperaMaximaMs = 30000;
+
+    public int getHilos() {
+        return hilos;
+    }
+
+    public void setHilos(int hilos) {
+        this.hilos = hilos;
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    public void setCapacidad(int capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    public long getEsperaMaximaMs() {
+        return esperaMaximaMs;
+    }
+
+    public void setEsperaMaximaMs(long esperaMaximaMs) {
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+}
@@ -0,0 +1,87 @@
+package com.web.capas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Circuito, cupos y timeouts de los proveedores externos (stripe, twilio, onesignal, smtp).
+// Los valores del circuito son comunes; cupos y timeouts se ajustan por proveedor.
+@Component
+@ConfigurationProperties(prefix = "app.resiliencia")
+public class ResilienciaProperties {
+
+    private int umbralFallos = 5;
+    private long esperaAbiertoMs = 30000;
+    private long esperaCupoMs = 200;
+    private Map<String, Proveedor> proveedores = new HashMap<>();
+
+    // Un proveedor sin configuración usa los valores por defecto
+    public Proveedor getProveedor(String nombre) {
+        return proveedores.getOrDefault(nombre, new Proveedor());
+    }
+
+    public int getUmbralFallos() {
+        return umbralFallos;
+    }
+
+    public void setUmbralFallos(int umbralFallos) {
+        this.umbralFallos = umbralFallos;
+    }
+
+    public long getEsperaAbiertoMs() {
+        return esperaAbiertoMs;
+    }
+
+    public void setEsperaAbiertoMs(long esperaAbiertoMs) {
+        this.esperaAbiertoMs = esperaAbiertoMs;
+    }
+
+    public long getEsperaCupoMs() {
+        return esperaCupoMs;
+    }
+
+    public void setEsperaCupoMs(long esperaCupoMs) {
+        this.esperaCupoMs = esperaCupoMs;
+    }
+
+    public Map<String, Proveedor> getProveedores() {
+        return proveedores;
+    }
+
+    public void setProveedores(Map<String, Proveedor> proveedores) {
+        this.proveedores = proveedores;
+    }
+
+    public static class Proveedor {
+
+        private int maxConcurrentes = 10;
+        private int connectTimeoutMs = 3000;
+        private int readTimeoutMs = 10000;
+
+        public int getMaxConcurrentes() {
+            return maxConcurrentes;
+        }
+
+        public void setMaxConcurrentes(int maxConcurrentes) {
+            this.maxConcurrentes = maxConcurrentes;
+        }
+
+        public int getConnectTimeoutMs() {
+            return connectTimeoutMs;
+        }
+
+        public void setConnectTimeoutMs(int connectTimeoutMs) {
+            this.connectTimeoutMs = connectTimeoutMs;
+        }
+
+        public int getReadTimeoutMs() {
+            return readTimeoutMs;
+        }
+
+        public void setReadTimeoutMs(int readTimeoutMs) {
+            this.readTimeoutMs = readTimeoutMs;
+        }
+    }
+}
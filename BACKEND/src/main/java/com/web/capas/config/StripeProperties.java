@@ -9,6 +9,8 @@ public class StripeProperties {
 
     private String secretKey;
     private String publishableKey;
+    // Secreto de firma del endpoint de webhooks (whsec_...); vacío deja el webhook desactivado
+    private String webhookSecret;
 
     public String getSecretKey() {
         return secretKey;
@@ -25,5 +27,12 @@ public class StripeProperties {
     public void setPublishableKey(String publishableKey) {
         this.publishableKey = publishableKey;
     }
-}
 
+    public String getWebhookSecret() {
+        return webhookSecret;
+    }
+
+    public void setWebhookSecret(String webhookSecret) {
+        this.webhookSecret = webhookSecret;
+    }
+}
@@ -0,0 +1,21 @@
+package com.web.capas.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Configuración de Spring MVC: interceptores comunes a todos los controladores
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final MetricasInterceptor metricasInterceptor;
+
+    public WebConfig(MetricasInterceptor metricasInterceptor) {
+        this.metricasInterceptor = metricasInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(metricasInterceptor).excludePathPatterns("/metricas");
+    }
+}
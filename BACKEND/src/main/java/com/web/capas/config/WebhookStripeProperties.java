@@ -0,0 +1,70 @@
+package com.web.capas.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.webhooks.stripe")
+public class WebhookStripeProperties {
+
+    private int hilos = 2;
+    private int tamanoLote = 50;
+    private int maxIntentos = 8;
+    private long esperaBaseSegundos = 5;
+    private long esperaMaximaSegundos = 600;
+    private int diasRetencion = 30;
+
+    // Espera exponencial entre reintentos: base, 2*base, 4*base... hasta el máximo
+    public long calcularEsperaSegundos(int intentos) {
+        long factor = 1L << Math.min(Math.max(intentos - 1, 0), 20);
+        return Math.min(esperaBaseSegundos * factor, esperaMaximaSegundos);
+    }
+
+    public int getHilos() {
+        return hilos;
+    }
+
+    public void setHilos(int hilos) {
+        this.hilos = hilos;
+    }
+
+    public int getTamanoLote() {
+        return tamanoLote;
+    }
+
+    public void setTamanoLote(int tamanoLote) {
+        this.tamanoLote = tamanoLote;
+    }
+
+    public int getMaxIntentos() {
+        return maxIntentos;
+    }
+
+    public void setMaxIntentos(int maxIntentos) {
+        this.maxIntentos = maxIntentos;
+    }
+
+    public long getEsperaBaseSegundos() {
+        return esperaBaseSegundos;
+    }
+
+    public void setEsperaBaseSegundos(long esperaBaseSegundos) {
+        this.esperaBaseSegundos = esperaBaseSegundos;
+    }
+
+    public long getEsperaMaximaSegundos() {
+        return esperaMaximaSegundos;
+    }
+
+    public void setEsperaMaximaSegundos(long esperaMaximaSegundos) {
+        this.esperaMaximaSegundos = esperaMaximaSegundos;
+    }
+
+    public int getDiasRetencion() {
+        return diasRetencion;
+    }
+
+    public void setDiasRetencion(int diasRetencion) {
+        this.diasRetencion = diasRetencion;
+    }
+}
@@ -0,0 +1,9 @@
+package com.web.capas.domain;
+
+// Excepción cuando una cola interna está llena y la petición se rechaza sin procesarla
+public class CapacidadAgotadaException extends ServiceException {
+
+    public CapacidadAgotadaException(String message) {
+        super(message);
+    }
+}
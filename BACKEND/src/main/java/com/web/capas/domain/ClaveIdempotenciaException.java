@@ -0,0 +1,17 @@
+package com.web.capas.domain;
+
+// Excepción cuando una Idempotency-Key no se puede usar: ya se usó con otra petición, o la primera
+// petición con esa clave todavía se está ejecutando
+public class ClaveIdempotenciaException extends ServiceException {
+
+    private final boolean enCurso;
+
+    public ClaveIdempotenciaException(String message, boolean enCurso) {
+        super(message);
+        this.enCurso = enCurso;
+    }
+
+    public boolean isEnCurso() {
+        return enCurso;
+    }
+}
@@ -0,0 +1,16 @@
+package com.web.capas.domain;
+
+// Excepción cuando un proveedor externo se rechaza sin llamarlo (circuito abierto o sin cupo)
+public class ProveedorNoDisponibleException extends ServiceException {
+
+    private final String proveedor;
+
+    public ProveedorNoDisponibleException(String proveedor, String message) {
+        super(message);
+        this.proveedor = proveedor;
+    }
+
+    public String getProveedor() {
+        return proveedor;
+    }
+}
@@ -48,6 +48,10 @@ public class AuthResponse {
         private String telefono;
         private String direccion;
         private String rol;
+        // Token para pedir un par nuevo en /api/auth/refrescar cuando vence el de acceso
+        private String tokenRefresco;
+        // Duración del token de acceso
+        private Long expiraEnSegundos;
 
         public AuthData() {}
 
@@ -134,5 +138,21 @@ public class AuthResponse {
         public void setUsername(String username) {
             this.username = username;
         }
+
+        public String getTokenRefresco() {
+            return tokenRefresco;
+        }
+
+        public void setTokenRefresco(String tokenRefresco) {
+            this.tokenRefresco = tokenRefresco;
+        }
+
+        public Long getExpiraEnSegundos() {
+            return expiraEnSegundos;
+        }
+
+        public void setExpiraEnSegundos(Long expiraEnSegundos) {
+            this.expiraEnSegundos = expiraEnSegundos;
+        }
     }
 }
@@ -0,0 +1,118 @@
+package com.web.capas.domain.dto;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Foto inmutable del menú público: productos activos, agrupados por categoría, con su ETag
+// y con el JSON ya serializado (plano y gzip) para escribirlo directo en la respuesta
+public class CatalogoMenu {
+
+    private final List<ProductoResponse> productos;
+    private final Map<Integer, List<ProductoResponse>> productosPorCategoria;
+    private final Map<Integer, ProductoResponse> productosPorId;
+    private final CuerpoSerializado cuerpo;
+    private final Map<Integer, CuerpoSerializado> cuerposPorCategoria;
+    private final String etag;
+    private final long generacion;
+
+    public CatalogoMenu(List<ProductoResponse> productos, CuerpoSerializado cuerpo,
+                        Map<Integer, CuerpoSerializado> cuerposPorCategoria, String etag, long generacion) {
+        this.productos = Collections.unmodifiableList(productos);
+        this.productosPorCategoria = Collections.unmodifiableMap(agruparPorCategoria(productos));
+        Map<Integer, ProductoResponse> porId = new LinkedHashMap<>();
+        for (ProductoResponse producto : productos) {
+            porId.put(producto.getIdProducto(), producto);
+        }
+        this.productosPorId = Collections.unmodifiableMap(porId);
+        this.cuerpo = cuerpo;
+        this.cuerposPorCategoria = Collections.unmodifiableMap(cuerposPorCategoria);
+        this.etag = etag;
+        this.generacion = generacion;
+    }
+
+    public static Map<Integer, List<ProductoResponse>> agruparPorCategoria(List<ProductoResponse> productos) {
+        return productos.stream()
+            .filter(producto -> producto.getCategoria() != null && producto.getCategoria().getIdCategoria() != null)
+            .collect(Collectors.groupingBy(
+                producto -> producto.getCategoria().getIdCategoria(),
+                LinkedHashMap::new,
+                Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList)));
+    }
+
+    public List<ProductoResponse> getProductos() {
+        return productos;
+    }
+
+    public List<ProductoResponse> obtenerPorCategoria(Integer idCategoria) {
+        return productosPorCategoria.getOrDefault(idCategoria, Collections.emptyList());
+    }
+
+    // Null si el producto no está activo en esta foto
+    public ProductoResponse obtenerPorId(Integer idProducto) {
+        return productosPorId.get(idProducto);
+    }
+
+    public CuerpoSerializado getCuerpo() {
+        return cuerpo;
+    }
+
+    public CuerpoSerializado obtenerCuerpoPorCategoria(Integer idCategoria) {
+        return cuerposPorCategoria.getOrDefault(idCategoria, CuerpoSerializado.LISTA_VACIA);
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    // La versión comprimida es otra representación, así que lleva su propio ETag
+    public String getEtag(boolean gzip) {
+        return gzip ? etag.substring(0, etag.length() - 1) + "-gzip\"" : etag;
+    }
+
+    public long getGeneracion() {
+        return generacion;
+    }
+
+    // Compara contra el encabezado If-None-Match (admite lista de ETags, ETags débiles y "*")
+    public boolean coincideEtag(String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals("*") || valor.equals(etag) || valor.equals(getEtag(true))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static class CuerpoSerializado {
+
+        public static final CuerpoSerializado LISTA_VACIA = new CuerpoSerializado(
+            "[]".getBytes(java.nio.charset.StandardCharsets.UTF_8), null);
+
+        private final byte[] json;
+        private final byte[] gzip;
+
+        public CuerpoSerializado(byte[] json, byte[] gzip) {
+            this.json = json;
+            this.gzip = gzip;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        // Puede ser null si no vale la pena comprimir
+        public byte[] getGzip() {
+            return gzip;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.web.capas.domain.dto;
+
+// Proyección con solo el id y la generación de tokens de un usuario
+public class GeneracionTokenProyeccion {
+
+    private final Integer idUsuario;
+    private final Integer generacionToken;
+
+    public GeneracionTokenProyeccion(Integer idUsuario, Integer generacionToken) {
+        this.idUsuario = idUsuario;
+        this.generacionToken = generacionToken;
+    }
+
+    public Integer getIdUsuario() {
+        return idUsuario;
+    }
+
+    public Integer getGeneracionToken() {
+        return generacionToken;
+    }
+}
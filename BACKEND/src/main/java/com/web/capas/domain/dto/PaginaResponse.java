@@ -0,0 +1,61 @@
+package com.web.capas.domain.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+// DTO para respuestas paginadas por cursor
+public class PaginaResponse<T> {
+
+    @JsonProperty("items")
+    private List<T> items;
+
+    @JsonProperty("siguienteCursor")
+    private String siguienteCursor;
+
+    @JsonProperty("hasMore")
+    private boolean hasMore;
+
+    @JsonProperty("tamano")
+    private int tamano;
+
+    public PaginaResponse() {}
+
+    public PaginaResponse(List<T> items, String siguienteCursor, boolean hasMore, int tamano) {
+        this.items = items;
+        this.siguienteCursor = siguienteCursor;
+        this.hasMore = hasMore;
+        this.tamano = tamano;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    public void setSiguienteCursor(String siguienteCursor) {
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public int getTamano() {
+        return tamano;
+    }
+
+    public void setTamano(int tamano) {
+        this.tamano = tamano;
+    }
+}
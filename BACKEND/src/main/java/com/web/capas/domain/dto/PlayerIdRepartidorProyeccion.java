@@ -0,0 +1,21 @@
+package com.web.capas.domain.dto;
+
+// Proyección con solo el id y el Player ID de OneSignal de un repartidor
+public class PlayerIdRepartidorProyeccion {
+
+    private final Integer idUsuario;
+    private final String playerId;
+
+    public PlayerIdRepartidorProyeccion(Integer idUsuario, String playerId) {
+        this.idUsuario = idUsuario;
+        this.playerId = playerId;
+    }
+
+    public Integer getIdUsuario() {
+        return idUsuario;
+    }
+
+    public String getPlayerId() {
+        return playerId;
+    }
+}
@@ -0,0 +1,35 @@
+package com.web.capas.domain.dto;
+
+import java.math.BigDecimal;
+
+// Proyección con la cantidad vendida y el total facturado de un producto
+public class ProductoVendidoProyeccion {
+
+    private final Integer idProducto;
+    private final String nombre;
+    private final long cantidadVendida;
+    private final BigDecimal totalVentas;
+
+    public ProductoVendidoProyeccion(Integer idProducto, String nombre, Long cantidadVendida, BigDecimal totalVentas) {
+        this.idProducto = idProducto;
+        this.nombre = nombre;
+        this.cantidadVendida = cantidadVendida != null ? cantidadVendida : 0L;
+        this.totalVentas = totalVentas != null ? totalVentas : BigDecimal.ZERO;
+    }
+
+    public Integer getIdProducto() {
+        return idProducto;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public long getCantidadVendida() {
+        return cantidadVendida;
+    }
+
+    public BigDecimal getTotalVentas() {
+        return totalVentas;
+    }
+}
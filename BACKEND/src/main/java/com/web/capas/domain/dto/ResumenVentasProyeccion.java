@@ -0,0 +1,23 @@
+package com.web.capas.domain.dto;
+
+import java.math.BigDecimal;
+
+// Proyección con el total y la cantidad de pedidos de un rango de fechas
+public class ResumenVentasProyeccion {
+
+    private final BigDecimal total;
+    private final long cantidadPedidos;
+
+    public ResumenVentasProyeccion(BigDecimal total, Long cantidadPedidos) {
+        this.total = total != null ? total : BigDecimal.ZERO;
+        this.cantidadPedidos = cantidadPedidos != null ? cantidadPedidos : 0L;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public long getCantidadPedidos() {
+        return cantidadPedidos;
+    }
+}
@@ -0,0 +1,62 @@
+package com.web.capas.domain.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class SugerenciaResponse {
+
+    public static final String TIPO_PRODUCTO = "producto";
+    public static final String TIPO_CATEGORIA = "categoria";
+
+    @JsonProperty("texto")
+    private String texto;
+
+    @JsonProperty("tipo")
+    private String tipo;
+
+    @JsonProperty("idProducto")
+    private Integer idProducto;
+
+    @JsonProperty("idCategoria")
+    private Integer idCategoria;
+
+    public SugerenciaResponse() {}
+
+    public SugerenciaResponse(String texto, String tipo, Integer idProducto, Integer idCategoria) {
+        this.texto = texto;
+        this.tipo = tipo;
+        this.idProducto = idProducto;
+        this.idCategoria = idCategoria;
+    }
+
+    public String getTexto() {
+        return texto;
+    }
+
+    public void setTexto(String texto) {
+        this.texto = texto;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    public Integer getIdProducto() {
+        return idProducto;
+    }
+
+    public void setIdProducto(Integer idProducto) {
+        this.idProducto = idProducto;
+    }
+
+    public Integer getIdCategoria() {
+        return idCategoria;
+    }
+
+    public void setIdCategoria(Integer idCategoria) {
+        this.idCategoria = idCategoria;
+    }
+}
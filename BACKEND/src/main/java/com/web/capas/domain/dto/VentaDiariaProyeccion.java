@@ -0,0 +1,24 @@
+package com.web.capas.domain.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Proyección con el total vendido en un día
+public class VentaDiariaProyeccion {
+
+    private final LocalDate dia;
+    private final BigDecimal total;
+
+    public VentaDiariaProyeccion(LocalDate dia, BigDecimal total) {
+        this.dia = dia;
+        this.total = total != null ? total : BigDecimal.ZERO;
+    }
+
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+}
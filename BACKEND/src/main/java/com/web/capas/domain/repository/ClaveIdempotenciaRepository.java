@@ -0,0 +1,55 @@
+package com.web.capas.domain.repository;
+
+import com.web.capas.infrastructure.persistence.entities.ClaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+// Cada operación confirma por su cuenta: la reserva tiene que verse en otras instancias antes de ejecutar
+@Repository
+public interface ClaveIdempotenciaRepository extends JpaRepository<ClaveIdempotencia, String> {
+
+    // Reserva la clave; devuelve 0 si ya existe una fila para ella
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO Claves_Idempotencia " +
+                   "(id_clave, operacion, huella_peticion, estado, fecha_creacion, fecha_expiracion) " +
+                   "VALUES (:id, :operacion, :huella, 'en_curso', :ahora, :expiracion)",
+           nativeQuery = true)
+    int reservar(@Param("id") String id,
+                 @Param("operacion") String operacion,
+                 @Param("huella") String huella,
+                 @Param("ahora") LocalDateTime ahora,
+                 @Param("expiracion") LocalDateTime expiracion);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ClaveIdempotencia c SET c.estado = com.web.capas.infrastructure.persistence.entities.ClaveIdempotencia.Estado.completado, " +
+           "c.codigoHttp = :codigo, c.cuerpoRespuesta = :cuerpo, c.fechaExpiracion = :expiracion WHERE c.idClave = :id")
+    int completar(@Param("id") String id,
+                  @Param("codigo") Integer codigo,
+                  @Param("cuerpo") String cuerpo,
+                  @Param("expiracion") LocalDateTime expiracion);
+
+    // Suelta la reserva cuando la ejecución falló, así el cliente puede reintentar con la misma clave
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.idClave = :id " +
+           "AND c.estado = com.web.capas.infrastructure.persistence.entities.ClaveIdempotencia.Estado.en_curso")
+    int liberar(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.idClave = :id AND c.fechaExpiracion < :ahora")
+    int eliminarSiVencida(@Param("id") String id, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.fechaExpiracion < :ahora")
+    int eliminarVencidas(@Param("ahora") LocalDateTime ahora);
+}
@@ -0,0 +1,25 @@
+package com.web.capas.domain.repository;
+
+import com.web.capas.infrastructure.persistence.entities.EventoOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, Long> {
+
+    // Siguiente lote de eventos listos para enviar, en orden de creación
+    List<EventoOutbox> findByEstadoAndProximoIntentoLessThanEqualOrderByIdEventoAsc(
+        EventoOutbox.Estado estado, LocalDateTime ahora, Pageable pageable);
+
+    // Limpieza de eventos ya enviados
+    @Modifying
+    @Query("DELETE FROM EventoOutbox e WHERE e.estado = :estado AND e.fechaEnvio < :antesDe")
+    int eliminarEnviadosAntesDe(@Param("estado") EventoOutbox.Estado estado, @Param("antesDe") LocalDateTime antesDe);
+}
@@ -0,0 +1,48 @@
+package com.web.capas.domain.repository;
+
+import com.web.capas.infrastructure.persistence.entities.EventoStripe;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EventoStripeRepository extends JpaRepository<EventoStripe, String> {
+
+    // Inserta el evento solo si no existe; devuelve 0 cuando Stripe reenvía un evento ya recibido
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO Eventos_Stripe " +
+                   "(id_evento_stripe, tipo, payment_intent_id, payload, estado, intentos, proximo_intento, fecha_evento, fecha_recepcion) " +
+                   "VALUES (:id, :tipo, :paymentIntentId, :payload, 'pendiente', 0, :ahora, :fechaEvento, :ahora)",
+           nativeQuery = true)
+    int insertarSiNoExiste(@Param("id") String id,
+                           @Param("tipo") String tipo,
+                           @Param("paymentIntentId") String paymentIntentId,
+                           @Param("payload") String payload,
+                           @Param("fechaEvento") LocalDateTime fechaEvento,
+                           @Param("ahora") LocalDateTime ahora);
+
+    // Siguiente lote listo para aplicar, en el orden en que Stripe generó los eventos
+    List<EventoStripe> findByEstadoAndProximoIntentoLessThanEqualOrderByFechaEventoAsc(
+        EventoStripe.Estado estado, LocalDateTime ahora, Pageable pageable);
+
+    // Reproceso: vuelve a dejar pendientes los eventos recibidos en un rango, opcionalmente de un solo estado
+    @Modifying
+    @Query("UPDATE EventoStripe e SET e.estado = com.web.capas.infrastructure.persistence.entities.EventoStripe.Estado.pendiente, " +
+           "e.intentos = 0, e.proximoIntento = :ahora, e.ultimoError = null " +
+           "WHERE e.fechaRecepcion >= :desde AND e.fechaRecepcion < :hasta AND (:estado IS NULL OR e.estado = :estado)")
+    int marcarParaReproceso(@Param("desde") LocalDateTime desde,
+                            @Param("hasta") LocalDateTime hasta,
+                            @Param("estado") EventoStripe.Estado estado,
+                            @Param("ahora") LocalDateTime ahora);
+
+    // Limpieza de eventos ya aplicados o ignorados
+    @Modifying
+    @Query("DELETE FROM EventoStripe e WHERE e.estado IN :estados AND e.fechaProceso < :antesDe")
+    int eliminarProcesadosAntesDe(@Param("estados") List<EventoStripe.Estado> estados, @Param("antesDe") LocalDateTime antesDe);
+}
@@ -2,8 +2,13 @@ package com.web.capas.domain.repository;
 
 import com.web.capas.infrastructure.persistence.entities.Pedido;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 @Repository
@@ -11,12 +16,16 @@ public interface PedidoRepository extends JpaRepository<Pedido, Integer> {
     
     List<Pedido> findByCliente_IdUsuario(Integer idUsuario);
     
+    // Los listados usan el grafo "Pedido.listado" para evitar el N+1 de las relaciones EAGER
+    @EntityGraph("Pedido.listado")
     List<Pedido> findByRepartidor_IdUsuario(Integer repartidorId);
     
     List<Pedido> findByEstadoPedido(Pedido.EstadoPedido estado);
     
+    @EntityGraph("Pedido.listado")
     List<Pedido> findByRepartidorIsNullAndEstadoPedidoIn(List<Pedido.EstadoPedido> estados);
     
+    @EntityGraph("Pedido.listado")
     List<Pedido> findByRepartidor_IdUsuarioAndEstadoPedidoOrderByFechaEntregaDesc(Integer repartidorId, Pedido.EstadoPedido estado);
     
     List<Pedido> findByRepartidor_IdUsuarioAndEstadoPedidoAndFechaEntregaBetween(
@@ -26,8 +35,11 @@ public interface PedidoRepository extends JpaRepository<Pedido, Integer> {
         java.time.LocalDateTime fechaFin
     );
     
+    // Con paginación no se hace fetch de la colección (se paginaría en memoria); los detalles se cargan por lotes
+    @EntityGraph(attributePaths = {"cliente", "repartidor"}, type = EntityGraph.EntityGraphType.LOAD)
     List<Pedido> findByCliente_IdUsuarioOrderByFechaPedidoDesc(Integer idUsuario, Pageable pageable);
     
+    @EntityGraph("Pedido.listado")
     List<Pedido> findByCliente_IdUsuarioOrderByFechaPedidoDesc(Integer idUsuario);
 
     List<Pedido> findByProblemaReportadoTrueOrderByFechaProblemaDesc();
@@ -50,4 +62,61 @@ public interface PedidoRepository extends JpaRepository<Pedido, Integer> {
         java.time.LocalDateTime fechaFin
     );
     
+    // Paginación por cursor sobre (fecha_pedido, id_pedido) descendente: primera página sin cursor y siguientes
+    // con la posición del último pedido devuelto, así una página profunda cuesta lo mismo que la primera
+    @EntityGraph(attributePaths = {"cliente", "repartidor"}, type = EntityGraph.EntityGraphType.LOAD)
+    List<Pedido> findByCliente_IdUsuarioOrderByFechaPedidoDescIdPedidoDesc(Integer idUsuario, Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"cliente", "repartidor"}, type = EntityGraph.EntityGraphType.LOAD)
+    @Query("SELECT p FROM Pedido p WHERE p.cliente.idUsuario = :idUsuario " +
+           "AND (p.fechaPedido < :fechaPedido OR (p.fechaPedido = :fechaPedido AND p.idPedido < :idPedido)) " +
+           "ORDER BY p.fechaPedido DESC, p.idPedido DESC")
+    List<Pedido> buscarPaginaDelCliente(
+        @Param("idUsuario") Integer idUsuario,
+        @Param("fechaPedido") java.time.LocalDateTime fechaPedido,
+        @Param("idPedido") Integer idPedido,
+        Pageable pageable
+    );
+    
+    @EntityGraph(attributePaths = {"cliente", "repartidor"}, type = EntityGraph.EntityGraphType.LOAD)
+    List<Pedido> findByRepartidor_IdUsuarioOrderByFechaPedidoDescIdPedidoDesc(Integer repartidorId, Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"cliente", "repartidor"}, type = EntityGraph.EntityGraphType.LOAD)
+    @Query("SELECT p FROM Pedido p WHERE p.repartidor.idUsuario = :repartidorId " +
+           "AND (p.fechaPedido < :fechaPedido OR (p.fechaPedido = :fechaPedido AND p.idPedido < :idPedido)) " +
+           "ORDER BY p.fechaPedido DESC, p.idPedido DESC")
+    List<Pedido> buscarPaginaDelRepartidor(
+        @Param("repartidorId") Integer repartidorId,
+        @Param("fechaPedido") java.time.LocalDateTime fechaPedido,
+        @Param("idPedido") Integer idPedido,
+        Pageable pageable
+    );
+    
+    @EntityGraph(attributePaths = {"cliente", "repartidor"}, type = EntityGraph.EntityGraphType.LOAD)
+    List<Pedido> findByRepartidor_IdUsuarioAndEstadoPedidoOrderByFechaPedidoDescIdPedidoDesc(
+        Integer repartidorId,
+        Pedido.EstadoPedido estado,
+        Pageable pageable
+    );
+    
+    @EntityGraph(attributePaths = {"cliente", "repartidor"}, type = EntityGraph.EntityGraphType.LOAD)
+    @Query("SELECT p FROM Pedido p WHERE p.repartidor.idUsuario = :repartidorId AND p.estadoPedido = :estado " +
+           "AND (p.fechaPedido < :fechaPedido OR (p.fechaPedido = :fechaPedido AND p.idPedido < :idPedido)) " +
+           "ORDER BY p.fechaPedido DESC, p.idPedido DESC")
+    List<Pedido> buscarPaginaDelRepartidorPorEstado(
+        @Param("repartidorId") Integer repartidorId,
+        @Param("estado") Pedido.EstadoPedido estado,
+        @Param("fechaPedido") java.time.LocalDateTime fechaPedido,
+        @Param("idPedido") Integer idPedido,
+        Pageable pageable
+    );
+    
+    // Cambia el estado solo si sigue siendo el esperado; devuelve 0 si otro cambio llegó antes
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Pedido p SET p.estadoPedido = :nuevo WHERE p.idPedido = :id AND p.estadoPedido = :esperado")
+    int actualizarEstadoSiNoCambio(@Param("id") Integer id,
+                                   @Param("esperado") Pedido.EstadoPedido esperado,
+                                   @Param("nuevo") Pedido.EstadoPedido nuevo);
+    
 }
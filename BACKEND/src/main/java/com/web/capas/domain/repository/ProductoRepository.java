@@ -2,6 +2,9 @@ package com.web.capas.domain.repository;
 
 import com.web.capas.infrastructure.persistence.entities.Producto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -13,4 +16,10 @@ public interface ProductoRepository extends JpaRepository<Producto, Integer> {
     List<Producto> findByCategoria_IdCategoria(Integer categoriaId);
     List<Producto> findByNombreContainingIgnoreCase(String nombre);
     List<Producto> findByNombreContainingIgnoreCaseAndEstado(String nombre, Producto.EstadoProducto estado);
+
+    // El descuento condicional de stock está en JdbcPedidoLoteRepository.descontarStock (un solo UPDATE con CASE)
+    @Modifying
+    @Query("UPDATE Producto p SET p.stock = p.stock + :cantidad " +
+           "WHERE p.idProducto = :idProducto")
+    int reponerStock(@Param("idProducto") Integer idProducto, @Param("cantidad") int cantidad);
 }
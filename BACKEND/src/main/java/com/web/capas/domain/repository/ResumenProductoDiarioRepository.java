@@ -0,0 +1,59 @@
+package com.web.capas.domain.repository;
+
+import com.web.capas.domain.dto.ProductoVendidoProyeccion;
+import com.web.capas.infrastructure.persistence.entities.ResumenProductoDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ResumenProductoDiarioRepository extends JpaRepository<ResumenProductoDiario, Integer> {
+
+    // Suma los incrementos a la fila (fecha, id_producto) creándola si no existe; atómico en MySQL
+    @Modifying
+    @Query(value = "INSERT INTO Resumen_Productos_Diario (fecha, id_producto, cantidad_vendida, total_ventas) " +
+                   "VALUES (:fecha, :idProducto, :cantidad, :total) " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "cantidad_vendida = cantidad_vendida + VALUES(cantidad_vendida), " +
+                   "total_ventas = total_ventas + VALUES(total_ventas)",
+           nativeQuery = true)
+    void acumular(
+        @Param("fecha") LocalDate fecha,
+        @Param("idProducto") Integer idProducto,
+        @Param("cantidad") int cantidad,
+        @Param("total") BigDecimal total
+    );
+
+    // Productos entregados en los días [desde, hasta] ordenados por cantidad
+    @Query("SELECT new com.web.capas.domain.dto.ProductoVendidoProyeccion(pr.idProducto, pr.nombre, SUM(r.cantidadVendida), SUM(r.totalVentas)) " +
+           "FROM ResumenProductoDiario r JOIN r.producto pr " +
+           "WHERE r.fecha >= :desde AND r.fecha <= :hasta " +
+           "GROUP BY pr.idProducto, pr.nombre " +
+           "HAVING SUM(r.cantidadVendida) > 0 " +
+           "ORDER BY SUM(r.cantidadVendida) DESC")
+    List<ProductoVendidoProyeccion> sumarProductosVendidosEnRango(
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
+    );
+
+    // Reconciliación: borra los días del rango y los recalcula desde Detalle_Pedido
+    @Modifying
+    @Query("DELETE FROM ResumenProductoDiario r WHERE r.fecha >= :desde AND r.fecha <= :hasta")
+    void eliminarEnRango(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    @Modifying
+    @Query(value = "INSERT INTO Resumen_Productos_Diario (fecha, id_producto, cantidad_vendida, total_ventas) " +
+                   "SELECT DATE(p.fecha_pedido), d.id_producto, SUM(d.cantidad), COALESCE(SUM(d.subtotal), 0) " +
+                   "FROM Detalle_Pedido d JOIN Pedidos p ON p.id_pedido = d.id_pedido " +
+                   "WHERE p.fecha_pedido >= :desde AND p.fecha_pedido < :hasta AND p.estado_pedido = 'entregado' " +
+                   "GROUP BY DATE(p.fecha_pedido), d.id_producto",
+           nativeQuery = true)
+    void recalcularEnRango(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+}
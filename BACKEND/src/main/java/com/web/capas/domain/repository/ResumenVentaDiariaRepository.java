@@ -0,0 +1,93 @@
+package com.web.capas.domain.repository;
+
+import com.web.capas.domain.dto.ResumenVentasProyeccion;
+import com.web.capas.domain.dto.VentaDiariaProyeccion;
+import com.web.capas.infrastructure.persistence.entities.ResumenVentaDiaria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ResumenVentaDiariaRepository extends JpaRepository<ResumenVentaDiaria, Integer> {
+
+    // Suma los incrementos a la fila (fecha, metodo_pago) creándola si no existe; atómico en MySQL
+    @Modifying
+    @Query(value = "INSERT INTO Resumen_Ventas_Diario (fecha, metodo_pago, pedidos_creados, total_creado, " +
+                   "pedidos_cancelados, total_cancelado, pedidos_vendidos, total_vendido, descuento_vendido) " +
+                   "VALUES (:fecha, :metodoPago, :pedidosCreados, :totalCreado, :pedidosCancelados, :totalCancelado, " +
+                   ":pedidosVendidos, :totalVendido, :descuentoVendido) " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "pedidos_creados = pedidos_creados + VALUES(pedidos_creados), " +
+                   "total_creado = total_creado + VALUES(total_creado), " +
+                   "pedidos_cancelados = pedidos_cancelados + VALUES(pedidos_cancelados), " +
+                   "total_cancelado = total_cancelado + VALUES(total_cancelado), " +
+                   "pedidos_vendidos = pedidos_vendidos + VALUES(pedidos_vendidos), " +
+                   "total_vendido = total_vendido + VALUES(total_vendido), " +
+                   "descuento_vendido = descuento_vendido + VALUES(descuento_vendido)",
+           nativeQuery = true)
+    void acumular(
+        @Param("fecha") LocalDate fecha,
+        @Param("metodoPago") String metodoPago,
+        @Param("pedidosCreados") int pedidosCreados,
+        @Param("totalCreado") BigDecimal totalCreado,
+        @Param("pedidosCancelados") int pedidosCancelados,
+        @Param("totalCancelado") BigDecimal totalCancelado,
+        @Param("pedidosVendidos") int pedidosVendidos,
+        @Param("totalVendido") BigDecimal totalVendido,
+        @Param("descuentoVendido") BigDecimal descuentoVendido
+    );
+
+    // Ventas (entregadas y pagadas) de los días [desde, hasta]
+    @Query("SELECT new com.web.capas.domain.dto.ResumenVentasProyeccion(SUM(r.totalVendido), SUM(r.pedidosVendidos)) " +
+           "FROM ResumenVentaDiaria r " +
+           "WHERE r.fecha >= :desde AND r.fecha <= :hasta")
+    ResumenVentasProyeccion resumirVentasEnRango(
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
+    );
+
+    @Query("SELECT new com.web.capas.domain.dto.VentaDiariaProyeccion(r.fecha, SUM(r.totalVendido)) " +
+           "FROM ResumenVentaDiaria r " +
+           "WHERE r.fecha >= :desde AND r.fecha <= :hasta " +
+           "GROUP BY r.fecha " +
+           "HAVING SUM(r.pedidosVendidos) > 0 " +
+           "ORDER BY r.fecha")
+    List<VentaDiariaProyeccion> sumarVentasPorDiaEnRango(
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
+    );
+
+    // Pedidos no cancelados de un día, sin importar su estado de pago
+    @Query("SELECT new com.web.capas.domain.dto.ResumenVentasProyeccion(" +
+           "SUM(r.totalCreado - r.totalCancelado), SUM(r.pedidosCreados - r.pedidosCancelados)) " +
+           "FROM ResumenVentaDiaria r " +
+           "WHERE r.fecha = :dia")
+    ResumenVentasProyeccion resumirPedidosNoCanceladosDelDia(@Param("dia") LocalDate dia);
+
+    // Reconciliación: borra los días del rango y los recalcula desde Pedidos
+    @Modifying
+    @Query("DELETE FROM ResumenVentaDiaria r WHERE r.fecha >= :desde AND r.fecha <= :hasta")
+    void eliminarEnRango(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    @Modifying
+    @Query(value = "INSERT INTO Resumen_Ventas_Diario (fecha, metodo_pago, pedidos_creados, total_creado, " +
+                   "pedidos_cancelados, total_cancelado, pedidos_vendidos, total_vendido, descuento_vendido) " +
+                   "SELECT DATE(p.fecha_pedido), p.metodo_pago, COUNT(*), COALESCE(SUM(p.total_pedido), 0), " +
+                   "SUM(CASE WHEN p.estado_pedido = 'cancelado' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN p.estado_pedido = 'cancelado' THEN COALESCE(p.total_pedido, 0) ELSE 0 END), " +
+                   "SUM(CASE WHEN p.estado_pedido = 'entregado' AND p.estado_pago = 'pagado' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN p.estado_pedido = 'entregado' AND p.estado_pago = 'pagado' THEN COALESCE(p.total_pedido, 0) ELSE 0 END), " +
+                   "SUM(CASE WHEN p.estado_pedido = 'entregado' AND p.estado_pago = 'pagado' THEN COALESCE(p.descuento_aplicado, 0) ELSE 0 END) " +
+                   "FROM Pedidos p " +
+                   "WHERE p.fecha_pedido >= :desde AND p.fecha_pedido < :hasta AND p.metodo_pago IS NOT NULL " +
+                   "GROUP BY DATE(p.fecha_pedido), p.metodo_pago",
+           nativeQuery = true)
+    void recalcularEnRango(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+}
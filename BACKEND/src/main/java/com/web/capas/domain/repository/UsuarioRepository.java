@@ -1,8 +1,15 @@
 package com.web.capas.domain.repository;
 
+import com.web.capas.domain.dto.GeneracionTokenProyeccion;
+import com.web.capas.domain.dto.PlayerIdRepartidorProyeccion;
 import com.web.capas.infrastructure.persistence.entities.Usuario;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.Optional;
 
 @Repository
@@ -16,5 +23,22 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Integer> {
     long countByActivoTrue();
     long countByRol(Usuario.Rol rol);
     
-    java.util.List<Usuario> findByRolAndActivoTrueAndPlayerIdIsNotNull(Usuario.Rol rol);
+    // Solo id y Player ID, sin cargar la entidad completa
+    @Query("SELECT new com.web.capas.domain.dto.PlayerIdRepartidorProyeccion(u.idUsuario, u.playerId) " +
+           "FROM Usuario u WHERE u.rol = :rol AND u.activo = true AND u.playerId IS NOT NULL")
+    java.util.List<PlayerIdRepartidorProyeccion> listarPlayerIdsActivosPorRol(@Param("rol") Usuario.Rol rol);
+    
+    // Solo los usuarios con sesiones revocadas alguna vez; el resto está en generación 0
+    @Query("SELECT new com.web.capas.domain.dto.GeneracionTokenProyeccion(u.idUsuario, u.generacionToken) " +
+           "FROM Usuario u WHERE u.generacionToken > 0")
+    java.util.List<GeneracionTokenProyeccion> listarGeneracionesToken();
+    
+    // Reemplaza el hash solo si no cambió desde que se leyó (un cambio de contraseña simultáneo gana)
+    @Modifying
+    @Transactional
+    @Query("UPDATE Usuario u SET u.contrasenaEncriptada = :nuevo WHERE u.idUsuario = :id AND u.contrasenaEncriptada = :anterior")
+    int actualizarContrasenaSiNoCambio(@Param("id") Integer id, @Param("anterior") String anterior, @Param("nuevo") String nuevo);
+    
+    // Paginación por cursor sobre id_usuario (la PK), usando el límite del Pageable
+    java.util.List<Usuario> findByIdUsuarioGreaterThanOrderByIdUsuarioAsc(Integer idUsuario, Pageable pageable);
 }
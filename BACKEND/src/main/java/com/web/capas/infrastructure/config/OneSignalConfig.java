@@ -1,8 +1,14 @@
 package com.web.capas.infrastructure.config;
 
+import com.web.capas.application.proxy.ProteccionProveedores;
+import com.web.capas.config.ResilienciaProperties;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 @Configuration
 public class OneSignalConfig {
     
@@ -12,6 +18,15 @@ public class OneSignalConfig {
     @Value("${onesignal.rest.api.key}")
     private String restApiKey;
     
+    @Value("${onesignal.api.url:https://onesignal.com/api/v1/notifications}")
+    private String apiUrl;
+    
+    @Value("${onesignal.http.max-conexiones:10}")
+    private int maxConexiones;
+    
+    @Value("${onesignal.http.inactividad-segundos:30}")
+    private int inactividadSegundos;
+    
     public String getAppId() {
         return appId;
     }
@@ -19,5 +34,27 @@ public class OneSignalConfig {
     public String getRestApiKey() {
         return restApiKey;
     }
+    
+    public String getApiUrl() {
+        return apiUrl;
+    }
+    
+    // Cliente HTTP compartido: reutiliza las conexiones (keep-alive, HTTP/2 si OneSignal lo acepta)
+    // en lugar de abrir una conexión y un handshake TLS por notificación.
+    // El tamaño del pool y el cierre de conexiones inactivas son propiedades del cliente HTTP del JDK,
+    // se fijan antes de crear el primer cliente y solo si no vienen ya desde la línea de comandos.
+    @Bean
+    public HttpClient clienteHttpOneSignal(ResilienciaProperties resilienciaProperties) {
+        if (System.getProperty("jdk.httpclient.connectionPoolSize") == null) {
+            System.setProperty("jdk.httpclient.connectionPoolSize", String.valueOf(maxConexiones));
+        }
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(inactividadSegundos));
+        }
+        ResilienciaProperties.Proveedor config = resilienciaProperties.getProveedor(ProteccionProveedores.ONESIGNAL);
+        return HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(config.getConnectTimeoutMs()))
+            .build();
+    }
 }
-
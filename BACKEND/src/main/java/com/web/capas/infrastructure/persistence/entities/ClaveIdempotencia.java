@@ -0,0 +1,108 @@
+package com.web.capas.infrastructure.persistence.entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Respuesta guardada para una cabecera Idempotency-Key. Mientras la primera petición se ejecuta la fila
+// queda en_curso; al terminar bien guarda el cuerpo para devolverlo a las repeticiones.
+@Entity
+@Table(name = "Claves_Idempotencia",
+       indexes = @Index(name = "idx_idempotencia_expiracion", columnList = "fecha_expiracion"))
+public class ClaveIdempotencia {
+
+    public enum Estado {
+        en_curso, completado
+    }
+
+    // SHA-256 de operación, usuario y clave, así la misma clave de dos usuarios no choca
+    @Id
+    @Column(name = "id_clave", length = 64)
+    private String idClave;
+
+    @Column(name = "operacion", nullable = false, length = 50)
+    private String operacion;
+
+    // SHA-256 del cuerpo de la petición; una repetición con otro cuerpo se rechaza
+    @Column(name = "huella_peticion", nullable = false, length = 64)
+    private String huellaPeticion;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false)
+    private Estado estado = Estado.en_curso;
+
+    @Column(name = "codigo_http")
+    private Integer codigoHttp;
+
+    @Column(name = "cuerpo_respuesta", columnDefinition = "MEDIUMTEXT")
+    private String cuerpoRespuesta;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_expiracion", nullable = false)
+    private LocalDateTime fechaExpiracion;
+
+    public String getIdClave() {
+        return idClave;
+    }
+
+    public void setIdClave(String idClave) {
+        this.idClave = idClave;
+    }
+
+    public String getOperacion() {
+        return operacion;
+    }
+
+    public void setOperacion(String operacion) {
+        this.operacion = operacion;
+    }
+
+    public String getHuellaPeticion() {
+        return huellaPeticion;
+    }
+
+    public void setHuellaPeticion(String huellaPeticion) {
+        this.huellaPeticion = huellaPeticion;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public void setEstado(Estado estado) {
+        this.estado = estado;
+    }
+
+    public Integer getCodigoHttp() {
+        return codigoHttp;
+    }
+
+    public void setCodigoHttp(Integer codigoHttp) {
+        this.codigoHttp = codigoHttp;
+    }
+
+    public String getCuerpoRespuesta() {
+        return cuerpoRespuesta;
+    }
+
+    public void setCuerpoRespuesta(String cuerpoRespuesta) {
+        this.cuerpoRespuesta = cuerpoRespuesta;
+    }
+
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+
+    public LocalDateTime getFechaExpiracion() {
+        return fechaExpiracion;
+    }
+
+    public void setFechaExpiracion(LocalDateTime fechaExpiracion) {
+        this.fechaExpiracion = fechaExpiracion;
+    }
+}
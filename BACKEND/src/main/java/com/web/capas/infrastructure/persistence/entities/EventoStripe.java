@@ -0,0 +1,144 @@
+package com.web.capas.infrastructure.persistence.entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Evento recibido por el webhook de Stripe. La llave es el id del evento (evt_...), así una entrega
+// repetida de Stripe no se guarda dos veces. Se aplica a Pago y Pedido en segundo plano.
+@Entity
+@Table(name = "Eventos_Stripe",
+       indexes = {
+           @Index(name = "idx_stripe_estado_proximo", columnList = "estado, proximo_intento"),
+           @Index(name = "idx_stripe_payment_intent", columnList = "payment_intent_id")
+       })
+public class EventoStripe {
+
+    public enum Estado {
+        pendiente, procesado, ignorado, fallido
+    }
+
+    @Id
+    @Column(name = "id_evento_stripe", length = 255)
+    private String idEventoStripe;
+
+    @Column(name = "tipo", nullable = false, length = 100)
+    private String tipo;
+
+    @Column(name = "payment_intent_id", length = 255)
+    private String paymentIntentId;
+
+    // Cuerpo del webhook tal como llegó de Stripe
+    @Column(name = "payload", nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false)
+    private Estado estado = Estado.pendiente;
+
+    @Column(name = "intentos", nullable = false)
+    private Integer intentos = 0;
+
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    // Momento en que Stripe generó el evento (campo created)
+    @Column(name = "fecha_evento", nullable = false)
+    private LocalDateTime fechaEvento;
+
+    @Column(name = "fecha_recepcion", nullable = false)
+    private LocalDateTime fechaRecepcion;
+
+    @Column(name = "fecha_proceso")
+    private LocalDateTime fechaProceso;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    public String getIdEventoStripe() {
+        return idEventoStripe;
+    }
+
+    public void setIdEventoStripe(String idEventoStripe) {
+        this.idEventoStripe = idEventoStripe;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    public String getPaymentIntentId() {
+        return paymentIntentId;
+    }
+
+    public void setPaymentIntentId(String paymentIntentId) {
+        this.paymentIntentId = paymentIntentId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public void setEstado(Estado estado) {
+        this.estado = estado;
+    }
+
+    public Integer getIntentos() {
+        return intentos;
+    }
+
+    public void setIntentos(Integer intentos) {
+        this.intentos = intentos;
+    }
+
+    public LocalDateTime getProximoIntento() {
+        return proximoIntento;
+    }
+
+    public void setProximoIntento(LocalDateTime proximoIntento) {
+        this.proximoIntento = proximoIntento;
+    }
+
+    public LocalDateTime getFechaEvento() {
+        return fechaEvento;
+    }
+
+    public void setFechaEvento(LocalDateTime fechaEvento) {
+        this.fechaEvento = fechaEvento;
+    }
+
+    public LocalDateTime getFechaRecepcion() {
+        return fechaRecepcion;
+    }
+
+    public void setFechaRecepcion(LocalDateTime fechaRecepcion) {
+        this.fechaRecepcion = fechaRecepcion;
+    }
+
+    public LocalDateTime getFechaProceso() {
+        return fechaProceso;
+    }
+
+    public void setFechaProceso(LocalDateTime fechaProceso) {
+        this.fechaProceso = fechaProceso;
+    }
+
+    public String getUltimoError() {
+        return ultimoError;
+    }
+
+    public void setUltimoError(String ultimoError) {
+        this.ultimoError = ultimoError;
+    }
+}
@@ -1,6 +1,7 @@
 package com.web.capas.infrastructure.persistence.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 import java.math.BigDecimal;
@@ -8,7 +9,24 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "Pedidos")
+@Table(name = "Pedidos", indexes = {
+    @Index(name = "idx_pedidos_fecha_estado", columnList = "fecha_pedido, estado_pedido, estado_pago"),
+    @Index(name = "idx_pedidos_cliente_fecha", columnList = "id_cliente, fecha_pedido, id_pedido"),
+    @Index(name = "idx_pedidos_repartidor_fecha", columnList = "id_repartidor, fecha_pedido, id_pedido")
+})
+// Plan de carga de los listados: cliente, repartidor y detalle con producto y categoría en una sola consulta
+@NamedEntityGraph(
+    name = "Pedido.listado",
+    attributeNodes = {
+        @NamedAttributeNode("cliente"),
+        @NamedAttributeNode("repartidor"),
+        @NamedAttributeNode(value = "productos", subgraph = "detalle")
+    },
+    subgraphs = {
+        @NamedSubgraph(name = "detalle", attributeNodes = @NamedAttributeNode(value = "producto", subgraph = "producto")),
+        @NamedSubgraph(name = "producto", attributeNodes = @NamedAttributeNode("categoria"))
+    }
+)
 public class Pedido {
 
     public enum EstadoPedido {
@@ -70,6 +88,7 @@ public class Pedido {
     private LocalDateTime fechaEntrega;
 
     @OneToMany(mappedBy = "pedido", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @BatchSize(size = 50)
     private List<com.web.capas.infrastructure.persistence.entities.DetallePedido> productos;
 
     @Column(name = "problema_reportado")
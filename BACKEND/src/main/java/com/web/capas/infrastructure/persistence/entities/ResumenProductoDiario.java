@@ -0,0 +1,70 @@
+package com.web.capas.infrastructure.persistence.entities;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Acumulado diario de unidades entregadas por producto (día = fecha_pedido)
+@Entity
+@Table(name = "Resumen_Productos_Diario",
+       uniqueConstraints = @UniqueConstraint(name = "uk_resumen_productos_fecha_producto", columnNames = {"fecha", "id_producto"}))
+public class ResumenProductoDiario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_resumen")
+    private Integer idResumen;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDate fecha;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_producto", nullable = false)
+    private Producto producto;
+
+    @Column(name = "cantidad_vendida", nullable = false)
+    private Integer cantidadVendida = 0;
+
+    @Column(name = "total_ventas", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalVentas = BigDecimal.ZERO;
+
+    public Integer getIdResumen() {
+        return idResumen;
+    }
+
+    public void setIdResumen(Integer idResumen) {
+        this.idResumen = idResumen;
+    }
+
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDate fecha) {
+        this.fecha = fecha;
+    }
+
+    public Producto getProducto() {
+        return producto;
+    }
+
+    public void setProducto(Producto producto) {
+        this.producto = producto;
+    }
+
+    public Integer getCantidadVendida() {
+        return cantidadVendida;
+    }
+
+    public void setCantidadVendida(Integer cantidadVendida) {
+        this.cantidadVendida = cantidadVendida;
+    }
+
+    public BigDecimal getTotalVentas() {
+        return totalVentas;
+    }
+
+    public void setTotalVentas(BigDecimal totalVentas) {
+        this.totalVentas = totalVentas;
+    }
+}
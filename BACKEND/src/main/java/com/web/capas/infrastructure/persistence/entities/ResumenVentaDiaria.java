@@ -0,0 +1,127 @@
+package com.web.capas.infrastructure.persistence.entities;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Acumulado diario de pedidos por método de pago (día = fecha_pedido)
+@Entity
+@Table(name = "Resumen_Ventas_Diario",
+       uniqueConstraints = @UniqueConstraint(name = "uk_resumen_ventas_fecha_metodo", columnNames = {"fecha", "metodo_pago"}))
+public class ResumenVentaDiaria {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_resumen")
+    private Integer idResumen;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDate fecha;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "metodo_pago", nullable = false)
+    private Pedido.MetodoPago metodoPago;
+
+    // Todos los pedidos creados ese día
+    @Column(name = "pedidos_creados", nullable = false)
+    private Integer pedidosCreados = 0;
+
+    @Column(name = "total_creado", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalCreado = BigDecimal.ZERO;
+
+    @Column(name = "pedidos_cancelados", nullable = false)
+    private Integer pedidosCancelados = 0;
+
+    @Column(name = "total_cancelado", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalCancelado = BigDecimal.ZERO;
+
+    // Pedidos entregados y pagados (los que cuentan como venta en los reportes)
+    @Column(name = "pedidos_vendidos", nullable = false)
+    private Integer pedidosVendidos = 0;
+
+    @Column(name = "total_vendido", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalVendido = BigDecimal.ZERO;
+
+    @Column(name = "descuento_vendido", nullable = false, precision = 12, scale = 2)
+    private BigDecimal descuentoVendido = BigDecimal.ZERO;
+
+    public Integer getIdResumen() {
+        return idResumen;
+    }
+
+    public void setIdResumen(Integer idResumen) {
+        this.idResumen = idResumen;
+    }
+
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDate fecha) {
+        this.fecha = fecha;
+    }
+
+    public Pedido.MetodoPago getMetodoPago() {
+        return metodoPago;
+    }
+
+    public void setMetodoPago(Pedido.MetodoPago metodoPago) {
+        this.metodoPago = metodoPago;
+    }
+
+    public Integer getPedidosCreados() {
+        return pedidosCreados;
+    }
+
+    public void setPedidosCreados(Integer pedidosCreados) {
+        this.pedidosCreados = pedidosCreados;
+    }
+
+    public BigDecimal getTotalCreado() {
+        return totalCreado;
+    }
+
+    public void setTotalCreado(BigDecimal totalCreado) {
+        this.totalCreado = totalCreado;
+    }
+
+    public Integer getPedidosCancelados() {
+        return pedidosCancelados;
+    }
+
+    public void setPedidosCancelados(Integer pedidosCancelados) {
+        this.pedidosCancelados = pedidosCancelados;
+    }
+
+    public BigDecimal getTotalCancelado() {
+        return totalCancelado;
+    }
+
+    public void setTotalCancelado(BigDecimal totalCancelado) {
+        this.totalCancelado = totalCancelado;
+    }
+
+    public Integer getPedidosVendidos() {
+        return pedidosVendidos;
+    }
+
+    public void setPedidosVendidos(Integer pedidosVendidos) {
+        this.pedidosVendidos = pedidosVendidos;
+    }
+
+    public BigDecimal getTotalVendido() {
+        return totalVendido;
+    }
+
+    public void setTotalVendido(BigDecimal totalVendido) {
+        this.totalVendido = totalVendido;
+    }
+
+    public BigDecimal getDescuentoVendido() {
+        return descuentoVendido;
+    }
+
+    public void setDescuentoVendido(BigDecimal descuentoVendido) {
+        this.descuentoVendido = descuentoVendido;
+    }
+}
@@ -50,6 +50,10 @@ public class Usuario {
     @Column(name = "player_id", length = 255)
     private String playerId;
 
+    // Sube al revocar las sesiones del usuario; los tokens con una generación menor dejan de valer
+    @Column(name = "generacion_token", nullable = false)
+    private Integer generacionToken = 0;
+
     public Integer getIdUsuario() {
         return idUsuario;
     }
@@ -145,4 +149,12 @@ public class Usuario {
     public void setPlayerId(String playerId) {
         this.playerId = playerId;
     }
+
+    public Integer getGeneracionToken() {
+        return generacionToken;
+    }
+
+    public void setGeneracionToken(Integer generacionToken) {
+        this.generacionToken = generacionToken;
+    }
 }
@@ -0,0 +1,100 @@
+package com.web.capas.infrastructure.persistence.repositories;
+
+import com.web.capas.infrastructure.persistence.entities.DetallePedido;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+
+// Escrituras en lote de la creación de pedidos. Detalle_Pedido usa id IDENTITY, con lo que Hibernate
+// inserta fila por fila; con JDBC en lote (y rewriteBatchedStatements en el driver de MySQL)
+// todas las líneas viajan en un solo envío. Usa la misma conexión de la transacción JPA en curso.
+@Repository
+public class JdbcPedidoLoteRepository {
+
+    private static final String INSERTAR_DETALLE =
+        "INSERT INTO Detalle_Pedido (id_pedido, id_producto, cantidad, precio_unitario, subtotal, " +
+        "notas_personalizacion, opciones_seleccionadas, precio_opciones) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcPedidoLoteRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insertarDetalles(Integer idPedido, List<DetallePedido> detalles) {
+        if (detalles.isEmpty()) {
+            return;
+        }
+        List<Object[]> filas = new ArrayList<>(detalles.size());
+        for (DetallePedido detalle : detalles) {
+            filas.add(new Object[] {
+                idPedido,
+                detalle.getProducto().getIdProducto(),
+                detalle.getCantidad(),
+                detalle.getPrecioUnitario(),
+                detalle.getSubtotal(),
+                detalle.getNotasPersonalizacion(),
+                detalle.getOpcionesSeleccionadas(),
+                detalle.getPrecioOpciones() != null ? detalle.getPrecioOpciones() : BigDecimal.ZERO
+            });
+        }
+        int[] tipos = {Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.DECIMAL, Types.DECIMAL,
+                       Types.LONGVARCHAR, Types.LONGVARCHAR, Types.DECIMAL};
+        jdbcTemplate.batchUpdate(INSERTAR_DETALLE, filas, tipos);
+    }
+
+    // Descuento condicional de stock en dos viajes a la base sin importar cuántos productos tenga el pedido:
+    // un SELECT ... FOR UPDATE que bloquea las filas en orden de id y lee el stock, y un solo UPDATE con CASE.
+    // El conteo de filas afectadas del UPDATE tiene que coincidir con la cantidad de productos.
+    // Devuelve el id del primer producto que no alcanzó (o no existe), sin haber descontado nada;
+    // si el UPDATE no afectó todas las filas la transacción debe revertirse igual.
+    public Optional<Integer> descontarStock(SortedMap<Integer, Integer> cantidadesPorProducto) {
+        if (cantidadesPorProducto.isEmpty()) {
+            return Optional.empty();
+        }
+        String marcadores = String.join(", ", Collections.nCopies(cantidadesPorProducto.size(), "?"));
+        Object[] ids = cantidadesPorProducto.keySet().toArray();
+
+        Map<Integer, Integer> stockActual = new HashMap<>();
+        jdbcTemplate.query("SELECT id_producto, stock FROM Productos WHERE id_producto IN (" + marcadores + ") " +
+                           "ORDER BY id_producto FOR UPDATE",
+            fila -> {
+                stockActual.put(fila.getInt("id_producto"), fila.getInt("stock"));
+            }, ids);
+        for (Map.Entry<Integer, Integer> item : cantidadesPorProducto.entrySet()) {
+            Integer stock = stockActual.get(item.getKey());
+            if (stock == null || stock < item.getValue()) {
+                return Optional.of(item.getKey());
+            }
+        }
+
+        StringBuilder caso = new StringBuilder("CASE id_producto");
+        List<Object> parametrosCaso = new ArrayList<>(cantidadesPorProducto.size() * 2);
+        for (Map.Entry<Integer, Integer> item : cantidadesPorProducto.entrySet()) {
+            caso.append(" WHEN ? THEN ?");
+            parametrosCaso.add(item.getKey());
+            parametrosCaso.add(item.getValue());
+        }
+        caso.append(" END");
+        List<Object> parametros = new ArrayList<>(parametrosCaso);
+        parametros.addAll(Arrays.asList(ids));
+        parametros.addAll(parametrosCaso);
+        int filas = jdbcTemplate.update("UPDATE Productos SET stock = stock - " + caso +
+                                        " WHERE id_producto IN (" + marcadores + ") AND stock >= " + caso,
+            parametros.toArray());
+        if (filas != cantidadesPorProducto.size()) {
+            return Optional.of(cantidadesPorProducto.firstKey());
+        }
+        return Optional.empty();
+    }
+}
@@ -5,7 +5,7 @@ import com.web.capas.domain.CredencialesInvalidasException;
 import com.web.capas.domain.ServiceException;
 import com.web.capas.infrastructure.persistence.entities.Usuario;
 import com.web.capas.application.service.UsuarioService;
-import com.web.capas.application.service.JwtService;
+import com.web.capas.application.service.SesionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -22,7 +22,7 @@ public class AuthController {
     private UsuarioService usuarioService;
     
     @Autowired
-    private JwtService jwtService;
+    private SesionService sesionService;
 
     @PostMapping("/registro")
     public ResponseEntity<AuthResponse> registrarUsuario(@RequestBody UsuarioRequest request) {
@@ -65,19 +65,7 @@ public class AuthController {
         nuevoUsuario.setActivo(true);
 
         Usuario usuarioRegistrado = usuarioService.registrarUsuario(nuevoUsuario);
-        String token = jwtService.generateToken(usuarioRegistrado);
-
-        AuthResponse.AuthData authData = new AuthResponse.AuthData(
-            token,
-            usuarioRegistrado.getIdUsuario(),
-            usuarioRegistrado.getNombre(),
-            usuarioRegistrado.getApellido(),
-            usuarioRegistrado.getEmail(),
-            usuarioRegistrado.getUsername(),
-            usuarioRegistrado.getTelefono(),
-            usuarioRegistrado.getDireccion(),
-            usuarioRegistrado.getRol().toString()
-        );
+        AuthResponse.AuthData authData = sesionService.iniciarSesion(usuarioRegistrado);
 
         return ResponseEntity.status(HttpStatus.CREATED).body(
             new AuthResponse(true, "Usuario registrado exitosamente", authData)
@@ -100,25 +88,30 @@ public class AuthController {
             throw new CredencialesInvalidasException("Credenciales inválidas");
         }
 
-        String token = jwtService.generateToken(usuario);
+        AuthResponse.AuthData authData = sesionService.iniciarSesion(usuario);
 
-        AuthResponse.AuthData authData = new AuthResponse.AuthData(
-            token,
-            usuario.getIdUsuario(),
-            usuario.getNombre(),
-            usuario.getApellido(),
-            usuario.getEmail(),
-            usuario.getUsername(),
-            usuario.getTelefono(),
-            usuario.getDireccion(),
-            usuario.getRol().toString()
+        return ResponseEntity.ok(
+            new AuthResponse(true, "Login exitoso", authData)
         );
+    }
 
+    // Cambia el token de refresco por un par nuevo; el anterior deja de servir
+    @PostMapping("/refrescar")
+    public ResponseEntity<AuthResponse> refrescar(@RequestBody Map<String, String> request) {
+        AuthResponse.AuthData authData = sesionService.refrescar(request.get("tokenRefresco"));
         return ResponseEntity.ok(
-            new AuthResponse(true, "Login exitoso", authData)
+            new AuthResponse(true, "Sesión renovada", authData)
         );
     }
 
+    @PostMapping("/cerrar-sesion")
+    public ResponseEntity<Void> cerrarSesion(@RequestBody(required = false) Map<String, String> request) {
+        if (request != null) {
+            sesionService.cerrarSesion(request.get("tokenRefresco"));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/verificar-email")
     public ResponseEntity<Boolean> verificarEmail(@RequestParam String email) {
         boolean existe = usuarioService.existeEmail(email);
@@ -234,9 +227,14 @@ public class AuthController {
             throw new CredencialesInvalidasException("La contraseña actual es incorrecta");
         }
         
+        // El cambio revoca todas las sesiones; este dispositivo sigue con tokens nuevos
+        AuthResponse.AuthData sesion = sesionService.iniciarSesion(usuarioService.obtenerUsuarioPorId(idUsuario));
+        
         Map<String, Object> respuesta = new HashMap<>();
         respuesta.put("success", true);
         respuesta.put("mensaje", "Contraseña actualizada correctamente");
+        respuesta.put("token", sesion.getToken());
+        respuesta.put("tokenRefresco", sesion.getTokenRefresco());
         
         return ResponseEntity.ok(respuesta);
     }
@@ -0,0 +1,39 @@
+package com.web.capas.infrastructure.web;
+
+import com.web.capas.application.metricas.ExportadorPrometheus;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+// Endpoint para que Prometheus lea las métricas. No usa JWT (los tokens vencen): se protege con un
+// token fijo en la cabecera X-Metricas-Token. Sin app.metricas.token configurado, el endpoint no existe.
+@RestController
+public class MetricasController {
+
+    private static final MediaType FORMATO_PROMETHEUS = MediaType.parseMediaType("text/plain; version=0.0.4; charset=utf-8");
+
+    @Autowired
+    private ExportadorPrometheus exportadorPrometheus;
+
+    @Value("${app.metricas.token:}")
+    private String token;
+
+    @GetMapping("/metricas")
+    public ResponseEntity<String> exportar(@RequestHeader(value = "X-Metricas-Token", required = false) String tokenRecibido) {
+        if (token == null || token.isBlank()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        if (tokenRecibido == null || !MessageDigest.isEqual(
+                token.getBytes(StandardCharsets.UTF_8), tokenRecibido.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok().contentType(FORMATO_PROMETHEUS).body(exportadorPrometheus.exportar());
+    }
+}
@@ -1,6 +1,9 @@
 package com.web.capas.infrastructure.web;
 
+import com.web.capas.application.factory.NotificacionFactory;
 import com.web.capas.application.factory.NotificacionType;
+import com.web.capas.application.proxy.EjecutorReintentos;
+import com.web.capas.application.service.PedidoService;
 import com.web.capas.application.service.WhatsAppService;
 import com.web.capas.application.service.notificacion.NotificacionOrchestrator;
 import com.web.capas.domain.RecursoNoEncontradoExcepcion;
@@ -9,11 +12,12 @@ import com.web.capas.domain.dto.MensajePersonalizadoRequest;
 import com.web.capas.domain.dto.NotificacionCancelacionRequest;
 import com.web.capas.domain.repository.PedidoRepository;
 import com.web.capas.infrastructure.persistence.entities.Pedido;
-import com.web.capas.infrastructure.persistence.entities.MetodoPagoInhabilitado;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -34,10 +38,18 @@ public class NotificacionController {
     private NotificacionOrchestrator notificacionOrchestrator;
     
     @Autowired
-    private com.web.capas.application.service.MetodoPagoInhabilitadoService metodoPagoInhabilitadoService;
+    private PedidoService pedidoService;
     
+    @Autowired
+    private EjecutorReintentos ejecutorReintentos;
+    
+    @Autowired
+    private NotificacionFactory notificacionFactory;
+    
+    // Los envíos con reintentos se resuelven de forma asíncrona: el hilo de la petición se libera
+    // y la respuesta se escribe cuando termina el envío
     @PutMapping("/pedido/{id}/en-camino")
-    public ResponseEntity<?> notificarPedidoEnCamino(@PathVariable Integer id) {
+    public CompletableFuture<ResponseEntity<?>> notificarPedidoEnCamino(@PathVariable Integer id) {
         Pedido pedido = pedidoRepository.findById(id)
             .orElseThrow(() -> new RecursoNoEncontradoExcepcion("Pedido no encontrado"));
 
@@ -48,27 +60,18 @@ public class NotificacionController {
         String telefono = pedido.getCliente().getTelefono();
         String nombreCliente = pedido.getCliente().getNombre();
         String direccion = pedido.getDireccionEntrega();
+        Pedido.EstadoPedido estadoLeido = pedido.getEstadoPedido();
 
-        boolean enviado = false;
-        if (telefono != null && !telefono.trim().isEmpty()) {
-            enviado = whatsAppService.notificarPedidoEnCamino(telefono, id, nombreCliente, direccion);
-            
-            if (enviado) {
-                pedido.setEstadoPedido(Pedido.EstadoPedido.en_camino);
-                pedidoRepository.save(pedido);
-            }
+        if (telefono == null || telefono.trim().isEmpty()) {
+            return CompletableFuture.completedFuture(armarRespuesta(false, telefono));
         }
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", enviado);
-        response.put("mensaje", enviado ? "Notificación enviada exitosamente" : "No se pudo enviar la notificación");
-        response.put("telefono", telefono);
-
-        return ResponseEntity.ok(response);
+        return whatsAppService.notificarPedidoEnCaminoAsync(telefono, id, nombreCliente, direccion)
+            .thenApply(enviado -> armarRespuesta(enviado, telefono,
+                enviado && pedidoService.aplicarEstadoNotificado(id, estadoLeido, Pedido.EstadoPedido.en_camino)));
     }
 
     @PutMapping("/pedido/{id}/entregado")
-    public ResponseEntity<?> notificarPedidoEntregado(@PathVariable Integer id) {
+    public CompletableFuture<ResponseEntity<?>> notificarPedidoEntregado(@PathVariable Integer id) {
         Pedido pedido = pedidoRepository.findById(id)
             .orElseThrow(() -> new RecursoNoEncontradoExcepcion("Pedido no encontrado"));
 
@@ -79,32 +82,23 @@ public class NotificacionController {
         String telefono = pedido.getCliente().getTelefono();
         String nombreCliente = pedido.getCliente().getNombre();
 
-        boolean enviado = false;
-        if (telefono != null && !telefono.trim().isEmpty()) {
-            enviado = whatsAppService.notificarPedidoEntregado(telefono, id, nombreCliente);
-            
-            if (enviado) {
-                pedido.setEstadoPedido(Pedido.EstadoPedido.entregado);
-                pedidoRepository.save(pedido);
-            }
+        if (telefono == null || telefono.trim().isEmpty()) {
+            return CompletableFuture.completedFuture(armarRespuesta(false, telefono));
         }
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", enviado);
-        response.put("mensaje", enviado ? "Notificación enviada exitosamente" : "No se pudo enviar la notificación");
-        response.put("telefono", telefono);
-
-        return ResponseEntity.ok(response);
+        return whatsAppService.notificarPedidoEntregadoAsync(telefono, id, nombreCliente)
+            .thenApply(enviado -> armarRespuesta(enviado, telefono,
+                enviado && pedidoService.aplicarEstadoNotificado(id, Pedido.EstadoPedido.en_camino, Pedido.EstadoPedido.entregado)));
     }
 
     @PutMapping("/pedido/{id}/cancelado")
-    public ResponseEntity<?> notificarPedidoCancelado(
+    public CompletableFuture<ResponseEntity<?>> notificarPedidoCancelado(
             @PathVariable Integer id, 
             @RequestBody NotificacionCancelacionRequest request) {
         
         Pedido pedido = pedidoRepository.findById(id)
             .orElseThrow(() -> new RecursoNoEncontradoExcepcion("Pedido no encontrado"));
 
+        Pedido.EstadoPedido estadoLeido = pedido.getEstadoPedido();
         String motivo = request.getMotivo();
         if (motivo == null || motivo.trim().isEmpty()) {
             motivo = "Cancelación por parte del restaurante";
@@ -113,48 +107,16 @@ public class NotificacionController {
         String telefono = pedido.getCliente().getTelefono();
         String nombreCliente = pedido.getCliente().getNombre();
 
-        boolean enviado = false;
-        if (telefono != null && !telefono.trim().isEmpty()) {
-            enviado = whatsAppService.notificarPedidoCancelado(telefono, id, nombreCliente, motivo);
-            
-            if (enviado) {
-                pedido.setEstadoPedido(Pedido.EstadoPedido.cancelado);
-                pedidoRepository.save(pedido);
-                
-                long cancelaciones = pedidoRepository.countByCliente_IdUsuarioAndMetodoPagoAndEstadoPedido(
-                    pedido.getCliente().getIdUsuario(),
-                    pedido.getMetodoPago(),
-                    Pedido.EstadoPedido.cancelado
-                );
-                
-                if (cancelaciones >= 3) {
-                    try {
-                        MetodoPagoInhabilitado.MetodoPago metodoPagoEnum = MetodoPagoInhabilitado.MetodoPago.valueOf(
-                            pedido.getMetodoPago().toString()
-                        );
-                        String razon = "Cancelación automática: El cliente ha cancelado 3 o más pedidos con este método de pago";
-                        metodoPagoInhabilitadoService.inhabilitarMetodoPago(
-                            pedido.getCliente(),
-                            metodoPagoEnum,
-                            razon
-                        );
-                    } catch (Exception e) {
-                        System.err.println("Error al inhabilitar método de pago: " + e.getMessage());
-                    }
-                }
-            }
+        if (telefono == null || telefono.trim().isEmpty()) {
+            return CompletableFuture.completedFuture(armarRespuesta(false, telefono));
         }
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", enviado);
-        response.put("mensaje", enviado ? "Notificación enviada exitosamente" : "No se pudo enviar la notificación");
-        response.put("telefono", telefono);
-
-        return ResponseEntity.ok(response);
+        return whatsAppService.notificarPedidoCanceladoAsync(telefono, id, nombreCliente, motivo)
+            .thenApply(enviado -> armarRespuesta(enviado, telefono,
+                enviado && pedidoService.aplicarEstadoNotificado(id, estadoLeido, Pedido.EstadoPedido.cancelado)));
     }
 
     @PostMapping("/mensaje-personalizado")
-    public ResponseEntity<?> enviarMensajePersonalizado(@RequestBody MensajePersonalizadoRequest request) {
+    public CompletableFuture<ResponseEntity<?>> enviarMensajePersonalizado(@RequestBody MensajePersonalizadoRequest request) {
         String telefono = request.getTelefono();
         String mensaje = request.getMensaje();
 
@@ -166,13 +128,39 @@ public class NotificacionController {
             throw new ServiceException("El mensaje es obligatorio");
         }
 
-        boolean enviado = whatsAppService.enviarMensaje(telefono, mensaje);
+        return whatsAppService.enviarMensajeAsync(telefono, mensaje)
+            .thenApply(enviado -> {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", enviado);
+                response.put("mensaje", enviado ? "Mensaje enviado exitosamente" : "No se pudo enviar el mensaje");
+                response.put("telefono", telefono);
+                return ResponseEntity.ok(response);
+            });
+    }
+
+    // Estado de la cola de reintentos de WhatsApp (pendientes, en curso, rechazados...)
+    @GetMapping("/whatsapp/cola")
+    public ResponseEntity<Map<String, Object>> obtenerEstadoColaWhatsApp() {
+        return ResponseEntity.ok(ejecutorReintentos.obtenerEstado());
+    }
+
+    // Envíos, fallos y latencias acumuladas por tipo de notificación desde el arranque
+    @GetMapping("/metricas")
+    public ResponseEntity<Map<String, Object>> obtenerMetricas() {
+        return ResponseEntity.ok(notificacionFactory.obtenerResumenMetricas());
+    }
 
+    private ResponseEntity<?> armarRespuesta(boolean enviado, String telefono) {
+        return armarRespuesta(enviado, telefono, false);
+    }
+
+    // estadoActualizado en false con success en true: el pedido cambió de estado mientras se enviaba el aviso
+    private ResponseEntity<?> armarRespuesta(boolean enviado, String telefono, boolean estadoActualizado) {
         Map<String, Object> response = new HashMap<>();
         response.put("success", enviado);
-        response.put("mensaje", enviado ? "Mensaje enviado exitosamente" : "No se pudo enviar el mensaje");
+        response.put("mensaje", enviado ? "Notificación enviada exitosamente" : "No se pudo enviar la notificación");
         response.put("telefono", telefono);
-
+        response.put("estadoActualizado", estadoActualizado);
         return ResponseEntity.ok(response);
     }
 
@@ -4,6 +4,7 @@ import com.web.capas.domain.dto.PagoResponse;
 import com.web.capas.domain.dto.PaymentRequest;
 import com.web.capas.domain.dto.PaymentResponse;
 import com.web.capas.application.service.PagoService;
+import com.web.capas.application.service.RegistroIdempotencia;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,10 +16,16 @@ public class PagoController {
     @Autowired
     private PagoService pagoService;
 
+    @Autowired
+    private RegistroIdempotencia registroIdempotencia;
+
+    // Con Idempotency-Key, un reintento devuelve el mismo PaymentIntent en lugar de crear otro en Stripe
     @PostMapping("/crear-intent")
-    public ResponseEntity<PaymentResponse> crearPaymentIntent(@RequestBody PaymentRequest request) {
-        PaymentResponse response = pagoService.crearPaymentIntent(request);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<PaymentResponse> crearPaymentIntent(
+            @RequestBody PaymentRequest request,
+            @RequestHeader(value = RegistroIdempotencia.CABECERA, required = false) String claveIdempotencia) {
+        return registroIdempotencia.ejecutar("crear_payment_intent", claveIdempotencia, request, PaymentResponse.class,
+            () -> ResponseEntity.ok(pagoService.crearPaymentIntent(request)));
     }
 
     @PostMapping("/confirmar/{paymentIntentId}")
@@ -3,7 +3,9 @@ package com.web.capas.infrastructure.web;
 import com.web.capas.domain.dto.PedidoRequest;
 import com.web.capas.domain.dto.PedidoResponse;
 import com.web.capas.domain.dto.PedidoListaResponse;
+import com.web.capas.domain.dto.PaginaResponse;
 import com.web.capas.application.service.PedidoService;
+import com.web.capas.application.service.RegistroIdempotencia;
 import com.web.capas.domain.ServiceException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -21,10 +23,16 @@ public class PedidoController {
     @Autowired
     private PedidoService pedidoService;
 
+    @Autowired
+    private RegistroIdempotencia registroIdempotencia;
+
+    // Con Idempotency-Key, un reintento del cliente devuelve el pedido ya creado en lugar de crear otro
     @PostMapping
-    public ResponseEntity<PedidoResponse> crearPedido(@RequestBody PedidoRequest request) {
-        PedidoResponse pedido = pedidoService.crearPedido(request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(pedido);
+    public ResponseEntity<PedidoResponse> crearPedido(
+            @RequestBody PedidoRequest request,
+            @RequestHeader(value = RegistroIdempotencia.CABECERA, required = false) String claveIdempotencia) {
+        return registroIdempotencia.ejecutar("crear_pedido", claveIdempotencia, request, PedidoResponse.class,
+            () -> ResponseEntity.status(HttpStatus.CREATED).body(pedidoService.crearPedido(request)));
     }
 
     @GetMapping("/usuario/{idUsuario}")
@@ -33,6 +41,14 @@ public class PedidoController {
         return ResponseEntity.ok(pedidos);
     }
 
+    @GetMapping("/usuario/{idUsuario}/paginado")
+    public ResponseEntity<PaginaResponse<PedidoListaResponse>> obtenerPedidosDelUsuarioPaginados(
+            @PathVariable Integer idUsuario,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano) {
+        return ResponseEntity.ok(pedidoService.obtenerPedidosDelUsuarioPaginados(idUsuario, cursor, tamano));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<PedidoResponse> obtenerPedidoPorId(@PathVariable Integer id) {
         PedidoResponse pedido = pedidoService.obtenerPedidoPorIdComoDTO(id);
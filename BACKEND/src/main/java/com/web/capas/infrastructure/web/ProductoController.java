@@ -1,12 +1,17 @@
 package com.web.capas.infrastructure.web;
 
+import com.web.capas.domain.dto.CatalogoMenu;
 import com.web.capas.domain.dto.ProductoRequest;
 import com.web.capas.domain.dto.ProductoResponse;
+import com.web.capas.domain.dto.SugerenciaResponse;
 import com.web.capas.infrastructure.persistence.entities.OpcionPersonalizacion;
 import com.web.capas.application.service.ProductoService;
 import com.web.capas.infrastructure.persistence.repositories.OpcionPersonalizacionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,6 +23,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -31,10 +39,57 @@ public class ProductoController {
     @Autowired
     private OpcionPersonalizacionRepository opcionPersonalizacionRepository;
 
+    // Escribe el JSON ya serializado del menú (gzip si el cliente lo acepta); si el cliente
+    // ya tiene la versión actual (If-None-Match) se responde 304 sin cuerpo
     @GetMapping("/productos")
-    public ResponseEntity<List<ProductoResponse>> obtenerMenu() {
-        List<ProductoResponse> productos = productoService.obtenerMenuDisponible();
-        return ResponseEntity.ok(productos);
+    public void obtenerMenu(
+            @RequestParam(required = false) Integer idCategoria,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        CatalogoMenu catalogo = productoService.obtenerCatalogoMenu();
+        CatalogoMenu.CuerpoSerializado cuerpo = idCategoria != null
+            ? catalogo.obtenerCuerpoPorCategoria(idCategoria)
+            : catalogo.getCuerpo();
+        boolean usarGzip = cuerpo.getGzip() != null && aceptaGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+
+        response.setHeader(HttpHeaders.ETAG, catalogo.getEtag(usarGzip));
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (catalogo.coincideEtag(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        byte[] bytes = usarGzip ? cuerpo.getGzip() : cuerpo.getJson();
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (usarGzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+    }
+
+    private boolean aceptaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String codificacion : acceptEncoding.split(",")) {
+            String[] partes = codificacion.trim().split(";");
+            if (!partes[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            // "gzip;q=0" significa que el cliente lo rechaza
+            for (int i = 1; i < partes.length; i++) {
+                String parametro = partes[i].trim().replace(" ", "");
+                if (parametro.matches("q=0(\\.0*)?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
     }
 
     @GetMapping("/productos/buscar")
@@ -43,6 +98,13 @@ public class ProductoController {
         return ResponseEntity.ok(productosEncontrados);
     }
 
+    @GetMapping("/sugerencias")
+    public ResponseEntity<List<SugerenciaResponse>> obtenerSugerencias(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limite) {
+        return ResponseEntity.ok(productoService.obtenerSugerencias(q, limite));
+    }
+
     @GetMapping("/productos/{id}")
     public ResponseEntity<ProductoResponse> obtenerProducto(@PathVariable Integer id) {
         ProductoResponse producto = productoService.obtenerProductoPorId(id);
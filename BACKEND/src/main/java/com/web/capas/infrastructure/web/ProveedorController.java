@@ -0,0 +1,32 @@
+package com.web.capas.infrastructure.web;
+
+import com.web.capas.application.proxy.ProteccionProveedores;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/proveedores")
+public class ProveedorController {
+
+    @Autowired
+    private ProteccionProveedores proteccionProveedores;
+
+    // Estado del circuito y cupos de cada proveedor externo (stripe, twilio, onesignal, smtp)
+    @GetMapping("/estado")
+    public ResponseEntity<Map<String, Object>> obtenerEstado() {
+        return ResponseEntity.ok(proteccionProveedores.obtenerEstado());
+    }
+
+    // Cierra el circuito a mano, por ejemplo cuando el proveedor confirma que ya se recuperó
+    @PostMapping("/{proveedor}/reiniciar")
+    public ResponseEntity<Map<String, Object>> reiniciar(@PathVariable String proveedor) {
+        proteccionProveedores.reiniciar(proveedor);
+        return ResponseEntity.ok(proteccionProveedores.obtenerEstado());
+    }
+}
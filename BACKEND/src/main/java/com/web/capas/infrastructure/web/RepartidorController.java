@@ -3,6 +3,7 @@ package com.web.capas.infrastructure.web;
 import com.web.capas.application.service.PedidoService;
 import com.web.capas.domain.ServiceException;
 import com.web.capas.domain.dto.ActualizarEstadoPedidoRequest;
+import com.web.capas.domain.dto.PaginaResponse;
 import com.web.capas.domain.dto.PedidoListaResponse;
 import com.web.capas.domain.dto.PedidoResponse;
 import java.util.List;
@@ -37,6 +38,14 @@ public class RepartidorController {
         return ResponseEntity.ok(pedidos);
     }
 
+    @GetMapping("/pedidos/mios/{idRepartidor}/paginado")
+    public ResponseEntity<PaginaResponse<PedidoListaResponse>> obtenerMisPedidosPaginados(
+            @PathVariable Integer idRepartidor,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano) {
+        return ResponseEntity.ok(pedidoService.obtenerPedidosDelRepartidorPaginados(idRepartidor, cursor, tamano));
+    }
+
     @PostMapping("/pedidos/{id}/aceptar")
     public ResponseEntity<Map<String, Object>> aceptarPedido(
             @PathVariable Integer id,
@@ -90,6 +99,14 @@ public class RepartidorController {
         return ResponseEntity.ok(historial);
     }
 
+    @GetMapping("/historial/{idRepartidor}/paginado")
+    public ResponseEntity<PaginaResponse<PedidoListaResponse>> obtenerHistorialEntregasPaginado(
+            @PathVariable Integer idRepartidor,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano) {
+        return ResponseEntity.ok(pedidoService.obtenerHistorialEntregasPaginado(idRepartidor, cursor, tamano));
+    }
+
     @GetMapping("/estadisticas/{idRepartidor}")
     public ResponseEntity<Map<String, Object>> obtenerEstadisticas(@PathVariable Integer idRepartidor) {
         Map<String, Object> estadisticas = pedidoService.obtenerEstadisticasRepartidor(idRepartidor);
@@ -2,6 +2,7 @@ package com.web.capas.infrastructure.web;
 
 import com.web.capas.application.service.ConfiguracionSistemaService;
 import com.web.capas.application.service.ReporteService;
+import com.web.capas.application.service.ResumenVentasService;
 import com.web.capas.domain.dto.ReporteResponse;
 import com.web.capas.domain.RecursoNoEncontradoExcepcion;
 import com.web.capas.domain.ServiceException;
@@ -33,6 +34,9 @@ public class ReporteController {
     
     @Autowired
     private ConfiguracionSistemaService configuracionSistemaService;
+    
+    @Autowired
+    private ResumenVentasService resumenVentasService;
 
     @PostMapping("/ventas")
     public ResponseEntity<ReporteResponse> generarReporteVentas(
@@ -70,6 +74,22 @@ public class ReporteController {
         return ResponseEntity.ok(reporteService.generarReporteGanancias(admin, fechaInicio, fechaFin));
     }
 
+    // Recalcula los resúmenes diarios del rango (carga inicial o corrección manual)
+    @PostMapping("/resumen/reconciliar")
+    public ResponseEntity<Map<String, Object>> reconciliarResumenes(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        
+        resumenVentasService.reconciliar(fechaInicio, fechaFin);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("mensaje", "Resúmenes de ventas reconciliados correctamente");
+        response.put("fechaInicio", fechaInicio);
+        response.put("fechaFin", fechaFin);
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping
     public ResponseEntity<List<Reporte>> obtenerTodosLosReportes() {
         return ResponseEntity.ok(reporteService.obtenerTodosLosReportes());
@@ -1,14 +1,14 @@
 package com.web.capas.infrastructure.web;
 
+import com.web.capas.application.service.ResumenVentasService;
 import com.web.capas.application.service.UsuarioService;
 import com.web.capas.domain.ServiceException;
 import com.web.capas.domain.dto.CambioRolRequest;
+import com.web.capas.domain.dto.PaginaResponse;
+import com.web.capas.domain.dto.ResumenVentasProyeccion;
 import com.web.capas.domain.dto.UsuarioResponse;
-import com.web.capas.domain.repository.PedidoRepository;
-import com.web.capas.infrastructure.persistence.entities.Pedido;
 import com.web.capas.infrastructure.persistence.entities.Usuario;
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,7 +30,7 @@ public class UsuarioController {
     private UsuarioService usuarioService;
     
     @Autowired
-    private PedidoRepository pedidoRepository;
+    private ResumenVentasService resumenVentasService;
 
     @GetMapping
     public ResponseEntity<List<UsuarioResponse>> obtenerTodosLosUsuarios() {
@@ -38,6 +38,13 @@ public class UsuarioController {
         return ResponseEntity.ok(usuarios);
     }
 
+    @GetMapping("/paginado")
+    public ResponseEntity<PaginaResponse<UsuarioResponse>> obtenerUsuariosPaginados(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano) {
+        return ResponseEntity.ok(usuarioService.obtenerUsuariosPaginados(cursor, tamano));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<UsuarioResponse> obtenerUsuarioPorId(@PathVariable Integer id) {
         UsuarioResponse usuario = usuarioService.obtenerUsuarioPorIdComoDTO(id);
@@ -115,27 +122,16 @@ public class UsuarioController {
     @GetMapping("/dashboard/estadisticas")
     public ResponseEntity<Map<String, Object>> obtenerEstadisticasDashboard() {
         try {
-            LocalDateTime ahora = LocalDateTime.now();
-            LocalDateTime inicioHoy = ahora.toLocalDate().atStartOfDay();
-            LocalDateTime finHoy = ahora.toLocalDate().atTime(23, 59, 59);
-            
-            List<Pedido> pedidosHoy = pedidoRepository.findByFechaPedidoBetween(inicioHoy, finHoy);
-            
-            List<Pedido> pedidosHoyNoCancelados = pedidosHoy.stream()
-                .filter(p -> p.getEstadoPedido() != Pedido.EstadoPedido.cancelado)
-                .collect(java.util.stream.Collectors.toList());
-            
-            long pedidosHoyCount = pedidosHoyNoCancelados.size();
+            // Pedidos no cancelados de hoy, leídos del resumen diario
+            ResumenVentasProyeccion resumenHoy = resumenVentasService.obtenerPedidosNoCanceladosDelDia(LocalDate.now());
             
-            BigDecimal ventasHoy = pedidosHoyNoCancelados.stream()
-                .map(Pedido::getTotalPedido)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            long pedidosHoyCount = resumenHoy.getCantidadPedidos();
             
             long clientesActivos = usuarioService.contarUsuariosPorRol(Usuario.Rol.cliente);
             
             Map<String, Object> estadisticas = new java.util.HashMap<>();
             estadisticas.put("pedidosHoy", pedidosHoyCount);
-            estadisticas.put("ventasHoy", ventasHoy.doubleValue());
+            estadisticas.put("ventasHoy", resumenHoy.getTotal().doubleValue());
             estadisticas.put("clientesActivos", clientesActivos);
             
             return ResponseEntity.ok(estadisticas);
@@ -0,0 +1,52 @@
+package com.web.capas.infrastructure.web;
+
+import com.web.capas.application.service.WebhookStripeService;
+import com.web.capas.infrastructure.persistence.entities.EventoStripe;
+import java.time.LocalDateTime;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class WebhookStripeController {
+
+    @Autowired
+    private WebhookStripeService webhookStripeService;
+
+    // Lo llama Stripe sin JWT; la autenticación es la firma. Responde 200 también a los eventos repetidos
+    // para que Stripe deje de reenviarlos
+    @PostMapping("/api/v1/pagos/webhook")
+    public ResponseEntity<Map<String, Object>> recibirEvento(
+            @RequestBody String payload,
+            @RequestHeader(value = "Stripe-Signature", required = false) String firma) {
+        if (!webhookStripeService.estaConfigurado()) {
+            return ResponseEntity.notFound().build();
+        }
+        boolean nuevo = webhookStripeService.recibirEvento(payload, firma);
+        return ResponseEntity.ok(Map.of("recibido", true, "duplicado", !nuevo));
+    }
+
+    // Vuelve a aplicar un evento guardado, por ejemplo uno que quedó fallido
+    @PostMapping("/api/admin/pagos/webhooks/{idEvento}/reprocesar")
+    public ResponseEntity<Map<String, Object>> reprocesarEvento(@PathVariable String idEvento) {
+        int marcados = webhookStripeService.reprocesarEvento(idEvento);
+        return ResponseEntity.ok(Map.of("marcados", marcados));
+    }
+
+    // Vuelve a aplicar los eventos recibidos en un rango de fechas; sin estado se toman todos
+    @PostMapping("/api/admin/pagos/webhooks/reprocesar")
+    public ResponseEntity<Map<String, Object>> reprocesar(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) EventoStripe.Estado estado) {
+        int marcados = webhookStripeService.reprocesar(desde, hasta, estado);
+        return ResponseEntity.ok(Map.of("marcados", marcados));
+    }
+}
@@ -0,0 +1,36 @@
+package com.web.capas.application.metricas;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Los tramos siguen la semántica "le" de Prometheus: cada uno cuenta lo que es menor o igual a su límite
+class HistogramaLatenciaTest {
+
+    @Test
+    void unaLatenciaApenasMayorAlLimiteCaeEnElTramoSiguiente() {
+        HistogramaLatencia histograma = new HistogramaLatencia(new long[]{5, 10});
+
+        histograma.registrar(5_000_000);
+        histograma.registrar(5_900_000);
+        histograma.registrar(5_000_001);
+        histograma.registrar(10_000_001);
+
+        // le=5, le=10, +Inf
+        assertThat(histograma.obtenerAcumulados()).containsExactly(1, 3, 4);
+    }
+
+    @Test
+    void losPercentilesUsanElLimiteDelTramo() {
+        HistogramaLatencia histograma = new HistogramaLatencia(new long[]{5, 10});
+        for (int i = 0; i < 99; i++) {
+            histograma.registrar(4_000_000);
+        }
+        histograma.registrar(9_500_000);
+
+        assertThat(histograma.resumen())
+            .containsEntry("p50Ms", 5.0)
+            .containsEntry("p99Ms", 5.0)
+            .containsEntry("maximoMs", 9.5);
+    }
+}
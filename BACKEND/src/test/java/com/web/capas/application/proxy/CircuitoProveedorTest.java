@@ -0,0 +1,206 @@
+package com.web.capas.application.proxy;
+
+import com.sun.net.httpserver.HttpServer;
+import com.web.capas.domain.ProveedorNoDisponibleException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// El circuito contra un proveedor simulado con un servidor HTTP local: se cuenta cuántas peticiones
+// llegan de verdad a la red para comprobar que con el circuito abierto o el cupo lleno no sale ninguna
+class CircuitoProveedorTest {
+
+    private static final int UMBRAL = 3;
+    private static final long ESPERA_ABIERTO_MS = 200;
+
+    private HttpServer servidor;
+    private final HttpClient cliente = HttpClient.newHttpClient();
+    private final AtomicInteger recibidas = new AtomicInteger();
+    private final AtomicInteger codigo = new AtomicInteger(200);
+    private volatile CountDownLatch retener = new CountDownLatch(0);
+    private volatile CountDownLatch enServidor = new CountDownLatch(0);
+
+    @BeforeEach
+    void levantarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.setExecutor(Executors.newCachedThreadPool());
+        servidor.createContext("/", intercambio -> {
+            recibidas.incrementAndGet();
+            // Solo /lenta queda retenida hasta que el test la suelta
+            if (intercambio.getRequestURI().getPath().equals("/lenta")) {
+                enServidor.countDown();
+                try {
+                    retener.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            intercambio.sendResponseHeaders(codigo.get(), -1);
+            intercambio.close();
+        });
+        servidor.start();
+    }
+
+    @AfterEach
+    void detenerServidor() {
+        retener.countDown();
+        servidor.stop(0);
+    }
+
+    @Test
+    void seAbreTrasLosFallosSeguidosYNoTocaLaRed() {
+        CircuitoProveedor circuito = circuito(4);
+        codigo.set(503);
+
+        for (int i = 0; i < UMBRAL; i++) {
+            assertThatThrownBy(() -> llamar(circuito)).isInstanceOf(IOException.class);
+        }
+
+        assertThat(circuito.getEstado()).isEqualTo(CircuitoProveedor.Estado.ABIERTO);
+        assertThatThrownBy(() -> llamar(circuito))
+            .isInstanceOf(ProveedorNoDisponibleException.class)
+            .hasMessageContaining("no está disponible");
+        assertThat(recibidas.get()).isEqualTo(UMBRAL);
+        assertThat(circuito.getRechazadasCircuito()).isEqualTo(1);
+    }
+
+    @Test
+    void semiabiertoDejaPasarUnaSolaPruebaYSeCierraSiResponde() throws Exception {
+        CircuitoProveedor circuito = abrir(circuito(4));
+        Thread.sleep(ESPERA_ABIERTO_MS + 50);
+
+        codigo.set(200);
+        retener = new CountDownLatch(1);
+        enServidor = new CountDownLatch(1);
+        CompletableFuture<Integer> prueba = CompletableFuture.supplyAsync(() -> llamarSinExcepcion(circuito, "/lenta"));
+        assertThat(enServidor.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Mientras la prueba está en curso el resto se rechaza sin salir a la red
+        assertThat(circuito.getEstado()).isEqualTo(CircuitoProveedor.Estado.SEMIABIERTO);
+        assertThatThrownBy(() -> llamar(circuito)).isInstanceOf(ProveedorNoDisponibleException.class);
+        assertThat(recibidas.get()).isEqualTo(UMBRAL + 1);
+
+        retener.countDown();
+        assertThat(prueba.get(5, TimeUnit.SECONDS)).isEqualTo(200);
+        assertThat(circuito.getEstado()).isEqualTo(CircuitoProveedor.Estado.CERRADO);
+        assertThat(llamar(circuito)).isEqualTo(200);
+    }
+
+    @Test
+    void siLaPruebaFallaVuelveAAbrirse() throws Exception {
+        CircuitoProveedor circuito = abrir(circuito(4));
+        Thread.sleep(ESPERA_ABIERTO_MS + 50);
+
+        assertThatThrownBy(() -> llamar(circuito)).isInstanceOf(IOException.class);
+
+        assertThat(circuito.getEstado()).isEqualTo(CircuitoProveedor.Estado.ABIERTO);
+        assertThatThrownBy(() -> llamar(circuito)).isInstanceOf(ProveedorNoDisponibleException.class);
+        assertThat(recibidas.get()).isEqualTo(UMBRAL + 1);
+    }
+
+    // Una respuesta lenta que termina bien después de que el circuito se abrió no debe cerrarlo
+    @Test
+    void unExitoTardioNoCierraElCircuitoAbierto() throws Exception {
+        CircuitoProveedor circuito = circuito(UMBRAL + 1);
+        retener = new CountDownLatch(1);
+        enServidor = new CountDownLatch(1);
+        CompletableFuture<Integer> lenta = CompletableFuture.supplyAsync(() -> llamarSinExcepcion(circuito, "/lenta"));
+        assertThat(enServidor.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Las siguientes fallan al instante y abren el circuito mientras la lenta sigue en curso
+        codigo.set(503);
+        for (int i = 0; i < UMBRAL; i++) {
+            llamarSinExcepcion(circuito);
+        }
+        assertThat(circuito.getEstado()).isEqualTo(CircuitoProveedor.Estado.ABIERTO);
+        codigo.set(200);
+        retener.countDown();
+        assertThat(lenta.get(5, TimeUnit.SECONDS)).isEqualTo(200);
+
+        assertThat(circuito.getEstado()).isEqualTo(CircuitoProveedor.Estado.ABIERTO);
+        assertThatThrownBy(() -> llamar(circuito)).isInstanceOf(ProveedorNoDisponibleException.class);
+    }
+
+    @Test
+    void conElCupoLlenoRechazaSinSalirALaRed() throws Exception {
+        CircuitoProveedor circuito = circuito(2);
+        retener = new CountDownLatch(1);
+        enServidor = new CountDownLatch(2);
+        CompletableFuture<Integer> primera = CompletableFuture.supplyAsync(() -> llamarSinExcepcion(circuito, "/lenta"));
+        CompletableFuture<Integer> segunda = CompletableFuture.supplyAsync(() -> llamarSinExcepcion(circuito, "/lenta"));
+        assertThat(enServidor.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> llamar(circuito))
+            .isInstanceOf(ProveedorNoDisponibleException.class)
+            .hasMessageContaining("saturado");
+        assertThat(circuito.getRechazadasCupo()).isEqualTo(1);
+        assertThat(circuito.getEnCurso()).isEqualTo(2);
+
+        retener.countDown();
+        assertThat(primera.get(5, TimeUnit.SECONDS)).isEqualTo(200);
+        assertThat(segunda.get(5, TimeUnit.SECONDS)).isEqualTo(200);
+        assertThat(recibidas.get()).isEqualTo(2);
+        // El rechazo por cupo no cuenta como fallo del proveedor
+        assertThat(circuito.getEstado()).isEqualTo(CircuitoProveedor.Estado.CERRADO);
+    }
+
+    private CircuitoProveedor circuito(int maxConcurrentes) {
+        return new CircuitoProveedor("stub", UMBRAL, ESPERA_ABIERTO_MS, 50, maxConcurrentes);
+    }
+
+    private CircuitoProveedor abrir(CircuitoProveedor circuito) {
+        codigo.set(503);
+        for (int i = 0; i < UMBRAL; i++) {
+            llamarSinExcepcion(circuito);
+        }
+        assertThat(circuito.getEstado()).isEqualTo(CircuitoProveedor.Estado.ABIERTO);
+        return circuito;
+    }
+
+    // Los 5xx cuentan como fallo del proveedor, igual que en ProteccionProveedores
+    private int llamar(CircuitoProveedor circuito) throws Exception {
+        return llamar(circuito, "/");
+    }
+
+    private int llamar(CircuitoProveedor circuito, String ruta) throws Exception {
+        return circuito.ejecutar(() -> {
+            HttpRequest peticion = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + servidor.getAddress().getPort() + ruta))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+            HttpResponse<Void> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+            if (respuesta.statusCode() >= 500) {
+                throw new IOException("HTTP " + respuesta.statusCode());
+            }
+            return respuesta.statusCode();
+        }, e -> e instanceof IOException);
+    }
+
+    private int llamarSinExcepcion(CircuitoProveedor circuito) {
+        return llamarSinExcepcion(circuito, "/");
+    }
+
+    private int llamarSinExcepcion(CircuitoProveedor circuito, String ruta) {
+        try {
+            return llamar(circuito, ruta);
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
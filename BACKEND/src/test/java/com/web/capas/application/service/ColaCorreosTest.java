@@ -0,0 +1,164 @@
+package com.web.capas.application.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.web.capas.application.proxy.ProteccionProveedores;
+import com.web.capas.config.CorreoProperties;
+import com.web.capas.config.FabricaHilos;
+import com.web.capas.config.ResilienciaProperties;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// La cola de correos contra un servidor SMTP embebido (GreenMail)
+class ColaCorreosTest {
+
+    @RegisterExtension
+    static final GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private ColaCorreos cola;
+
+    @AfterEach
+    void detener() {
+        if (cola != null) {
+            cola.detener();
+        }
+    }
+
+    @Test
+    void entregaTodosLosCorreosEncoladosEnLotes() throws Exception {
+        cola = crearCola(100, 20);
+        cola.iniciar();
+
+        for (int i = 1; i <= 45; i++) {
+            assertThat(cola.encolar("cliente" + i + "@correo.com", "Pedido #" + i, "<p>Tu pedido está listo</p>")).isTrue();
+        }
+
+        assertThat(smtp.waitForIncomingEmail(10_000, 45)).isTrue();
+        MimeMessage[] recibidos = smtp.getReceivedMessages();
+        assertThat(recibidos).hasSize(45);
+        assertThat(Arrays.stream(recibidos).map(this::asunto)).contains("Pedido #1", "Pedido #45");
+        assertThat(GreenMailUtil.getBody(recibidos[0])).contains("listo");
+        assertThat(recibidos[0].getFrom()[0].toString()).isEqualTo("no-responder@restaurante.com");
+        assertThat(cola.getPendientes()).isZero();
+    }
+
+    @Test
+    void noRepiteElMismoCorreoDentroDeLaVentana() throws Exception {
+        cola = crearCola(100, 20);
+        cola.iniciar();
+
+        assertThat(cola.encolar("ana@correo.com", "Recuperación de contraseña", "<p>enlace</p>")).isTrue();
+        assertThat(cola.encolar("ANA@correo.com ", "Recuperación de contraseña", "<p>enlace</p>")).isFalse();
+        assertThat(cola.encolar("ana@correo.com", "Pedido confirmado", "<p>ok</p>")).isTrue();
+
+        assertThat(smtp.waitForIncomingEmail(10_000, 2)).isTrue();
+        Thread.sleep(200);
+        assertThat(smtp.getReceivedMessages()).hasSize(2);
+    }
+
+    @Test
+    void conLaColaLlenaDescartaSinBloquear() throws Exception {
+        cola = crearCola(2, 20);
+
+        // Sin el hilo de envío la cola no se vacía
+        assertThat(cola.encolar("a@correo.com", "Uno", "<p>1</p>")).isTrue();
+        assertThat(cola.encolar("b@correo.com", "Dos", "<p>2</p>")).isTrue();
+        assertThat(cola.encolar("c@correo.com", "Tres", "<p>3</p>")).isFalse();
+        assertThat(cola.getPendientes()).isEqualTo(2);
+
+        cola.iniciar();
+        assertThat(smtp.waitForIncomingEmail(10_000, 2)).isTrue();
+        // El descartado puede volver a encolarse: no quedó marcado como duplicado
+        assertThat(cola.encolar("c@correo.com", "Tres", "<p>3</p>")).isTrue();
+        assertThat(smtp.waitForIncomingEmail(10_000, 3)).isTrue();
+    }
+
+    @Test
+    void siElSmtpFallaReintentaYEntregaElCorreo() throws Exception {
+        AtomicInteger llamadas = new AtomicInteger();
+        cola = crearCola(new JavaMailSenderImpl() {
+            @Override
+            public void send(MimeMessage... mensajes) throws MailException {
+                if (llamadas.incrementAndGet() == 1) {
+                    throw new MailSendException("SMTP no disponible");
+                }
+                super.send(mensajes);
+            }
+        }, propiedades(100, 20, 3));
+        cola.iniciar();
+
+        assertThat(cola.encolar("ana@correo.com", "Pedido confirmado", "<p>ok</p>")).isTrue();
+
+        assertThat(smtp.waitForIncomingEmail(10_000, 1)).isTrue();
+        assertThat(llamadas.get()).isEqualTo(2);
+        assertThat(asunto(smtp.getReceivedMessages()[0])).isEqualTo("Pedido confirmado");
+    }
+
+    @Test
+    void alAgotarLosIntentosLiberaLaClaveDelDuplicado() throws Exception {
+        AtomicInteger llamadas = new AtomicInteger();
+        cola = crearCola(new JavaMailSenderImpl() {
+            @Override
+            public void send(MimeMessage... mensajes) throws MailException {
+                llamadas.incrementAndGet();
+                throw new MailSendException("SMTP no disponible");
+            }
+        }, propiedades(100, 20, 2));
+        cola.iniciar();
+
+        assertThat(cola.encolar("ana@correo.com", "Recuperación de contraseña", "<p>enlace</p>")).isTrue();
+        // Mientras sigue reintentando cuenta como duplicado
+        assertThat(cola.encolar("ana@correo.com", "Recuperación de contraseña", "<p>enlace</p>")).isFalse();
+
+        // Tras el segundo intento fallido se descarta y el mismo correo puede pedirse otra vez dentro de la ventana
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!cola.encolar("ana@correo.com", "Recuperación de contraseña", "<p>enlace</p>")) {
+            assertThat(System.nanoTime()).isLessThan(limite);
+            Thread.sleep(20);
+        }
+        assertThat(llamadas.get()).isGreaterThanOrEqualTo(2);
+    }
+
+    private ColaCorreos crearCola(int capacidad, int tamanoLote) {
+        return crearCola(new JavaMailSenderImpl(), propiedades(capacidad, tamanoLote, 3));
+    }
+
+    private CorreoProperties propiedades(int capacidad, int tamanoLote, int maxIntentos) {
+        CorreoProperties properties = new CorreoProperties();
+        properties.setCapacidad(capacidad);
+        properties.setTamanoLote(tamanoLote);
+        properties.setMaxIntentos(maxIntentos);
+        properties.setEsperaReintentoMs(100);
+        return properties;
+    }
+
+    private ColaCorreos crearCola(JavaMailSenderImpl mailSender, CorreoProperties properties) {
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        ColaCorreos nueva = new ColaCorreos(mailSender, new ProteccionProveedores(new ResilienciaProperties()),
+            properties, new FabricaHilos(false));
+        ReflectionTestUtils.setField(nueva, "fromEmail", "no-responder@restaurante.com");
+        return nueva;
+    }
+
+    private String asunto(MimeMessage mensaje) {
+        try {
+            return mensaje.getSubject();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.web.capas.application.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.web.capas.application.proxy.ProteccionProveedores;
+import com.web.capas.config.ApplicationUrlsProperties;
+import com.web.capas.config.OutboxProperties;
+import com.web.capas.config.ResilienciaProperties;
+import com.web.capas.domain.repository.EventoOutboxRepository;
+import com.web.capas.infrastructure.config.OneSignalConfig;
+import com.web.capas.infrastructure.persistence.entities.EventoOutbox;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// El despachador del outbox con el OneSignalSender real contra un OneSignal simulado (servidor HTTP local):
+// se cuentan las peticiones que llegan para comprobar que los eventos de un lote salen agrupados
+class DespachadorOutboxTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<JsonNode> recibidas = new CopyOnWriteArrayList<>();
+    private final AtomicInteger codigo = new AtomicInteger(200);
+    private HttpServer servidor;
+
+    private EventoOutboxRepository eventoOutboxRepository;
+    private RegistroRepartidores registroRepartidores;
+    private DespachadorOutbox despachador;
+
+    @BeforeEach
+    void preparar() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.setExecutor(Executors.newCachedThreadPool());
+        servidor.createContext("/api/v1/notifications", intercambio -> {
+            recibidas.add(objectMapper.readTree(intercambio.getRequestBody()));
+            intercambio.sendResponseHeaders(codigo.get(), -1);
+            intercambio.close();
+        });
+        servidor.start();
+
+        OneSignalConfig oneSignalConfig = new OneSignalConfig();
+        ReflectionTestUtils.setField(oneSignalConfig, "appId", "app-prueba");
+        ReflectionTestUtils.setField(oneSignalConfig, "restApiKey", "clave-prueba");
+        ReflectionTestUtils.setField(oneSignalConfig, "apiUrl",
+            "http://127.0.0.1:" + servidor.getAddress().getPort() + "/api/v1/notifications");
+        ResilienciaProperties resiliencia = new ResilienciaProperties();
+        ApplicationUrlsProperties urls = new ApplicationUrlsProperties();
+        urls.setFrontend("http://localhost:4200");
+        OneSignalSender sender = new OneSignalSender(oneSignalConfig, new ProteccionProveedores(resiliencia), objectMapper,
+            HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build(), resiliencia, urls);
+
+        eventoOutboxRepository = mock(EventoOutboxRepository.class);
+        registroRepartidores = mock(RegistroRepartidores.class);
+        despachador = new DespachadorOutbox();
+        ReflectionTestUtils.setField(despachador, "eventoOutboxRepository", eventoOutboxRepository);
+        ReflectionTestUtils.setField(despachador, "registroRepartidores", registroRepartidores);
+        ReflectionTestUtils.setField(despachador, "oneSignalSender", sender);
+        ReflectionTestUtils.setField(despachador, "outboxProperties", new OutboxProperties());
+        ReflectionTestUtils.setField(despachador, "objectMapper", objectMapper);
+    }
+
+    @AfterEach
+    void detener() {
+        servidor.stop(0);
+    }
+
+    @Test
+    void losPedidosNuevosDelLoteSalenEnUnSoloAviso() throws Exception {
+        when(registroRepartidores.obtenerPlayerIds()).thenReturn(List.of("rep-1", "rep-2", "rep-3"));
+        List<EventoOutbox> lote = new ArrayList<>();
+        for (int i = 1; i <= 30; i++) {
+            lote.add(evento(i, OutboxService.TIPO_NUEVO_PEDIDO, Map.of("pedidoId", 100 + i, "direccionEntrega", "Av. Larco " + i)));
+        }
+
+        procesar(lote);
+
+        assertThat(recibidas).hasSize(1);
+        JsonNode cuerpo = recibidas.get(0);
+        assertThat(cuerpo.get("include_player_ids")).hasSize(3);
+        assertThat(cuerpo.at("/headings/es").asText()).isEqualTo("Nuevos Pedidos");
+        assertThat(cuerpo.at("/contents/es").asText()).contains("30");
+        assertThat(cuerpo.at("/data/pedidoIds")).hasSize(30);
+        // El panel del repartidor solo lee pedidoId al tocar la notificación
+        assertThat(cuerpo.at("/data/pedidoId").asInt()).isEqualTo(130);
+        assertThat(lote).allSatisfy(evento -> {
+            assertThat(evento.getEstado()).isEqualTo(EventoOutbox.Estado.enviado);
+            assertThat(evento.getIntentos()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void losPushConElMismoContenidoSeJuntanEnUnaLlamada() throws Exception {
+        List<EventoOutbox> lote = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            lote.add(push(i, "Pedido en camino", "Tu pedido está en camino", List.of("cli-" + i, "cli-compartido")));
+        }
+        lote.add(push(21, "Pedido entregado", "Tu pedido fue entregado", List.of("cli-21")));
+        lote.add(push(22, "Pedido cancelado", "Tu pedido fue cancelado", List.of("cli-22")));
+
+        procesar(lote);
+
+        // 22 eventos, 3 contenidos distintos: 3 llamadas en lugar de 22
+        assertThat(recibidas).hasSize(3);
+        assertThat(recibidas.get(0).get("include_player_ids")).hasSize(21);
+        assertThat(lote).allSatisfy(evento -> assertThat(evento.getEstado()).isEqualTo(EventoOutbox.Estado.enviado));
+    }
+
+    @Test
+    void masDeDosMilDestinatariosSeRepartenSinRepetidos() throws Exception {
+        List<String> playerIds = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            playerIds.add("cli-" + i);
+        }
+        playerIds.addAll(playerIds.subList(0, 1500));
+
+        procesar(List.of(push(1, "Promoción", "2x1 en ceviches", playerIds)));
+
+        assertThat(recibidas).hasSize(2);
+        assertThat(recibidas.get(0).get("include_player_ids")).hasSize(OneSignalSender.MAX_PLAYER_IDS_POR_PETICION);
+        assertThat(recibidas.get(1).get("include_player_ids")).hasSize(1000);
+    }
+
+    @Test
+    void siOneSignalFallaSeReprogramanTodosLosEventosDelGrupo() throws Exception {
+        codigo.set(503);
+        List<EventoOutbox> lote = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            lote.add(push(i, "Pedido en camino", "Tu pedido está en camino", List.of("cli-" + i)));
+        }
+
+        procesar(lote);
+
+        assertThat(recibidas).hasSize(1);
+        assertThat(lote).allSatisfy(evento -> {
+            assertThat(evento.getEstado()).isEqualTo(EventoOutbox.Estado.pendiente);
+            assertThat(evento.getIntentos()).isEqualTo(1);
+            assertThat(evento.getProximoIntento()).isNotNull();
+            assertThat(evento.getUltimoError()).isNotBlank();
+        });
+    }
+
+    private void procesar(List<EventoOutbox> lote) {
+        when(eventoOutboxRepository.findByEstadoAndProximoIntentoLessThanEqualOrderByIdEventoAsc(any(), any(), any()))
+            .thenReturn(lote, Collections.emptyList());
+        ReflectionTestUtils.invokeMethod(despachador, "procesarPendientes");
+    }
+
+    private EventoOutbox push(long id, String titulo, String mensaje, List<String> playerIds) throws Exception {
+        return evento(id, OutboxService.TIPO_PUSH, Map.of(
+            "titulo", titulo, "mensaje", mensaje, "datos", Map.of("tipo", "estado_pedido"), "playerIds", playerIds));
+    }
+
+    private EventoOutbox evento(long id, String tipo, Map<String, Object> payload) throws Exception {
+        EventoOutbox evento = new EventoOutbox();
+        evento.setIdEvento(id);
+        evento.setTipo(tipo);
+        evento.setPayload(objectMapper.writeValueAsString(payload));
+        evento.setEstado(EventoOutbox.Estado.pendiente);
+        return evento;
+    }
+}
@@ -0,0 +1,113 @@
+package com.web.capas.application.service;
+
+import com.web.capas.config.ContrasenasProperties;
+import com.web.capas.domain.CapacidadAgotadaException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Ejecutor de BCrypt con un hilo y lugar para una tarea en cola: la tercera petición simultánea se rechaza
+// al instante con CapacidadAgotadaException (429) en lugar de quedar esperando
+class HashContrasenasTest {
+
+    private HashContrasenas hashContrasenas;
+    private final CountDownLatch liberar = new CountDownLatch(1);
+
+    @AfterEach
+    void detener() {
+        liberar.countDown();
+        if (hashContrasenas != null) {
+            hashContrasenas.detener();
+        }
+    }
+
+    @Test
+    void conLaColaLlenaRechazaAlInstante() throws Exception {
+        hashContrasenas = crear(1, 1, 10000);
+        CountDownLatch ocupado = new CountDownLatch(1);
+        CompletableFuture<Boolean> enCurso = CompletableFuture.supplyAsync(() -> hashContrasenas.ejecutar(codificador -> {
+            ocupado.countDown();
+            return esperarLiberacion();
+        }));
+        assertThat(ocupado.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> enCola = CompletableFuture.supplyAsync(() -> hashContrasenas.ejecutar(codificador -> true));
+        esperarEnCola(1);
+
+        long inicio = System.nanoTime();
+        assertThatThrownBy(() -> hashContrasenas.coincide("secreta", "$2a$04$hash"))
+            .isInstanceOf(CapacidadAgotadaException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)).isLessThan(1000);
+        // El rehash en segundo plano tampoco espera: el futuro ya viene fallado
+        assertThat(hashContrasenas.encriptarEnSegundoPlano("secreta")).isCompletedExceptionally();
+        assertThat(hashContrasenas.obtenerEstado()).containsEntry("rechazados", 2L);
+
+        // Al liberarse el hilo las que ya estaban adentro terminan bien
+        liberar.countDown();
+        assertThat(enCurso.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(enCola.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(hashContrasenas.coincide("secreta", hashContrasenas.encriptar("secreta"))).isTrue();
+    }
+
+    @Test
+    void siLaEsperaPasaElMaximoTambienRechaza() throws Exception {
+        hashContrasenas = crear(1, 4, 200);
+        // Se ocupa el hilo directamente en el ejecutor: con ejecutar() quien espera también vencería a los 200 ms
+        // y sumaría su propio rechazo
+        ThreadPoolExecutor ejecutor = (ThreadPoolExecutor) ReflectionTestUtils.getField(hashContrasenas, "ejecutor");
+        CountDownLatch ocupado = new CountDownLatch(1);
+        ejecutor.execute(() -> {
+            ocupado.countDown();
+            esperarLiberacion();
+        });
+        assertThat(ocupado.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> hashContrasenas.encriptar("secreta"))
+            .isInstanceOf(CapacidadAgotadaException.class);
+        assertThat(hashContrasenas.obtenerEstado()).containsEntry("rechazados", 1L);
+    }
+
+    @Test
+    void losHashesConCostoMenorRequierenActualizacion() {
+        hashContrasenas = crear(1, 1, 10000);
+        String costoBajo = new BCryptPasswordEncoder(4).encode("secreta");
+
+        assertThat(hashContrasenas.requiereActualizacion(costoBajo)).isTrue();
+        assertThat(hashContrasenas.requiereActualizacion(hashContrasenas.encriptar("secreta"))).isFalse();
+        assertThat(hashContrasenas.requiereActualizacion("no-es-bcrypt")).isFalse();
+    }
+
+    private HashContrasenas crear(int hilos, int capacidadCola, long esperaMaximaMs) {
+        ContrasenasProperties properties = new ContrasenasProperties();
+        properties.setHilos(hilos);
+        properties.setCapacidadCola(capacidadCola);
+        properties.setEsperaMaximaMs(esperaMaximaMs);
+        properties.setCosto(5);
+        return new HashContrasenas(properties);
+    }
+
+    private boolean esperarLiberacion() {
+        try {
+            return liberar.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void esperarEnCola(int cantidad) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (((Number) hashContrasenas.obtenerEstado().get("enCola")).intValue() < cantidad) {
+            assertThat(System.nanoTime()).isLessThan(limite);
+            Thread.sleep(5);
+        }
+    }
+}
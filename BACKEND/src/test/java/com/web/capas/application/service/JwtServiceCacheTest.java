@@ -0,0 +1,69 @@
+package com.web.capas.application.service;
+
+import com.web.capas.config.JwtProperties;
+import com.web.capas.domain.repository.UsuarioRepository;
+import com.web.capas.infrastructure.persistence.entities.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// La cache de tokens verificados no pasa de app.jwt.capacidad-cache: al llenarse descarta el menos usado
+// y el token nuevo se guarda igual (antes, con la cache llena de tokens vigentes, ya no se guardaba ninguno)
+class JwtServiceCacheTest {
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void crearServicio() {
+        JwtProperties properties = new JwtProperties();
+        properties.setClaves(Map.of("principal", "clave-de-prueba-con-mas-de-32-caracteres"));
+        properties.setCapacidadCache(2);
+        jwtService = new JwtService(properties, new RevocacionTokens(Mockito.mock(UsuarioRepository.class), properties));
+    }
+
+    @Test
+    void conLaCacheLlenaSeDescartaElMenosUsado() {
+        String primero = jwtService.generateToken(usuario(1));
+        String segundo = jwtService.generateToken(usuario(2));
+        String tercero = jwtService.generateToken(usuario(3));
+
+        jwtService.obtenerClaimsVerificadas(primero);
+        jwtService.obtenerClaimsVerificadas(segundo);
+        // Usar el primero lo deja como el más reciente: el que sale al llegar el tercero es el segundo
+        jwtService.obtenerClaimsVerificadas(primero);
+        jwtService.obtenerClaimsVerificadas(tercero);
+
+        assertThat(jwtService.getTamanoCache()).isEqualTo(2);
+        assertThat(jwtService.getVerificaciones()).isEqualTo(3);
+
+        jwtService.obtenerClaimsVerificadas(primero);
+        jwtService.obtenerClaimsVerificadas(tercero);
+        assertThat(jwtService.getVerificaciones()).isEqualTo(3);
+
+        jwtService.obtenerClaimsVerificadas(segundo);
+        assertThat(jwtService.getVerificaciones()).isEqualTo(4);
+        assertThat(jwtService.getTamanoCache()).isEqualTo(2);
+    }
+
+    @Test
+    void unTokenInvalidoNoEntraALaCache() {
+        String token = jwtService.generateToken(usuario(1));
+
+        assertThat(jwtService.obtenerClaimsVerificadas(token + "x")).isNull();
+        assertThat(jwtService.getTamanoCache()).isZero();
+    }
+
+    private static Usuario usuario(int id) {
+        Usuario usuario = new Usuario();
+        usuario.setIdUsuario(id);
+        usuario.setNombre("Cliente " + id);
+        usuario.setEmail("cliente" + id + "@correo.com");
+        usuario.setRol(Usuario.Rol.cliente);
+        usuario.setGeneracionToken(0);
+        return usuario;
+    }
+}
@@ -0,0 +1,53 @@
+package com.web.capas.application.service;
+
+import com.web.capas.config.JwtProperties;
+import com.web.capas.domain.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Sin clave por defecto: JwtService no se crea (y la aplicación no arranca) si falta la clave activa
+// o si alguna clave tiene menos de 256 bits
+class JwtServiceClavesTest {
+
+    @Test
+    void sinClaveActivaNoArranca() {
+        assertThatThrownBy(() -> crear(Map.of()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("JWT_SECRET_KEY");
+        // Lo que queda con JWT_SECRET_KEY sin definir
+        assertThatThrownBy(() -> crear(Map.of("principal", "")))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("app.jwt.claves.principal");
+    }
+
+    @Test
+    void conClaveCortaNoArranca() {
+        assertThatThrownBy(() -> crear(Map.of("principal", "a".repeat(31))))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("248 bits");
+        // También una clave anterior que solo verifica
+        Map<String, String> claves = new LinkedHashMap<>();
+        claves.put("principal", "a".repeat(32));
+        claves.put("anterior", "corta");
+        assertThatThrownBy(() -> crear(claves))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("app.jwt.claves.anterior");
+    }
+
+    @Test
+    void conClaveDe256BitsArranca() {
+        assertThatCode(() -> crear(Map.of("principal", "a".repeat(32)))).doesNotThrowAnyException();
+    }
+
+    private static JwtService crear(Map<String, String> claves) {
+        JwtProperties properties = new JwtProperties();
+        properties.setClaves(claves);
+        return new JwtService(properties, new RevocacionTokens(Mockito.mock(UsuarioRepository.class), properties));
+    }
+}
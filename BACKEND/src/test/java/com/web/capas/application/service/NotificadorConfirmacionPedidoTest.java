@@ -0,0 +1,74 @@
+package com.web.capas.application.service;
+
+import com.web.capas.infrastructure.persistence.entities.Pedido;
+import com.web.capas.infrastructure.persistence.entities.Usuario;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class NotificadorConfirmacionPedidoTest {
+
+    @Mock
+    private WhatsAppService whatsAppService;
+
+    @InjectMocks
+    private NotificadorConfirmacionPedido notificador;
+
+    @AfterEach
+    void limpiar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void dentroDeUnaTransaccionEsperaAlCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        notificador.notificarDespuesDelCommit(pedido("999888777"));
+        verify(whatsAppService, never()).notificarPedidoConfirmadoAsync(anyString(), anyInt(), anyString());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(whatsAppService).notificarPedidoConfirmadoAsync("999888777", 15, "Ana");
+    }
+
+    @Test
+    void siLaTransaccionSeRevierteNoEnvia() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        notificador.notificarDespuesDelCommit(pedido("999888777"));
+        TransactionSynchronizationManager.getSynchronizations()
+            .forEach(sincronizacion -> sincronizacion.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(whatsAppService, never()).notificarPedidoConfirmadoAsync(any(), any(), any());
+    }
+
+    @Test
+    void sinTelefonoNoEnvia() {
+        notificador.notificarDespuesDelCommit(pedido(" "));
+
+        verify(whatsAppService, never()).notificarPedidoConfirmadoAsync(any(), any(), any());
+    }
+
+    private static Pedido pedido(String telefono) {
+        Usuario cliente = new Usuario();
+        cliente.setNombre("Ana");
+        cliente.setTelefono(telefono);
+        Pedido pedido = new Pedido();
+        pedido.setIdPedido(15);
+        pedido.setCliente(cliente);
+        return pedido;
+    }
+}
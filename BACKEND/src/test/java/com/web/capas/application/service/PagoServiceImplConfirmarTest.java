@@ -0,0 +1,84 @@
+package com.web.capas.application.service;
+
+import com.stripe.model.PaymentIntent;
+import com.web.capas.application.proxy.ProteccionProveedores;
+import com.web.capas.domain.repository.PagoRepository;
+import com.web.capas.domain.repository.PedidoRepository;
+import com.web.capas.infrastructure.persistence.entities.Pago;
+import com.web.capas.infrastructure.persistence.entities.Pedido;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// confirmarPago solo evita consultar a Stripe cuando el pago ya es exitoso: uno rechazado puede aprobarse
+// después si el cliente reintenta con otra tarjeta sobre el mismo PaymentIntent
+@ExtendWith(MockitoExtension.class)
+class PagoServiceImplConfirmarTest {
+
+    private static final String INTENT = "pi_confirmar";
+
+    @Mock
+    private PagoRepository pagoRepository;
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private NotificadorConfirmacionPedido notificadorConfirmacion;
+
+    @Mock
+    private ResumenVentasService resumenVentasService;
+
+    @Mock
+    private ProteccionProveedores proteccionProveedores;
+
+    @InjectMocks
+    private PagoServiceImpl pagoService;
+
+    @Test
+    void unPagoRechazadoSeVuelveAConsultarYPuedeAprobarse() throws Exception {
+        Pago pago = pago(Pago.EstadoTransaccion.fallido, Pedido.EstadoPago.fallido);
+        when(pagoRepository.findByReferenciaTransaccion(INTENT)).thenReturn(Optional.of(pago));
+        when(pagoRepository.save(any(Pago.class))).thenAnswer(invocacion -> invocacion.getArgument(0));
+        PaymentIntent aprobado = new PaymentIntent();
+        aprobado.setStatus("succeeded");
+        when(proteccionProveedores.ejecutar(eq(ProteccionProveedores.STRIPE), any(), any())).thenReturn(aprobado);
+
+        Pago resultado = pagoService.confirmarPago(INTENT);
+
+        assertThat(resultado.getEstadoTransaccion()).isEqualTo(Pago.EstadoTransaccion.exitoso);
+        assertThat(resultado.getPedido().getEstadoPago()).isEqualTo(Pedido.EstadoPago.pagado);
+        verify(notificadorConfirmacion).notificarDespuesDelCommit(pago.getPedido());
+    }
+
+    @Test
+    void unPagoExitosoNoConsultaAStripe() throws Exception {
+        Pago pago = pago(Pago.EstadoTransaccion.exitoso, Pedido.EstadoPago.pagado);
+        when(pagoRepository.findByReferenciaTransaccion(INTENT)).thenReturn(Optional.of(pago));
+
+        assertThat(pagoService.confirmarPago(INTENT)).isSameAs(pago);
+        verify(proteccionProveedores, never()).ejecutar(any(), any(), any());
+    }
+
+    private static Pago pago(Pago.EstadoTransaccion estado, Pedido.EstadoPago estadoPago) {
+        Pedido pedido = new Pedido();
+        pedido.setEstadoPedido(Pedido.EstadoPedido.pendiente);
+        pedido.setEstadoPago(estadoPago);
+        Pago pago = new Pago();
+        pago.setPedido(pedido);
+        pago.setEstadoTransaccion(estado);
+        pago.setReferenciaTransaccion(INTENT);
+        return pago;
+    }
+}
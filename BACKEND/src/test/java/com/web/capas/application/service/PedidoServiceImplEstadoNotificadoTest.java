@@ -0,0 +1,67 @@
+package com.web.capas.application.service;
+
+import com.web.capas.domain.repository.PedidoRepository;
+import com.web.capas.infrastructure.persistence.entities.Pedido;
+import com.web.capas.infrastructure.persistence.entities.Usuario;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+// El estado notificado por WhatsApp se escribe cuando terminan los reintentos del envío: si el pedido cambió
+// mientras tanto (p. ej. se canceló) no se pisa ni se vuelven a ajustar los resúmenes
+@ExtendWith(MockitoExtension.class)
+class PedidoServiceImplEstadoNotificadoTest {
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private ResumenVentasService resumenVentasService;
+
+    @Mock
+    private ReservaStockService reservaStockService;
+
+    @InjectMocks
+    private PedidoServiceImpl pedidoService;
+
+    @Test
+    void siElPedidoCambioMientrasSeEnviabaNoSeAplica() {
+        when(pedidoRepository.actualizarEstadoSiNoCambio(7, Pedido.EstadoPedido.en_camino, Pedido.EstadoPedido.entregado))
+            .thenReturn(0);
+
+        boolean aplicado = pedidoService.aplicarEstadoNotificado(7, Pedido.EstadoPedido.en_camino, Pedido.EstadoPedido.entregado);
+
+        assertThat(aplicado).isFalse();
+        verify(pedidoRepository, never()).findById(any());
+        verifyNoInteractions(resumenVentasService, reservaStockService);
+    }
+
+    @Test
+    void siSigueEnElEstadoEsperadoSeAplicaUnaVez() {
+        Pedido pedido = new Pedido();
+        pedido.setIdPedido(7);
+        pedido.setCliente(new Usuario());
+        pedido.setEstadoPedido(Pedido.EstadoPedido.entregado);
+        pedido.setEstadoPago(Pedido.EstadoPago.pagado);
+        when(pedidoRepository.actualizarEstadoSiNoCambio(7, Pedido.EstadoPedido.en_camino, Pedido.EstadoPedido.entregado))
+            .thenReturn(1);
+        when(pedidoRepository.findById(7)).thenReturn(Optional.of(pedido));
+
+        boolean aplicado = pedidoService.aplicarEstadoNotificado(7, Pedido.EstadoPedido.en_camino, Pedido.EstadoPedido.entregado);
+
+        assertThat(aplicado).isTrue();
+        verify(resumenVentasService).registrarCambioDeEstado(pedido, Pedido.EstadoPedido.en_camino, Pedido.EstadoPago.pagado);
+        verifyNoInteractions(reservaStockService);
+    }
+}
@@ -0,0 +1,132 @@
+package com.web.capas.application.service;
+
+import com.web.capas.domain.dto.ProductoRequest;
+import com.web.capas.domain.dto.SugerenciaResponse;
+import com.web.capas.domain.repository.ResumenProductoDiarioRepository;
+import com.web.capas.domain.repository.ProductoRepository;
+import com.web.capas.infrastructure.persistence.entities.Categoria;
+import com.web.capas.infrastructure.persistence.entities.Producto;
+import com.web.capas.infrastructure.persistence.repositories.JpaCategoriaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductoServiceImplIndicesTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private JpaCategoriaRepository categoriaRepository;
+
+    @Mock
+    private CatalogoMenuCache catalogoMenuCache;
+
+    @Mock
+    private ResumenProductoDiarioRepository resumenProductoDiarioRepository;
+
+    @Spy
+    private IndiceBusquedaProductos indiceBusqueda = new IndiceBusquedaProductos();
+
+    @Spy
+    private SugerenciasMenu sugerenciasMenu = new SugerenciasMenu();
+
+    @InjectMocks
+    private ProductoServiceImpl productoService;
+
+    @Test
+    void construyeLosIndicesAlArrancarDesdeLaBaseDeDatos() {
+        Categoria categoria = categoria();
+        when(productoRepository.findByEstado(Producto.EstadoProducto.activo)).thenReturn(List.of(producto(1, "Ceviche mixto", categoria)));
+
+        productoService.construirIndicesAlArrancar();
+
+        assertThat(indiceBusqueda.estaInicializado()).isTrue();
+        assertThat(sugerenciasMenu.sugerir("cev", 5)).extracting(SugerenciaResponse::getTexto).containsExactly("Ceviche mixto");
+    }
+
+    // Un producto guardado mientras se leen los activos no debe perderse al terminar la reconstrucción
+    @Test
+    void unProductoGuardadoDuranteLaReconstruccionNoSePierde() throws Exception {
+        Categoria categoria = categoria();
+        Producto nuevo = producto(2, "Lomo saltado", categoria);
+        when(categoriaRepository.findById(categoria.getIdCategoria())).thenReturn(Optional.of(categoria));
+        when(productoRepository.save(any(Producto.class))).thenReturn(nuevo);
+
+        AtomicReference<CompletableFuture<Void>> guardado = new AtomicReference<>();
+        AtomicReference<Thread> hiloGuardado = new AtomicReference<>();
+        when(productoRepository.findByEstado(Producto.EstadoProducto.activo)).thenAnswer(invocacion -> {
+            guardado.set(CompletableFuture.runAsync(() -> {
+                hiloGuardado.set(Thread.currentThread());
+                productoService.guardarProducto(request(categoria));
+            }));
+            // La lectura de la BD no ve el producto nuevo; el guardado queda esperando el bloqueo de los índices
+            esperarBloqueado(hiloGuardado);
+            return List.of(producto(1, "Ceviche mixto", categoria));
+        });
+
+        productoService.construirIndicesAlArrancar();
+        guardado.get().get(5, TimeUnit.SECONDS);
+
+        assertThat(sugerenciasMenu.sugerir("lomo", 5)).extracting(SugerenciaResponse::getIdProducto).containsExactly(2);
+        assertThat(indiceBusqueda.buscar("lomo")).containsExactly(2);
+        assertThat(indiceBusqueda.buscar("ceviche")).containsExactly(1);
+    }
+
+    private void esperarBloqueado(AtomicReference<Thread> hilo) throws InterruptedException {
+        ReentrantLock bloqueo = (ReentrantLock) ReflectionTestUtils.getField(productoService, "bloqueoIndices");
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < limite) {
+            Thread actual = hilo.get();
+            if (actual != null && bloqueo.hasQueuedThread(actual)) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("El guardado no llegó a esperar el bloqueo de los índices");
+    }
+
+    private static Categoria categoria() {
+        Categoria categoria = new Categoria();
+        categoria.setIdCategoria(1);
+        categoria.setNombre("Platos de fondo");
+        return categoria;
+    }
+
+    private static Producto producto(int id, String nombre, Categoria categoria) {
+        Producto producto = new Producto();
+        producto.setIdProducto(id);
+        producto.setNombre(nombre);
+        producto.setPrecio(new BigDecimal("25.00"));
+        producto.setEstado(Producto.EstadoProducto.activo);
+        producto.setStock(10);
+        producto.setCategoria(categoria);
+        return producto;
+    }
+
+    private static ProductoRequest request(Categoria categoria) {
+        ProductoRequest request = new ProductoRequest();
+        request.setNombre("Lomo saltado");
+        request.setPrecio(new BigDecimal("25.00"));
+        request.setIdCategoria(categoria.getIdCategoria());
+        request.setStock(10);
+        return request;
+    }
+}
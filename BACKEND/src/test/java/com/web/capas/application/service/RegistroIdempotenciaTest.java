@@ -0,0 +1,208 @@
+package com.web.capas.application.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.web.capas.config.GlobalExceptionHandler;
+import com.web.capas.config.IdempotenciaProperties;
+import com.web.capas.domain.ClaveIdempotenciaException;
+import com.web.capas.domain.ServiceException;
+import com.web.capas.domain.repository.ClaveIdempotenciaRepository;
+import com.web.capas.infrastructure.persistence.entities.ClaveIdempotencia;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Idempotency-Key contra Claves_Idempotencia en H2. Cada operación del repositorio confirma por su cuenta,
+// así que el test corre sin transacción propia y limpia la tabla al terminar.
+@DataJpaTest
+@ActiveProfiles("prueba")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RegistroIdempotenciaTest {
+
+    private static final String OPERACION = "crear-pedido";
+    private static final String CLAVE = "0f8c2a4e-pedido";
+
+    @Autowired
+    private ClaveIdempotenciaRepository repository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final AtomicInteger ejecuciones = new AtomicInteger();
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private RegistroIdempotencia registro;
+
+    @BeforeEach
+    void preparar() {
+        registro = crearRegistro();
+    }
+
+    @AfterEach
+    void limpiar() {
+        liberar.countDown();
+        repository.deleteAll();
+    }
+
+    @Test
+    void laRepeticionDevuelveLaRespuestaGuardadaSinEjecutarDeNuevo() {
+        ResponseEntity<String> primera = registro.ejecutar(OPERACION, CLAVE, peticion(2), String.class, this::crearPedido);
+        ResponseEntity<String> repetida = registro.ejecutar(OPERACION, CLAVE, peticion(2), String.class, this::crearPedido);
+
+        assertThat(primera.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(primera.getHeaders().containsKey(RegistroIdempotencia.CABECERA_REPETIDA)).isFalse();
+        assertThat(repetida.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(repetida.getBody()).isEqualTo("pedido-1");
+        assertThat(repetida.getHeaders().getFirst(RegistroIdempotencia.CABECERA_REPETIDA)).isEqualTo("true");
+        assertThat(ejecuciones.get()).isEqualTo(1);
+
+        List<ClaveIdempotencia> filas = repository.findAll();
+        assertThat(filas).hasSize(1);
+        assertThat(filas.get(0).getEstado()).isEqualTo(ClaveIdempotencia.Estado.completado);
+        assertThat(filas.get(0).getCodigoHttp()).isEqualTo(201);
+    }
+
+    @Test
+    void otraInstanciaReproduceLaRespuestaDesdeLaTabla() {
+        registro.ejecutar(OPERACION, CLAVE, peticion(2), String.class, this::crearPedido);
+
+        // Sin nada en memoria la respuesta sale de Claves_Idempotencia
+        ResponseEntity<String> repetida = crearRegistro().ejecutar(OPERACION, CLAVE, peticion(2), String.class, this::crearPedido);
+
+        assertThat(repetida.getBody()).isEqualTo("pedido-1");
+        assertThat(repetida.getHeaders().getFirst(RegistroIdempotencia.CABECERA_REPETIDA)).isEqualTo("true");
+        assertThat(ejecuciones.get()).isEqualTo(1);
+    }
+
+    @Test
+    void conOtroCuerpoRespondeUnprocessableEntity() {
+        registro.ejecutar(OPERACION, CLAVE, peticion(2), String.class, this::crearPedido);
+
+        assertThatThrownBy(() -> registro.ejecutar(OPERACION, CLAVE, peticion(5), String.class, this::crearPedido))
+            .isInstanceOfSatisfying(ClaveIdempotenciaException.class, e -> {
+                assertThat(e.isEnCurso()).isFalse();
+                assertThat(estadoHttp(e)).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+            });
+        assertThat(ejecuciones.get()).isEqualTo(1);
+    }
+
+    @Test
+    void laRepeticionEsperaALaPrimeraQueSigueEnCurso() throws Exception {
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<String>> primera = CompletableFuture.supplyAsync(() ->
+            registro.ejecutar(OPERACION, CLAVE, peticion(2), String.class, () -> {
+                enCurso.countDown();
+                esperarLiberacion();
+                return crearPedido();
+            }));
+        assertThat(enCurso.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<ResponseEntity<String>> repetida = CompletableFuture.supplyAsync(() ->
+            registro.ejecutar(OPERACION, CLAVE, peticion(2), String.class, this::crearPedido));
+        Thread.sleep(200);
+        assertThat(repetida).isNotDone();
+
+        liberar.countDown();
+        assertThat(primera.get(5, TimeUnit.SECONDS).getBody()).isEqualTo("pedido-1");
+        ResponseEntity<String> respuesta = repetida.get(5, TimeUnit.SECONDS);
+        assertThat(respuesta.getBody()).isEqualTo("pedido-1");
+        assertThat(respuesta.getHeaders().getFirst(RegistroIdempotencia.CABECERA_REPETIDA)).isEqualTo("true");
+        assertThat(ejecuciones.get()).isEqualTo(1);
+    }
+
+    @Test
+    void unaRespuestaQueNoEs2xxLiberaLaClave() {
+        ResponseEntity<String> rechazada = registro.ejecutar(OPERACION, CLAVE, peticion(2), String.class,
+            () -> ResponseEntity.badRequest().body("sin stock"));
+
+        assertThat(rechazada.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(repository.count()).isZero();
+
+        ResponseEntity<String> reintento = registro.ejecutar(OPERACION, CLAVE, peticion(2), String.class, this::crearPedido);
+        assertThat(reintento.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(reintento.getHeaders().containsKey(RegistroIdempotencia.CABECERA_REPETIDA)).isFalse();
+        assertThat(ejecuciones.get()).isEqualTo(1);
+    }
+
+    @Test
+    void unaExcepcionLiberaLaClave() {
+        assertThatThrownBy(() -> registro.ejecutar(OPERACION, CLAVE, peticion(2), String.class, () -> {
+            throw new ServiceException("Stock insuficiente para el producto: Pizza");
+        })).isInstanceOf(ServiceException.class);
+        assertThat(repository.count()).isZero();
+
+        ResponseEntity<String> reintento = registro.ejecutar(OPERACION, CLAVE, peticion(2), String.class, this::crearPedido);
+        assertThat(reintento.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(ejecuciones.get()).isEqualTo(1);
+    }
+
+    @Test
+    void conLaPrimeraEnCursoEnOtraInstanciaRespondeConflict() throws Exception {
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<String>> primera = CompletableFuture.supplyAsync(() ->
+            registro.ejecutar(OPERACION, CLAVE, peticion(2), String.class, () -> {
+                enCurso.countDown();
+                esperarLiberacion();
+                return crearPedido();
+            }));
+        assertThat(enCurso.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // La otra instancia solo ve la fila en_curso de Claves_Idempotencia
+        RegistroIdempotencia otraInstancia = crearRegistro();
+        assertThatThrownBy(() -> otraInstancia.ejecutar(OPERACION, CLAVE, peticion(2), String.class, this::crearPedido))
+            .isInstanceOfSatisfying(ClaveIdempotenciaException.class, e -> {
+                assertThat(e.isEnCurso()).isTrue();
+                assertThat(estadoHttp(e)).isEqualTo(HttpStatus.CONFLICT);
+            });
+
+        liberar.countDown();
+        assertThat(primera.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(ejecuciones.get()).isEqualTo(1);
+    }
+
+    private RegistroIdempotencia crearRegistro() {
+        IdempotenciaProperties properties = new IdempotenciaProperties();
+        properties.setEsperaMaximaMs(5000);
+        return new RegistroIdempotencia(repository, properties, objectMapper);
+    }
+
+    private ResponseEntity<String> crearPedido() {
+        return ResponseEntity.status(HttpStatus.CREATED).body("pedido-" + ejecuciones.incrementAndGet());
+    }
+
+    private static Map<String, Object> peticion(int cantidad) {
+        return Map.of("idProducto", 7, "cantidad", cantidad);
+    }
+
+    private static HttpStatus estadoHttp(ClaveIdempotenciaException e) {
+        return HttpStatus.valueOf(new GlobalExceptionHandler()
+            .manejarClaveIdempotencia(e, new ServletWebRequest(new MockHttpServletRequest()))
+            .getStatusCode().value());
+    }
+
+    private void esperarLiberacion() {
+        try {
+            liberar.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
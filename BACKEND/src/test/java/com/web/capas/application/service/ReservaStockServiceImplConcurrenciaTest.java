@@ -0,0 +1,131 @@
+package com.web.capas.application.service;
+
+import com.web.capas.domain.ServiceException;
+import com.web.capas.domain.repository.ProductoRepository;
+import com.web.capas.infrastructure.persistence.entities.Producto;
+import com.web.capas.infrastructure.persistence.repositories.JdbcPedidoLoteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+// Checkouts concurrentes contra una base real (H2) con transacciones JDBC: el UPDATE condicional no debe
+// dejar vender más de lo que hay, y un pedido rechazado no debe descontar nada de sus otros productos
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReservaStockServiceImplConcurrenciaTest {
+
+    private static final int HILOS = 200;
+    private static final int STOCK_ESCASO = 50;
+    private static final int STOCK_HOLGADO = 1000;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private CatalogoMenuCache catalogoMenuCache;
+
+    @InjectMocks
+    private ReservaStockServiceImpl reservaStockService;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transacciones;
+
+    @BeforeEach
+    void preparar() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:reserva-stock;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE Productos (id_producto INT PRIMARY KEY, nombre VARCHAR(100), stock INT NOT NULL)");
+        jdbcTemplate.update("INSERT INTO Productos VALUES (1, 'Lomo saltado', ?)", STOCK_ESCASO);
+        jdbcTemplate.update("INSERT INTO Productos VALUES (2, 'Chicha morada', ?)", STOCK_HOLGADO);
+        transacciones = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        ReflectionTestUtils.setField(reservaStockService, "pedidoLoteRepository", new JdbcPedidoLoteRepository(jdbcTemplate));
+
+        Producto lomo = new Producto();
+        lomo.setIdProducto(1);
+        lomo.setNombre("Lomo saltado");
+        when(productoRepository.findById(anyInt())).thenReturn(Optional.of(lomo));
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.execute("DROP TABLE Productos");
+    }
+
+    @Test
+    void doscientosCheckoutsSimultaneosNoVendenMasDelStock() throws Exception {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Boolean>> resultados = new ArrayList<>();
+        try {
+            for (int i = 0; i < HILOS; i++) {
+                resultados.add(ejecutor.submit(() -> {
+                    largada.await();
+                    try {
+                        transacciones.executeWithoutResult(estado -> reservaStockService.reservar(Map.of(2, 1, 1, 1)));
+                        return true;
+                    } catch (ServiceException e) {
+                        assertThat(e.getMessage()).contains("Stock insuficiente");
+                        return false;
+                    }
+                }));
+            }
+            largada.countDown();
+
+            int aceptados = 0;
+            for (Future<Boolean> resultado : resultados) {
+                if (resultado.get(60, TimeUnit.SECONDS)) {
+                    aceptados++;
+                }
+            }
+
+            assertThat(aceptados).isEqualTo(STOCK_ESCASO);
+            assertThat(stock(1)).isZero();
+            // Los rechazados revirtieron también el descuento del otro producto
+            assertThat(stock(2)).isEqualTo(STOCK_HOLGADO - STOCK_ESCASO);
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void informaElPrimerProductoQueNoAlcanzaConElConteoDeCadaSentencia() {
+        JdbcPedidoLoteRepository repositorio = new JdbcPedidoLoteRepository(jdbcTemplate);
+        TreeMap<Integer, Integer> cantidades = new TreeMap<>(Map.of(1, STOCK_ESCASO + 1, 2, 3, 99, 1));
+
+        assertThat(repositorio.descontarStock(new TreeMap<>(Map.of(2, 3)))).isEmpty();
+        assertThat(repositorio.descontarStock(cantidades)).contains(1);
+        assertThat(repositorio.descontarStock(new TreeMap<>(Map.of(2, 1, 99, 1)))).contains(99);
+        assertThat(stock(1)).isEqualTo(STOCK_ESCASO);
+    }
+
+    private int stock(int idProducto) {
+        return jdbcTemplate.queryForObject("SELECT stock FROM Productos WHERE id_producto = ?", Integer.class, idProducto);
+    }
+}
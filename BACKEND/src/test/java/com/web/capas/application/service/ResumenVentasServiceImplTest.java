@@ -0,0 +1,86 @@
+package com.web.capas.application.service;
+
+import com.web.capas.domain.repository.ResumenProductoDiarioRepository;
+import com.web.capas.domain.repository.ResumenVentaDiariaRepository;
+import com.web.capas.infrastructure.persistence.entities.DetallePedido;
+import com.web.capas.infrastructure.persistence.entities.Pedido;
+import com.web.capas.infrastructure.persistence.entities.Producto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ResumenVentasServiceImplTest {
+
+    private static final LocalDate DIA = LocalDate.of(2025, 3, 10);
+
+    @Mock
+    private ResumenVentaDiariaRepository resumenVentaDiariaRepository;
+
+    @Mock
+    private ResumenProductoDiarioRepository resumenProductoDiarioRepository;
+
+    @InjectMocks
+    private ResumenVentasServiceImpl resumenVentasService;
+
+    @Test
+    void eliminarPedidoVendidoRestaVentaYProductos() {
+        Pedido pedido = pedido(Pedido.EstadoPedido.entregado, Pedido.EstadoPago.pagado);
+
+        resumenVentasService.registrarPedidoEliminado(pedido);
+
+        verify(resumenVentaDiariaRepository).acumular(DIA, "efectivo",
+            -1, new BigDecimal("-50.00"),
+            0, new BigDecimal("0.00"),
+            -1, new BigDecimal("-50.00"),
+            new BigDecimal("-5.00"));
+        verify(resumenProductoDiarioRepository).acumular(DIA, 7, -2, new BigDecimal("-50.00"));
+    }
+
+    @Test
+    void eliminarPedidoCanceladoRestaCreadoYCancelado() {
+        Pedido pedido = pedido(Pedido.EstadoPedido.cancelado, Pedido.EstadoPago.pendiente);
+
+        resumenVentasService.registrarPedidoEliminado(pedido);
+
+        verify(resumenVentaDiariaRepository).acumular(DIA, "efectivo",
+            -1, new BigDecimal("-50.00"),
+            -1, new BigDecimal("-50.00"),
+            0, new BigDecimal("0.00"),
+            new BigDecimal("0.00"));
+        verify(resumenProductoDiarioRepository, never()).acumular(any(), any(), anyInt(), any());
+    }
+
+    private Pedido pedido(Pedido.EstadoPedido estadoPedido, Pedido.EstadoPago estadoPago) {
+        Producto producto = new Producto();
+        producto.setIdProducto(7);
+
+        DetallePedido detalle = new DetallePedido();
+        detalle.setProducto(producto);
+        detalle.setCantidad(2);
+        detalle.setSubtotal(new BigDecimal("50.00"));
+
+        Pedido pedido = new Pedido();
+        pedido.setFechaPedido(LocalDateTime.of(DIA, LocalTime.NOON));
+        pedido.setMetodoPago(Pedido.MetodoPago.efectivo);
+        pedido.setEstadoPedido(estadoPedido);
+        pedido.setEstadoPago(estadoPago);
+        pedido.setTotalPedido(new BigDecimal("50.00"));
+        pedido.setDescuentoAplicado(new BigDecimal("5.00"));
+        pedido.setProductos(List.of(detalle));
+        return pedido;
+    }
+}
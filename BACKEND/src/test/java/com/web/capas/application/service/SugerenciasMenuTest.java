@@ -0,0 +1,156 @@
+package com.web.capas.application.service;
+
+import com.web.capas.domain.dto.CategoriaResponse;
+import com.web.capas.domain.dto.ProductoResponse;
+import com.web.capas.domain.dto.SugerenciaResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SugerenciasMenuTest {
+
+    private final SugerenciasMenu sugerencias = new SugerenciasMenu();
+
+    @Test
+    void ordenaPorVentasYRespetaElLimite() {
+        sugerencias.reconstruir(List.of(
+            producto(1, "Ceviche clásico", 1, "Pescados"),
+            producto(2, "Ceviche mixto", 1, "Pescados"),
+            producto(3, "Ceviche de conchas", 1, "Pescados")));
+        sugerencias.actualizarVentas(Map.of(1, 5L, 2, 30L, 3, 12L));
+
+        assertThat(sugerencias.sugerir("cev", 2)).extracting(SugerenciaResponse::getIdProducto).containsExactly(2, 3);
+        assertThat(sugerencias.sugerir("conchas", 5)).extracting(SugerenciaResponse::getIdProducto).containsExactly(3);
+    }
+
+    @Test
+    void unaEntradaQueCuelgaDosVecesDelMismoPrefijoSeSugiereUnaSolaVez() {
+        sugerencias.reconstruir(List.of(producto(1, "Pan con pan", 1, "Panadería")));
+
+        assertThat(sugerencias.sugerir("pan", 10)).extracting(SugerenciaResponse::getTexto)
+            .containsExactly("Pan con pan", "Panadería");
+    }
+
+    @Test
+    void alQuitarUnaDeLasMejoresSubeLaSiguiente() {
+        List<ProductoResponse> productos = new ArrayList<>();
+        Map<Integer, Long> ventas = new HashMap<>();
+        for (int id = 1; id <= SugerenciasMenu.MEJORES_POR_NODO + 5; id++) {
+            productos.add(producto(id, "Sopa " + id, 1, "Entradas"));
+            ventas.put(id, (long) id);
+        }
+        sugerencias.reconstruir(productos);
+        sugerencias.actualizarVentas(ventas);
+
+        sugerencias.eliminar(SugerenciasMenu.MEJORES_POR_NODO + 5);
+
+        List<SugerenciaResponse> resultado = sugerencias.sugerir("sopa", SugerenciasMenu.MEJORES_POR_NODO);
+        assertThat(resultado).hasSize(SugerenciasMenu.MEJORES_POR_NODO);
+        assertThat(resultado.get(0).getIdProducto()).isEqualTo(SugerenciasMenu.MEJORES_POR_NODO + 4);
+        assertThat(resultado.get(resultado.size() - 1).getIdProducto()).isEqualTo(5);
+    }
+
+    @Test
+    void laCategoriaSumaLasVentasDeSusProductosYDesapareceConElUltimo() {
+        sugerencias.reconstruir(List.of(
+            producto(1, "Chicha morada", 1, "Bebidas"),
+            producto(2, "Chicharrón", 2, "Chifa")));
+        sugerencias.actualizarVentas(Map.of(1, 10L, 2, 4L));
+        sugerencias.indexar(producto(3, "Limonada", 2, "Chifa"));
+        sugerencias.actualizarVentas(Map.of(1, 10L, 2, 4L, 3, 9L));
+
+        assertThat(sugerencias.sugerir("chi", 10)).extracting(SugerenciaResponse::getTexto)
+            .containsExactly("Chifa", "Chicha morada", "Chicharrón");
+
+        sugerencias.eliminar(2);
+        sugerencias.eliminar(3);
+
+        assertThat(sugerencias.sugerir("chi", 10)).extracting(SugerenciaResponse::getTexto)
+            .containsExactly("Chicha morada");
+    }
+
+    // Compara el top-k de cada nodo con un recorrido completo sobre altas, bajas y cambios de ventas al azar
+    @Test
+    void coincideConRecorrerTodasLasEntradas() {
+        String[] palabras = {"arroz", "aji", "ajo", "anticucho", "causa", "caldo", "ceviche", "chaufa", "pollo", "papa", "pan"};
+        String[] categorias = {"Criollos", "Caldos", "Postres", "Parrillas"};
+        Random azar = new Random(7);
+        Map<Integer, ProductoResponse> activos = new LinkedHashMap<>();
+        Map<Integer, Long> ventas = new HashMap<>();
+        sugerencias.reconstruir(List.of());
+
+        for (int paso = 0; paso < 400; paso++) {
+            int id = 1 + azar.nextInt(60);
+            if (azar.nextInt(4) == 0) {
+                activos.remove(id);
+                sugerencias.eliminar(id);
+            } else {
+                int idCategoria = 1 + azar.nextInt(categorias.length);
+                String nombre = palabras[azar.nextInt(palabras.length)] + " " + palabras[azar.nextInt(palabras.length)] + " " + id;
+                ProductoResponse producto = producto(id, nombre, idCategoria, categorias[idCategoria - 1]);
+                activos.put(id, producto);
+                sugerencias.indexar(producto);
+            }
+            if (paso % 50 == 0) {
+                ventas.put(id, (long) azar.nextInt(100));
+                sugerencias.actualizarVentas(ventas);
+            }
+            if (paso % 10 == 0) {
+                for (String prefijo : List.of("a", "aj", "c", "ca", "ch", "p", "pa", "pan", "cr", "po")) {
+                    assertThat(sugerencias.sugerir(prefijo, 8)).extracting(SugerenciaResponse::getTexto)
+                        .as("prefijo %s en el paso %d", prefijo, paso)
+                        .containsExactlyElementsOf(esperadas(activos, ventas, prefijo, 8));
+                }
+            }
+        }
+    }
+
+    private static List<String> esperadas(Map<Integer, ProductoResponse> activos, Map<Integer, Long> ventas, String prefijo, int limite) {
+        Map<String, Long> puntajes = new HashMap<>();
+        for (ProductoResponse producto : activos.values()) {
+            long vendidas = ventas.getOrDefault(producto.getIdProducto(), 0L);
+            if (algunaPalabraEmpiezaCon(producto.getNombre(), prefijo)) {
+                puntajes.put(producto.getNombre(), vendidas);
+            }
+            String categoria = producto.getCategoria().getNombre();
+            if (algunaPalabraEmpiezaCon(categoria, prefijo)) {
+                puntajes.merge(categoria, vendidas, Long::sum);
+            }
+        }
+        return puntajes.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+                .thenComparing(Map.Entry::getKey, String.CASE_INSENSITIVE_ORDER))
+            .limit(limite)
+            .map(Map.Entry::getKey)
+            .toList();
+    }
+
+    private static boolean algunaPalabraEmpiezaCon(String texto, String prefijo) {
+        List<String> tokens = NormalizadorTexto.tokenizar(texto);
+        for (int inicio = 0; inicio < tokens.size(); inicio++) {
+            if (String.join(" ", tokens.subList(inicio, tokens.size())).startsWith(prefijo)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ProductoResponse producto(int id, String nombre, int idCategoria, String nombreCategoria) {
+        CategoriaResponse categoria = new CategoriaResponse();
+        categoria.setIdCategoria(idCategoria);
+        categoria.setNombre(nombreCategoria);
+        ProductoResponse producto = new ProductoResponse();
+        producto.setIdProducto(id);
+        producto.setNombre(nombre);
+        producto.setCategoria(categoria);
+        return producto;
+    }
+}
@@ -0,0 +1,298 @@
+package com.web.capas.application.service;
+
+import com.stripe.net.Webhook;
+import com.web.capas.application.proxy.ProteccionProveedores;
+import com.web.capas.config.FabricaHilos;
+import com.web.capas.config.StripeProperties;
+import com.web.capas.config.WebhookStripeProperties;
+import com.web.capas.domain.repository.EventoStripeRepository;
+import com.web.capas.domain.repository.PagoRepository;
+import com.web.capas.domain.repository.PedidoRepository;
+import com.web.capas.domain.repository.UsuarioRepository;
+import com.web.capas.infrastructure.persistence.entities.EventoStripe;
+import com.web.capas.infrastructure.persistence.entities.Pago;
+import com.web.capas.infrastructure.persistence.entities.Pedido;
+import com.web.capas.infrastructure.persistence.entities.Usuario;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Webhooks de Stripe de punta a punta contra H2: payloads grabados de Stripe, firmados con un secreto de prueba
+// como lo hace Stripe (Webhook.Signature), pasan por WebhookStripeServiceImpl y ProcesadorEventosStripe hasta Pago.
+// Sin transacción de prueba: cada paso confirma, así los hilos del procesador ven los datos.
+@DataJpaTest
+@ActiveProfiles("prueba")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({WebhookStripeServiceImpl.class, ProcesadorEventosStripe.class, PagoServiceImpl.class,
+         StripeProperties.class, WebhookStripeProperties.class, FabricaHilos.class})
+class WebhookStripeIntegracionTest {
+
+    private static final String SECRETO = "whsec_prueba_integracion";
+    private static final String EVENTO_GRABADO = "evt_3PqL2bKx9aZ0bC1d0e5fGh7J";
+    private static final String EVENTO_FALLO_GRABADO = "evt_3PqL1zKx9aZ0bC1d1a2bCd3E";
+    private static final String INTENT_GRABADO = "pi_3PqL2bKx9aZ0bC1d0fW2x8Yz";
+
+    @Autowired
+    private WebhookStripeService webhookStripeService;
+
+    @Autowired
+    private ProcesadorEventosStripe procesador;
+
+    @Autowired
+    private StripeProperties stripeProperties;
+
+    @Autowired
+    private EventoStripeRepository eventoStripeRepository;
+
+    @Autowired
+    private PagoRepository pagoRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private ResumenVentasService resumenVentasService;
+
+    @MockitoBean
+    private NotificadorConfirmacionPedido notificadorConfirmacion;
+
+    @MockitoBean
+    private ProteccionProveedores proteccionProveedores;
+
+    private String paymentIntentId;
+
+    @BeforeEach
+    void configurarSecreto() {
+        stripeProperties.setWebhookSecret(SECRETO);
+        paymentIntentId = "pi_" + UUID.randomUUID().toString().replace("-", "");
+    }
+
+    @AfterEach
+    void limpiar() {
+        eventoStripeRepository.deleteAll();
+        pagoRepository.deleteAll();
+        pedidoRepository.deleteAll();
+        usuarioRepository.deleteAll();
+    }
+
+    @Test
+    void rechazaFirmaInvalidaYNoGuardaNada() throws Exception {
+        String payload = grabado("payment_intent.succeeded", nuevoId(), 0);
+        long ahora = Instant.now().getEpochSecond();
+
+        assertThatThrownBy(() -> webhookStripeService.recibirEvento(payload, firmar(payload, ahora, "whsec_otro_secreto")))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Firma de Stripe inválida");
+        // Cuerpo modificado después de firmar
+        String firmaOriginal = firmar(payload, ahora, SECRETO);
+        assertThatThrownBy(() -> webhookStripeService.recibirEvento(payload.replace("4550", "1"), firmaOriginal))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Firma de Stripe inválida");
+        // Firma vieja, fuera de la tolerancia de Stripe (reenvío de una entrega capturada)
+        String firmaVieja = firmar(payload, ahora - Webhook.DEFAULT_TOLERANCE - 60, SECRETO);
+        assertThatThrownBy(() -> webhookStripeService.recibirEvento(payload, firmaVieja))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Firma de Stripe inválida");
+        assertThatThrownBy(() -> webhookStripeService.recibirEvento(payload, null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(eventoStripeRepository.count()).isZero();
+    }
+
+    @Test
+    void eventoRepetidoSeGuardaYAplicaUnaSolaVez() throws Exception {
+        Pago pago = crearPagoPendiente();
+        String idEvento = nuevoId();
+        String payload = grabado("payment_intent.succeeded", idEvento, 0);
+
+        assertThat(recibir(payload)).isTrue();
+        esperarProcesado(idEvento);
+        // Stripe reintenta la entrega con el mismo id (por ejemplo, si nuestra respuesta se perdió)
+        assertThat(recibir(payload)).isFalse();
+        assertThat(recibir(payload)).isFalse();
+
+        assertThat(eventoStripeRepository.count()).isEqualTo(1);
+        assertThat(eventoStripeRepository.findById(idEvento).orElseThrow().getIntentos()).isEqualTo(1);
+        assertThat(estadoDe(pago)).isEqualTo(Pago.EstadoTransaccion.exitoso);
+        verify(resumenVentasService, times(1)).registrarCambioDeEstado(any(), any(), any());
+        verify(notificadorConfirmacion, times(1)).notificarDespuesDelCommit(any());
+    }
+
+    @Test
+    void falloQueLlegaDespuesDelExitoNoRevierteElPago() throws Exception {
+        Pago pago = crearPagoPendiente();
+        String idExito = nuevoId();
+        String idFallo = nuevoId();
+
+        recibir(grabado("payment_intent.succeeded", idExito, 0));
+        esperarProcesado(idExito);
+        // El fallo se generó antes, pero Stripe lo entrega después
+        recibir(grabado("payment_intent.payment_failed", idFallo, -60));
+        esperarProcesado(idFallo);
+
+        assertThat(estadoDe(pago)).isEqualTo(Pago.EstadoTransaccion.exitoso);
+        assertThat(pedidoRepository.findById(pago.getPedido().getIdPedido()).orElseThrow().getEstadoPago())
+            .isEqualTo(Pedido.EstadoPago.pagado);
+    }
+
+    @Test
+    void eventosDesordenadosSeAplicanEnElOrdenDeStripe() throws Exception {
+        Pago pago = crearPagoPendiente();
+        String idExito = nuevoId();
+        String idFallo = nuevoId();
+        String exito = grabado("payment_intent.succeeded", idExito, 0);
+        String fallo = grabado("payment_intent.payment_failed", idFallo, -60);
+
+        // Los dos quedan guardados antes de que el procesador los vea: el éxito llega primero
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            recibir(exito);
+            recibir(fallo);
+        });
+        esperarProcesado(idExito);
+        esperarProcesado(idFallo);
+
+        // Se aplicaron por fecha de Stripe: primero el fallo y después el éxito
+        assertThat(estadoDe(pago)).isEqualTo(Pago.EstadoTransaccion.exitoso);
+        assertThat(eventoStripeRepository.findById(idFallo).orElseThrow().getFechaProceso())
+            .isBeforeOrEqualTo(eventoStripeRepository.findById(idExito).orElseThrow().getFechaProceso());
+    }
+
+    @Test
+    void webhookAntesDelPagoSeReintentaHastaQueExista() throws Exception {
+        String idEvento = nuevoId();
+        recibir(grabado("payment_intent.succeeded", idEvento, 0));
+
+        // El intent todavía no tiene fila en Pagos: queda pendiente con el error y un reintento programado
+        esperar(() -> eventoStripeRepository.findById(idEvento).orElseThrow().getIntentos() == 1);
+        EventoStripe evento = eventoStripeRepository.findById(idEvento).orElseThrow();
+        assertThat(evento.getEstado()).isEqualTo(EventoStripe.Estado.pendiente);
+        assertThat(evento.getUltimoError()).isEqualTo("Pago no encontrado");
+        assertThat(evento.getProximoIntento()).isAfter(LocalDateTime.now());
+
+        // Se confirma crear-intent; en vez de esperar la espera exponencial se adelanta el reintento
+        Pago pago = crearPagoPendiente();
+        evento.setProximoIntento(LocalDateTime.now());
+        eventoStripeRepository.save(evento);
+        procesador.despertar();
+
+        esperarProcesado(idEvento);
+        EventoStripe procesado = eventoStripeRepository.findById(idEvento).orElseThrow();
+        assertThat(procesado.getIntentos()).isEqualTo(2);
+        assertThat(procesado.getUltimoError()).isNull();
+        assertThat(estadoDe(pago)).isEqualTo(Pago.EstadoTransaccion.exitoso);
+    }
+
+    private boolean recibir(String payload) {
+        try {
+            return webhookStripeService.recibirEvento(payload, firmar(payload, Instant.now().getEpochSecond(), SECRETO));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Misma cabecera Stripe-Signature que arma Stripe: t=<segundos>,v1=HMAC-SHA256(secreto, "t.payload")
+    private static String firmar(String payload, long segundos, String secreto) throws Exception {
+        String firma = Webhook.Util.computeHmacSha256(secreto, segundos + "." + payload);
+        return "t=" + segundos + ",v1=" + firma;
+    }
+
+    // Payload grabado con el id del evento, el del intent y la fecha de creación cambiados para esta prueba
+    private String grabado(String tipo, String idEvento, long desplazamientoSegundos) throws IOException {
+        String original = new ClassPathResource("webhooks/stripe/" + tipo + ".json").getContentAsString(StandardCharsets.UTF_8);
+        String idOriginal = tipo.equals("payment_intent.succeeded") ? EVENTO_GRABADO : EVENTO_FALLO_GRABADO;
+        long creado = Instant.now().getEpochSecond() + desplazamientoSegundos;
+        return original
+            .replace(idOriginal, idEvento)
+            .replace(INTENT_GRABADO, paymentIntentId)
+            .replaceFirst("\"created\": \\d+", "\"created\": " + creado);
+    }
+
+    private static String nuevoId() {
+        return "evt_" + UUID.randomUUID().toString().replace("-", "");
+    }
+
+    private Pago crearPagoPendiente() {
+        Usuario cliente = new Usuario();
+        cliente.setNombre("Cliente");
+        cliente.setApellido("Prueba");
+        cliente.setEmail(paymentIntentId + "@correo.com");
+        cliente.setUsername(paymentIntentId);
+        cliente.setContrasenaEncriptada("hash");
+        cliente.setRol(Usuario.Rol.cliente);
+        cliente.setActivo(true);
+        usuarioRepository.save(cliente);
+
+        Pedido pedido = new Pedido();
+        pedido.setCliente(cliente);
+        pedido.setFechaPedido(LocalDateTime.now());
+        pedido.setEstadoPedido(Pedido.EstadoPedido.pendiente);
+        pedido.setEstadoPago(Pedido.EstadoPago.pendiente);
+        pedido.setMetodoPago(Pedido.MetodoPago.tarjeta);
+        pedido.setTotalPedido(new BigDecimal("45.50"));
+        pedido.setDireccionEntrega("Av. Siempre Viva 123");
+        pedidoRepository.save(pedido);
+
+        Pago pago = new Pago();
+        pago.setPedido(pedido);
+        pago.setMonto(new BigDecimal("45.50"));
+        pago.setMetodoPago(Pago.MetodoPago.tarjeta);
+        pago.setEstadoTransaccion(Pago.EstadoTransaccion.pendiente);
+        pago.setFechaPago(LocalDateTime.now());
+        pago.setReferenciaTransaccion(paymentIntentId);
+        return pagoRepository.save(pago);
+    }
+
+    private Pago.EstadoTransaccion estadoDe(Pago pago) {
+        return pagoRepository.findById(pago.getIdPago()).orElseThrow().getEstadoTransaccion();
+    }
+
+    private void esperarProcesado(String idEvento) throws InterruptedException {
+        esperar(() -> eventoStripeRepository.findById(idEvento)
+            .map(evento -> evento.getEstado() == EventoStripe.Estado.procesado).orElse(false));
+    }
+
+    private static void esperar(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.nanoTime() + 10_000_000_000L;
+        while (!condicion.getAsBoolean()) {
+            if (System.nanoTime() > limite) {
+                throw new AssertionError("El procesador no terminó a tiempo");
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.web.capas.application.strategy;
+
+import com.web.capas.application.factory.NotificacionType;
+import com.web.capas.application.singleton.NotificacionConfiguracion;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Las plantillas compiladas deben producir exactamente lo mismo que el armado anterior
+// (cadena de replace en el correo, concatenación/format en cada estrategia)
+class PlantillaCompiladaTest {
+
+    private static final List<String[]> VALORES = List.of(
+        new String[] {"Ana", "https://restaurante.pe/restablecer-contrasena?token=abc123"},
+        new String[] {"José Ñúñez", "https://restaurante.pe/restablecer-contrasena?token=a$b\\c&d=1"},
+        new String[] {"", "http://localhost:4200/restablecer-contrasena?token="},
+        new String[] {"<b>O'Brien</b>", "https://x.pe/?token=" + "z".repeat(300)});
+
+    @Test
+    void correoDeRecuperacionIgualAlReemplazoEnCadena() throws IOException {
+        String html = StreamUtils.copyToString(
+            new ClassPathResource("templates/email/recuperacion_contrasena.html").getInputStream(), StandardCharsets.UTF_8);
+        PlantillaCompilada plantilla = PlantillaCompilada.compilar(html, "nombreUsuario", "enlaceRecuperacion");
+
+        for (String[] valores : VALORES) {
+            String anterior = html.replace("{{nombreUsuario}}", valores[0]).replace("{{enlaceRecuperacion}}", valores[1]);
+            assertThat(plantilla.renderizar(valores[0], valores[1])).isEqualTo(anterior);
+        }
+    }
+
+    @Test
+    void estrategiasIgualesAlArmadoAnterior() {
+        NotificacionStrategyContext contexto = new NotificacionStrategyContext(List.of(
+            new EmailContenidoStrategy(), new SmsContenidoStrategy(), new WhatsAppContenidoStrategy()));
+        String prefijo = NotificacionConfiguracion.getInstance().getPrefijoAplicacion();
+        List<String> mensajes = List.of("Tu pedido #15 está en camino", "", "Línea 1\nLínea 2 con 100% de $", "x".repeat(200));
+
+        for (String mensaje : mensajes) {
+            String destinatario = "María";
+            assertThat(contexto.construirMensaje(NotificacionType.EMAIL, destinatario, mensaje))
+                .isEqualTo(prefijo + " Estimado/a " + destinatario + ",\n\n" + mensaje + "\n\nSaludos cordiales.");
+            assertThat(contexto.construirMensaje(NotificacionType.WHATSAPP, destinatario, mensaje))
+                .isEqualTo(String.format("%s 👋 Hola %s!\n%s", prefijo, destinatario, mensaje));
+            String sms = prefijo + " " + mensaje;
+            assertThat(contexto.construirMensaje(NotificacionType.SMS, destinatario, mensaje))
+                .isEqualTo(sms.length() > 140 ? sms.substring(0, 137) + "..." : sms);
+        }
+    }
+
+    @Test
+    void unaVariableNoDeclaradaFallaAlCompilar() {
+        assertThatThrownBy(() -> PlantillaCompilada.compilar("Hola {{nombre}} {{apellido}}", "nombre"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("apellido");
+    }
+
+    @Test
+    void renderizaVariablesRepetidasNulasYSinCerrar() {
+        PlantillaCompilada plantilla = PlantillaCompilada.compilar("{{a}}-{{ b }}-{{a}} {{sin cerrar", "a", "b");
+
+        assertThat(plantilla.renderizar("x", null)).isEqualTo("x--x {{sin cerrar");
+        assertThatThrownBy(() -> plantilla.renderizar("x")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
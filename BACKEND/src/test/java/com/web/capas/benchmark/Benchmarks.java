@@ -0,0 +1,33 @@
+package com.web.capas.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+
+// Corre los benchmarks JMH dentro de la JVM de surefire (sin fork), para no depender de un plugin aparte.
+// Los números sirven para comparar alternativas en la misma máquina, no como valores absolutos.
+// Uso: mvn test -Dtest=<ClaseBenchmark> -Dbenchmarks=true
+public final class Benchmarks {
+
+    public static final String PROPIEDAD = "benchmarks";
+
+    private Benchmarks() {
+    }
+
+    public static Collection<RunResult> ejecutar(Class<?> clase) throws RunnerException {
+        Options opciones = new OptionsBuilder()
+            .include(clase.getName().replace("$", ".") + ".")
+            .forks(0)
+            .warmupIterations(2)
+            .warmupTime(TimeValue.seconds(1))
+            .measurementIterations(3)
+            .measurementTime(TimeValue.seconds(1))
+            .build();
+        return new Runner(opciones).run();
+    }
+}
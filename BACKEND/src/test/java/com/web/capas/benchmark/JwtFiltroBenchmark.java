@@ -0,0 +1,108 @@
+package com.web.capas.benchmark;
+
+import com.web.capas.application.service.JwtService;
+import com.web.capas.application.service.RevocacionTokens;
+import com.web.capas.config.JwtAuthenticationFilter;
+import com.web.capas.config.JwtProperties;
+import com.web.capas.domain.repository.UsuarioRepository;
+import com.web.capas.infrastructure.persistence.entities.Usuario;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// JwtAuthenticationFilter con la cache de JwtService llena de tokens vigentes (capacidad 10000):
+// un token ya verificado (acierto) y un token distinto en cada petición (fallo que tiene que hacer lugar).
+// Antes de acotar la cache por LRU cada fallo con la cache llena recorría los 10000 registros.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtFiltroBenchmark {
+
+    private static final int CAPACIDAD = 10000;
+    // Más tokens que lugares en la cache, así cada vuelta sobre la lista vuelve a fallar
+    private static final int TOKENS_NUEVOS = CAPACIDAD * 3;
+
+    private static final FilterChain CADENA = (peticion, respuesta) -> { };
+
+    private JwtAuthenticationFilter filtro;
+    private String tokenEnCache;
+    private String[] tokensNuevos;
+    private final AtomicInteger siguiente = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        JwtProperties properties = new JwtProperties();
+        properties.setClaves(Map.of("principal", "clave-de-benchmark-con-mas-de-32-caracteres"));
+        properties.setCapacidadCache(CAPACIDAD);
+        JwtService jwtService = new JwtService(properties,
+            new RevocacionTokens(Mockito.mock(UsuarioRepository.class), properties));
+        filtro = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filtro, "jwtService", jwtService);
+
+        tokenEnCache = jwtService.generateToken(usuario(0));
+        tokensNuevos = new String[TOKENS_NUEVOS];
+        for (int i = 0; i < TOKENS_NUEVOS; i++) {
+            tokensNuevos[i] = jwtService.generateToken(usuario(i + 1));
+        }
+        // Cache llena antes de medir
+        for (int i = 0; i < CAPACIDAD; i++) {
+            jwtService.obtenerClaimsVerificadas(tokensNuevos[i]);
+        }
+        jwtService.obtenerClaimsVerificadas(tokenEnCache);
+        siguiente.set(CAPACIDAD);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse tokenEnCache() throws ServletException, IOException {
+        return filtrar(tokenEnCache);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse tokenNuevoConCacheLlena() throws ServletException, IOException {
+        return filtrar(tokensNuevos[Math.floorMod(siguiente.getAndIncrement(), TOKENS_NUEVOS)]);
+    }
+
+    private MockHttpServletResponse filtrar(String token) throws ServletException, IOException {
+        MockHttpServletRequest peticion = new MockHttpServletRequest("GET", "/api/pedidos");
+        peticion.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse respuesta = new MockHttpServletResponse();
+        filtro.doFilter(peticion, respuesta, CADENA);
+        SecurityContextHolder.clearContext();
+        return respuesta;
+    }
+
+    private static Usuario usuario(int id) {
+        Usuario usuario = new Usuario();
+        usuario.setIdUsuario(id);
+        usuario.setNombre("Cliente " + id);
+        usuario.setEmail("cliente" + id + "@correo.com");
+        usuario.setRol(Usuario.Rol.cliente);
+        usuario.setGeneracionToken(0);
+        return usuario;
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = Benchmarks.PROPIEDAD, matches = "true")
+    void ejecutar() throws Exception {
+        Benchmarks.ejecutar(JwtFiltroBenchmark.class);
+    }
+}
@@ -0,0 +1,104 @@
+package com.web.capas.benchmark;
+
+import com.web.capas.application.service.HashContrasenas;
+import com.web.capas.application.service.UsuarioServiceImpl;
+import com.web.capas.config.ContrasenasProperties;
+import com.web.capas.domain.repository.UsuarioRepository;
+import com.web.capas.infrastructure.persistence.entities.Usuario;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Ráfaga de logins (8 hilos de Tomcat) mientras otro hilo atiende peticiones comunes, con costo 10 en ambos casos.
+// antes: BCrypt en el hilo de la petición, como hacía UsuarioServiceImpl con su propio BCryptPasswordEncoder.
+// despues: autenticarUsuario pasa por HashContrasenas (2 hilos, cola de 64).
+// Interesa cuánto le queda al resto de las peticiones y que los logins por segundo no bajen.
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LoginBenchmark {
+
+    private static final String EMAIL = "cliente@correo.com";
+    private static final String CONTRASENA = "secreta-de-benchmark";
+    private static final int COSTO = 10;
+
+    private UsuarioRepository usuarioRepository;
+    private BCryptPasswordEncoder encoderAntes;
+    private HashContrasenas hashContrasenas;
+    private UsuarioServiceImpl usuarioService;
+
+    @Setup
+    public void preparar() {
+        encoderAntes = new BCryptPasswordEncoder(COSTO);
+        Usuario usuario = new Usuario();
+        usuario.setIdUsuario(1);
+        usuario.setEmail(EMAIL);
+        usuario.setContrasenaEncriptada(encoderAntes.encode(CONTRASENA));
+        usuario.setActivo(true);
+        usuarioRepository = Mockito.mock(UsuarioRepository.class);
+        Mockito.when(usuarioRepository.findByEmail(EMAIL)).thenReturn(Optional.of(usuario));
+
+        ContrasenasProperties properties = new ContrasenasProperties();
+        properties.setCosto(COSTO);
+        hashContrasenas = new HashContrasenas(properties);
+        usuarioService = new UsuarioServiceImpl();
+        ReflectionTestUtils.setField(usuarioService, "usuarioRepository", usuarioRepository);
+        ReflectionTestUtils.setField(usuarioService, "hashContrasenas", hashContrasenas);
+    }
+
+    @TearDown
+    public void detener() {
+        hashContrasenas.detener();
+    }
+
+    @Benchmark
+    @Group("antes")
+    @GroupThreads(8)
+    public boolean loginAntes() {
+        Usuario usuario = usuarioRepository.findByEmail(EMAIL).orElseThrow();
+        return encoderAntes.matches(CONTRASENA, usuario.getContrasenaEncriptada());
+    }
+
+    @Benchmark
+    @Group("antes")
+    @GroupThreads(1)
+    public void otraPeticionAntes() {
+        Blackhole.consumeCPU(20_000);
+    }
+
+    @Benchmark
+    @Group("despues")
+    @GroupThreads(8)
+    public Usuario loginDespues() {
+        return usuarioService.autenticarUsuario(EMAIL, CONTRASENA);
+    }
+
+    @Benchmark
+    @Group("despues")
+    @GroupThreads(1)
+    public void otraPeticionDespues() {
+        Blackhole.consumeCPU(20_000);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = Benchmarks.PROPIEDAD, matches = "true")
+    void ejecutar() throws Exception {
+        Benchmarks.ejecutar(LoginBenchmark.class);
+    }
+}
@@ -0,0 +1,93 @@
+package com.web.capas.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.web.capas.application.service.CatalogoMenuCache;
+import com.web.capas.domain.dto.CategoriaResponse;
+import com.web.capas.domain.dto.ProductoResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// GET /api/v1/menu/productos: serializar (y comprimir) en cada petición contra escribir los bytes de la foto.
+// 2000 productos es el tamaño de menú pedido; 200 queda como referencia de un menú chico.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MenuSerializacionBenchmark {
+
+    @Param({"200", "2000"})
+    private int cantidadProductos;
+
+    private ObjectMapper objectMapper;
+    private CatalogoMenuCache cache;
+    private List<ProductoResponse> productos;
+
+    @Setup
+    public void preparar() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        cache = new CatalogoMenuCache(objectMapper);
+        productos = new ArrayList<>();
+        for (int i = 1; i <= cantidadProductos; i++) {
+            CategoriaResponse categoria = new CategoriaResponse();
+            categoria.setIdCategoria(i % 8 + 1);
+            categoria.setNombre("Categoría " + (i % 8 + 1));
+            ProductoResponse producto = new ProductoResponse();
+            producto.setIdProducto(i);
+            producto.setNombre("Producto " + i);
+            producto.setDescripcion("Descripción del producto " + i + " con ingredientes y detalles");
+            producto.setPrecio(new BigDecimal("12.50"));
+            producto.setEstado("activo");
+            producto.setStock(10);
+            producto.setCategoria(categoria);
+            productos.add(producto);
+        }
+        cache.obtener(() -> productos);
+    }
+
+    @Benchmark
+    public byte[] serializarEnCadaPeticion() throws IOException {
+        return objectMapper.writeValueAsBytes(productos);
+    }
+
+    @Benchmark
+    public byte[] serializarYComprimirEnCadaPeticion() throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(productos);
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(json);
+        }
+        return salida.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] fotoPreserializada() {
+        return cache.obtener(() -> productos).getCuerpo().getJson();
+    }
+
+    @Benchmark
+    public byte[] fotoPreserializadaGzip() {
+        return cache.obtener(() -> productos).getCuerpo().getGzip();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = Benchmarks.PROPIEDAD, matches = "true")
+    void ejecutar() throws Exception {
+        Benchmarks.ejecutar(MenuSerializacionBenchmark.class);
+    }
+}
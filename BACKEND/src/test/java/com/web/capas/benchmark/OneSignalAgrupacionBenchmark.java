@@ -0,0 +1,100 @@
+package com.web.capas.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.web.capas.application.proxy.ProteccionProveedores;
+import com.web.capas.application.service.OneSignalSender;
+import com.web.capas.config.ApplicationUrlsProperties;
+import com.web.capas.config.ResilienciaProperties;
+import com.web.capas.infrastructure.config.OneSignalConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Un lote de 50 push al mismo contenido contra un OneSignal simulado que tarda 2 ms por petición:
+// una llamada agrupada contra una llamada por evento (lo que hacía el outbox antes de agrupar)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OneSignalAgrupacionBenchmark {
+
+    private static final int EVENTOS = 50;
+
+    private HttpServer servidor;
+    private OneSignalSender sender;
+    private List<String> playerIds;
+
+    @Setup
+    public void preparar() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.setExecutor(Executors.newCachedThreadPool());
+        servidor.createContext("/", intercambio -> {
+            intercambio.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            intercambio.sendResponseHeaders(200, -1);
+            intercambio.close();
+        });
+        servidor.start();
+
+        OneSignalConfig config = new OneSignalConfig();
+        ReflectionTestUtils.setField(config, "appId", "app-benchmark");
+        ReflectionTestUtils.setField(config, "restApiKey", "clave-benchmark");
+        ReflectionTestUtils.setField(config, "apiUrl", "http://127.0.0.1:" + servidor.getAddress().getPort() + "/");
+        ResilienciaProperties resiliencia = new ResilienciaProperties();
+        ApplicationUrlsProperties urls = new ApplicationUrlsProperties();
+        urls.setFrontend("http://localhost:4200");
+        sender = new OneSignalSender(config, new ProteccionProveedores(resiliencia), new ObjectMapper(),
+            HttpClient.newHttpClient(), resiliencia, urls);
+
+        playerIds = new ArrayList<>();
+        for (int i = 0; i < EVENTOS; i++) {
+            playerIds.add("cliente-" + i);
+        }
+    }
+
+    @TearDown
+    public void detener() {
+        servidor.stop(0);
+    }
+
+    @Benchmark
+    public boolean unaLlamadaPorEvento() {
+        boolean enviado = true;
+        for (String playerId : playerIds) {
+            enviado &= sender.enviarNotificacion(playerId, "Pedido en camino", "Tu pedido está en camino", Map.of("tipo", "estado_pedido"));
+        }
+        return enviado;
+    }
+
+    @Benchmark
+    public boolean loteAgrupado() {
+        return sender.enviarNotificacion(playerIds, "Pedido en camino", "Tu pedido está en camino", Map.of("tipo", "estado_pedido"));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = Benchmarks.PROPIEDAD, matches = "true")
+    void ejecutar() throws Exception {
+        Benchmarks.ejecutar(OneSignalAgrupacionBenchmark.class);
+    }
+}
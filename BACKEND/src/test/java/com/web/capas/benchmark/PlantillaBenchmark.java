@@ -0,0 +1,55 @@
+package com.web.capas.benchmark;
+
+import com.web.capas.application.strategy.PlantillaCompilada;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Correo de recuperación: la cadena de String.replace que se usaba antes contra la plantilla compilada
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlantillaBenchmark {
+
+    private String html;
+    private PlantillaCompilada plantilla;
+    private String nombreUsuario;
+    private String enlace;
+
+    @Setup
+    public void preparar() throws IOException {
+        html = StreamUtils.copyToString(
+            new ClassPathResource("templates/email/recuperacion_contrasena.html").getInputStream(), StandardCharsets.UTF_8);
+        plantilla = PlantillaCompilada.compilar(html, "nombreUsuario", "enlaceRecuperacion");
+        nombreUsuario = "José Ñúñez";
+        enlace = "https://restaurante.pe/restablecer-contrasena?token=7f1c2b3a-9d8e-4f5a-b6c7-d8e9f0a1b2c3";
+    }
+
+    @Benchmark
+    public String reemplazoEnCadena() {
+        return html.replace("{{nombreUsuario}}", nombreUsuario).replace("{{enlaceRecuperacion}}", enlace);
+    }
+
+    @Benchmark
+    public String plantillaCompilada() {
+        return plantilla.renderizar(nombreUsuario, enlace);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = Benchmarks.PROPIEDAD, matches = "true")
+    void ejecutar() throws Exception {
+        Benchmarks.ejecutar(PlantillaBenchmark.class);
+    }
+}
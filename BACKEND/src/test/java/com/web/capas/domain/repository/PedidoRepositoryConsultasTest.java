@@ -0,0 +1,151 @@
+package com.web.capas.domain.repository;
+
+import com.web.capas.infrastructure.persistence.entities.Categoria;
+import com.web.capas.infrastructure.persistence.entities.DetallePedido;
+import com.web.capas.infrastructure.persistence.entities.Pedido;
+import com.web.capas.infrastructure.persistence.entities.Producto;
+import com.web.capas.infrastructure.persistence.entities.Usuario;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Los listados de pedidos deben hacer la misma cantidad de consultas con 3 pedidos que con 30:
+// una para los pedidos (con cliente y repartidor) y los detalles en lotes de @BatchSize
+@DataJpaTest
+@ActiveProfiles("prueba")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PedidoRepositoryConsultasTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Test
+    void listadoDelClienteConGrafoHaceConsultasConstantes() {
+        Usuario pocos = crearCliente("pocos");
+        Usuario muchos = crearCliente("muchos");
+        List<Producto> productos = crearProductos(3);
+        crearPedidos(pocos, productos, 3);
+        crearPedidos(muchos, productos, 30);
+
+        long consultasPocos = contarConsultas(() -> pedidoRepository.findByCliente_IdUsuarioOrderByFechaPedidoDesc(pocos.getIdUsuario()));
+        long consultasMuchos = contarConsultas(() -> pedidoRepository.findByCliente_IdUsuarioOrderByFechaPedidoDesc(muchos.getIdUsuario()));
+
+        assertThat(consultasPocos).isPositive();
+        assertThat(consultasMuchos).isEqualTo(consultasPocos);
+        assertThat(consultasMuchos).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void paginaDelClienteHaceConsultasConstantes() {
+        Usuario pocos = crearCliente("pocos");
+        Usuario muchos = crearCliente("muchos");
+        List<Producto> productos = crearProductos(3);
+        crearPedidos(pocos, productos, 3);
+        crearPedidos(muchos, productos, 30);
+
+        PageRequest limite = PageRequest.of(0, 21);
+        long consultasPocos = contarConsultas(() ->
+            pedidoRepository.findByCliente_IdUsuarioOrderByFechaPedidoDescIdPedidoDesc(pocos.getIdUsuario(), limite));
+        long consultasMuchos = contarConsultas(() ->
+            pedidoRepository.findByCliente_IdUsuarioOrderByFechaPedidoDescIdPedidoDesc(muchos.getIdUsuario(), limite));
+
+        assertThat(consultasPocos).isPositive();
+        assertThat(consultasMuchos).isEqualTo(consultasPocos);
+        assertThat(consultasMuchos).isLessThanOrEqualTo(3);
+    }
+
+    // Consultas hechas al cargar los pedidos y recorrer todo lo que usa PedidoListaResponse
+    private long contarConsultas(Supplier<List<Pedido>> consulta) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        for (Pedido pedido : consulta.get()) {
+            pedido.getCliente().getNombre();
+            if (pedido.getRepartidor() != null) {
+                pedido.getRepartidor().getNombre();
+            }
+            for (DetallePedido detalle : pedido.getProductos()) {
+                detalle.getProducto().getNombre();
+                detalle.getProducto().getCategoria().getNombre();
+            }
+        }
+        return estadisticas.getPrepareStatementCount();
+    }
+
+    private Usuario crearCliente(String nombre) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre(nombre);
+        usuario.setApellido("Prueba");
+        usuario.setEmail(nombre + "@correo.com");
+        usuario.setUsername(nombre);
+        usuario.setContrasenaEncriptada("hash");
+        usuario.setRol(Usuario.Rol.cliente);
+        usuario.setActivo(true);
+        return entityManager.persist(usuario);
+    }
+
+    private List<Producto> crearProductos(int cantidad) {
+        Categoria categoria = new Categoria();
+        categoria.setNombre("Bebidas " + System.nanoTime());
+        entityManager.persist(categoria);
+
+        List<Producto> productos = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            Producto producto = new Producto();
+            producto.setNombre("Producto " + i);
+            producto.setPrecio(new BigDecimal("10.00"));
+            producto.setCategoria(categoria);
+            producto.setEstado(Producto.EstadoProducto.values()[0]);
+            producto.setStock(100);
+            productos.add(entityManager.persist(producto));
+        }
+        return productos;
+    }
+
+    private void crearPedidos(Usuario cliente, List<Producto> productos, int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            Pedido pedido = new Pedido();
+            pedido.setCliente(cliente);
+            pedido.setFechaPedido(LocalDateTime.now().minusMinutes(i));
+            pedido.setEstadoPedido(Pedido.EstadoPedido.pendiente);
+            pedido.setEstadoPago(Pedido.EstadoPago.pendiente);
+            pedido.setMetodoPago(Pedido.MetodoPago.efectivo);
+            pedido.setTotalPedido(new BigDecimal("20.00"));
+            pedido.setDireccionEntrega("Av. Siempre Viva 123");
+            entityManager.persist(pedido);
+
+            for (Producto producto : productos.subList(0, 2)) {
+                DetallePedido detalle = new DetallePedido();
+                detalle.setPedido(pedido);
+                detalle.setProducto(producto);
+                detalle.setCantidad(1);
+                detalle.setPrecioUnitario(new BigDecimal("10.00"));
+                detalle.setSubtotal(new BigDecimal("10.00"));
+                entityManager.persist(detalle);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.web.capas.domain.repository;
+
+import com.web.capas.infrastructure.persistence.entities.Pedido;
+import com.web.capas.infrastructure.persistence.entities.Usuario;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// El cambio de estado tras una notificación solo se escribe si el pedido sigue en el estado que se leyó
+@DataJpaTest
+@ActiveProfiles("prueba")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PedidoRepositoryEstadoTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Test
+    void cambiaElEstadoSiSigueSiendoElEsperado() {
+        Pedido pedido = crearPedido(Pedido.EstadoPedido.en_camino);
+
+        int actualizados = pedidoRepository.actualizarEstadoSiNoCambio(pedido.getIdPedido(),
+            Pedido.EstadoPedido.en_camino, Pedido.EstadoPedido.entregado);
+
+        assertThat(actualizados).isEqualTo(1);
+        assertThat(estadoDe(pedido)).isEqualTo(Pedido.EstadoPedido.entregado);
+    }
+
+    @Test
+    void noPisaUnaCancelacionQueLlegoAntes() {
+        Pedido pedido = crearPedido(Pedido.EstadoPedido.en_camino);
+        // El pedido se canceló mientras el aviso de entrega seguía reintentando
+        pedidoRepository.actualizarEstadoSiNoCambio(pedido.getIdPedido(),
+            Pedido.EstadoPedido.en_camino, Pedido.EstadoPedido.cancelado);
+
+        int actualizados = pedidoRepository.actualizarEstadoSiNoCambio(pedido.getIdPedido(),
+            Pedido.EstadoPedido.en_camino, Pedido.EstadoPedido.entregado);
+
+        assertThat(actualizados).isZero();
+        assertThat(estadoDe(pedido)).isEqualTo(Pedido.EstadoPedido.cancelado);
+    }
+
+    private Pedido crearPedido(Pedido.EstadoPedido estado) {
+        String nombre = "cliente" + System.nanoTime();
+        Usuario cliente = new Usuario();
+        cliente.setNombre(nombre);
+        cliente.setApellido("Prueba");
+        cliente.setEmail(nombre + "@correo.com");
+        cliente.setUsername(nombre);
+        cliente.setContrasenaEncriptada("hash");
+        cliente.setRol(Usuario.Rol.cliente);
+        cliente.setActivo(true);
+        entityManager.persist(cliente);
+
+        Pedido pedido = new Pedido();
+        pedido.setCliente(cliente);
+        pedido.setFechaPedido(LocalDateTime.now());
+        pedido.setEstadoPedido(estado);
+        pedido.setEstadoPago(Pedido.EstadoPago.pagado);
+        pedido.setMetodoPago(Pedido.MetodoPago.efectivo);
+        pedido.setTotalPedido(new BigDecimal("20.00"));
+        pedido.setDireccionEntrega("Av. Siempre Viva 123");
+        entityManager.persistAndFlush(pedido);
+        entityManager.clear();
+        return pedido;
+    }
+
+    private Pedido.EstadoPedido estadoDe(Pedido pedido) {
+        entityManager.clear();
+        return pedidoRepository.findById(pedido.getIdPedido()).orElseThrow().getEstadoPedido();
+    }
+}
@@ -0,0 +1,77 @@
+package com.web.capas.domain.repository;
+
+import com.web.capas.infrastructure.persistence.entities.Usuario;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// El rehash tras un login escribe el hash nuevo solo si el guardado sigue siendo el que se verificó:
+// un cambio de contraseña que llegó entretanto no se pisa
+@DataJpaTest
+@ActiveProfiles("prueba")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UsuarioRepositoryRehashTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Test
+    void reemplazaElHashSiNoCambio() {
+        Usuario usuario = crearUsuario("$2a$04$hash-viejo");
+
+        int actualizados = usuarioRepository.actualizarContrasenaSiNoCambio(usuario.getIdUsuario(), "$2a$04$hash-viejo", "$2a$12$hash-nuevo");
+
+        assertThat(actualizados).isEqualTo(1);
+        assertThat(hashGuardado(usuario)).isEqualTo("$2a$12$hash-nuevo");
+    }
+
+    @Test
+    void noPisaUnCambioDeContrasenaSimultaneo() {
+        Usuario usuario = crearUsuario("$2a$04$hash-viejo");
+        // El usuario cambió la contraseña entre el login y el rehash en segundo plano
+        usuarioRepository.actualizarContrasenaSiNoCambio(usuario.getIdUsuario(), "$2a$04$hash-viejo", "$2a$12$contrasena-cambiada");
+
+        int actualizados = usuarioRepository.actualizarContrasenaSiNoCambio(usuario.getIdUsuario(), "$2a$04$hash-viejo", "$2a$12$rehash-del-login");
+
+        assertThat(actualizados).isZero();
+        assertThat(hashGuardado(usuario)).isEqualTo("$2a$12$contrasena-cambiada");
+    }
+
+    @Test
+    void soloTocaAlUsuarioIndicado() {
+        Usuario usuario = crearUsuario("$2a$04$mismo-hash");
+        Usuario otro = crearUsuario("$2a$04$mismo-hash");
+
+        usuarioRepository.actualizarContrasenaSiNoCambio(usuario.getIdUsuario(), "$2a$04$mismo-hash", "$2a$12$hash-nuevo");
+
+        assertThat(hashGuardado(otro)).isEqualTo("$2a$04$mismo-hash");
+    }
+
+    private Usuario crearUsuario(String hash) {
+        String nombre = "usuario" + System.nanoTime();
+        Usuario usuario = new Usuario();
+        usuario.setNombre(nombre);
+        usuario.setApellido("Prueba");
+        usuario.setEmail(nombre + "@correo.com");
+        usuario.setUsername(nombre);
+        usuario.setContrasenaEncriptada(hash);
+        usuario.setRol(Usuario.Rol.cliente);
+        usuario.setActivo(true);
+        entityManager.persistAndFlush(usuario);
+        entityManager.clear();
+        return usuario;
+    }
+
+    private String hashGuardado(Usuario usuario) {
+        entityManager.clear();
+        return usuarioRepository.findById(usuario.getIdUsuario()).orElseThrow().getContrasenaEncriptada();
+    }
+}
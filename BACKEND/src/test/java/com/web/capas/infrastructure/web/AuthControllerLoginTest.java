@@ -0,0 +1,126 @@
+package com.web.capas.infrastructure.web;
+
+import com.web.capas.application.service.HashContrasenas;
+import com.web.capas.application.service.SesionService;
+import com.web.capas.application.service.UsuarioServiceImpl;
+import com.web.capas.config.ContrasenasProperties;
+import com.web.capas.config.GlobalExceptionHandler;
+import com.web.capas.domain.repository.UsuarioRepository;
+import com.web.capas.infrastructure.persistence.entities.Usuario;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Login con el ejecutor de BCrypt saturado (un hilo ocupado y la cola llena): responde 429 con Retry-After
+// sin verificar la contraseña ni iniciar sesión
+@ExtendWith(MockitoExtension.class)
+class AuthControllerLoginTest {
+
+    private static final String CUERPO = "{\"email\":\"cliente@correo.com\",\"contrasena\":\"secreta\"}";
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private SesionService sesionService;
+
+    private HashContrasenas hashContrasenas;
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void configurar() {
+        ContrasenasProperties properties = new ContrasenasProperties();
+        properties.setHilos(1);
+        properties.setCapacidadCola(1);
+        properties.setCosto(5);
+        hashContrasenas = new HashContrasenas(properties);
+
+        UsuarioServiceImpl usuarioService = new UsuarioServiceImpl();
+        ReflectionTestUtils.setField(usuarioService, "usuarioRepository", usuarioRepository);
+        ReflectionTestUtils.setField(usuarioService, "hashContrasenas", hashContrasenas);
+        AuthController authController = new AuthController();
+        ReflectionTestUtils.setField(authController, "usuarioService", usuarioService);
+        ReflectionTestUtils.setField(authController, "sesionService", sesionService);
+        mockMvc = MockMvcBuilders.standaloneSetup(authController)
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+        Usuario usuario = new Usuario();
+        usuario.setIdUsuario(1);
+        usuario.setEmail("cliente@correo.com");
+        usuario.setContrasenaEncriptada(new BCryptPasswordEncoder(5).encode("secreta"));
+        usuario.setActivo(true);
+        when(usuarioRepository.findByEmail("cliente@correo.com")).thenReturn(Optional.of(usuario));
+    }
+
+    @AfterEach
+    void detener() {
+        liberar.countDown();
+        hashContrasenas.detener();
+    }
+
+    @Test
+    void conLaColaDeBcryptLlenaResponde429() throws Exception {
+        CountDownLatch ocupado = new CountDownLatch(1);
+        CompletableFuture.runAsync(() -> hashContrasenas.ejecutar(codificador -> {
+            ocupado.countDown();
+            return esperarLiberacion();
+        }));
+        assertThat(ocupado.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture.runAsync(() -> hashContrasenas.ejecutar(codificador -> true));
+        esperarColaLlena();
+
+        mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(CUERPO))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+        verify(sesionService, never()).iniciarSesion(any());
+    }
+
+    @Test
+    void conLugarEnLaColaElLoginSigueFuncionando() throws Exception {
+        mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(CUERPO))
+            .andExpect(status().isOk());
+        verify(sesionService).iniciarSesion(any());
+    }
+
+    private boolean esperarLiberacion() {
+        try {
+            return liberar.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void esperarColaLlena() throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (((Number) hashContrasenas.obtenerEstado().get("enCola")).intValue() < 1) {
+            assertThat(System.nanoTime()).isLessThan(limite);
+            Thread.sleep(5);
+        }
+    }
+}
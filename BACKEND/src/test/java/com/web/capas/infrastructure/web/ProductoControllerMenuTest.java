@@ -0,0 +1,159 @@
+package com.web.capas.infrastructure.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.web.capas.application.service.CatalogoMenuCache;
+import com.web.capas.application.service.ProductoService;
+import com.web.capas.domain.dto.CatalogoMenu;
+import com.web.capas.domain.dto.CategoriaResponse;
+import com.web.capas.domain.dto.ProductoResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class ProductoControllerMenuTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final CatalogoMenuCache catalogoMenuCache = new CatalogoMenuCache(objectMapper);
+
+    @Mock
+    private ProductoService productoService;
+
+    @InjectMocks
+    private ProductoController productoController;
+
+    private MockMvc mockMvc;
+    private List<ProductoResponse> productos;
+
+    @BeforeEach
+    void configurar() {
+        productos = crearProductos(60);
+        when(productoService.obtenerCatalogoMenu()).thenAnswer(invocacion -> catalogoMenuCache.obtener(() -> productos));
+        mockMvc = MockMvcBuilders.standaloneSetup(productoController).build();
+    }
+
+    @Test
+    void sinGzipDevuelveElJsonSerializado() throws Exception {
+        MvcResult resultado = mockMvc.perform(get("/api/v1/menu/productos"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+            .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+            .andReturn();
+
+        assertThat(resultado.getResponse().getContentAsByteArray()).isEqualTo(objectMapper.writeValueAsBytes(productos));
+    }
+
+    @Test
+    void conGzipDevuelveLosMismosBytesComprimidos() throws Exception {
+        byte[] plano = mockMvc.perform(get("/api/v1/menu/productos"))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        MvcResult resultado = mockMvc.perform(get("/api/v1/menu/productos").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andReturn();
+
+        byte[] comprimido = resultado.getResponse().getContentAsByteArray();
+        assertThat(comprimido.length).isLessThan(plano.length);
+        assertThat(descomprimir(comprimido)).isEqualTo(plano);
+        assertThat(resultado.getResponse().getHeader(HttpHeaders.ETAG)).endsWith("-gzip\"");
+    }
+
+    @Test
+    void gzipConCalidadCeroNoSeUsa() throws Exception {
+        mockMvc.perform(get("/api/v1/menu/productos").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void ifNoneMatchConElEtagActualResponde304SinCuerpo() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/menu/productos").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        MvcResult resultado = mockMvc.perform(get("/api/v1/menu/productos")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, "W/" + etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andReturn();
+
+        assertThat(resultado.getResponse().getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void elEtagSoloCambiaSiCambiaElContenido() throws Exception {
+        CatalogoMenu inicial = productoService.obtenerCatalogoMenu();
+
+        catalogoMenuCache.invalidar();
+        CatalogoMenu reconstruido = productoService.obtenerCatalogoMenu();
+        assertThat(reconstruido).isNotSameAs(inicial);
+        assertThat(reconstruido.getEtag()).isEqualTo(inicial.getEtag());
+
+        productos.get(0).setStock(0);
+        catalogoMenuCache.invalidar();
+        assertThat(productoService.obtenerCatalogoMenu().getEtag()).isNotEqualTo(inicial.getEtag());
+
+        mockMvc.perform(get("/api/v1/menu/productos").header(HttpHeaders.IF_NONE_MATCH, inicial.getEtag()))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void filtroPorCategoriaUsaSuPropioCuerpo() throws Exception {
+        MvcResult resultado = mockMvc.perform(get("/api/v1/menu/productos").param("idCategoria", "2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        List<ProductoResponse> deLaCategoria = productos.stream()
+            .filter(producto -> producto.getCategoria().getIdCategoria() == 2)
+            .toList();
+        assertThat(resultado.getResponse().getContentAsByteArray()).isEqualTo(objectMapper.writeValueAsBytes(deLaCategoria));
+    }
+
+    private List<ProductoResponse> crearProductos(int cantidad) {
+        List<ProductoResponse> lista = new ArrayList<>();
+        for (int i = 1; i <= cantidad; i++) {
+            CategoriaResponse categoria = new CategoriaResponse();
+            categoria.setIdCategoria(i % 3 + 1);
+            categoria.setNombre("Categoría " + (i % 3 + 1));
+
+            ProductoResponse producto = new ProductoResponse();
+            producto.setIdProducto(i);
+            producto.setNombre("Producto " + i);
+            producto.setDescripcion("Descripción del producto " + i);
+            producto.setPrecio(new BigDecimal("12.50"));
+            producto.setEstado("activo");
+            producto.setStock(10);
+            producto.setCategoria(categoria);
+            lista.add(producto);
+        }
+        return lista;
+    }
+
+    private byte[] descomprimir(byte[] datos) throws IOException {
+        try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(datos))) {
+            return entrada.readAllBytes();
+        }
+    }
+}
@@ -16,6 +16,8 @@ export interface AuthResponse {
   message: string;
   data?: {
     token: string;
+    tokenRefresco?: string;
+    expiraEnSegundos?: number;
     idUsuario: number;
     nombre: string;
     apellido: string;
@@ -54,6 +54,7 @@ export class AuthService {
             this.currentUserSubject.next(user);
             localStorage.setItem('currentUser', JSON.stringify(user));
             localStorage.setItem('token', response.data.token);
+            localStorage.setItem('tokenRefresco', response.data.tokenRefresco || '');
           }
         }),
         catchError(error => {
@@ -83,6 +84,7 @@ export class AuthService {
             this.currentUserSubject.next(user);
             localStorage.setItem('currentUser', JSON.stringify(user));
             localStorage.setItem('token', response.data.token);
+            localStorage.setItem('tokenRefresco', response.data.tokenRefresco || '');
           }
         }),
         catchError(error => {
@@ -93,9 +95,16 @@ export class AuthService {
   }
 
   logout() {
+    // Invalida el token de refresco en el servidor; la sesión local se cierra sin esperar la respuesta
+    const tokenRefresco = localStorage.getItem('tokenRefresco');
+    if (tokenRefresco) {
+      this.http.post(`${this.configuracionService.getApiUrl()}/auth/cerrar-sesion`, { tokenRefresco })
+        .subscribe({ error: () => {} });
+    }
     this.currentUserSubject.next(null);
     localStorage.removeItem('currentUser');
     localStorage.removeItem('token');
+    localStorage.removeItem('tokenRefresco');
     this.router.navigate(['/login']);
   }
 
@@ -137,7 +146,15 @@ export class AuthService {
       idUsuario,
       contrasenaActual,
       nuevaContrasena
-    });
+    }).pipe(
+      // El cambio cierra las demás sesiones; esta sigue con los tokens nuevos
+      tap((response: any) => {
+        if (response && response.token) {
+          localStorage.setItem('token', response.token);
+          localStorage.setItem('tokenRefresco', response.tokenRefresco);
+        }
+      })
+    );
   }
 
   actualizarPerfil(idUsuario: number, datosPerfil: any): Observable<any> {
@@ -167,6 +184,7 @@ export class AuthService {
       this.currentUserSubject.next(user);
       localStorage.setItem('currentUser', JSON.stringify(user));
       localStorage.setItem('token', response.data.token);
+      localStorage.setItem('tokenRefresco', response.data.tokenRefresco || '');
       
       if (recordarUsuario) {
         localStorage.setItem('rememberUser', 'true');
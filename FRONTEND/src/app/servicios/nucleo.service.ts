@@ -1,40 +1,43 @@
 import { Injectable } from '@angular/core';
-import { HttpInterceptor, HttpRequest, HttpHandler, HttpEvent, HttpErrorResponse } from '@angular/common/http';
-import { Observable, catchError, throwError } from 'rxjs';
+import { HttpInterceptor, HttpRequest, HttpHandler, HttpEvent, HttpErrorResponse, HttpBackend, HttpClient } from '@angular/common/http';
+import { Observable, catchError, finalize, map, of, shareReplay, switchMap, throwError } from 'rxjs';
+import { AuthResponse } from '../modelos/usuario.model';
 
 @Injectable({
   providedIn: 'root'
 })
 export class NucleoService implements HttpInterceptor {
 
-  constructor() {}
+  // Sin interceptores: la renovación no debe volver a pasar por aquí
+  private httpSinInterceptores: HttpClient;
+  // Las peticiones que reciben 401 a la vez comparten una sola renovación
+  private renovacionEnCurso: Observable<string> | null = null;
 
-  intercept(request: HttpRequest<unknown>, next: HttpHandler): Observable<HttpEvent<unknown>> {
-    const token = localStorage.getItem('token');
-    
-    const headers: { [key: string]: string } = {
-      'Cache-Control': 'no-cache, no-store, must-revalidate',
-      'Pragma': 'no-cache',
-      'Expires': '0'
-    };
+  constructor(httpBackend: HttpBackend) {
+    this.httpSinInterceptores = new HttpClient(httpBackend);
+  }
 
+  intercept(request: HttpRequest<unknown>, next: HttpHandler): Observable<HttpEvent<unknown>> {
     const url = request.url || '';
     const esAuthPublico = url.includes('/api/auth/login') ||
       url.includes('/api/auth/registro') ||
       url.includes('/api/auth/recuperar-contrasena') ||
-      url.includes('/api/auth/restablecer-contrasena');
-
-    if (token && !esAuthPublico) {
-      headers['Authorization'] = `Bearer ${token}`;
-    }
+      url.includes('/api/auth/restablecer-contrasena') ||
+      url.includes('/api/auth/refrescar') ||
+      url.includes('/api/auth/cerrar-sesion');
 
-    const modifiedRequest = request.clone({
-      setHeaders: headers
-    });
+    const token = esAuthPublico ? null : localStorage.getItem('token');
 
-    return next.handle(modifiedRequest)
+    return next.handle(this.prepararPeticion(request, token))
       .pipe(
         catchError((error: HttpErrorResponse) => {
+          // El token de acceso dura pocos minutos: se renueva con el de refresco y se repite la petición una vez
+          if (error.status === 401 && !esAuthPublico && url.includes('/api/') && localStorage.getItem('tokenRefresco')) {
+            return this.renovarSesion(url).pipe(
+              switchMap(nuevoToken => next.handle(this.prepararPeticion(request, nuevoToken))),
+              catchError((errorReintento: HttpErrorResponse) => this.handleError(errorReintento))
+            );
+          }
           if (error.status >= 400) {
             return this.handleError(error);
           }
@@ -43,6 +46,50 @@ export class NucleoService implements HttpInterceptor {
       );
   }
 
+  private prepararPeticion(request: HttpRequest<unknown>, token: string | null): HttpRequest<unknown> {
+    const headers: { [key: string]: string } = {
+      'Cache-Control': 'no-cache, no-store, must-revalidate',
+      'Pragma': 'no-cache',
+      'Expires': '0'
+    };
+
+    if (token) {
+      headers['Authorization'] = `Bearer ${token}`;
+    }
+
+    return request.clone({
+      setHeaders: headers
+    });
+  }
+
+  private renovarSesion(url: string): Observable<string> {
+    if (!this.renovacionEnCurso) {
+      const tokenRefresco = localStorage.getItem('tokenRefresco');
+      const urlRefrescar = `${url.substring(0, url.indexOf('/api/'))}/api/auth/refrescar`;
+
+      this.renovacionEnCurso = this.httpSinInterceptores.post<AuthResponse>(urlRefrescar, { tokenRefresco })
+        .pipe(
+          map(response => {
+            localStorage.setItem('token', response.data!.token);
+            localStorage.setItem('tokenRefresco', response.data!.tokenRefresco!);
+            return response.data!.token;
+          }),
+          catchError((error: HttpErrorResponse) => {
+            // Otra pestaña pudo haber renovado con el mismo token de refresco: se usan los suyos
+            const tokenActual = localStorage.getItem('token');
+            if (tokenActual && localStorage.getItem('tokenRefresco') !== tokenRefresco) {
+              return of(tokenActual);
+            }
+            this.clearSession();
+            return throwError(() => error);
+          }),
+          finalize(() => this.renovacionEnCurso = null),
+          shareReplay(1)
+        );
+    }
+    return this.renovacionEnCurso;
+  }
+
   public handleError(error: HttpErrorResponse): Observable<never> {
     let errorMessage = 'Ocurrió un error desconocido en el lado del cliente.';
     
@@ -148,6 +195,7 @@ export class NucleoService implements HttpInterceptor {
 
   clearSession(): void {
     this.removeToken();
+    localStorage.removeItem('tokenRefresco');
     localStorage.removeItem('usuario');
     localStorage.removeItem('carrito');
   }